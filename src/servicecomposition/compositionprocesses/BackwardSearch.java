@@ -1,19 +1,38 @@
 package servicecomposition.compositionprocesses;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.FrontierCompletions;
+import servicecomposition.entities.ParameterDictionary;
 import servicecomposition.entities.SearchGraph;
 import servicecomposition.entities.SearchNode;
+import servicecomposition.utilities.SubsetIterator;
 
 /**
  * Class for extracting validated service plan sets from a search graph using the Backward Search algorithm.
+ * Outputs are compared as bit signatures of the parameter dictionary of the search graph, which is only read and never modified.
  * @author Jyotsana Gupta
  */
 public class BackwardSearch 
 {
+	//Maximum number of starting layer power set elements traversed by 1 parallel search task at a time
+	private static final int PARALLEL_CHUNK_SIZE = 16;
+	
 	/**
 	 * Method for performing a backward search on the search graph constructed by the forward expansion algorithm.
 	 * Its goal is to find all the validated sets of service search nodes (plan sets) that can be used to construct service plans.
@@ -25,27 +44,167 @@ public class BackwardSearch
 	{
 		List<Set<SearchNode>> allValidPlanSets = new ArrayList<Set<SearchNode>>();
 		
+		//Requested outputs unknown to the dictionary are not produced by any service, hence no plan set can be valid in that case
+		ParameterDictionary dictionary = searchGraph.getParameterDictionary();
+		if (!dictionary.containsAll(compositionReq.getOutputs()))
+		{
+			return allValidPlanSets;
+		}
+		long[] compReqOutputs = dictionary.encodeKnown(compositionReq.getOutputs());
+		
 		//Invoking backward search for all the service layers of the search graph
 		//Each iteration uses a different layer as the starting layer
-		for (int i = searchGraph.getServiceLayers().size() - 1; i >= 0; i--)
+		for (int i = searchGraph.getServiceLayerCount() - 1; i >= 0; i--)
 		{
-			List<SearchNode> startingLayer = searchGraph.getServiceLayer(i);
+			List<SearchNode> startingLayer = searchGraph.getServiceLayerView(i);
 			Set<SearchNode> serviceSet = new HashSet<SearchNode>(startingLayer);
 			Set<SearchNode> branchPlanSet = new HashSet<SearchNode>();
 			List<Set<SearchNode>> validPlanSets = new ArrayList<Set<SearchNode>>();
 			
-			depthFirstTraversal(serviceSet, compositionReq, i, true, branchPlanSet, validPlanSets);
+			depthFirstTraversal(serviceSet, compReqOutputs, dictionary, i, true, branchPlanSet, validPlanSets);
 			allValidPlanSets.addAll(validPlanSets);
 		}
 		
 		return allValidPlanSets;
 	}
 	
+	/**
+	 * Method for performing a memoized backward search in parallel on a fork/join pool.
+	 * The elements of the power set of every starting layer are handed out lazily, in chunks, to as many tasks as the parallelism level.
+	 * Hence, only the chunks being traversed are held in memory. All the tasks share the cache of frontier completions (see PlanSetIterator).
+	 * The plan sets of every chunk are concatenated in chunk order once all the tasks complete.
+	 * Hence, the plan sets are the same as those of memoizedBackwardSearch(), in the same order, irrespective of the parallelism level.
+	 * Every search creates its own pool, which is shut down once the search completes, so that no threads outlive the search.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @param 	parallelism		Maximum number of threads used for the search
+	 * @return	List of all validated plan sets
+	 * @throws	IllegalArgumentException	If the parallelism level is less than 1
+	 */
+	public static List<Set<SearchNode>> parallelBackwardSearch(CompositionRequest compositionReq, SearchGraph searchGraph, int parallelism)
+	{
+		if (parallelism < 1)
+		{
+			throw new IllegalArgumentException("Parallelism level of the backward search must be at least 1, but was " + parallelism + ".");
+		}
+		
+		List<Map<Set<SearchNode>, FrontierCompletions>> completionCache = PlanSetIterator.createSharedCompletionCache(searchGraph);
+		SubsetChunkSource chunkSource = new SubsetChunkSource(searchGraph);
+		Map<Integer, List<Set<SearchNode>>> chunkPlanSets = new ConcurrentHashMap<Integer, List<Set<SearchNode>>>();
+		List<Callable<Void>> searchTasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < parallelism; i++)
+		{
+			searchTasks.add(createSearchTask(chunkSource, compositionReq, searchGraph, completionCache, chunkPlanSets));
+		}
+		
+		ForkJoinPool searchPool = new ForkJoinPool(parallelism);
+		try
+		{
+			for (Future<Void> taskResult : searchPool.invokeAll(searchTasks))
+			{
+				taskResult.get();
+			}
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Parallel backward search was interrupted.", ie);
+		}
+		catch (ExecutionException ee)
+		{
+			throw new IllegalStateException("Parallel backward search failed.", ee.getCause());
+		}
+		finally
+		{
+			searchPool.shutdown();
+		}
+		
+		//Collecting the plan sets of all the chunks in chunk order
+		List<Set<SearchNode>> allValidPlanSets = new ArrayList<Set<SearchNode>>();
+		for (int chunkIndex = 0; chunkIndex < chunkPlanSets.size(); chunkIndex++)
+		{
+			allValidPlanSets.addAll(chunkPlanSets.get(chunkIndex));
+		}
+		
+		return allValidPlanSets;
+	}
+	
+	/**
+	 * Method for creating a task that traverses chunks of power set elements of the starting layers until none are left.
+	 * @param 	chunkSource			Source of the chunks of power set elements
+	 * @param 	compositionReq		Service composition request from the user
+	 * @param 	searchGraph			Search graph constructed by the forward expansion algorithm
+	 * @param 	completionCache		Cache of frontier completions shared by all the tasks
+	 * @param 	chunkPlanSets		Valid plan sets of every traversed chunk mapped to the chunk index, populated by the task
+	 * @return	Task traversing the chunks
+	 */
+	private static Callable<Void> createSearchTask(SubsetChunkSource chunkSource, CompositionRequest compositionReq, SearchGraph searchGraph,
+													List<Map<Set<SearchNode>, FrontierCompletions>> completionCache, 
+													Map<Integer, List<Set<SearchNode>>> chunkPlanSets)
+	{
+		return () ->
+		{
+			List<Set<SearchNode>> subsetChunk = new ArrayList<Set<SearchNode>>();
+			int[] chunkPosition = chunkSource.nextChunk(subsetChunk);
+			while (chunkPosition != null)
+			{
+				List<Set<SearchNode>> validPlanSets = new ArrayList<Set<SearchNode>>();
+				Iterator<Set<SearchNode>> planSets = new PlanSetIterator(compositionReq, searchGraph, chunkPosition[1], subsetChunk.iterator(), completionCache);
+				while (planSets.hasNext())
+				{
+					validPlanSets.add(planSets.next());
+				}
+				chunkPlanSets.put(chunkPosition[0], validPlanSets);
+				
+				subsetChunk = new ArrayList<Set<SearchNode>>();
+				chunkPosition = chunkSource.nextChunk(subsetChunk);
+			}
+			
+			return null;
+		};
+	}
+	
+	/**
+	 * Method for performing a memoized backward search on the search graph constructed by the forward expansion algorithm.
+	 * It returns the same plan sets as backwardSearch(), generally in the same order.
+	 * The order can differ only where equal frontier sets iterate their search nodes differently (i.e. on hash collisions).
+	 * The completions of every predecessor frontier are computed once and shared across all the branches (see PlanSetIterator).
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @return	List of all validated plan sets
+	 */
+	public static List<Set<SearchNode>> memoizedBackwardSearch(CompositionRequest compositionReq, SearchGraph searchGraph)
+	{
+		List<Set<SearchNode>> allValidPlanSets = new ArrayList<Set<SearchNode>>();
+		Iterator<Set<SearchNode>> planSets = new PlanSetIterator(compositionReq, searchGraph);
+		while (planSets.hasNext())
+		{
+			allValidPlanSets.add(planSets.next());
+		}
+		
+		return allValidPlanSets;
+	}
+	
+	/**
+	 * Method for performing a lazy memoized backward search on the search graph constructed by the forward expansion algorithm.
+	 * Plan sets are the same as those of memoizedBackwardSearch(), generated one at a time as the stream is consumed.
+	 * Hence, consumers that need only the first few plan sets do not pay for the traversal of the remaining branches.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @return	Sequential stream of validated plan sets
+	 */
+	public static Stream<Set<SearchNode>> streamBackwardSearch(CompositionRequest compositionReq, SearchGraph searchGraph)
+	{
+		Iterator<Set<SearchNode>> planSets = new PlanSetIterator(compositionReq, searchGraph);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(planSets, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+	
 	/**
 	 * Creates service power sets and processes their elements using depth-first search mechanism.
 	 * Processing starts at the given layer and proceeds down to the first layer in the search graph.
 	 * @param 	serviceSet			Set of services whose power set will be constructed and processed
-	 * @param 	compositionReq		Service composition request from the user
+	 * @param 	compReqOutputs		Signature of the outputs of the composition request
+	 * @param 	dictionary			Parameter dictionary of the search graph
 	 * @param 	currentLayerIndex	Index of the service layer currently being processed
 	 * @param	isStartingLayer		true, if the current layer is the starting layer (i.e. method is called by backwardSearch())
 	 * 								false, if the current layer is not the starting layer (i.e. method is called recursively)
@@ -53,137 +212,157 @@ public class BackwardSearch
 	 * 								It is constructed as the traversal progresses.
 	 * @param 	allValidPlanSets	List of all branch plan sets that are complete and successfully validated in this entire traversal
 	 */
-	private static void depthFirstTraversal(Set<SearchNode> serviceSet, CompositionRequest compositionReq, 
+	private static void depthFirstTraversal(Set<SearchNode> serviceSet, long[] compReqOutputs, ParameterDictionary dictionary, 
 											int currentLayerIndex, boolean isStartingLayer, 
 											Set<SearchNode> branchPlanSet, List<Set<SearchNode>> allValidPlanSets)
 	{
-		//Creating the power set of the input service set
-		Set<Set<SearchNode>> planPowerSet = getPowerSet(serviceSet);
+		//Generating the elements of the power set of the input service set one at a time
+		//The null set element of the power set is never generated
+		Iterator<Set<SearchNode>> planSubsets = new SubsetIterator<SearchNode>(serviceSet);
 		
 		//Processing each element of the power set
-		for (Set<SearchNode> planSet : planPowerSet)
+		while (planSubsets.hasNext())
+		{
+			//The plan set is updated in place by the subset iterator, so it is only read here and never stored
+			processPlanSet(planSubsets.next(), compReqOutputs, dictionary, currentLayerIndex, isStartingLayer, branchPlanSet, allValidPlanSets);
+		}
+	}
+	
+	/**
+	 * Processes 1 element of a service power set using depth-first search mechanism.
+	 * The element is added to the current branch, which is then either extended with the predecessors of the element 
+	 * or, if the first layer of the search graph has been reached, validated.
+	 * @param 	planSet				Element of the power set being processed
+	 * @param 	compReqOutputs		Signature of the outputs of the composition request
+	 * @param 	dictionary			Parameter dictionary of the search graph
+	 * @param 	currentLayerIndex	Index of the service layer currently being processed
+	 * @param	isStartingLayer		true, if the current layer is the starting layer
+	 * 								false, otherwise
+	 * @param 	branchPlanSet		Set of search nodes that together constitute 1 branch of this depth-first traversal
+	 * @param 	allValidPlanSets	List of all branch plan sets that are complete and successfully validated in this entire traversal
+	 */
+	private static void processPlanSet(Set<SearchNode> planSet, long[] compReqOutputs, ParameterDictionary dictionary, 
+										int currentLayerIndex, boolean isStartingLayer, 
+										Set<SearchNode> branchPlanSet, List<Set<SearchNode>> allValidPlanSets)
+	{
+		//Checking if the current plan set generates at least 1 output from the composition request
+		//This check needs to be done only for the starting layer
+		if (isStartingLayer)
 		{
-			//Ignoring the null set element of the power set
-			if(planSet.size() > 0)
+			if (!(ParameterDictionary.intersects(getOutputs(planSet, dictionary), compReqOutputs)))
 			{
-				//Checking if the current plan set generates at least 1 output from the composition request
-				//This check needs to be done only for the starting layer
-				if (isStartingLayer)
-				{
-					boolean outputVerified = false;
-					List<String> planSetOutputs = new ArrayList<String>();
-					for (SearchNode searchNode : planSet)
-					{
-						planSetOutputs.addAll(searchNode.getService().getOutput());
-					}
-					for (String reqOutput : compositionReq.getOutputs())
-					{
-						if (planSetOutputs.contains(reqOutput))
-						{
-							outputVerified = true;
-							break;
-						}
-					}
-					if (!outputVerified)
-					{
-						continue;
-					}
-				}
-				
-				//Adding the current plan set to the plan set constructed until the next higher layer 
-				//for collecting all the services that constitute the current branch of traversal
-				Set<SearchNode> extendedBranchPlanSet = new HashSet<SearchNode>();
-				extendedBranchPlanSet.addAll(branchPlanSet);
-				extendedBranchPlanSet.addAll(planSet);
-				
-				if (currentLayerIndex > 0)
-				{
-					//Creating a set of predecessors of each service in the plan set
-					//These predecessors must belong to the layer immediately preceding the current layer
-					int previousLayerIndex = currentLayerIndex - 1;
-					Set<SearchNode> preSet = new HashSet<SearchNode>();
-					for (SearchNode searchNode : planSet)
-					{
-						List<SearchNode> predecessors = searchNode.getPredecessors();
-						for (SearchNode predecessor : predecessors)
-						{
-							if (predecessor.getLayerIndex() == previousLayerIndex)
-							{
-								preSet.add(predecessor);
-							}
-						}
-					}
-					
-					//Invoking depth-first creation and traversal of power sets on the current predecessor set
-					depthFirstTraversal(preSet, compositionReq, previousLayerIndex, false, extendedBranchPlanSet, allValidPlanSets);
-				}
-				else
+				return;
+			}
+		}
+		
+		//Adding the current plan set to the plan set constructed until the next higher layer 
+		//for collecting all the services that constitute the current branch of traversal
+		Set<SearchNode> extendedBranchPlanSet = new HashSet<SearchNode>();
+		extendedBranchPlanSet.addAll(branchPlanSet);
+		extendedBranchPlanSet.addAll(planSet);
+		
+		if (currentLayerIndex > 0)
+		{
+			//Creating a set of predecessors of each service in the plan set
+			//These predecessors must belong to the layer immediately preceding the current layer
+			int previousLayerIndex = currentLayerIndex - 1;
+			Set<SearchNode> preSet = new HashSet<SearchNode>();
+			for (SearchNode searchNode : planSet)
+			{
+				List<SearchNode> predecessors = searchNode.getPredecessorView();
+				for (SearchNode predecessor : predecessors)
 				{
-					//Creating a list of all the outputs generated by the current branch's services
-					List<String> planSetOutputs = new ArrayList<String>();
-					for (SearchNode searchNode : extendedBranchPlanSet)
-					{
-						planSetOutputs.addAll(searchNode.getService().getOutput());
-					}
-					
-					//Checking if the current branch generates all the requested outputs
-					boolean isPlanSetValid = true;
-					for (String reqOutput : compositionReq.getOutputs())
-					{
-						if (!(planSetOutputs.contains(reqOutput)))
-						{
-							isPlanSetValid = false;
-							break;
-						}
-					}
-					
-					//If the current plan set is validated successfully and if it contains more than 1 service,
-					//it is added to the list of valid plan sets
-					if ((isPlanSetValid) && (extendedBranchPlanSet.size() > 1))
+					if (predecessor.getLayerIndex() == previousLayerIndex)
 					{
-						allValidPlanSets.add(extendedBranchPlanSet);
+						preSet.add(predecessor);
 					}
 				}
 			}
+			
+			//Invoking depth-first creation and traversal of power sets on the current predecessor set
+			depthFirstTraversal(preSet, compReqOutputs, dictionary, previousLayerIndex, false, extendedBranchPlanSet, allValidPlanSets);
+		}
+		else
+		{
+			//Checking if the current branch generates all the requested outputs
+			boolean isPlanSetValid = ParameterDictionary.containsAll(getOutputs(extendedBranchPlanSet, dictionary), compReqOutputs);
+			
+			//If the current plan set is validated successfully and if it contains more than 1 service,
+			//it is added to the list of valid plan sets
+			if ((isPlanSetValid) && (extendedBranchPlanSet.size() > 1))
+			{
+				allValidPlanSets.add(extendedBranchPlanSet);
+			}
 		}
 	}
 	
 	/**
-	 * Method for creating the power set of a given set (in this case, a set of services/search nodes).
-	 * @param 	serviceSet	The service set whose power set needs to be constructed
-	 * @return	Power set of the given set of services/search nodes
+	 * Method for creating the signature of all the outputs generated by a set of search nodes.
+	 * @param 	planSet		Set of search nodes
+	 * @param 	dictionary	Parameter dictionary of the search graph
+	 * @return	Signature of the outputs of the search nodes
 	 */
-	private static Set<Set<SearchNode>> getPowerSet(Set<SearchNode> serviceSet)
+	private static long[] getOutputs(Set<SearchNode> planSet, ParameterDictionary dictionary)
 	{
-		//Calculating the number of elements in the power set
-		Set<Set<SearchNode>> powerSet = new HashSet<Set<SearchNode>>();
-		List<SearchNode> serviceList = new ArrayList<SearchNode>(serviceSet);
-		int setElemCount = serviceList.size();
-		int powerSetElemCount = (int) Math.pow(2, setElemCount);		
-				
-		for (int i = 0; i < powerSetElemCount; i++)
+		long[] planSetOutputs = dictionary.createSignature();
+		for (SearchNode searchNode : planSet)
 		{
-			//Translating each number from 0 to (power set size - 1) into binary numbers left-padded with 0's
-			//Length of each binary number = size of the original set
-			String binaryString = Integer.toBinaryString(i);
-			binaryString = String.format("%0" + setElemCount + "d", Integer.parseInt(binaryString));			
-			Set<SearchNode> powerSetElem = new HashSet<SearchNode>();
-			
-			//Each binary number represents an element of the power set
-			//Positions of 1 in a binary number represents the indices of the original 
-			//set elements to be added to the corresponding power set element
-			for (int j = 0; j < binaryString.length(); j++)
+			ParameterDictionary.addAll(planSetOutputs, dictionary.getSignature(searchNode.getService()).getOutputs());
+		}
+		
+		return planSetOutputs;
+	}
+	
+	/**
+	 * Class handing out the elements of the power sets of all the starting layers to parallel search tasks, one chunk at a time.
+	 * Starting layers are handed out from the topmost layer down, and their power set elements in the order of the subset iterator.
+	 */
+	private static class SubsetChunkSource
+	{
+		private SearchGraph searchGraph;
+		private int layerIndex;
+		private Iterator<Set<SearchNode>> layerSubsets;
+		private int chunkCount;
+		
+		/**
+		 * Parameterized constructor.
+		 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+		 */
+		private SubsetChunkSource(SearchGraph searchGraph)
+		{
+			this.searchGraph = searchGraph;
+			this.layerIndex = searchGraph.getServiceLayerCount();
+			this.layerSubsets = Collections.emptyIterator();
+			this.chunkCount = 0;
+		}
+		
+		/**
+		 * Method for fetching the next chunk of power set elements.
+		 * @param 	subsetChunk		Empty list, populated with copies of the power set elements of the chunk
+		 * @return	Index of the chunk and index of its starting layer
+		 * 			Null, if the power sets of all the starting layers have been handed out
+		 */
+		private synchronized int[] nextChunk(List<Set<SearchNode>> subsetChunk)
+		{
+			while (!layerSubsets.hasNext())
 			{
-				if (binaryString.charAt(j) == '1')
+				layerIndex--;
+				if (layerIndex < 0)
 				{
-					powerSetElem.add(serviceList.get(j));
+					return null;
 				}
+				layerSubsets = new SubsetIterator<SearchNode>(new HashSet<SearchNode>(searchGraph.getServiceLayerView(layerIndex)));
 			}
 			
-			//Adding the set constructed above to the power set
-			powerSet.add(powerSetElem);
+			//Subsets are copied because the subset iterator updates the same set in place
+			while ((layerSubsets.hasNext()) && (subsetChunk.size() < PARALLEL_CHUNK_SIZE))
+			{
+				subsetChunk.add(new HashSet<SearchNode>(layerSubsets.next()));
+			}
+			
+			int[] chunkPosition = {chunkCount, layerIndex};
+			chunkCount++;
+			return chunkPosition;
 		}
-				
-		return powerSet;
 	}
 }
\ No newline at end of file
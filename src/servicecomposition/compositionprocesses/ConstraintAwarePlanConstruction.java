@@ -2,8 +2,10 @@ package servicecomposition.compositionprocesses;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 import servicecomposition.entities.CompositionPlan;
 import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.entities.ParameterDictionary;
 import servicecomposition.entities.SearchNode;
 import servicecomposition.entities.ServiceNode;
 
@@ -21,43 +23,78 @@ public class ConstraintAwarePlanConstruction
 	 * @return	List of the adjusted constraint-aware plans
 	 */
 	public static List<ConstraintAwarePlan> constructCAPlans(List<CompositionPlan> plans)
+	{
+		return constructCAPlans(plans, new ParameterDictionary());
+	}
+	
+	/**
+	 * Method for constructing constraint-aware plans from simple composition plans, 
+	 * comparing service effects using the parameter dictionary of the search graph that the plans were constructed from.
+	 * @param 	plans		List of simple composition plans that need to be converted into constraint-aware plans
+	 * @param 	dictionary	Parameter dictionary of the search graph
+	 * @return	List of the adjusted constraint-aware plans
+	 */
+	public static List<ConstraintAwarePlan> constructCAPlans(List<CompositionPlan> plans, ParameterDictionary dictionary)
 	{
 		List<ConstraintAwarePlan> cnstrAwrPlans = new ArrayList<ConstraintAwarePlan>();
 		
 		for (CompositionPlan plan : plans)
 		{
-			//Constructing constraint-aware plans with empty service layers
-			int planLayerCount = plan.getServiceLayers().size();
-			ConstraintAwarePlan cnstrAwrPlan = new ConstraintAwarePlan(planLayerCount);			
-			
-			for (List<SearchNode> serviceLayer : plan.getServiceLayers())
-			{
-				for (SearchNode searchNode : serviceLayer)
-				{
-					//Creating a service node for every search node in the current composition plan
-					ServiceNode serviceNode = new ServiceNode(searchNode.getService(), searchNode.getLayerIndex());
-					
-					//Adding the service node created to the current constraint-aware plan
-					cnstrAwrPlan.addServiceNode(serviceNode);
-					
-					//Assigning predecessor and successor nodes to the current constraint-aware plan's nodes
-					assignPredsSuccs(searchNode, serviceNode, cnstrAwrPlan);
-				}
-			}
-			
-			//Removing empty layers (if any) from the current constraint-aware plan
-			cnstrAwrPlan.removeEmptyLayers();
-			
-			//Adjusting constraints in the current constraint-aware plan
-			cnstrAwrPlan.adjustConstraints();
-			
 			//Adding the current constraint-aware plan to the list of plans to be returned
-			cnstrAwrPlans.add(cnstrAwrPlan);
+			cnstrAwrPlans.add(constructCAPlan(plan, dictionary));
 		}
 		
 		return cnstrAwrPlans;
 	}
 	
+	/**
+	 * Method for lazily constructing constraint-aware plans from a stream of simple composition plans.
+	 * Each plan is converted and its constraints are adjusted only when the next plan is requested from the returned stream.
+	 * @param 	plans		Stream of simple composition plans that need to be converted into constraint-aware plans
+	 * @param 	dictionary	Parameter dictionary of the search graph that the plans were constructed from
+	 * @return	Stream of the adjusted constraint-aware plans
+	 */
+	public static Stream<ConstraintAwarePlan> streamCAPlans(Stream<CompositionPlan> plans, ParameterDictionary dictionary)
+	{
+		return plans.map(plan -> constructCAPlan(plan, dictionary));
+	}
+	
+	/**
+	 * Method for constructing a constraint-aware plan from a simple composition plan and adjusting its constraints.
+	 * @param 	plan		Simple composition plan that needs to be converted into a constraint-aware plan
+	 * @param 	dictionary	Parameter dictionary used for comparing the effects of the plan services
+	 * @return	Adjusted constraint-aware plan
+	 */
+	private static ConstraintAwarePlan constructCAPlan(CompositionPlan plan, ParameterDictionary dictionary)
+	{
+		//Constructing a constraint-aware plan with empty service layers
+		int planLayerCount = plan.getServiceLayers().size();
+		ConstraintAwarePlan cnstrAwrPlan = new ConstraintAwarePlan(planLayerCount);			
+		
+		for (List<SearchNode> serviceLayer : plan.getServiceLayers())
+		{
+			for (SearchNode searchNode : serviceLayer)
+			{
+				//Creating a service node for every search node in the composition plan
+				ServiceNode serviceNode = new ServiceNode(searchNode.getService(), searchNode.getLayerIndex());
+				
+				//Adding the service node created to the constraint-aware plan
+				cnstrAwrPlan.addServiceNode(serviceNode);
+				
+				//Assigning predecessor and successor nodes to the constraint-aware plan's nodes
+				assignPredsSuccs(searchNode, serviceNode, cnstrAwrPlan);
+			}
+		}
+		
+		//Removing empty layers (if any) from the constraint-aware plan
+		cnstrAwrPlan.removeEmptyLayers();
+		
+		//Adjusting constraints in the constraint-aware plan
+		cnstrAwrPlan.adjustConstraints(dictionary);
+		
+		return cnstrAwrPlan;
+	}
+	
 	/**
 	 * Method for assigning predecessors and successors to constraint-aware plan service nodes.
 	 * @param 	searchNode		Search node corresponding to the service node to which predecessors need to be assigned
@@ -66,7 +103,7 @@ public class ConstraintAwarePlanConstruction
 	 */
 	private static void assignPredsSuccs(SearchNode searchNode, ServiceNode serviceNode, ConstraintAwarePlan cnstrAwrPlan)
 	{
-		for (SearchNode predecessor : searchNode.getPredecessors())
+		for (SearchNode predecessor : searchNode.getPredecessorView())
 		{
 			//Check if the current predecessor of the given search node exists in the given constraint-aware plan
 			int predLayerIndex = predecessor.getLayerIndex();
@@ -1,10 +1,12 @@
 package servicecomposition.compositionprocesses;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.ParameterDictionary;
 import servicecomposition.entities.SearchGraph;
 import servicecomposition.entities.SearchNode;
 import service.Service;
@@ -28,7 +30,6 @@ public class ForwardExpansion
 		//Initialize the parameter set of the search graph with the inputs required in the composition request
 		Set<String> prdSet = new HashSet<String>(compositionReq.getInputs());
 		boolean serviceAdded = false;
-		boolean problemSolvable = true;
 		
 		//Repeatedly loop through the service repository until no more services can be added to the search graph
 		do
@@ -92,44 +93,205 @@ public class ForwardExpansion
 		} while(serviceAdded);
 		
 		//Validating the search graph
-		if (searchGraph.getServiceLayers().isEmpty())				//In case the request inputs also contain the request outputs
+		if (validateSearchGraph(searchGraph, prdSet.containsAll(compositionReq.getOutputs())))
 		{
-			problemSolvable = false;
+			return searchGraph;
 		}
 		else
 		{
-			//Checking if the request can be served by a single service
-			int graphSvcCount = 0;
-			for (List<SearchNode> svcLayer : searchGraph.getServiceLayers())
+			return null;
+		}
+	}
+	
+	/**
+	 * Uses an inverted parameter index to create the same search graph as forwardExpansion() without rescanning the whole repository for every layer.
+	 * Every service keeps a count of its inputs that are not yet present in the parameter set. Whenever a new parameter is produced,
+	 * only the services consuming it are visited and their counts are decremented. A service becomes a candidate for the next layer
+	 * as soon as its last missing input is produced. Candidates of a layer are added in repository order so that the resulting
+	 * search graph is identical to the one built by forwardExpansion().
+	 * Parameters are interned to integer IDs upfront, so the parameter set is a bit signature and the index is looked up by ID.
+	 * The parameter dictionary is handed over to the search graph for use by the later composition phases.
+	 * @param	compositionReq	Service composition request by the user
+	 * @param	serviceRepo		List of all available services (individual and composite) in the service repository
+	 * @return	Search graph composed of all possible solution plans for the composition request submitted
+	 * 			Null, if no possible solutions exist
+	 */
+	public static SearchGraph indexedForwardExpansion(CompositionRequest compositionReq, ArrayList<Service> serviceRepo)
+	{
+		SearchGraph searchGraph = expandSearchGraph(compositionReq.getInputs(), serviceRepo);
+		
+		//Validating the search graph
+		if (servesRequest(compositionReq, searchGraph))
+		{
+			return searchGraph;
+		}
+		else
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Method for creating the search graph of indexedForwardExpansion() for a set of inputs without validating it against any requested outputs.
+	 * The graph depends only on the set of inputs, hence it can be shared by all the composition requests having the same inputs,
+	 * each of which is then validated using servesRequest().
+	 * @param	inputs			Inputs provided in the composition request
+	 * @param	serviceRepo		List of all available services (individual and composite) in the service repository
+	 * @return	Search graph of all the services that can be invoked using the inputs (can be empty)
+	 */
+	public static SearchGraph expandSearchGraph(List<String> inputs, ArrayList<Service> serviceRepo)
+	{
+		ParameterDictionary dictionary = new ParameterDictionary(serviceRepo);
+		long[] reqInputs = dictionary.encode(inputs);
+		SearchGraph searchGraph = new SearchGraph(dictionary);
+		int repoSize = serviceRepo.size();
+		
+		//Initialize the parameter set of the search graph with the inputs required in the composition request
+		//No more parameters are interned from here on, so the signature can hold every parameter
+		long[] prdSet = dictionary.createSignature();
+		ParameterDictionary.addAll(prdSet, reqInputs);
+		
+		//Building the index from every parameter ID to the repository positions of the services consuming it
+		//along with the number of distinct inputs of every service missing from the initial parameter set
+		List<List<Integer>> consumerIndex = new ArrayList<List<Integer>>(Collections.nCopies(dictionary.size(), (List<Integer>) null));
+		int[] missingInputCounts = new int[repoSize];
+		List<Integer> candidates = new ArrayList<Integer>();
+		for (int i = 0; i < repoSize; i++)
+		{
+			for (int inputId : dictionary.getSignature(serviceRepo.get(i)).getInputIds())
 			{
-				graphSvcCount += svcLayer.size();
+				if (!(ParameterDictionary.contains(prdSet, inputId)))
+				{
+					List<Integer> consumers = consumerIndex.get(inputId);
+					if (consumers == null)
+					{
+						consumers = new ArrayList<Integer>();
+						consumerIndex.set(inputId, consumers);
+					}
+					consumers.add(i);
+					missingInputCounts[i]++;
+				}
 			}
 			
-			if (graphSvcCount <= 1)
+			//Services with all their inputs present in the composition request are candidates for the first layer
+			if (missingInputCounts[i] == 0)
 			{
-				problemSolvable = false;
+				candidates.add(i);
 			}
-			else
+		}
+		
+		//Processing the candidates layer by layer until no more services can be added to the search graph
+		while (!candidates.isEmpty())
+		{
+			//Candidates are checked in repository order to preserve the node order of forwardExpansion()
+			Collections.sort(candidates);
+			List<Service> addedLayerServices = new ArrayList<Service>();
+			for (int candidate : candidates)
 			{
-				//Checking if every request output is generated by the search graph
-				for (String requestOutput : compositionReq.getOutputs())
+				//The outputs of the candidate should have at least one additional parameter compared to the current parameter set
+				//A candidate failing this check can never be added later because the parameter set only grows
+				Service service = serviceRepo.get(candidate);
+				if (!(ParameterDictionary.containsAll(prdSet, dictionary.getSignature(service).getOutputs())))
 				{
-					if (!(prdSet.contains(requestOutput)))
+					searchGraph.addService(service);
+					addedLayerServices.add(service);
+				}
+			}
+			
+			//Adding the new outputs of the added services to the parameter set and collecting 
+			//the services whose last missing input has just been produced as the next candidates
+			List<Integer> nextCandidates = new ArrayList<Integer>();
+			for (Service addedService : addedLayerServices)
+			{
+				for (int outputId : dictionary.getSignature(addedService).getOutputIds())
+				{
+					if (ParameterDictionary.add(prdSet, outputId))
 					{
-						problemSolvable = false;
-						break;
+						List<Integer> consumers = consumerIndex.get(outputId);
+						if (consumers != null)
+						{
+							for (int consumer : consumers)
+							{
+								missingInputCounts[consumer]--;
+								if (missingInputCounts[consumer] == 0)
+								{
+									nextCandidates.add(consumer);
+								}
+							}
+						}
 					}
 				}
 			}
+			candidates = nextCandidates;
 		}
-				
-		if (problemSolvable)
+		
+		return searchGraph;
+	}
+	
+	/**
+	 * Method for validating that a search graph created by expandSearchGraph() can serve a composition request having the same inputs.
+	 * The search graph is not modified, hence a frozen graph can be validated for several requests concurrently.
+	 * @param	compositionReq	Service composition request by the user
+	 * @param	searchGraph		Search graph created for the inputs of the composition request
+	 * @return	true, if the search graph contains more than 1 service and produces all the requested outputs
+	 * 			false, otherwise
+	 */
+	public static boolean servesRequest(CompositionRequest compositionReq, SearchGraph searchGraph)
+	{
+		//The request inputs are interned while expanding the graph, hence requested outputs unknown to its dictionary cannot be produced
+		ParameterDictionary dictionary = searchGraph.getParameterDictionary();
+		if (!(dictionary.containsAll(compositionReq.getOutputs())))
 		{
-			return searchGraph;
+			return validateSearchGraph(searchGraph, false);
+		}
+		
+		//The parameter set of the search graph consists of the request inputs and the outputs of all its services
+		long[] prdSet = dictionary.encodeKnown(compositionReq.getInputs());
+		for (List<SearchNode> svcLayer : searchGraph.getServiceLayersView())
+		{
+			for (SearchNode searchNode : svcLayer)
+			{
+				ParameterDictionary.addAll(prdSet, dictionary.getSignature(searchNode.getService()).getOutputs());
+			}
+		}
+		
+		return validateSearchGraph(searchGraph, ParameterDictionary.containsAll(prdSet, dictionary.encodeKnown(compositionReq.getOutputs())));
+	}
+	
+	/**
+	 * Method for validating that a search graph created by forward expansion can serve the composition request.
+	 * @param	searchGraph			Search graph created by forward expansion
+	 * @param	outputsProduced		true, if every requested output is produced by the search graph or is a composition request input
+	 * @return	true, if the search graph contains more than 1 service and produces all the requested outputs
+	 * 			false, otherwise
+	 */
+	private static boolean validateSearchGraph(SearchGraph searchGraph, boolean outputsProduced)
+	{
+		boolean problemSolvable = true;
+		if (searchGraph.getServiceLayerCount() == 0)				//In case the request inputs also contain the request outputs
+		{
+			problemSolvable = false;
 		}
 		else
 		{
-			return null;
+			//Checking if the request can be served by a single service
+			int graphSvcCount = 0;
+			for (List<SearchNode> svcLayer : searchGraph.getServiceLayersView())
+			{
+				graphSvcCount += svcLayer.size();
+			}
+			
+			if (graphSvcCount <= 1)
+			{
+				problemSolvable = false;
+			}
+			else
+			{
+				//Checking if every request output is generated by the search graph
+				problemSolvable = outputsProduced;
+			}
 		}
+				
+		return problemSolvable;
 	}
 }
\ No newline at end of file
@@ -2,15 +2,21 @@ package servicecomposition.compositionprocesses;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 import servicecomposition.entities.CompositionPlan;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.ParameterDictionary;
+import servicecomposition.entities.PlanSignature;
 import servicecomposition.entities.SearchNode;
 
 /**
  * Class for constructing composition plans from the plan sets generated by the Backward Search algorithm.
  * This algorithm also validates the plans, deletes the invalid services and removes invalid and duplicate plans.   
+ * Inputs and outputs are compared as bit signatures of the parameter dictionary of the search graph that the plan sets belong to.
  * @author Jyotsana Gupta
  */
 public class PlanConstruction 
@@ -18,47 +24,157 @@ public class PlanConstruction
 	/**
 	 * Method for constructing composition plans from the plan sets generated by the backward search algorithm.
 	 * Construction also includes validation and pruning stages.
+	 * Plan set services are interned into a parameter dictionary of their own, as the search graph of the plan sets is not known.
 	 * @param 	compositionReq	Service composition request from the user
 	 * @param 	planSets		Sets of search nodes that would constitute composition plans
 	 * @return	List of validated and pruned composition plans
 	 */
 	public static List<CompositionPlan> constructPlans(CompositionRequest compositionReq, List<Set<SearchNode>> planSets)
+	{
+		return constructPlans(compositionReq, planSets, new ParameterDictionary());
+	}
+	
+	/**
+	 * Method for constructing composition plans from the plan sets generated by the backward search algorithm,
+	 * using the parameter dictionary of the search graph so that the signatures computed during forward expansion are reused.
+	 * Construction also includes validation and pruning stages.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	planSets		Sets of search nodes that would constitute composition plans
+	 * @param 	dictionary		Parameter dictionary of the search graph that the plan sets belong to
+	 * @return	List of validated and pruned composition plans
+	 */
+	public static List<CompositionPlan> constructPlans(CompositionRequest compositionReq, List<Set<SearchNode>> planSets, ParameterDictionary dictionary)
 	{
 		List<CompositionPlan> validPlans = new ArrayList<CompositionPlan>();
-		List<Set<SearchNode>> validPlanSets = new ArrayList<Set<SearchNode>>();
+		Set<PlanSignature> validPlanSignatures = new HashSet<PlanSignature>();
+		Map<SearchNode, Integer> nodeIdRegistry = new IdentityHashMap<SearchNode, Integer>();
 		
 		for (Set<SearchNode> planSet : planSets)
 		{
-			//Constructing plans populated with all the search nodes from their respective plan sets
-			int planLayerCount = getPlanLayerCount(planSet);
-			CompositionPlan plan = new CompositionPlan(planLayerCount);
-			plan.addSearchNodes(planSet);
-			
-			//Validating plan search nodes and removing the invalid nodes
-			prunePlan(plan, planLayerCount, compositionReq);
-			
-			//Checking if a pruned plan contains more than 1 service
-			boolean isPlanComposite = checkPlanServiceCount(plan);
-			
-			if (isPlanComposite)
+			CompositionPlan plan = constructPlan(compositionReq, planSet, validPlanSignatures, nodeIdRegistry, dictionary);
+			if (plan != null)
+			{
+				validPlans.add(plan);
+			}
+		}
+		
+		return validPlans;
+	}
+	
+	/**
+	 * Method for lazily constructing composition plans from a stream of plan sets generated by the backward search algorithm.
+	 * Each plan set is pruned, validated and checked for duplicates only when the next plan is requested from the returned stream.
+	 * The returned stream keeps track of the plans already generated and must therefore be consumed sequentially.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	planSets		Stream of sets of search nodes that would constitute composition plans
+	 * @param 	dictionary		Parameter dictionary of the search graph that the plan sets belong to
+	 * @return	Stream of validated and pruned composition plans
+	 */
+	public static Stream<CompositionPlan> streamPlans(CompositionRequest compositionReq, Stream<Set<SearchNode>> planSets, ParameterDictionary dictionary)
+	{
+		Set<PlanSignature> validPlanSignatures = new HashSet<PlanSignature>();
+		Map<SearchNode, Integer> nodeIdRegistry = new IdentityHashMap<SearchNode, Integer>();
+		return planSets.sequential()
+						.map(planSet -> constructPlan(compositionReq, planSet, validPlanSignatures, nodeIdRegistry, dictionary))
+						.filter(plan -> plan != null);
+	}
+	
+	/**
+	 * Method for removing duplicate plan sets generated by the backward search algorithm before constructing plans from them.
+	 * Identical plan sets always lead to identical plans, so they can be discarded before the comparatively expensive pruning.
+	 * Plan sets are compared using their canonical signatures, so every plan set is checked in constant time.
+	 * @param 	planSets	Sets of search nodes that would constitute composition plans
+	 * @return	List of the distinct plan sets in the order of their first occurrence
+	 */
+	public static List<Set<SearchNode>> removeDuplicatePlanSets(List<Set<SearchNode>> planSets)
+	{
+		List<Set<SearchNode>> distinctPlanSets = new ArrayList<Set<SearchNode>>();
+		Set<PlanSignature> planSetSignatures = new HashSet<PlanSignature>();
+		Map<SearchNode, Integer> nodeIdRegistry = new IdentityHashMap<SearchNode, Integer>();
+		for (Set<SearchNode> planSet : planSets)
+		{
+			if (planSetSignatures.add(new PlanSignature(planSet, nodeIdRegistry)))
+			{
+				distinctPlanSets.add(planSet);
+			}
+		}
+		
+		return distinctPlanSets;
+	}
+	
+	/**
+	 * Method for constructing a composition plan from a plan set and validating and pruning it.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	planSet			Set of search nodes that would constitute the composition plan
+	 * @param 	validPlanSignatures		Signatures of all the valid plans constructed so far
+	 * @param 	nodeIdRegistry			IDs assigned to search nodes for creating plan signatures
+	 * @param 	dictionary				Parameter dictionary used for encoding the inputs and outputs of the plan services
+	 * @return	Validated and pruned composition plan
+	 * 			Null, if the plan is invalid or a duplicate of an earlier plan
+	 */
+	private static CompositionPlan constructPlan(CompositionRequest compositionReq, Set<SearchNode> planSet, Set<PlanSignature> validPlanSignatures,
+													Map<SearchNode, Integer> nodeIdRegistry, ParameterDictionary dictionary)
+	{
+		//Constructing a plan populated with all the valid search nodes from its plan set
+		CompositionPlan plan = constructPrunedPlan(compositionReq, planSet, dictionary);
+		int planLayerCount = plan.getServiceLayers().size();
+		
+		//Checking if a pruned plan contains more than 1 service
+		boolean isPlanComposite = checkPlanServiceCount(plan);
+		
+		if (isPlanComposite)
+		{
+			//Checking if the pruned plan still produces all the requested outputs
+			//Requested outputs unknown to the dictionary are not produced by any service
+			boolean isPlanValid = (dictionary.containsAll(compositionReq.getOutputs()))
+									&& (verifyCompReqOutputs(plan, planLayerCount, dictionary.encodeKnown(compositionReq.getOutputs()), dictionary));
+			if (isPlanValid)
 			{
-				//Checking if the pruned plans still produce all the requested outputs
-				boolean isPlanValid = verifyCompReqOutputs(plan, planLayerCount, compositionReq);
-				if (isPlanValid)
+				//Checking if the validated plan already exists in the list of plans to be returned
+				boolean isPlanNew = addNewValidPlanSignature(plan, validPlanSignatures, nodeIdRegistry);
+				if (isPlanNew)
 				{
-					//Checking if the validated plans already exist in the list of plans to be returned
-					boolean isPlanNew = addNewValidPlanSets(plan, validPlanSets);
-					if (isPlanNew)
-					{
-						//Adding new (non-duplicate) plans to the list of plans to be returned
-						//Discarding the duplicate plans
-						validPlans.add(plan);
-					}				
+					//Returning new (non-duplicate) plans
+					//Discarding the duplicate plans
+					return plan;
 				}
-			}			
+			}
 		}
 		
-		return validPlans;
+		return null;
+	}
+	
+	/**
+	 * Method for constructing a composition plan from a plan set and removing its invalid search nodes.
+	 * The plan is not checked for the requested outputs, its service count or duplicates.
+	 * Pruning keeps the largest subset of the plan set in which every search node is valid, 
+	 * hence the pruned plan of a plan set is always contained in the pruned plan of any of its supersets.
+	 * Plan set services are interned if the dictionary does not contain them yet. Hence, a dictionary shared between threads
+	 * must already contain all of them, as the dictionary of a frozen search graph does for the plan sets of that graph.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	planSet			Set of search nodes that would constitute the composition plan
+	 * @param 	dictionary		Parameter dictionary used for encoding the inputs and outputs of the plan services
+	 * @return	Pruned composition plan
+	 */
+	public static CompositionPlan constructPrunedPlan(CompositionRequest compositionReq, Set<SearchNode> planSet, ParameterDictionary dictionary)
+	{
+		int planLayerCount = getPlanLayerCount(planSet);
+		CompositionPlan plan = new CompositionPlan(planLayerCount);
+		plan.addSearchNodes(planSet);
+		
+		//Interning the parameters of all the plan services upfront, so that every signature created afterwards can hold all the parameters
+		//Request parameters unknown to the dictionary are not used by any plan service, hence they are not encoded
+		for (SearchNode searchNode : planSet)
+		{
+			dictionary.getSignature(searchNode.getService());
+		}
+		long[] compReqInputs = dictionary.encodeKnown(compositionReq.getInputs());
+		long[] compReqOutputs = dictionary.encodeKnown(compositionReq.getOutputs());
+		
+		//Validating plan search nodes and removing the invalid nodes
+		prunePlan(plan, planLayerCount, compReqInputs, compReqOutputs, dictionary);
+		
+		return plan;
 	}
 	
 	/**
@@ -83,21 +199,175 @@ public class PlanConstruction
 	}
 	
 	/**
-	 * Method for invoking input and output validations on plan search nodes and removing the invalid nodes.
+	 * Method for validating plan search nodes and removing the invalid nodes until all the remaining nodes are valid.
+	 * A search node is valid if every input that it requires and that is not a composition request input is produced by at least one 
+	 * of its remaining predecessors, and if it either has a remaining successor or produces at least 1 requested output.
+	 * Every search node keeps a count of the remaining predecessors supplying each of its inputs and a count of its remaining successors.
+	 * Removing a node only decrements the counts of its neighbours, and a neighbour is queued for removal as soon as one of its counts 
+	 * drops to 0, so a plan is pruned in time linear in the number of its edges.
+	 * The remaining search nodes are the same as those left by repeatedly running the input and output validations over the whole plan.
 	 * @param 	plan			Composition plan that needs to be validated
 	 * @param 	planLayerCount	Number of service layers in the composition plan
-	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	compReqInputs	Signature of the inputs of the composition request
+	 * @param 	compReqOutputs	Signature of the outputs of the composition request
+	 * @param 	dictionary		Parameter dictionary containing the signatures of all the plan services
 	 */
-	private static void prunePlan(CompositionPlan plan, int planLayerCount, CompositionRequest compositionReq)
+	private static void prunePlan(CompositionPlan plan, int planLayerCount, long[] compReqInputs, long[] compReqOutputs, ParameterDictionary dictionary)
 	{
-		//The validation and pruning is repeated until no more search nodes can be removed
-		int removedSvcCount = 0;
-		do
+		//Assigning local indices to the plan search nodes
+		List<SearchNode> planNodes = new ArrayList<SearchNode>();
+		Map<SearchNode, Integer> nodeIndices = new IdentityHashMap<SearchNode, Integer>();
+		for (int i = 0; i < planLayerCount; i++)
+		{
+			for (SearchNode searchNode : plan.getServiceLayers().get(i))
+			{
+				nodeIndices.put(searchNode, planNodes.size());
+				planNodes.add(searchNode);
+			}
+		}
+		
+		//Building the plan edges in both the directions in which removals need to be propagated:
+		//from every node to the nodes whose inputs it may supply and to the nodes that count it as a successor
+		int planNodeCount = planNodes.size();
+		List<List<Integer>> consumers = new ArrayList<List<Integer>>();
+		List<List<Integer>> successorOwners = new ArrayList<List<Integer>>();
+		for (int i = 0; i < planNodeCount; i++)
+		{
+			consumers.add(new ArrayList<Integer>());
+			successorOwners.add(new ArrayList<Integer>());
+		}
+		
+		int[][] inputSupplierCounts = new int[planNodeCount][];
+		int[] successorCounts = new int[planNodeCount];
+		boolean[] removed = new boolean[planNodeCount];
+		List<Integer> worklist = new ArrayList<Integer>();
+		for (int i = 0; i < planNodeCount; i++)
+		{
+			SearchNode searchNode = planNodes.get(i);
+			int[] inputIds = dictionary.getSignature(searchNode.getService()).getInputIds();
+			
+			//Counting the predecessors in the plan that produce each input not supplied by the composition request
+			int[] supplierCounts = new int[inputIds.length];
+			for (SearchNode predecessor : searchNode.getPredecessorView())
+			{
+				Integer predIndex = nodeIndices.get(predecessor);
+				if (predIndex != null)
+				{
+					consumers.get(predIndex).add(i);
+					long[] predOutputs = dictionary.getSignature(predecessor.getService()).getOutputs();
+					for (int j = 0; j < inputIds.length; j++)
+					{
+						if (ParameterDictionary.contains(predOutputs, inputIds[j]))
+						{
+							supplierCounts[j]++;
+						}
+					}
+				}
+			}
+			inputSupplierCounts[i] = supplierCounts;
+			
+			//Counting the successors in the plan
+			for (SearchNode successor : searchNode.getSuccessorView())
+			{
+				Integer succIndex = nodeIndices.get(successor);
+				if (succIndex != null)
+				{
+					successorOwners.get(succIndex).add(i);
+					successorCounts[i]++;
+				}
+			}
+			
+			if (!isNodeValid(i, inputIds, compReqInputs, compReqOutputs, inputSupplierCounts, successorCounts, planNodes, dictionary))
+			{
+				removed[i] = true;
+				worklist.add(i);
+			}
+		}
+		
+		//Propagating every removal to the counts of the neighbouring nodes
+		while (!worklist.isEmpty())
 		{
-			int invalidInputSvcCount = verifyServiceInputs(plan, planLayerCount, compositionReq);
-			int invalidOutputSvcCount = verifyServiceOutputs(plan, planLayerCount, compositionReq);
-			removedSvcCount = invalidInputSvcCount + invalidOutputSvcCount;
-		} while (removedSvcCount > 0);
+			int removedIndex = worklist.remove(worklist.size() - 1);
+			long[] removedOutputs = dictionary.getSignature(planNodes.get(removedIndex).getService()).getOutputs();
+			
+			for (int consumerIndex : consumers.get(removedIndex))
+			{
+				if (!removed[consumerIndex])
+				{
+					int[] inputIds = dictionary.getSignature(planNodes.get(consumerIndex).getService()).getInputIds();
+					for (int j = 0; j < inputIds.length; j++)
+					{
+						if (ParameterDictionary.contains(removedOutputs, inputIds[j]))
+						{
+							inputSupplierCounts[consumerIndex][j]--;
+						}
+					}
+				}
+			}
+			for (int ownerIndex : successorOwners.get(removedIndex))
+			{
+				successorCounts[ownerIndex]--;
+			}
+			
+			//Re-validating the neighbours whose counts have changed
+			List<Integer> neighbours = new ArrayList<Integer>(consumers.get(removedIndex));
+			neighbours.addAll(successorOwners.get(removedIndex));
+			for (int neighbourIndex : neighbours)
+			{
+				if ((!removed[neighbourIndex])
+					&& (!isNodeValid(neighbourIndex, dictionary.getSignature(planNodes.get(neighbourIndex).getService()).getInputIds(), 
+										compReqInputs, compReqOutputs, inputSupplierCounts, successorCounts, planNodes, dictionary)))
+				{
+					removed[neighbourIndex] = true;
+					worklist.add(neighbourIndex);
+				}
+			}
+		}
+		
+		//Removing the invalid nodes from the plan
+		List<SearchNode> nodesToBeRemoved = new ArrayList<SearchNode>();
+		for (int i = 0; i < planNodeCount; i++)
+		{
+			if (removed[i])
+			{
+				nodesToBeRemoved.add(planNodes.get(i));
+			}
+		}
+		plan.removeSearchNodes(nodesToBeRemoved);
+	}
+	
+	/**
+	 * Method for checking if a plan search node is valid based on its current predecessor and successor counts.
+	 * @param 	nodeIndex				Local index of the search node
+	 * @param 	inputIds				Distinct IDs of the inputs of the search node
+	 * @param 	compReqInputs			Signature of the inputs of the composition request
+	 * @param 	compReqOutputs			Signature of the outputs of the composition request
+	 * @param 	inputSupplierCounts		Number of remaining predecessors producing each input of every search node
+	 * @param 	successorCounts			Number of remaining successors of every search node
+	 * @param 	planNodes				Plan search nodes in the order of their local indices
+	 * @param 	dictionary				Parameter dictionary containing the signatures of all the plan services
+	 * @return	true, if all the inputs of the search node are available and it either has a successor or produces a requested output
+	 * 			false, otherwise
+	 */
+	private static boolean isNodeValid(int nodeIndex, int[] inputIds, long[] compReqInputs, long[] compReqOutputs, int[][] inputSupplierCounts,
+										int[] successorCounts, List<SearchNode> planNodes, ParameterDictionary dictionary)
+	{
+		//Every input should be supplied either by the composition request or by a remaining predecessor
+		for (int j = 0; j < inputIds.length; j++)
+		{
+			if ((inputSupplierCounts[nodeIndex][j] == 0) && (!ParameterDictionary.contains(compReqInputs, inputIds[j])))
+			{
+				return false;
+			}
+		}
+		
+		//A node without any remaining successors should produce at least 1 requested output
+		if (successorCounts[nodeIndex] == 0)
+		{
+			return ParameterDictionary.intersects(dictionary.getSignature(planNodes.get(nodeIndex).getService()).getOutputs(), compReqOutputs);
+		}
+		
+		return true;
 	}
 	
 	/**
@@ -128,26 +398,26 @@ public class PlanConstruction
 	 * Method for checking if a pruned plan still produces all the outputs requested by the user.
 	 * @param 	plan			Composition plan that needs to be validated
 	 * @param 	planLayerCount	Number of service layers in the composition plan
-	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	compReqOutputs	Signature of the outputs of the composition request
+	 * @param 	dictionary		Parameter dictionary containing the signatures of all the plan services
 	 * @return	true, if the plan produces all the requested ouputs
 	 * 			false, otherwise
 	 */
-	private static boolean verifyCompReqOutputs(CompositionPlan plan, int planLayerCount, CompositionRequest compositionReq)
+	private static boolean verifyCompReqOutputs(CompositionPlan plan, int planLayerCount, long[] compReqOutputs, ParameterDictionary dictionary)
 	{
-		Set<String> compReqOutputSet = new HashSet<String>(compositionReq.getOutputs());
-		Set<String> planOutputSet = new HashSet<String>();
+		long[] planOutputSet = dictionary.createSignature();
 		
 		//Creating a set of all the outputs generated by all the search nodes in the plan
 		for (int i = 0; i < planLayerCount; i++)
 		{
 			for (SearchNode searchNode : plan.getServiceLayers().get(i))
 			{
-				planOutputSet.addAll(searchNode.getService().getOutput());
+				ParameterDictionary.addAll(planOutputSet, dictionary.getSignature(searchNode.getService()).getOutputs());
 			}
 		}
 		
 		//Checking if the search node outputs contain all the requested outputs
-		if (planOutputSet.containsAll(compReqOutputSet))
+		if (ParameterDictionary.containsAll(planOutputSet, compReqOutputs))
 		{
 			return true;
 		}
@@ -158,169 +428,25 @@ public class PlanConstruction
 	}
 	
 	/**
-	 * Method for adding a pruned and validated plan to the list of plans.
+	 * Method for adding the signature of a pruned and validated plan to the signatures of the plans in the list of plans.
 	 * A plan is added to the list only if a duplicate plan is not already in the list. 
-	 * @param 	validPlan		Plan to be added
-	 * @param 	validPlanSets	List of service sets for the plans that are already in the list of plans
+	 * @param 	validPlan				Plan to be added
+	 * @param 	validPlanSignatures		Signatures of the plans that are already in the list of plans
+	 * @param 	nodeIdRegistry			IDs assigned to search nodes for creating plan signatures
 	 * @return	true, if the intended plan is successfully added to the list of plans
 	 * 			false, if the plan is a duplicate and could not be added to the list
 	 */
-	private static boolean addNewValidPlanSets(CompositionPlan validPlan, List<Set<SearchNode>> validPlanSets)
+	private static boolean addNewValidPlanSignature(CompositionPlan validPlan, Set<PlanSignature> validPlanSignatures, Map<SearchNode, Integer> nodeIdRegistry)
 	{
-		//Creating a set of search nodes that constitute the plan to be added
-		Set<SearchNode> validPlanSet = new HashSet<SearchNode>();
+		//Creating a list of search nodes that constitute the plan to be added
+		//Plan layers never share search nodes, so the list does not contain duplicates
+		List<SearchNode> validPlanNodes = new ArrayList<SearchNode>();
 		for (List<SearchNode> serviceLayer : validPlan.getServiceLayers())
 		{
-			validPlanSet.addAll(serviceLayer);
-		}
-		
-		//Checking if this set of search nodes already exists in the list of plans
-		if (validPlanSets.contains(validPlanSet))
-		{
-			//Not adding if the plan set already exists
-			return false;
-		}
-		else
-		{
-			//Adding the plan set in the list of plan sets if it is a new plan
-			validPlanSets.add(validPlanSet);
-			return true;
+			validPlanNodes.addAll(serviceLayer);
 		}
-	}
-	
-	/**
-	 * Method for validating that every search node has all its inputs supplied either by the composition request or its predecessors.
-	 * Search nodes that fail the validation are removed from the composition plan.
-	 * @param 	plan			Composition plan that needs to be validated
-	 * @param 	planLayerCount	Number of service layers in the composition plan
-	 * @param 	compositionReq	Service composition request from the user
-	 * @return	Number of search nodes that fail validation and are removed
-	 * 			0, if no search nodes are removed
-	 */
-	private static int verifyServiceInputs(CompositionPlan plan, int planLayerCount, CompositionRequest compositionReq)
-	{
-		Set<String> compReqInputSet = new HashSet<String>(compositionReq.getInputs());
-		List<SearchNode> nodesToBeRemoved = new ArrayList<SearchNode>();
-		
-		//Traversing the composition plan from the first to the last service layer
-		for (int i = 0; i < planLayerCount; i++)
-		{
-			//Validating each search node in each service layer
-			for (SearchNode searchNode : plan.getServiceLayers().get(i))
-			{
-				//Taking a union of the composition request's input set and the set of outputs produced by the 
-				//current node's predecessors that exist in the current plan and are not marked to be removed (i.e. are valid)
-				Set<String> serviceInputSet = new HashSet<String>(searchNode.getService().getInput());
-				Set<String> predOutputSet = new HashSet<String>();
-				for (SearchNode predecessor : searchNode.getPredecessors())
-				{
-					int predLayerIndex = predecessor.getLayerIndex();
-					if ((plan.getServiceLayers().get(predLayerIndex).contains(predecessor))
-						&& (!nodesToBeRemoved.contains(predecessor)))
-					{
-						predOutputSet.addAll(predecessor.getService().getOutput());
-					}
-				}				
-				Set<String> availableInputSet = new HashSet<String>(compReqInputSet);
-				availableInputSet.addAll(predOutputSet);
-				
-				//In case the available inputs do not provide all the inputs required by the current node
-				if (!availableInputSet.containsAll(serviceInputSet))
-				{
-					//Mark the current node as invalid
-					nodesToBeRemoved.add(searchNode);
-				}
-			}
-		}
-		
-		//Remove the invalid nodes from the plan
-		plan.removeSearchNodes(nodesToBeRemoved);
-		
-		return nodesToBeRemoved.size();
-	}
-	
-	/**
-	 * Method for validating that every search node with no successors produces at least 1 requested output.
-	 * Search nodes that fail the validation are removed from the composition plan.
-	 * @param 	plan			Composition plan that needs to be validated
-	 * @param 	planLayerCount	Number of service layers in the composition plan
-	 * @param 	compositionReq	Service composition request from the user
-	 * @return	Number of search nodes that fail validation and are removed
-	 * 			0, if no search nodes are removed
-	 */
-	private static int verifyServiceOutputs(CompositionPlan plan, int planLayerCount, CompositionRequest compositionReq)
-	{
-		Set<String> compReqOutputSet = new HashSet<String>(compositionReq.getOutputs());
-		List<SearchNode> nodesToBeRemoved = new ArrayList<SearchNode>();
-		
-		//Traversing the composition plan from the last to the first service layer
-		for (int i = planLayerCount - 1; i >= 0; i--)
-		{
-			//Validating each search node in each service layer
-			for (SearchNode searchNode : plan.getServiceLayers().get(i))
-			{
-				//Checking if the current node has any successors and if those successors exist 
-				//in the current plan and if they are not marked to be removed (i.e. if they are valid)
-				boolean svcHasSuccessors = false;
-				for (SearchNode successor : searchNode.getSuccessors())
-				{
-					int succLayerIndex = successor.getLayerIndex();
-					boolean planContainsSuccessor = false;
-					boolean successorIsInvalid = false;
-					
-					//Explicit service name comparison is required because due to creation of deep copies for
-					//search nodes during search graph creation, built-in "contains" method does not work here
-					if (succLayerIndex < planLayerCount)
-					{
-						for (SearchNode succLayerNode : plan.getServiceLayers().get(succLayerIndex))
-						{
-							if (succLayerNode.getService().getName().equals(successor.getService().getName()))
-							{
-								planContainsSuccessor = true;
-								break;
-							}
-						}
-						
-						if (planContainsSuccessor)
-						{
-							for (SearchNode invalidNode : nodesToBeRemoved)
-							{
-								if (invalidNode.getService().getName().equals(successor.getService().getName()))
-								{
-									successorIsInvalid = true;
-									break;
-								}
-							}
-						}
-					}
-					
-					if (planContainsSuccessor && !successorIsInvalid)
-					{
-						svcHasSuccessors = true;
-						break;
-					}
-				}
-				
-				//In case the current node does not have any valid successors in the current plan
-				if (!svcHasSuccessors)
-				{
-					Set<String> serviceOutputSet = new HashSet<String>(searchNode.getService().getOutput());
-					Set<String> reqOutputGenerated = new HashSet<String>(compReqOutputSet);
-					reqOutputGenerated.retainAll(serviceOutputSet);
-				
-					//If the intersection of the search node output set and the composition request 
-					//output set is null, mark the current node as invalid
-					if (reqOutputGenerated.isEmpty())
-					{
-						nodesToBeRemoved.add(searchNode);
-					}
-				}
-			}
-		}
-		
-		//Remove the invalid nodes from the plan
-		plan.removeSearchNodes(nodesToBeRemoved);
 		
-		return nodesToBeRemoved.size();
+		//Adding the plan signature only if the same set of search nodes does not already exist in the list of plans
+		return validPlanSignatures.add(new PlanSignature(validPlanNodes, nodeIdRegistry));
 	}
 }
\ No newline at end of file
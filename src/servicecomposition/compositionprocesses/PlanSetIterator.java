@@ -0,0 +1,395 @@
+package servicecomposition.compositionprocesses;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.FrontierCompletions;
+import servicecomposition.entities.ParameterDictionary;
+import servicecomposition.entities.SearchGraph;
+import servicecomposition.entities.SearchNode;
+import servicecomposition.utilities.SubsetIterator;
+
+/**
+ * Iterator for lazily generating the validated plan sets of a search graph using the memoized Backward Search algorithm.
+ * Plan sets are the same as those of BackwardSearch.backwardSearch(), and are generated one at a time only when they are requested.
+ * The completions of every predecessor frontier (i.e. all the ways of choosing services from that frontier down to the first layer)
+ * do not depend on the branch that reaches the frontier. They are therefore computed once per (layer index, frontier set) pair
+ * and shared across all the branches and starting layers.
+ * The depth-first traversal of the current branch is kept on an explicit stack so that it can be suspended after every plan set.
+ * Requested outputs are tracked as bit signatures of the parameter dictionary of the search graph, which is only read and never modified.
+ * Iterators traversing different parts of the starting layers in parallel can share a thread-safe completion cache (see BackwardSearch).
+ * @author agent
+ */
+public class PlanSetIterator implements Iterator<Set<SearchNode>>
+{
+	private SearchGraph searchGraph;
+	private ParameterDictionary dictionary;
+	private long[] compReqOutputSet;
+	private List<Map<Set<SearchNode>, FrontierCompletions>> completionCache;
+	private int startingLayerIndex;
+	private Iterator<Set<SearchNode>> startingSubsets;
+	private List<FrontierCompletions> completionStack;
+	private List<Integer> choiceIndexStack;
+	private List<Set<SearchNode>> branchPlanSetStack;
+	private List<long[]> missingOutputStack;
+	private Set<SearchNode> nextPlanSet;
+	private Predicate<Set<SearchNode>> branchFilter;
+	private boolean singleStartingLayer;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 */
+	public PlanSetIterator(CompositionRequest compositionReq, SearchGraph searchGraph)
+	{
+		this(compositionReq, searchGraph, null);
+	}
+	
+	/**
+	 * Parameterized constructor for a traversal that skips some of its branches.
+	 * The filter is applied to every branch as it is extended. Rejected branches are neither extended further nor returned.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @param 	branchFilter	Condition that the plan set of a branch must satisfy for the branch to be traversed
+	 * 							Null, if all the branches need to be traversed
+	 */
+	public PlanSetIterator(CompositionRequest compositionReq, SearchGraph searchGraph, Predicate<Set<SearchNode>> branchFilter)
+	{
+		this(compositionReq, searchGraph, branchFilter, createCompletionCache(searchGraph, false));
+		
+		//The topmost layer is used as the first starting layer
+		//Requested outputs unknown to the dictionary are not produced by any service, hence no layer needs to be traversed in that case
+		this.startingLayerIndex = (dictionary.containsAll(compositionReq.getOutputs())) ? searchGraph.getServiceLayerCount() : 0;
+		this.startingSubsets = null;
+		this.singleStartingLayer = false;
+	}
+	
+	/**
+	 * Parameterized constructor for a traversal of only some elements of the power set of 1 starting layer.
+	 * @param 	compositionReq		Service composition request from the user
+	 * @param 	searchGraph			Search graph constructed by the forward expansion algorithm
+	 * @param 	startingLayerIndex	Index of the starting layer
+	 * @param 	startingSubsets		Elements of the power set of the starting layer to be traversed
+	 * @param 	completionCache		Cache of frontier completions created by createSharedCompletionCache()
+	 */
+	public PlanSetIterator(CompositionRequest compositionReq, SearchGraph searchGraph, int startingLayerIndex, 
+							Iterator<Set<SearchNode>> startingSubsets, List<Map<Set<SearchNode>, FrontierCompletions>> completionCache)
+	{
+		this(compositionReq, searchGraph, null, completionCache);
+		this.startingLayerIndex = startingLayerIndex;
+		this.startingSubsets = (dictionary.containsAll(compositionReq.getOutputs())) ? startingSubsets : null;
+		this.singleStartingLayer = true;
+	}
+	
+	/**
+	 * Parameterized constructor initializing the traversal state common to all the traversals.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @param 	branchFilter	Condition that the plan set of a branch must satisfy for the branch to be traversed
+	 * @param 	completionCache	Cache of frontier completions for every service layer
+	 */
+	private PlanSetIterator(CompositionRequest compositionReq, SearchGraph searchGraph, Predicate<Set<SearchNode>> branchFilter, 
+							List<Map<Set<SearchNode>, FrontierCompletions>> completionCache)
+	{
+		this.searchGraph = searchGraph;
+		this.branchFilter = branchFilter;
+		this.dictionary = searchGraph.getParameterDictionary();
+		this.compReqOutputSet = dictionary.encodeKnown(compositionReq.getOutputs());
+		this.completionCache = completionCache;
+		this.completionStack = new ArrayList<FrontierCompletions>();
+		this.choiceIndexStack = new ArrayList<Integer>();
+		this.branchPlanSetStack = new ArrayList<Set<SearchNode>>();
+		this.missingOutputStack = new ArrayList<long[]>();
+		this.nextPlanSet = null;
+	}
+	
+	/**
+	 * Method for creating an empty cache of frontier completions that can be shared by traversals running in parallel.
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @return	Thread-safe cache of frontier completions for every service layer
+	 */
+	public static List<Map<Set<SearchNode>, FrontierCompletions>> createSharedCompletionCache(SearchGraph searchGraph)
+	{
+		return createCompletionCache(searchGraph, true);
+	}
+	
+	/**
+	 * Method for creating an empty cache of frontier completions for every service layer.
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @param 	isShared		true, if the cache will be used by traversals running in parallel
+	 * 							false, otherwise
+	 * @return	Cache of frontier completions for every service layer
+	 */
+	private static List<Map<Set<SearchNode>, FrontierCompletions>> createCompletionCache(SearchGraph searchGraph, boolean isShared)
+	{
+		List<Map<Set<SearchNode>, FrontierCompletions>> completionCache = new ArrayList<Map<Set<SearchNode>, FrontierCompletions>>();
+		for (int i = 0; i < searchGraph.getServiceLayerCount(); i++)
+		{
+			if (isShared)
+			{
+				completionCache.add(new ConcurrentHashMap<Set<SearchNode>, FrontierCompletions>());
+			}
+			else
+			{
+				completionCache.add(new HashMap<Set<SearchNode>, FrontierCompletions>());
+			}
+		}
+		
+		return completionCache;
+	}
+	
+	/**
+	 * Method for checking if more plan sets can be generated.
+	 * @return	true, if more plan sets exist
+	 * 			false, otherwise
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		if (nextPlanSet == null)
+		{
+			nextPlanSet = findNextPlanSet();
+		}
+		
+		return (nextPlanSet != null);
+	}
+	
+	/**
+	 * Method for fetching the next plan set.
+	 * @return	Next validated plan set
+	 */
+	@Override
+	public Set<SearchNode> next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		
+		Set<SearchNode> planSet = nextPlanSet;
+		nextPlanSet = null;
+		return planSet;
+	}
+	
+	/**
+	 * Method for resuming the depth-first traversal until the next valid plan set is found.
+	 * Complete branches that generate all the requested outputs and contain more than 1 service are valid plan sets.
+	 * @return	Next valid plan set
+	 * 			Null, if all the starting layers have been traversed completely
+	 */
+	private Set<SearchNode> findNextPlanSet()
+	{
+		while (true)
+		{
+			if (!completionStack.isEmpty())
+			{
+				//Taking the next completion choice of the frontier on top of the stack
+				int top = completionStack.size() - 1;
+				FrontierCompletions completions = completionStack.get(top);
+				int choiceIndex = choiceIndexStack.get(top);
+				if (choiceIndex >= completions.getChoiceCount())
+				{
+					popBranch();
+					continue;
+				}
+				choiceIndexStack.set(top, choiceIndex + 1);
+				
+				//Skipping the choices that cannot generate the missing outputs in any of their complete branches
+				long[] missingOutputs = missingOutputStack.get(top);
+				if (!completions.canCover(choiceIndex, missingOutputs))
+				{
+					continue;
+				}
+				
+				Set<SearchNode> extendedBranchPlanSet = new HashSet<SearchNode>(branchPlanSetStack.get(top));
+				extendedBranchPlanSet.addAll(completions.getSubset(choiceIndex));
+				long[] remainingOutputs = missingOutputs.clone();
+				ParameterDictionary.removeAll(remainingOutputs, completions.getSubsetReqOutputs(choiceIndex));
+				if (!acceptBranch(extendedBranchPlanSet))
+				{
+					continue;
+				}
+				
+				FrontierCompletions subsetCompletions = completions.getSubsetCompletions(choiceIndex);
+				if (subsetCompletions != null)
+				{
+					pushBranch(subsetCompletions, extendedBranchPlanSet, remainingOutputs);
+				}
+				else if ((ParameterDictionary.isEmpty(remainingOutputs)) && (extendedBranchPlanSet.size() > 1))
+				{
+					return extendedBranchPlanSet;
+				}
+			}
+			else if ((startingSubsets != null) && (startingSubsets.hasNext()))
+			{
+				//Starting layer sets must generate at least 1 output from the composition request
+				Set<SearchNode> planSet = new HashSet<SearchNode>(startingSubsets.next());
+				long[] planSetReqOutputs = getRequestedOutputs(planSet);
+				if (ParameterDictionary.isEmpty(planSetReqOutputs))
+				{
+					continue;
+				}
+				
+				long[] missingOutputs = compReqOutputSet.clone();
+				ParameterDictionary.removeAll(missingOutputs, planSetReqOutputs);
+				if (!acceptBranch(planSet))
+				{
+					continue;
+				}
+				
+				if (startingLayerIndex > 0)
+				{
+					//Combining the starting layer set with the cached completions of its predecessor frontier
+					int previousLayerIndex = startingLayerIndex - 1;
+					pushBranch(getFrontierCompletions(getPredecessorSet(planSet, previousLayerIndex), previousLayerIndex), planSet, missingOutputs);
+				}
+				else if ((ParameterDictionary.isEmpty(missingOutputs)) && (planSet.size() > 1))
+				{
+					return planSet;
+				}
+			}
+			else
+			{
+				//Moving on to the next lower layer as the starting layer
+				startingLayerIndex--;
+				if ((startingLayerIndex < 0) || (singleStartingLayer))
+				{
+					startingSubsets = null;
+					return null;
+				}
+				Set<SearchNode> serviceSet = new HashSet<SearchNode>(searchGraph.getServiceLayerView(startingLayerIndex));
+				startingSubsets = new SubsetIterator<SearchNode>(serviceSet);
+			}
+		}
+	}
+	
+	/**
+	 * Method for checking if a branch satisfies the branch filter of this traversal.
+	 * @param 	branchPlanSet	Set of search nodes constituting the branch
+	 * @return	true, if the branch needs to be traversed
+	 * 			false, otherwise
+	 */
+	private boolean acceptBranch(Set<SearchNode> branchPlanSet)
+	{
+		return ((branchFilter == null) || (branchFilter.test(branchPlanSet)));
+	}
+	
+	/**
+	 * Method for extending the current branch of the traversal with the completions of its predecessor frontier.
+	 * @param 	completions		Completions of the predecessor frontier of the branch
+	 * @param 	branchPlanSet	Set of search nodes constituting the branch until the frontier
+	 * @param 	missingOutputs	Signature of the requested outputs that are not generated by the branch
+	 */
+	private void pushBranch(FrontierCompletions completions, Set<SearchNode> branchPlanSet, long[] missingOutputs)
+	{
+		completionStack.add(completions);
+		choiceIndexStack.add(0);
+		branchPlanSetStack.add(branchPlanSet);
+		missingOutputStack.add(missingOutputs);
+	}
+	
+	/**
+	 * Method for backtracking from a frontier whose completion choices have all been traversed.
+	 */
+	private void popBranch()
+	{
+		int top = completionStack.size() - 1;
+		completionStack.remove(top);
+		choiceIndexStack.remove(top);
+		branchPlanSetStack.remove(top);
+		missingOutputStack.remove(top);
+	}
+	
+	/**
+	 * Method for fetching the completions of a predecessor frontier from the cache, computing and caching them if they are not cached yet.
+	 * @param 	frontier	Set of predecessor search nodes belonging to the same service layer
+	 * @param 	layerIndex	Index of the service layer containing the frontier
+	 * @return	Completions of the given frontier
+	 */
+	private FrontierCompletions getFrontierCompletions(Set<SearchNode> frontier, int layerIndex)
+	{
+		FrontierCompletions completions = completionCache.get(layerIndex).get(frontier);
+		if (completions != null)
+		{
+			return completions;
+		}
+		
+		completions = new FrontierCompletions();
+		Iterator<Set<SearchNode>> frontierSubsets = new SubsetIterator<SearchNode>(frontier);
+		while (frontierSubsets.hasNext())
+		{
+			Set<SearchNode> subset = new HashSet<SearchNode>(frontierSubsets.next());
+			long[] subsetReqOutputs = getRequestedOutputs(subset);
+			if (layerIndex > 0)
+			{
+				//Subsets whose predecessor frontier cannot be completed down to the first layer do not lead to any plan set
+				FrontierCompletions subsetCompletions = getFrontierCompletions(getPredecessorSet(subset, layerIndex - 1), layerIndex - 1);
+				if (subsetCompletions.getChoiceCount() > 0)
+				{
+					completions.addChoice(subset, subsetReqOutputs, subsetCompletions);
+				}
+			}
+			else
+			{
+				completions.addChoice(subset, subsetReqOutputs, null);
+			}
+		}
+		
+		//Completions computed concurrently by another traversal sharing the cache are used instead, if they were cached first
+		FrontierCompletions cachedCompletions = completionCache.get(layerIndex).putIfAbsent(frontier, completions);
+		return (cachedCompletions == null) ? completions : cachedCompletions;
+	}
+	
+	/**
+	 * Method for creating the set of predecessors of a set of search nodes that belong to the given service layer.
+	 * @param 	planSet				Set of search nodes whose predecessors are required
+	 * @param 	previousLayerIndex	Index of the service layer the predecessors must belong to
+	 * @return	Set of predecessors in the given service layer
+	 */
+	private static Set<SearchNode> getPredecessorSet(Set<SearchNode> planSet, int previousLayerIndex)
+	{
+		Set<SearchNode> preSet = new HashSet<SearchNode>();
+		for (SearchNode searchNode : planSet)
+		{
+			for (SearchNode predecessor : searchNode.getPredecessorView())
+			{
+				if (predecessor.getLayerIndex() == previousLayerIndex)
+				{
+					preSet.add(predecessor);
+				}
+			}
+		}
+		
+		return preSet;
+	}
+	
+	/**
+	 * Method for finding the requested outputs generated by a set of search nodes.
+	 * @param 	planSet		Set of search nodes
+	 * @return	Signature of the requested outputs generated by the search nodes
+	 */
+	private long[] getRequestedOutputs(Set<SearchNode> planSet)
+	{
+		long[] reqOutputs = new long[compReqOutputSet.length];
+		for (SearchNode searchNode : planSet)
+		{
+			long[] outputs = dictionary.getSignature(searchNode.getService()).getOutputs();
+			int length = Math.min(reqOutputs.length, outputs.length);
+			for (int i = 0; i < length; i++)
+			{
+				reqOutputs[i] |= (outputs[i] & compReqOutputSet[i]);
+			}
+		}
+		
+		return reqOutputs;
+	}
+}
\ No newline at end of file
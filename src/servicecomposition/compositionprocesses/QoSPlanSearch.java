@@ -0,0 +1,174 @@
+package servicecomposition.compositionprocesses;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import servicecomposition.entities.CompositionPlan;
+import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.ParameterDictionary;
+import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.entities.QoSValues;
+import servicecomposition.entities.QualityOfService;
+import servicecomposition.entities.SearchGraph;
+import servicecomposition.entities.SearchNode;
+
+/**
+ * Class for finding only the best few composition plans of a search graph based on the QoS features requested by the user.
+ * QoS values of a plan are aggregated from the QoS values of its services: cost is summed, response time is the length of the
+ * critical (slowest) path through the plan layers, and reliability and availability are multiplied.
+ * The search is a depth-first branch and bound over the backward search branches. The pruned plan of a partial branch is contained
+ * in the pruned plan of every complete branch extending it, so its QoS values bound the values of all those plans.
+ * Branches whose bound is not better than the current k-th best plan are not traversed any further.
+ * @author agent
+ */
+public class QoSPlanSearch
+{
+	/**
+	 * Method for finding the best constraint-aware plans for a composition request.
+	 * Plans are ranked by the QoS features of the composition request in the given order of priority.
+	 * If the request does not contain any QoS feature, plans are ranked by cost and then by response time.
+	 * Plans with equal QoS values are ranked in the order in which backward search finds them.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @param 	searchGraph		Search graph constructed by the forward expansion algorithm
+	 * @param 	serviceQoS		QoS values of the repository services mapped to their names
+	 * 							Services missing from the map have neutral QoS values (see QoSValues())
+	 * @param 	planLimit		Maximum number of plans to be returned
+	 * @return	List of the best constraint-aware plans, ordered from the best to the worst
+	 */
+	public static List<ConstraintAwarePlan> searchTopPlans(CompositionRequest compositionReq, SearchGraph searchGraph,
+															Map<String, QoSValues> serviceQoS, int planLimit)
+	{
+		if (planLimit < 1)
+		{
+			throw new IllegalArgumentException("At least 1 plan must be requested.");
+		}
+		
+		List<QualityOfService> features = getRankingFeatures(compositionReq);
+		List<CompositionPlan> topPlans = new ArrayList<CompositionPlan>();
+		List<QoSValues> topPlanQoS = new ArrayList<QoSValues>();
+		ParameterDictionary dictionary = searchGraph.getParameterDictionary();
+		
+		//Branches are traversed only while their bound can still beat the current k-th best plan
+		Iterator<Set<SearchNode>> planSets = new PlanSetIterator(compositionReq, searchGraph, branchPlanSet ->
+		{
+			if (topPlans.size() < planLimit)
+			{
+				return true;
+			}
+			CompositionPlan boundingPlan = PlanConstruction.constructPrunedPlan(compositionReq, branchPlanSet, dictionary);
+			QoSValues bound = computePlanQoS(boundingPlan, serviceQoS);
+			return (bound.compareTo(topPlanQoS.get(planLimit - 1), features) < 0);
+		});
+		
+		//Plans are constructed one at a time so that every new plan immediately tightens the bound for the remaining branches
+		Stream<Set<SearchNode>> planSetStream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(planSets, Spliterator.ORDERED), false);
+		PlanConstruction.streamPlans(compositionReq, planSetStream, dictionary).forEach(plan ->
+		{
+			QoSValues planQoS = computePlanQoS(plan, serviceQoS);
+			
+			//Finding the rank of the plan among the current best plans
+			int rank = topPlans.size();
+			while ((rank > 0) && (planQoS.compareTo(topPlanQoS.get(rank - 1), features) < 0))
+			{
+				rank--;
+			}
+			
+			//Keeping only the k best plans
+			if (rank < planLimit)
+			{
+				topPlans.add(rank, plan);
+				topPlanQoS.add(rank, planQoS);
+				if (topPlans.size() > planLimit)
+				{
+					topPlans.remove(planLimit);
+					topPlanQoS.remove(planLimit);
+				}
+			}
+		});
+		
+		//Constraint-aware plans are constructed only for the best plans
+		return ConstraintAwarePlanConstruction.constructCAPlans(topPlans, dictionary);
+	}
+	
+	/**
+	 * Method for aggregating the QoS values of the services in a composition plan.
+	 * @param 	plan		Composition plan
+	 * @param 	serviceQoS	QoS values of the repository services mapped to their names
+	 * @return	Aggregated QoS values of the plan
+	 */
+	public static QoSValues computePlanQoS(CompositionPlan plan, Map<String, QoSValues> serviceQoS)
+	{
+		double cost = 0;
+		double responseTime = 0;
+		double reliability = 1;
+		double availability = 1;
+		
+		//Completion time of every search node along the slowest path leading to it
+		Map<SearchNode, Double> completionTimes = new IdentityHashMap<SearchNode, Double>();
+		
+		//Predecessors always belong to earlier layers, so their completion times are known when a layer is processed
+		for (List<SearchNode> serviceLayer : plan.getServiceLayers())
+		{
+			for (SearchNode searchNode : serviceLayer)
+			{
+				QoSValues nodeQoS = serviceQoS.get(searchNode.getService().getName());
+				if (nodeQoS == null)
+				{
+					nodeQoS = new QoSValues();
+				}
+				
+				cost += nodeQoS.getCost();
+				reliability *= nodeQoS.getReliability();
+				availability *= nodeQoS.getAvailability();
+				
+				double startTime = 0;
+				for (SearchNode predecessor : searchNode.getPredecessorView())
+				{
+					Double predCompletionTime = completionTimes.get(predecessor);
+					if ((predCompletionTime != null) && (predCompletionTime > startTime))
+					{
+						startTime = predCompletionTime;
+					}
+				}
+				double completionTime = startTime + nodeQoS.getResponseTime();
+				completionTimes.put(searchNode, completionTime);
+				responseTime = Math.max(responseTime, completionTime);
+			}
+		}
+		
+		return new QoSValues(cost, responseTime, reliability, availability);
+	}
+	
+	/**
+	 * Method for fetching the QoS features that plans need to be ranked by.
+	 * @param 	compositionReq	Service composition request from the user
+	 * @return	QoS features of the composition request in the given order
+	 * 			Cost and response time, if the composition request does not contain any QoS feature
+	 */
+	private static List<QualityOfService> getRankingFeatures(CompositionRequest compositionReq)
+	{
+		List<QualityOfService> features = new ArrayList<QualityOfService>();
+		for (String qos : compositionReq.getQos())
+		{
+			if ((QualityOfService.contains(qos)) && (!features.contains(QualityOfService.valueOf(qos))))
+			{
+				features.add(QualityOfService.valueOf(qos));
+			}
+		}
+		
+		if (features.isEmpty())
+		{
+			features.add(QualityOfService.COST);
+			features.add(QualityOfService.RESPONSE_TIME);
+		}
+		
+		return features;
+	}
+}
\ No newline at end of file
@@ -1,24 +1,33 @@
 package servicecomposition.compositionprocesses;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import constraint.Constraint;
 import constraint.Operator;
 import servicecomposition.entities.CompositionPlan;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.CompositionResultCache;
 import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.entities.QoSValues;
 import servicecomposition.entities.QualityOfService;
 import servicecomposition.entities.SearchGraph;
 import servicecomposition.entities.SearchNode;
+import servicecomposition.entities.ServiceRepository;
 import servicecomposition.readers.RequestConfiguration;
 import servicecomposition.utilities.CompSvcStorageUtil;
 import utilities.LogUtil;
 import service.Service;
-import service.parser.BasicServiceParser;
-import service.parser.ConstrainedServiceXMLParser;
-import service.parser.ServiceFileParserDecorator;
-import service.parser.ServiceSerializedParser;
 
 /**
  * Class for managing the service composition process.
@@ -50,7 +59,7 @@ public class ServiceComposition
 		
 		//Creating composite services for the composition plans generated 
 		//and storing them in the source repository if the user requests for it
-		if (reqConfig.getStoreCSFlag().equalsIgnoreCase("Y"))
+		if ((cnstrAwrPlans != null) && (reqConfig.getStoreCSFlag().equalsIgnoreCase("Y")))
 		{
 			ArrayList<Service> compSvcs = new ArrayList<Service>();
 			for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
@@ -172,77 +181,457 @@ public class ServiceComposition
 	 */
 	public static List<ConstraintAwarePlan> buildServiceCompositions(CompositionRequest compRequest, String repoFileName, LogUtil logger)
 	{
-		//Reading the service repository
-		ServiceFileParserDecorator serviceParser = null;
-		if (repoFileName.endsWith(".xml"))
+		return buildServiceCompositions(compRequest, repoFileName, logger, 1);
+	}
+	
+	/**
+	 * Method for reading the service repository and triggering the various phases of service 
+	 * composition in sequence based on the given composition request and available services.
+	 * The repository file is read through the repository shared by all the requests made against it in this process.
+	 * @param 	compRequest			Service composition request
+	 * @param 	repoFileName		Service repository file name
+	 * @param 	searchParallelism	Number of threads used for backward search
+	 * 								Backward search is performed on the calling thread if this is 1 or less
+	 * @return	List of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildServiceCompositions(CompositionRequest compRequest, String repoFileName, LogUtil logger, 
+																		int searchParallelism)
+	{
+		return buildServiceCompositions(compRequest, ServiceRepository.getSharedRepository(repoFileName), logger, searchParallelism);
+	}
+	
+	/**
+	 * Method for triggering the various phases of service composition in sequence based on 
+	 * the given composition request and the services of an already loaded repository.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository shared across requests
+	 * @return	List of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildServiceCompositions(CompositionRequest compRequest, ServiceRepository repository, LogUtil logger)
+	{
+		return buildServiceCompositions(compRequest, repository, logger, 1);
+	}
+	
+	/**
+	 * Method for triggering the various phases of service composition in sequence based on 
+	 * the given composition request and the services of an already loaded repository.
+	 * The repository is reloaded first if its file has changed since it was last read.
+	 * Successful results are cached in the shared result cache, so an identical request made against the same version of the repository
+	 * returns the cached plans (see CompositionResultCache).
+	 * @param 	compRequest			Service composition request
+	 * @param 	repository			Service repository shared across requests
+	 * @param 	searchParallelism	Number of threads used for backward search
+	 * 								Backward search is performed on the calling thread if this is 1 or less
+	 * @return	List of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildServiceCompositions(CompositionRequest compRequest, ServiceRepository repository, LogUtil logger, 
+																		int searchParallelism)
+	{
+		//Returning the plans of an identical earlier request if they were constructed from the current version of the repository
+		CompositionResultCache resultCache = CompositionResultCache.getSharedCache();
+		long repoVersion = repository.getVersion();
+		List<ConstraintAwarePlan> cachedPlans = resultCache.get(compRequest, repository, repoVersion);
+		if (cachedPlans != null)
 		{
-			serviceParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
-			
+			return cachedPlans;
 		}
-		else if (repoFileName.endsWith(".txt"))
+		
+		//Fetching the services of the repository
+		ArrayList<Service> serviceRepo = readServiceRepo(repository, compRequest.getInputs(), logger);
+		if (serviceRepo == null)
+		{
+			return null;
+		}
+				
+		//Using forward expansion to generate a search graph
+		SearchGraph searchGraph = ForwardExpansion.indexedForwardExpansion(compRequest, serviceRepo);
+		if (searchGraph != null)
 		{
-			serviceParser = new ServiceSerializedParser(new BasicServiceParser());
+			//Freezing the search graph so that the later phases can use its read-only views
+			searchGraph.freeze();
+			
+			List<ConstraintAwarePlan> cnstrAwrPlans = buildSearchGraphCompositions(compRequest, searchGraph, searchParallelism);
+			if (cnstrAwrPlans != null)
+			{
+				resultCache.put(compRequest, repository, repoVersion, cnstrAwrPlans);
+				return cnstrAwrPlans;
+			}
 		}
 		
-		if (serviceParser == null)
+		//In case the service composition process fails at some point
+		logCompositionFailure(logger);
+		return null;
+	}
+	
+	/**
+	 * Method for reading the service repository and building the service compositions of a batch of composition requests.
+	 * @param 	compRequests	Service composition requests
+	 * @param 	repoFileName	Service repository file name
+	 * @param 	parallelism		Number of threads used for processing the requests
+	 * @return	Lists of constraint-aware service composition plans constructed for the composition requests, in the order of the requests
+	 * 			The list of a request is null if the service composition process fails for that request
+	 * 			Null, if the service repository cannot be read
+	 */
+	public static List<List<ConstraintAwarePlan>> buildServiceCompositions(List<CompositionRequest> compRequests, String repoFileName, LogUtil logger, 
+																			int parallelism)
+	{
+		return buildServiceCompositions(compRequests, ServiceRepository.getSharedRepository(repoFileName), logger, parallelism);
+	}
+	
+	/**
+	 * Method for building the service compositions of a batch of composition requests using an already loaded repository.
+	 * The search graph created by forward expansion depends only on the set of request inputs. Hence, the requests are grouped
+	 * by their input sets and a single search graph is created and frozen for each group. All the search graphs are created in parallel,
+	 * following which the backward search and plan construction of all the requests are performed in parallel on their groups' graphs.
+	 * Each request produces the same plans as buildServiceCompositions() for a single request, although the order of the plans
+	 * can differ for requests listing the same inputs in different orders.
+	 * @param 	compRequests	Service composition requests
+	 * @param 	repository		Service repository shared across requests
+	 * @param 	parallelism		Number of threads used for processing the requests
+	 * @return	Lists of constraint-aware service composition plans constructed for the composition requests, in the order of the requests
+	 * 			The list of a request is null if the service composition process fails for that request
+	 * 			Null, if the service repository cannot be read
+	 */
+	public static List<List<ConstraintAwarePlan>> buildServiceCompositions(List<CompositionRequest> compRequests, ServiceRepository repository, LogUtil logger, 
+																			int parallelism)
+	{
+		//Checking the repository, the services used by each group of requests are fetched while creating its search graph
+		if (!checkServiceRepo(repository, logger))
 		{
-			logger.log("Only XML or serialized Java object repositories can be parsed. \nAborting service composition process.\n");
 			return null;
 		}
 		
-		serviceParser.setLocation(repoFileName);
-		ArrayList<Service> serviceRepo = serviceParser.parse();		
-		if ((serviceRepo == null) || (serviceRepo.size() == 0))
+		//Grouping the requests by their canonical (sorted and distinct) input sets
+		Map<Set<String>, List<Integer>> requestGroups = new LinkedHashMap<Set<String>, List<Integer>>();
+		for (int i = 0; i < compRequests.size(); i++)
 		{
-			logger.log("Service repository is empty.\nAborting service composition process.\n");
-			return null;
+			Set<String> inputSet = new TreeSet<String>(compRequests.get(i).getInputs());
+			List<Integer> groupRequests = requestGroups.get(inputSet);
+			if (groupRequests == null)
+			{
+				groupRequests = new ArrayList<Integer>();
+				requestGroups.put(inputSet, groupRequests);
+			}
+			groupRequests.add(i);
 		}
-				
-		//Using forward expansion to generate a search graph
-		SearchGraph searchGraph = ForwardExpansion.forwardExpansion(compRequest, serviceRepo);
 		
-		boolean compositionFailure = false;
-		if (searchGraph != null)
+		ForkJoinPool compositionPool = new ForkJoinPool(Math.max(parallelism, 1));
+		try
 		{
-			//Using backward search for constructing plan sets from the search graph
-			List<Set<SearchNode>> planSets = BackwardSearch.backwardSearch(compRequest, searchGraph);
+			//Creating and freezing the search graph of every group, using the inputs of its first request
+			List<Callable<SearchGraph>> expansionTasks = new ArrayList<Callable<SearchGraph>>();
+			for (List<Integer> groupRequests : requestGroups.values())
+			{
+				List<String> groupInputs = compRequests.get(groupRequests.get(0)).getInputs();
+				expansionTasks.add(() -> ForwardExpansion.expandSearchGraph(groupInputs, repository.getCandidateServices(groupInputs)).freeze());
+			}
+			List<Future<SearchGraph>> searchGraphs = compositionPool.invokeAll(expansionTasks);
 			
-			if (planSets.size() > 0)
+			//Building the compositions of every request from the search graph of its group
+			List<Callable<List<ConstraintAwarePlan>>> compositionTasks = new ArrayList<Callable<List<ConstraintAwarePlan>>>(
+																				Collections.nCopies(compRequests.size(), null));
+			int groupIndex = 0;
+			for (List<Integer> groupRequests : requestGroups.values())
 			{
-				//Constructing pruned and validated composition plans from the plan sets
-				List<CompositionPlan> plans = PlanConstruction.constructPlans(compRequest, planSets);
-				
-				if (plans.size() > 0)
-				{
-					//Constructing constraint aware plans from the composition plans
-					List<ConstraintAwarePlan> cnstrAwrPlans = ConstraintAwarePlanConstruction.constructCAPlans(plans);
-					return cnstrAwrPlans;
-				}
-				else
+				SearchGraph searchGraph = searchGraphs.get(groupIndex++).get();
+				for (int requestIndex : groupRequests)
 				{
-					compositionFailure = true;
+					CompositionRequest compRequest = compRequests.get(requestIndex);
+					compositionTasks.set(requestIndex, () ->
+					{
+						List<ConstraintAwarePlan> cnstrAwrPlans = null;
+						if (ForwardExpansion.servesRequest(compRequest, searchGraph))
+						{
+							cnstrAwrPlans = buildSearchGraphCompositions(compRequest, searchGraph, 1);
+						}
+						if (cnstrAwrPlans == null)
+						{
+							logCompositionFailure(logger, "Composition request " + (requestIndex + 1) + " of the batch: ");
+						}
+						
+						return cnstrAwrPlans;
+					});
 				}
 			}
-			else
+			
+			List<List<ConstraintAwarePlan>> batchPlans = new ArrayList<List<ConstraintAwarePlan>>();
+			for (Future<List<ConstraintAwarePlan>> requestPlans : compositionPool.invokeAll(compositionTasks))
 			{
-				compositionFailure = true;
+				batchPlans.add(requestPlans.get());
 			}
+			
+			return batchPlans;
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Batch service composition was interrupted.", ie);
+		}
+		catch (ExecutionException ee)
+		{
+			throw new IllegalStateException("Batch service composition failed.", ee.getCause());
+		}
+		finally
+		{
+			compositionPool.shutdown();
+		}
+	}
+	
+	/**
+	 * Method for triggering the phases of service composition that follow forward expansion.
+	 * @param 	compRequest			Service composition request
+	 * @param 	searchGraph			Frozen search graph that can serve the composition request
+	 * @param 	searchParallelism	Number of threads used for backward search
+	 * 								Backward search is performed on the calling thread if this is 1 or less
+	 * @return	List of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if no plans can be constructed
+	 */
+	private static List<ConstraintAwarePlan> buildSearchGraphCompositions(CompositionRequest compRequest, SearchGraph searchGraph, int searchParallelism)
+	{
+		//Using backward search for constructing plan sets from the search graph
+		List<Set<SearchNode>> planSets = null;
+		if (searchParallelism > 1)
+		{
+			planSets = BackwardSearch.parallelBackwardSearch(compRequest, searchGraph, searchParallelism);
 		}
 		else
 		{
-			compositionFailure = true;
+			planSets = BackwardSearch.memoizedBackwardSearch(compRequest, searchGraph);
 		}
 		
-		//In case the service composition process fails at some point
-		if (compositionFailure)
+		if (planSets.size() > 0)
 		{
-			logger.log("The given composition problem is either unsolvable based on the existing "
-						+ "repository or can be solved by a single service from the repository."
-						+ "\nAborting service composition process.\n");
+			//Discarding duplicate plan sets before they are pruned, as they would only lead to duplicate plans
+			planSets = PlanConstruction.removeDuplicatePlanSets(planSets);
+			
+			//Constructing pruned and validated composition plans from the plan sets
+			List<CompositionPlan> plans = PlanConstruction.constructPlans(compRequest, planSets, searchGraph.getParameterDictionary());
+			
+			if (plans.size() > 0)
+			{
+				//Constructing constraint aware plans from the composition plans
+				return ConstraintAwarePlanConstruction.constructCAPlans(plans, searchGraph.getParameterDictionary());
+			}
 		}
+		
 		return null;
 	}
 	
+	/**
+	 * Method for reading the service repository and constructing only the first few constraint-aware plans for the composition request.
+	 * Plan sets flow through plan construction and constraint adjustment one at a time, and the backward search stops
+	 * as soon as the required number of plans has been constructed.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repoFileName	Service repository file name
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @param 	planLimit		Maximum number of plans to be constructed
+	 * @return	List of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildFirstServiceCompositions(CompositionRequest compRequest, String repoFileName, LogUtil logger, 
+																			int planLimit)
+	{
+		return buildFirstServiceCompositions(compRequest, ServiceRepository.getSharedRepository(repoFileName), logger, planLimit);
+	}
+	
+	/**
+	 * Method for constructing only the first few constraint-aware plans for the composition request from an already loaded repository.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository shared across requests
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @param 	planLimit		Maximum number of plans to be constructed
+	 * @return	List of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildFirstServiceCompositions(CompositionRequest compRequest, ServiceRepository repository, LogUtil logger, 
+																			int planLimit)
+	{
+		Stream<ConstraintAwarePlan> cnstrAwrPlanStream = streamServiceCompositions(compRequest, repository, logger);
+		if (cnstrAwrPlanStream == null)
+		{
+			return null;
+		}
+		
+		List<ConstraintAwarePlan> cnstrAwrPlans = cnstrAwrPlanStream.limit(planLimit).collect(Collectors.toList());
+		if (cnstrAwrPlans.isEmpty())
+		{
+			logCompositionFailure(logger);
+			return null;
+		}
+		
+		return cnstrAwrPlans;
+	}
+	
+	/**
+	 * Method for reading the service repository and constructing only the best constraint-aware plans for the composition request.
+	 * Plans are ranked by the QoS features of the composition request (see QoSPlanSearch).
+	 * @param 	compRequest		Service composition request
+	 * @param 	repoFileName	Service repository file name
+	 * @param 	serviceQoS		QoS values of the repository services mapped to their names
+	 * @param 	planLimit		Maximum number of plans to be constructed
+	 * @return	List of the best constraint-aware service composition plans, ordered from the best to the worst
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildBestServiceCompositions(CompositionRequest compRequest, String repoFileName, LogUtil logger, 
+																			Map<String, QoSValues> serviceQoS, int planLimit)
+	{
+		return buildBestServiceCompositions(compRequest, ServiceRepository.getSharedRepository(repoFileName), logger, serviceQoS, planLimit);
+	}
+	
+	/**
+	 * Method for constructing only the best constraint-aware plans for the composition request from an already loaded repository.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository shared across requests
+	 * @param 	serviceQoS		QoS values of the repository services mapped to their names
+	 * @param 	planLimit		Maximum number of plans to be constructed
+	 * @return	List of the best constraint-aware service composition plans, ordered from the best to the worst
+	 * 			Null, if the service composition process fails at any point
+	 */
+	public static List<ConstraintAwarePlan> buildBestServiceCompositions(CompositionRequest compRequest, ServiceRepository repository, LogUtil logger, 
+																			Map<String, QoSValues> serviceQoS, int planLimit)
+	{
+		//Fetching the services of the repository
+		ArrayList<Service> serviceRepo = readServiceRepo(repository, compRequest.getInputs(), logger);
+		if (serviceRepo == null)
+		{
+			return null;
+		}
+		
+		//Using forward expansion to generate a search graph
+		SearchGraph searchGraph = ForwardExpansion.indexedForwardExpansion(compRequest, serviceRepo);
+		if (searchGraph == null)
+		{
+			logCompositionFailure(logger);
+			return null;
+		}
+		searchGraph.freeze();
+		
+		//Searching for the best plans only
+		List<ConstraintAwarePlan> cnstrAwrPlans = QoSPlanSearch.searchTopPlans(compRequest, searchGraph, serviceQoS, planLimit);
+		if (cnstrAwrPlans.isEmpty())
+		{
+			logCompositionFailure(logger);
+			return null;
+		}
+		
+		return cnstrAwrPlans;
+	}
+	
+	/**
+	 * Method for reading the service repository and creating a lazy pipeline of the phases that follow forward expansion.
+	 * Backward search, plan construction and constraint adjustment are performed only as plans are pulled from the returned stream.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repoFileName	Service repository file name
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @return	Sequential stream of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service repository cannot be read or no search graph can be constructed
+	 */
+	public static Stream<ConstraintAwarePlan> streamServiceCompositions(CompositionRequest compRequest, String repoFileName, LogUtil logger)
+	{
+		return streamServiceCompositions(compRequest, ServiceRepository.getSharedRepository(repoFileName), logger);
+	}
+	
+	/**
+	 * Method for creating a lazy pipeline of the phases that follow forward expansion using an already loaded repository.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository shared across requests
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @return	Sequential stream of constraint-aware service composition plans constructed for the composition request
+	 * 			Null, if the service repository cannot be read or no search graph can be constructed
+	 */
+	public static Stream<ConstraintAwarePlan> streamServiceCompositions(CompositionRequest compRequest, ServiceRepository repository, LogUtil logger)
+	{
+		//Fetching the services of the repository
+		ArrayList<Service> serviceRepo = readServiceRepo(repository, compRequest.getInputs(), logger);
+		if (serviceRepo == null)
+		{
+			return null;
+		}
+		
+		//Using forward expansion to generate a search graph
+		SearchGraph searchGraph = ForwardExpansion.indexedForwardExpansion(compRequest, serviceRepo);
+		if (searchGraph == null)
+		{
+			logCompositionFailure(logger);
+			return null;
+		}
+		searchGraph.freeze();
+		
+		//Chaining the lazy backward search, plan construction and constraint-aware plan construction phases
+		Stream<Set<SearchNode>> planSets = BackwardSearch.streamBackwardSearch(compRequest, searchGraph);
+		Stream<CompositionPlan> plans = PlanConstruction.streamPlans(compRequest, planSets, searchGraph.getParameterDictionary());
+		return ConstraintAwarePlanConstruction.streamCAPlans(plans, searchGraph.getParameterDictionary());
+	}
+	
+	/**
+	 * Method for fetching the services of a service repository that can be used for a composition request, 
+	 * reloading the repository if its file has changed since it was last read.
+	 * Only the services reachable from the request inputs are created for binary repositories.
+	 * @param 	repository		Service repository
+	 * @param 	inputs			Inputs of the composition request
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @return	List of candidate services in the repository
+	 * 			Null, if the repository cannot be parsed or is empty
+	 */
+	private static ArrayList<Service> readServiceRepo(ServiceRepository repository, List<String> inputs, LogUtil logger)
+	{
+		if (!checkServiceRepo(repository, logger))
+		{
+			return null;
+		}
+		
+		return repository.getCandidateServices(inputs);
+	}
+	
+	/**
+	 * Method for checking that a service repository is in a supported format and contains services.
+	 * @param 	repository		Service repository
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @return	true, if the repository can be used for service composition
+	 * 			false, if the repository cannot be parsed or is empty
+	 */
+	private static boolean checkServiceRepo(ServiceRepository repository, LogUtil logger)
+	{
+		if (!ServiceRepository.isSupportedFormat(repository.getRepoFileName()))
+		{
+			logger.log("Only XML (.xml), serialized Java object (.txt), composite service log (.cslog) or binary (.bsr) repositories can be parsed. \nAborting service composition process.\n");
+			return false;
+		}
+		
+		if (repository.getServiceCount() == 0)
+		{
+			logger.log("Service repository is empty.\nAborting service composition process.\n");
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method for logging the failure of the service composition process.
+	 * @param 	logger	Logging utility object for logging error or status messages to a text file
+	 */
+	private static void logCompositionFailure(LogUtil logger)
+	{
+		logCompositionFailure(logger, "");
+	}
+	
+	/**
+	 * Method for logging the failure of the service composition process for one of several requests.
+	 * The message is logged in a single write so that failures logged concurrently are not interleaved.
+	 * @param 	logger			Logging utility object for logging error or status messages to a text file
+	 * @param 	requestLabel	Prefix identifying the failed request
+	 */
+	private static void logCompositionFailure(LogUtil logger, String requestLabel)
+	{
+		logger.log(requestLabel + "The given composition problem is either unsolvable based on the existing "
+					+ "repository or can be solved by a single service from the repository."
+					+ "\nAborting service composition process.\n");
+	}
+	
 	/**
 	 * Method for fetching the operator name from the predefined enumeration based on the given operator symbol. 
 	 * @param 	opSymbol	Operator symbol
@@ -0,0 +1,364 @@
+package servicecomposition.drivers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import servicecomposition.compositionprocesses.ServiceComposition;
+import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.readers.JSONReqConfigReader;
+import servicecomposition.readers.RequestConfiguration;
+import utilities.LogUtil;
+import utilities.ReadWriteUtil;
+
+/**
+ * Driver class for running service composition as a local HTTP server.
+ * Unlike the interactive driver, the server keeps running between requests, so the service repositories
+ * read for one request stay loaded for the next ones.
+ * Composition requests are posted to /compose as JSON objects (see JSONReqConfigReader) and are processed
+ * concurrently by a bounded pool of worker threads. Requests received while all the workers are busy and the
+ * waiting queue is full are rejected with status 503.
+ * Requests must have the application/json content type, which web pages cannot send to another site without its consent,
+ * hence a page open in a local browser cannot make composition requests to the server.
+ * Request bodies longer than MAX_REQUEST_LENGTH bytes are rejected with status 413, without reading more than the limit.
+ * The service repository and the storage of composite services are configured only when the server is started.
+ * The response is a JSON object containing the plans generated for the request and the messages logged while processing it.
+ * Every request is processed with its own logger and log file, hence concurrent requests do not share any composition state.
+ * @author agent
+ */
+public class CompositionServer
+{
+	public static final int MAX_REQUEST_LENGTH = 1024 * 1024;
+	
+	private HttpServer httpServer;
+	private ThreadPoolExecutor workerPool;
+	private String repoFileName;
+	private String storeCSFlag;
+	
+	/**
+	 * Parameterized constructor.
+	 * The server listens only on the loopback address.
+	 * @param 	port					Port to listen on (0 for any free port)
+	 * @param 	workerCount				Number of requests that can be processed concurrently
+	 * @param 	queueCapacity			Number of requests that can wait for a free worker
+	 * @param 	repoFileName			Repository file used for all the requests
+	 * @param 	storeCompSvcs			true, if the composite services generated are stored in the repository
+	 * @throws 	IOException				If the server cannot be bound to the port
+	 */
+	public CompositionServer(int port, int workerCount, int queueCapacity, String repoFileName, boolean storeCompSvcs) throws IOException
+	{
+		this.repoFileName = repoFileName;
+		this.storeCSFlag = (storeCompSvcs) ? "Y" : "N";
+		workerPool = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity));
+		
+		//Requests are accepted on the server's dispatcher thread and handed over to the worker pool
+		httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		httpServer.createContext("/compose", this::acceptRequest);
+	}
+	
+	/**
+	 * Method for starting the server.
+	 */
+	public void start()
+	{
+		httpServer.start();
+	}
+	
+	/**
+	 * Method for stopping the server after the requests being processed are complete.
+	 * Requests still waiting in the queue are discarded.
+	 */
+	public void stop()
+	{
+		httpServer.stop(0);
+		workerPool.shutdown();
+		try
+		{
+			workerPool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch(InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Accessor method for the port the server is listening on.
+	 * @return	Server port
+	 */
+	public int getPort()
+	{
+		return httpServer.getAddress().getPort();
+	}
+	
+	/**
+	 * Method for queueing a request for processing by the worker pool.
+	 * The response is sent by the worker once the request is processed.
+	 * @param 	exchange	HTTP request and response
+	 */
+	private void acceptRequest(HttpExchange exchange) throws IOException
+	{
+		if (!exchange.getRequestMethod().equalsIgnoreCase("POST"))
+		{
+			sendResponse(exchange, 405, "{\"error\": \"Composition requests must be posted\"}");
+			return;
+		}
+		if (!isJSONContentType(exchange.getRequestHeaders().getFirst("Content-Type")))
+		{
+			sendResponse(exchange, 415, "{\"error\": \"Composition requests must have the application/json content type\"}");
+			return;
+		}
+		if (isDeclaredTooLong(exchange.getRequestHeaders().getFirst("Content-Length")))
+		{
+			sendRequestTooLong(exchange);
+			return;
+		}
+		
+		try
+		{
+			workerPool.execute(() -> processRequest(exchange));
+		}
+		catch(RejectedExecutionException ree)
+		{
+			sendResponse(exchange, 503, "{\"error\": \"Server is busy\"}");
+		}
+	}
+	
+	/**
+	 * Method for composing services for a request and sending the plans generated as the response.
+	 * @param 	exchange	HTTP request and response
+	 */
+	private void processRequest(HttpExchange exchange)
+	{
+		File logFile = null;
+		try
+		{
+			String requestText = readRequestBody(exchange);
+			if (requestText == null)
+			{
+				sendRequestTooLong(exchange);
+				return;
+			}
+			
+			JSONReqConfigReader configReader = new JSONReqConfigReader();
+			configReader.setRequestText(requestText);
+			configReader.setServerConfiguration(repoFileName, storeCSFlag);
+			RequestConfiguration reqConfig = configReader.readReqConfig();
+			if (reqConfig == null)
+			{
+				sendResponse(exchange, 400, "{\"error\": " + toJSONString(configReader.getErrorMessage()) + "}");
+				return;
+			}
+			
+			//Each request logs to its own file so that the messages of concurrent requests are not mixed
+			logFile = File.createTempFile("composition", ".log");
+			LogUtil logger = new LogUtil();
+			logger.setLogFileName(logFile.getPath());
+			
+			List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.driveServiceComposition(reqConfig, logger);
+			logger.flush();
+			String logMessages = (logFile.exists()) ? ReadWriteUtil.readTextFile(logFile.getPath()) : "";
+			
+			StringBuilder response = new StringBuilder("{\"plans\": [");
+			if (cnstrAwrPlans != null)
+			{
+				for (int i = 0; i < cnstrAwrPlans.size(); i++)
+				{
+					if (i > 0)
+					{
+						response.append(", ");
+					}
+					response.append(toJSONString(cnstrAwrPlans.get(i).toString()));
+				}
+			}
+			response.append("], \"log\": ").append(toJSONString(logMessages)).append("}");
+			
+			sendResponse(exchange, ((cnstrAwrPlans == null) ? 422 : 200), response.toString());
+		}
+		catch(Exception e)
+		{
+			try
+			{
+				sendResponse(exchange, 500, "{\"error\": " + toJSONString(String.valueOf(e.getMessage())) + "}");
+			}
+			catch(IOException ioe)
+			{
+				System.out.println("Exception while sending the response: " + ioe.getMessage());
+			}
+		}
+		finally
+		{
+			exchange.close();
+			if (logFile != null)
+			{
+				logFile.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Method for checking if the content type of a request is JSON.
+	 * @param 	contentType		Value of the Content-Type header of the request
+	 * @return	true, if the media type is application/json, with or without parameters such as the character set
+	 * 			false, otherwise
+	 */
+	private static boolean isJSONContentType(String contentType)
+	{
+		if (contentType == null)
+		{
+			return false;
+		}
+		
+		int parametersStart = contentType.indexOf(';');
+		String mediaType = (parametersStart < 0) ? contentType : contentType.substring(0, parametersStart);
+		return mediaType.trim().equalsIgnoreCase("application/json");
+	}
+	
+	/**
+	 * Method for checking if the declared length of a request body exceeds the maximum request length.
+	 * @param 	contentLength	Value of the Content-Length header of the request
+	 * @return	true, if the declared length is longer than MAX_REQUEST_LENGTH bytes
+	 * 			false, if the length is within the limit or is not declared, in which case it is checked while reading the body
+	 */
+	private static boolean isDeclaredTooLong(String contentLength)
+	{
+		if (contentLength == null)
+		{
+			return false;
+		}
+		
+		try
+		{
+			return (Long.parseLong(contentLength.trim()) > MAX_REQUEST_LENGTH);
+		}
+		catch(NumberFormatException nfe)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Method for reading the body of a request, up to the maximum request length.
+	 * @param 	exchange	HTTP request and response
+	 * @return	Request body decoded as UTF-8
+	 * 			Null, if the body is longer than MAX_REQUEST_LENGTH bytes
+	 */
+	private static String readRequestBody(HttpExchange exchange) throws IOException
+	{
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		try (InputStream requestStream = exchange.getRequestBody())
+		{
+			int readCount;
+			while ((readCount = requestStream.read(buffer)) != -1)
+			{
+				if (body.size() + readCount > MAX_REQUEST_LENGTH)
+				{
+					return null;
+				}
+				body.write(buffer, 0, readCount);
+			}
+		}
+		
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Method for rejecting a request whose body is longer than the maximum request length.
+	 * @param 	exchange	HTTP request and response
+	 */
+	private static void sendRequestTooLong(HttpExchange exchange) throws IOException
+	{
+		sendResponse(exchange, 413, "{\"error\": \"Composition requests cannot be longer than " + MAX_REQUEST_LENGTH + " bytes\"}");
+	}
+	
+	/**
+	 * Method for sending a JSON response and closing the exchange.
+	 * @param 	exchange		HTTP request and response
+	 * @param 	statusCode		HTTP status code
+	 * @param 	responseText	JSON response
+	 */
+	private static void sendResponse(HttpExchange exchange, int statusCode, String responseText) throws IOException
+	{
+		byte[] responseBytes = responseText.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(statusCode, responseBytes.length);
+		try (OutputStream responseStream = exchange.getResponseBody())
+		{
+			responseStream.write(responseBytes);
+		}
+	}
+	
+	/**
+	 * Method for converting text to a quoted JSON string.
+	 * @param 	text	Text to be converted
+	 * @return	JSON string with the special characters of the text escaped
+	 */
+	private static String toJSONString(String text)
+	{
+		StringBuilder jsonString = new StringBuilder("\"");
+		for (char character : text.toCharArray())
+		{
+			switch(character)
+			{
+				case '"'	:	jsonString.append("\\\"");
+								break;
+				case '\\'	:	jsonString.append("\\\\");
+								break;
+				case '\n'	:	jsonString.append("\\n");
+								break;
+				case '\r'	:	jsonString.append("\\r");
+								break;
+				case '\t'	:	jsonString.append("\\t");
+								break;
+				default		:	if (character < 0x20)
+								{
+									jsonString.append(String.format("\\u%04x", (int) character));
+								}
+								else
+								{
+									jsonString.append(character);
+								}
+			}
+		}
+		
+		return jsonString.append("\"").toString();
+	}
+	
+	/**
+	 * Method for starting a composition server from the command line.
+	 * @param 	args	Repository file name, followed by the optional arguments: composite service storage flag Y/N (default N),
+	 * 					port (default 8080), number of workers (default number of processors) and queue capacity (default 100)
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: CompositionServer <repository file> [<store composite services Y/N> [<port> [<workers> [<queue capacity>]]]]");
+			return;
+		}
+		String repoFileName = args[0];
+		boolean storeCompSvcs = (args.length > 1) && (args[1].equalsIgnoreCase("Y"));
+		int port = (args.length > 2) ? Integer.parseInt(args[2]) : 8080;
+		int workerCount = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		int queueCapacity = (args.length > 4) ? Integer.parseInt(args[4]) : 100;
+		
+		CompositionServer server = new CompositionServer(port, workerCount, queueCapacity, repoFileName, storeCompSvcs);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		server.start();
+		
+		System.out.println("Composition server listening on http://localhost:" + server.getPort() + "/compose with "
+							+ workerCount + " workers.");
+	}
+}
\ No newline at end of file
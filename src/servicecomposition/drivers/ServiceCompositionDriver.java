@@ -11,6 +11,7 @@ import servicecomposition.readers.RequestConfiguration;
 import servicecomposition.readers.XMLFileReqConfigReader;
 import utilities.LogUtil;
 import utilities.ReadWriteUtil;
+import utilities.TextFileWriter;
 
 /**
  * Driver class for service composition process.
@@ -81,7 +82,6 @@ public class ServiceCompositionDriver
 		LogUtil logger = new LogUtil();
 		logger.setLogFileName(logFileName);
 		
-		String planDetails = "";
 		List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.driveServiceComposition(reqConfig, logger);
 		if (cnstrAwrPlans == null)
 		{
@@ -90,14 +90,28 @@ public class ServiceCompositionDriver
 		}
 		else
 		{
-			for (int i = 0; i < cnstrAwrPlans.size(); i++)
+			//Writing the plans one at a time through a single open writer, separated by blank lines
+			String plansFileName = destFolderName + "plans.txt";
+			try (TextFileWriter plansWriter = ReadWriteUtil.openTextFileWriter(plansFileName))
 			{
-				planDetails += "Plan " + (i+1) + ":\n" + cnstrAwrPlans.get(i).toString() + "\n\n";
+				if (plansWriter == null)
+				{
+					return;
+				}
+				for (int i = 0; i < cnstrAwrPlans.size(); i++)
+				{
+					String planDetails = "Plan " + (i+1) + ":\n" + cnstrAwrPlans.get(i).toString();
+					if (i == cnstrAwrPlans.size() - 1)
+					{
+						planDetails = planDetails.replaceFirst("\\s+$", "");
+					}
+					else
+					{
+						planDetails += "\n\n";
+					}
+					plansWriter.append(planDetails);
+				}
 			}
-			planDetails = planDetails.trim();
-			
-			String plansFileName = destFolderName + "plans.txt";
-			ReadWriteUtil.writeToTextFile(plansFileName, planDetails);
 			
 			System.out.println("The composition plans generated for the given request have been written to "
 								+ plansFileName);
@@ -2,6 +2,7 @@ package servicecomposition.entities;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -55,16 +56,22 @@ public class CompositionPlan
 	}
 	
 	/**
-	 * Method for removing search nodes from this composition plan based on each search node's layer index.
+	 * Method for removing search nodes from the service layers of this composition plan.
 	 * @param 	nodesToBeRemoved	List of search nodes to be removed
 	 */
 	public void removeSearchNodes(List<SearchNode> nodesToBeRemoved)
 	{
-		for (SearchNode searchNode : nodesToBeRemoved)
+		//Search nodes are compared by identity, so every layer can be filtered in a single pass instead of one scan per removed node
+		Set<SearchNode> removalSet = Collections.newSetFromMap(new IdentityHashMap<SearchNode, Boolean>());
+		removalSet.addAll(nodesToBeRemoved);
+		if (removalSet.isEmpty())
 		{
-			//Removing the current search node from its service layer
-			int nodeLayerIndex = searchNode.getLayerIndex();
-			serviceLayers.get(nodeLayerIndex).remove(searchNode);
+			return;
+		}
+		
+		for (List<SearchNode> serviceLayer : serviceLayers)
+		{
+			serviceLayer.removeIf(layerNode -> removalSet.contains(layerNode));
 		}
 	}
 	
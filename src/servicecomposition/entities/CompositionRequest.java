@@ -1,6 +1,8 @@
 package servicecomposition.entities;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import constraint.Constraint;
 
@@ -160,6 +162,33 @@ public class CompositionRequest
 		}
 	}
 	
+	/**
+	 * Method for creating the canonical form of this composition request.
+	 * Inputs, outputs, QoS features and constraints are each sorted, so requests listing the same components in different orders
+	 * have the same canonical form. Constraints are represented by their service name, type, operator and literal value.
+	 * @return	Canonical form of this composition request
+	 */
+	public String getCanonicalForm()
+	{
+		List<String> constraintStrings = new ArrayList<String>();
+		for (Constraint constraint : constraints)
+		{
+			constraintStrings.add(constraint.getServiceName() + "|" + constraint.getType() + "|" 
+									+ constraint.getOperator() + "|" + constraint.getLiteralValue());
+		}
+		
+		//Components are separated by control characters that cannot be part of ontology types entered by the user
+		StringBuilder canonicalForm = new StringBuilder();
+		for (List<String> component : Arrays.asList(inputs, outputs, qos, constraintStrings))
+		{
+			List<String> sortedComponent = new ArrayList<String>(component);
+			Collections.sort(sortedComponent);
+			canonicalForm.append(String.join("\u001f", sortedComponent)).append("\u001e");
+		}
+		
+		return canonicalForm.toString();
+	}
+	
 	/**
 	 * Overridden toString method for Composition Request class.
 	 * @return	String containing details of this composition request
@@ -0,0 +1,280 @@
+package servicecomposition.entities;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Class representing a cache of the constraint-aware plans constructed for composition requests.
+ * Results are keyed by the canonical form of the composition request (see CompositionRequest.getCanonicalForm()) along with
+ * the repository file and the repository version they were constructed from. Hence, requests listing the same components
+ * in different orders share a result, and results constructed from older contents of a repository are never returned.
+ * Repository versions are unique within the process, so results constructed by different repository objects for the same file are kept apart.
+ * The cache is bounded both by its number of entries and by the estimated memory occupied by the cached plans,
+ * and the least recently used entries are evicted first once either bound is exceeded.
+ * Plans are copied when they are cached and every time they are returned, so that a request can modify the plans returned to it
+ * without affecting the cached plans or the plans returned to other requests.
+ * @author agent
+ */
+public class CompositionResultCache
+{
+	private static final int DEFAULT_MAX_ENTRIES = 1000;
+	private static final long DEFAULT_MAX_ESTIMATED_BYTES = 64L * 1024 * 1024;
+	private static final long SERVICE_NODE_BYTES = 128;
+	private static final long CONSTRAINT_BYTES = 48;
+	private static final long NODE_LINK_BYTES = 8;
+	private static final CompositionResultCache sharedCache = new CompositionResultCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_ESTIMATED_BYTES);
+	private int maxEntries;
+	private long maxEstimatedBytes;
+	private long estimatedBytes;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	private LinkedHashMap<String, CacheEntry> entries;
+	
+	/**
+	 * Class representing the plans cached for a composition request.
+	 */
+	private static class CacheEntry
+	{
+		private String repoKey;
+		private List<ConstraintAwarePlan> cnstrAwrPlans;
+		private long estimatedBytes;
+		
+		/**
+		 * Constructor with all data member values accepted as arguments.
+		 * @param 	repoKey				Key of the repository the plans are constructed from
+		 * @param 	cnstrAwrPlans		List of constraint-aware plans
+		 * @param 	estimatedBytes		Estimated size of the plans in bytes
+		 */
+		private CacheEntry(String repoKey, List<ConstraintAwarePlan> cnstrAwrPlans, long estimatedBytes)
+		{
+			this.repoKey = repoKey;
+			this.cnstrAwrPlans = cnstrAwrPlans;
+			this.estimatedBytes = estimatedBytes;
+		}
+	}
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	maxEntries			Maximum number of requests whose plans can be cached
+	 * @param 	maxEstimatedBytes	Maximum estimated memory occupied by all the cached plans
+	 */
+	public CompositionResultCache(int maxEntries, long maxEstimatedBytes)
+	{
+		this.maxEntries = maxEntries;
+		this.maxEstimatedBytes = maxEstimatedBytes;
+		this.estimatedBytes = 0;
+		this.hitCount = 0;
+		this.missCount = 0;
+		this.evictionCount = 0;
+		
+		//Entries are kept in access order so that the eldest entry is always the least recently used one
+		this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+	}
+	
+	/**
+	 * Method for fetching the cache shared by all the composition requests made within this process.
+	 * @return	Shared result cache
+	 */
+	public static CompositionResultCache getSharedCache()
+	{
+		return sharedCache;
+	}
+	
+	/**
+	 * Method for fetching the plans cached for a composition request.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository the plans are constructed from
+	 * @param 	repoVersion		Version of the repository the plans are constructed from
+	 * @return	List of copies of the cached constraint-aware plans
+	 * 			Null, if no plans are cached for the request and repository version
+	 */
+	public synchronized List<ConstraintAwarePlan> get(CompositionRequest compRequest, ServiceRepository repository, long repoVersion)
+	{
+		CacheEntry entry = entries.get(getEntryKey(compRequest, repository, repoVersion));
+		if (entry == null)
+		{
+			missCount++;
+			return null;
+		}
+		
+		hitCount++;
+		return copyPlans(entry.cnstrAwrPlans);
+	}
+	
+	/**
+	 * Method for caching the plans constructed for a composition request, evicting the least recently used entries if required.
+	 * Plans estimated to occupy more memory than the whole cache is allowed to are not cached.
+	 * The plans are copied, hence later modifications of the given plans do not affect the cached plans.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository the plans are constructed from
+	 * @param 	repoVersion		Version of the repository the plans are constructed from
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans constructed for the request
+	 */
+	public synchronized void put(CompositionRequest compRequest, ServiceRepository repository, long repoVersion, List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		long planBytes = estimateBytes(cnstrAwrPlans);
+		if (planBytes > maxEstimatedBytes)
+		{
+			return;
+		}
+		CacheEntry entry = new CacheEntry(getRepoKey(repository.getRepoFileName()), copyPlans(cnstrAwrPlans), planBytes);
+		
+		CacheEntry replacedEntry = entries.put(getEntryKey(compRequest, repository, repoVersion), entry);
+		if (replacedEntry != null)
+		{
+			estimatedBytes -= replacedEntry.estimatedBytes;
+		}
+		estimatedBytes += entry.estimatedBytes;
+		
+		//Evicting the least recently used entries until both the bounds are satisfied
+		Iterator<CacheEntry> entryIter = entries.values().iterator();
+		while ((entries.size() > maxEntries) || (estimatedBytes > maxEstimatedBytes))
+		{
+			CacheEntry eldestEntry = entryIter.next();
+			entryIter.remove();
+			estimatedBytes -= eldestEntry.estimatedBytes;
+			evictionCount++;
+		}
+	}
+	
+	/**
+	 * Method for removing all the plans cached for a repository, e.g. after the repository has been modified.
+	 * @param 	repoFileName	Name of the repository file
+	 */
+	public synchronized void invalidate(String repoFileName)
+	{
+		String repoKey = getRepoKey(repoFileName);
+		Iterator<CacheEntry> entryIter = entries.values().iterator();
+		while (entryIter.hasNext())
+		{
+			CacheEntry entry = entryIter.next();
+			if (entry.repoKey.equals(repoKey))
+			{
+				entryIter.remove();
+				estimatedBytes -= entry.estimatedBytes;
+			}
+		}
+	}
+	
+	/**
+	 * Method for removing all the cached plans. The statistics of the cache are retained.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		estimatedBytes = 0;
+	}
+	
+	/**
+	 * Method for fetching the number of lookups that found cached plans.
+	 * @return	Number of cache hits
+	 */
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+	
+	/**
+	 * Method for fetching the number of lookups that did not find cached plans.
+	 * @return	Number of cache misses
+	 */
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+	
+	/**
+	 * Method for fetching the number of entries evicted to satisfy the bounds of the cache.
+	 * @return	Number of evictions
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictionCount;
+	}
+	
+	/**
+	 * Method for fetching the number of requests whose plans are currently cached.
+	 * @return	Number of cache entries
+	 */
+	public synchronized int getEntryCount()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * Method for fetching the estimated memory occupied by all the cached plans.
+	 * @return	Estimated size of the cached plans in bytes
+	 */
+	public synchronized long getEstimatedBytes()
+	{
+		return estimatedBytes;
+	}
+	
+	/**
+	 * Method for creating the key of the cache entry of a composition request.
+	 * @param 	compRequest		Service composition request
+	 * @param 	repository		Service repository
+	 * @param 	repoVersion		Version of the repository
+	 * @return	Cache entry key
+	 */
+	private static String getEntryKey(CompositionRequest compRequest, ServiceRepository repository, long repoVersion)
+	{
+		return getRepoKey(repository.getRepoFileName()) + "\u001d" + repoVersion + "\u001d" + compRequest.getCanonicalForm();
+	}
+	
+	/**
+	 * Method for creating the key identifying a repository file irrespective of the path used to refer to it.
+	 * @param 	repoFileName	Name of the repository file
+	 * @return	Repository key
+	 */
+	private static String getRepoKey(String repoFileName)
+	{
+		return new File(repoFileName).getAbsolutePath();
+	}
+	
+	/**
+	 * Method for copying a list of constraint-aware plans.
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans
+	 * @return	List of copies of the plans, in the same order
+	 */
+	private static List<ConstraintAwarePlan> copyPlans(List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		List<ConstraintAwarePlan> planCopies = new ArrayList<ConstraintAwarePlan>(cnstrAwrPlans.size());
+		for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
+		{
+			planCopies.add(new ConstraintAwarePlan(cnstrAwrPlan));
+		}
+		
+		return planCopies;
+	}
+	
+	/**
+	 * Method for estimating the memory occupied by a list of constraint-aware plans.
+	 * The estimate counts the service nodes of the plans along with their constraints and links.
+	 * Services are not counted as they are shared with the repository.
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans
+	 * @return	Estimated size of the plans in bytes
+	 */
+	private static long estimateBytes(List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		long planBytes = 0;
+		for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
+		{
+			for (List<ServiceNode> serviceLayer : cnstrAwrPlan.getServiceLayers())
+			{
+				for (ServiceNode serviceNode : serviceLayer)
+				{
+					planBytes += SERVICE_NODE_BYTES
+									+ (serviceNode.getConstraints().size() * CONSTRAINT_BYTES)
+									+ ((serviceNode.getPredecessors().size() + serviceNode.getSuccessors().size()) * NODE_LINK_BYTES);
+				}
+			}
+		}
+		
+		return planBytes;
+	}
+}
\ No newline at end of file
@@ -3,21 +3,31 @@ package servicecomposition.entities;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import constraint.Constraint;
 import service.ConstrainedService;
+import service.Service;
+import service.composite.layeredcompsvc.LayeredCompositeService;
 
 /**
  * Class for representing a constraint-aware service composition plan.
+ * Service nodes are indexed by service name within every service layer so that they can be fetched in constant time.
+ * Service layers can only be modified through this class, which keeps the index up to date on every modification.
+ * The index is not serialized and is rebuilt when it is first used after deserialization.
  * @author Jyotsana Gupta
  */
 public class ConstraintAwarePlan implements Serializable
 {
 	private static final long serialVersionUID = 1802299450235374301L;
 	private List<List<ServiceNode>> serviceLayers;
+	private transient List<Map<String, ServiceNode>> serviceNodeIndex;
+	private transient List<List<ServiceNode>> serviceLayersView;
 	
 	/**
 	 * Parameterized constructor.
@@ -31,6 +41,45 @@ public class ConstraintAwarePlan implements Serializable
 		{
 			serviceLayers.add(new ArrayList<ServiceNode>());
 		}
+		rebuildServiceNodeIndex();
+	}
+	
+	/**
+	 * Copy constructor.
+	 * Service nodes are copied along with their constraint lists, and the links between them are recreated between the copies.
+	 * Services and constraints are shared with the original plan, as they are not modified by plans.
+	 * @param 	cnstrAwrPlan	Constraint-aware plan to be copied for creating this plan
+	 */
+	public ConstraintAwarePlan(ConstraintAwarePlan cnstrAwrPlan)
+	{
+		serviceLayers = new ArrayList<List<ServiceNode>>();
+		Map<ServiceNode, ServiceNode> nodeCopies = new IdentityHashMap<ServiceNode, ServiceNode>();
+		for (List<ServiceNode> serviceLayer : cnstrAwrPlan.serviceLayers)
+		{
+			List<ServiceNode> layerCopy = new ArrayList<ServiceNode>();
+			for (ServiceNode serviceNode : serviceLayer)
+			{
+				ServiceNode nodeCopy = new ServiceNode(serviceNode.getService(), new ArrayList<Constraint>(serviceNode.getConstraints()), 
+														serviceNode.getLayerIndex());
+				nodeCopies.put(serviceNode, nodeCopy);
+				layerCopy.add(nodeCopy);
+			}
+			serviceLayers.add(layerCopy);
+		}
+		
+		//Links to nodes outside the plan, if any, are kept as they are
+		for (Map.Entry<ServiceNode, ServiceNode> nodeCopy : nodeCopies.entrySet())
+		{
+			for (ServiceNode predecessor : nodeCopy.getKey().getPredecessors())
+			{
+				nodeCopy.getValue().addPredecessor(nodeCopies.getOrDefault(predecessor, predecessor));
+			}
+			for (ServiceNode successor : nodeCopy.getKey().getSuccessors())
+			{
+				nodeCopy.getValue().addSuccessor(nodeCopies.getOrDefault(successor, successor));
+			}
+		}
+		rebuildServiceNodeIndex();
 	}
 	
 	/**
@@ -52,15 +101,9 @@ public class ConstraintAwarePlan implements Serializable
 	public ServiceNode getServiceNode(int layerIndex, String serviceName)
 	{		
 		int planLayerCount = serviceLayers.size();
-		if (planLayerCount > layerIndex)
+		if ((layerIndex >= 0) && (planLayerCount > layerIndex))
 		{
-			for (ServiceNode serviceNode : serviceLayers.get(layerIndex))
-			{
-				if (serviceNode.getService().getName().equals(serviceName))
-				{
-					return serviceNode;
-				}
-			}
+			return getLayerIndex(layerIndex).get(serviceName);
 		}
 		
 		return null;
@@ -68,11 +111,24 @@ public class ConstraintAwarePlan implements Serializable
 	
 	/**
 	 * Method for fetching all the service layers of this constraint-aware composition plan.
-	 * @return	List of service layers of this constraint-aware composition plan
+	 * The returned layers reflect later changes to this plan but cannot be modified, so that the service node index stays valid.
+	 * Service nodes are added using addServiceNode() and empty layers are removed using removeEmptyLayers().
+	 * @return	Unmodifiable list of service layers of this constraint-aware composition plan
 	 */
 	public List<List<ServiceNode>> getServiceLayers()
 	{
-		return serviceLayers;
+		//The view is not serialized and is created again after deserialization
+		if (serviceLayersView == null)
+		{
+			List<List<ServiceNode>> layerViews = new ArrayList<List<ServiceNode>>();
+			for (List<ServiceNode> serviceLayer : serviceLayers)
+			{
+				layerViews.add(Collections.unmodifiableList(serviceLayer));
+			}
+			serviceLayersView = Collections.unmodifiableList(layerViews);
+		}
+		
+		return serviceLayersView;
 	}
 	
 	/**
@@ -86,6 +142,9 @@ public class ConstraintAwarePlan implements Serializable
 		if (planLayerCount > layerIndex)
 		{
 			serviceLayers.get(layerIndex).add(serviceNode);
+			
+			//The first node of a service in a layer is the one returned by getServiceNode()
+			getLayerIndex(layerIndex).putIfAbsent(serviceNode.getService().getName(), serviceNode);
 		}
 	}
 	
@@ -112,6 +171,10 @@ public class ConstraintAwarePlan implements Serializable
 		//Adjusting the service layer index of all the service nodes after removal of service layers
 		if (emptyLayersFound)
 		{
+			//Re-indexing the remaining layers at their new positions
+			rebuildServiceNodeIndex();
+			serviceLayersView = null;
+			
 			for (int i = 0; i < planLayerCount; i++)
 			{
 				List<ServiceNode> currLayer = serviceLayers.get(i);
@@ -123,11 +186,84 @@ public class ConstraintAwarePlan implements Serializable
 		}
 	}
 	
+	/**
+	 * Method for fetching the service node index of a service layer.
+	 * @param 	layerIndex	Index of the service layer
+	 * @return	Service nodes of the layer mapped to their service names
+	 */
+	private Map<String, ServiceNode> getLayerIndex(int layerIndex)
+	{
+		//The index is not restored during deserialization
+		if (serviceNodeIndex == null)
+		{
+			rebuildServiceNodeIndex();
+		}
+		
+		return serviceNodeIndex.get(layerIndex);
+	}
+	
+	/**
+	 * Method for indexing all the service layers of this plan.
+	 */
+	private void rebuildServiceNodeIndex()
+	{
+		serviceNodeIndex = new ArrayList<Map<String, ServiceNode>>();
+		for (List<ServiceNode> serviceLayer : serviceLayers)
+		{
+			serviceNodeIndex.add(indexServiceLayer(serviceLayer));
+		}
+	}
+	
+	/**
+	 * Method for mapping the service nodes of a service layer to their service names.
+	 * If a layer contains more than 1 node for a service, only the first one is indexed.
+	 * @param 	serviceLayer	Service layer to be indexed
+	 * @return	Service nodes of the layer mapped to their service names
+	 */
+	private static Map<String, ServiceNode> indexServiceLayer(List<ServiceNode> serviceLayer)
+	{
+		Map<String, ServiceNode> layerIndexMap = new HashMap<String, ServiceNode>();
+		for (ServiceNode serviceNode : serviceLayer)
+		{
+			layerIndexMap.putIfAbsent(serviceNode.getService().getName(), serviceNode);
+		}
+		
+		return layerIndexMap;
+	}
+	
 	/**
 	 * Method for adjusting the constraints in this plan to be able to execute them as early as possible. 
+	 * A constraint of a service node is moved to the successors of the nearest predecessors (i.e. those in the highest service layer)
+	 * that affect the constraint's feature. If no predecessor affects the feature, the constraint is moved to the first service layer.
+	 * The nearest affecting predecessors are computed once for every service node and constraint type, reusing the results
+	 * of the node's predecessors, instead of walking back through the plan for every constraint separately.
 	 */
 	public void adjustConstraints()
 	{
+		adjustConstraints(new ParameterDictionary());
+	}
+	
+	/**
+	 * Method for adjusting the constraints in this plan (see adjustConstraints()) using an existing parameter dictionary,
+	 * so that the effects of the services are compared as effect IDs of their cached signatures.
+	 * The services of this plan are interned if the dictionary does not contain them yet. Hence, a dictionary shared between threads
+	 * must already contain all of them, as the dictionary of the frozen search graph that the plan was constructed from does.
+	 * @param 	dictionary	Parameter dictionary used for encoding the effects of the plan services
+	 */
+	public void adjustConstraints(ParameterDictionary dictionary)
+	{
+		//Interning all the plan services first, so that the constraint types affected by any of them have effect IDs
+		for (List<ServiceNode> serviceLayer : serviceLayers)
+		{
+			for (ServiceNode serviceNode : serviceLayer)
+			{
+				dictionary.getSignature(serviceNode.getService());
+			}
+		}
+		
+		//Nearest predecessors affecting every constraint type, mapped to the service nodes and the effect IDs of the types
+		Map<ServiceNode, Map<Integer, List<ServiceNode>>> effectFrontiers = new IdentityHashMap<ServiceNode, Map<Integer, List<ServiceNode>>>();
+		
 		//For each service layer (starting from the second one) in this plan
 		int planLayerCount = serviceLayers.size();
 		for (int i = 1; i < planLayerCount; i++)
@@ -139,85 +275,47 @@ public class ConstraintAwarePlan implements Serializable
 			{
 				//For each constraint in the service object of the current service node
 				ServiceNode currServiceNode = currLayer.get(j);
-				ConstrainedService currConstrService = (ConstrainedService) currServiceNode.getService();
-				List<Constraint> adjConstraints = currConstrService.getConstraints();
+				List<Constraint> adjConstraints = getConstrainedService(currServiceNode).getConstraints();
 				int adjCnstrCount = (adjConstraints == null) ? 0 : adjConstraints.size();
 				for (int k = 0; k < adjCnstrCount; k++)
 				{
-					boolean constraintAdjusted = false;
-					boolean currNodeGetsContsraint = false;
 					Constraint currConstraint = adjConstraints.get(k);
-					Set<ServiceNode> predSet = new HashSet<ServiceNode>();
-					predSet.addAll(currServiceNode.getPredecessors());
+					int effectId = dictionary.getEffectId(currConstraint.getType());
+					List<ServiceNode> closestPreds = getEffectFrontier(currServiceNode, effectId, effectFrontiers, dictionary);
 					
-					//For each layer before the current layer
-					for (int l = i - 1; l >= 0; l--)
+					//If the constraint feature is not affected by any predecessors
+					if (closestPreds.isEmpty())
 					{
-						//Creating a set of predecessors to be checked with the highest layer index
-						Set<ServiceNode> closestPredSet = new HashSet<ServiceNode>();
-						for (ServiceNode predecessor : predSet)
+						//Move the constraint to the beginning of this plan
+						for (ServiceNode firstLayerNode : serviceLayers.get(0))
 						{
-							if (predecessor.getLayerIndex() == l)
-							{
-								closestPredSet.add(predecessor);
-							}
+							firstLayerNode.addConstraint(currConstraint);
 						}
-						
-						//For each of the highest layer predecessors
-						for (ServiceNode closestPred : closestPredSet)
-						{
-							//Checking if the predecessor affects the current constraint's feature
-							if (((ConstrainedService) closestPred.getService()).getEffects().contains(currConstraint.getType()))
-							{
-								//If yes, adding the constraint to the predecessor's successor nodes
-								constraintAdjusted = true;
-								List<ServiceNode> successorList = closestPred.getSuccessors();								
-								int successorCount = successorList.size();
-								for (int m = 0; m < successorCount; m++)
-								{
-									successorList.get(m).addConstraint(currConstraint);
-									
-									//If the current service node is one of the successor
-									//nodes to get the constraint during adjustment									
-									if (successorList.get(m) == currServiceNode)
-									{
-										currNodeGetsContsraint = true;
-									}
-								}
-							}
-							else
-							{
-								//If not, adding the predecessor's predecessor nodes in the predecessor set
-								//and removing the predecessor from that set
-								predSet.addAll(closestPred.getPredecessors());
-								predSet.remove(closestPred);
-							}
-						}
-						
-						//If the current constraint was adjusted successfully
-						if (constraintAdjusted)
+						currServiceNode.removeConstraint(currConstraint);
+						continue;
+					}
+					
+					//Adding the constraint to the successor nodes of all the closest predecessors affecting its feature
+					boolean currNodeGetsConstraint = false;
+					for (ServiceNode closestPred : closestPreds)
+					{
+						for (ServiceNode successor : closestPred.getSuccessors())
 						{
-							if (!currNodeGetsContsraint)
+							successor.addConstraint(currConstraint);
+							
+							//If the current service node is one of the successor
+							//nodes to get the constraint during adjustment
+							if (successor == currServiceNode)
 							{
-								//If the current service node does not receive this constraint during
-								//adjustment, remove it from the node and adjust the next constraint
-								currServiceNode.removeConstraint(currConstraint);
+								currNodeGetsConstraint = true;
 							}
-							
-							break;
 						}
 					}
 					
-					//If the constraint feature is not affected by any predecessors
-					if (!constraintAdjusted)
+					//If the current service node does not receive this constraint during
+					//adjustment, remove it from the node
+					if (!currNodeGetsConstraint)
 					{
-						//Move the constraint to the beginning of this plan
-						List<ServiceNode> firstLayer = serviceLayers.get(0);
-						int fstLayerSvcCount = firstLayer.size();
-						for (int n = 0; n < fstLayerSvcCount; n++)
-						{
-							firstLayer.get(n).addConstraint(currConstraint);
-						}
 						currServiceNode.removeConstraint(currConstraint);
 					}
 				}
@@ -225,6 +323,143 @@ public class ConstraintAwarePlan implements Serializable
 		}
 	}
 	
+	/**
+	 * Method for finding the nearest predecessors of a service node that affect a constraint type.
+	 * These are the predecessors affecting the type that are reachable from the node through predecessors not affecting the type,
+	 * and that belong to the highest service layer among all such predecessors.
+	 * Frontiers are computed recursively from the frontiers of the predecessors and cached for the whole adjustment.
+	 * @param 	serviceNode			Service node whose predecessors need to be checked
+	 * @param 	effectId			Effect ID of the constraint type (feature) that the predecessors need to affect
+	 * 								-1, if no service of this plan affects the constraint type
+	 * @param 	effectFrontiers		Frontiers computed so far, mapped to their service nodes and the effect IDs of the constraint types
+	 * @param 	dictionary			Parameter dictionary containing the signatures of all the plan services
+	 * @return	List of the nearest predecessors affecting the constraint type
+	 * 			Empty list, if no predecessor affects the constraint type
+	 */
+	private static List<ServiceNode> getEffectFrontier(ServiceNode serviceNode, int effectId, 
+														Map<ServiceNode, Map<Integer, List<ServiceNode>>> effectFrontiers,
+														ParameterDictionary dictionary)
+	{
+		Map<Integer, List<ServiceNode>> nodeFrontiers = effectFrontiers.get(serviceNode);
+		if (nodeFrontiers == null)
+		{
+			nodeFrontiers = new HashMap<Integer, List<ServiceNode>>();
+			effectFrontiers.put(serviceNode, nodeFrontiers);
+		}
+		List<ServiceNode> frontier = nodeFrontiers.get(effectId);
+		if (frontier != null)
+		{
+			return frontier;
+		}
+		
+		//Keeping only the candidates from the highest service layer
+		frontier = new ArrayList<ServiceNode>();
+		Set<ServiceNode> frontierSet = Collections.newSetFromMap(new IdentityHashMap<ServiceNode, Boolean>());
+		int frontierLayerIndex = -1;
+		for (ServiceNode predecessor : serviceNode.getPredecessors())
+		{
+			//Only predecessors from earlier service layers are considered
+			int predLayerIndex = predecessor.getLayerIndex();
+			if ((predLayerIndex < 0) || (predLayerIndex >= serviceNode.getLayerIndex()))
+			{
+				continue;
+			}
+			
+			//A predecessor affecting the type is a candidate itself, otherwise its own frontier provides the candidates
+			List<ServiceNode> candidates;
+			if (dictionary.getSignature(predecessor.getService()).hasEffect(effectId))
+			{
+				candidates = Collections.singletonList(predecessor);
+			}
+			else
+			{
+				candidates = getEffectFrontier(predecessor, effectId, effectFrontiers, dictionary);
+			}
+			if (candidates.isEmpty())
+			{
+				continue;
+			}
+			
+			int candidateLayerIndex = candidates.get(0).getLayerIndex();
+			if (candidateLayerIndex > frontierLayerIndex)
+			{
+				frontier.clear();
+				frontierSet.clear();
+				frontierLayerIndex = candidateLayerIndex;
+			}
+			if (candidateLayerIndex == frontierLayerIndex)
+			{
+				for (ServiceNode candidate : candidates)
+				{
+					if (frontierSet.add(candidate))
+					{
+						frontier.add(candidate);
+					}
+				}
+			}
+		}
+		
+		nodeFrontiers.put(effectId, frontier);
+		return frontier;
+	}
+	
+	/**
+	 * Method for fetching the constrained service represented by a service node.
+	 * @param 	serviceNode		Service node
+	 * @return	Constrained service of the node, or the inner constrained service if the node represents a composite service
+	 */
+	private static ConstrainedService getConstrainedService(ServiceNode serviceNode)
+	{
+		Service service = serviceNode.getService();
+		if (service instanceof LayeredCompositeService)
+		{
+			return (ConstrainedService) service.getInnerService();
+		}
+		
+		return (ConstrainedService) service;
+	}
+	
+	/**
+	 * Method for creating the canonical form of the structure of this plan, i.e. its layers, service nodes, links and constraints.
+	 * Service nodes are listed by service name within every layer, along with the sorted names of their predecessors
+	 * and their sorted constraints. Hence, structurally identical plans have equal canonical forms
+	 * irrespective of the order in which their nodes, links and constraints were added.
+	 * @return	Canonical form of this plan
+	 */
+	public String getCanonicalForm()
+	{
+		//Components are separated by control characters that cannot be part of service names or ontology types
+		StringBuilder canonicalForm = new StringBuilder();
+		for (List<ServiceNode> serviceLayer : serviceLayers)
+		{
+			List<String> nodeForms = new ArrayList<String>();
+			for (ServiceNode serviceNode : serviceLayer)
+			{
+				List<String> predNames = new ArrayList<String>();
+				for (ServiceNode predecessor : serviceNode.getPredecessors())
+				{
+					predNames.add(predecessor.getLayerIndex() + ":" + predecessor.getService().getName());
+				}
+				Collections.sort(predNames);
+				
+				List<String> constraintStrs = new ArrayList<String>();
+				for (Constraint constraint : serviceNode.getConstraints())
+				{
+					constraintStrs.add(constraint.getServiceName() + "|" + constraint.getType() + "|" 
+										+ constraint.getOperator() + "|" + constraint.getLiteralValue());
+				}
+				Collections.sort(constraintStrs);
+				
+				nodeForms.add(serviceNode.getService().getName() + "\u001f" + String.join("\u001d", predNames) 
+								+ "\u001f" + String.join("\u001d", constraintStrs));
+			}
+			Collections.sort(nodeForms);
+			canonicalForm.append(String.join("\u001e", nodeForms)).append("\u001c");
+		}
+		
+		return canonicalForm.toString();
+	}
+	
 	/**
 	 * Overridden toString method for Constraint Aware Plan class.
 	 * @return	String containing details of this constraint-aware composition plan
@@ -0,0 +1,128 @@
+package servicecomposition.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class representing all the ways in which a frontier of search nodes (a set of predecessors in one service layer)
+ * can be completed down to the first layer of a search graph during backward search.
+ * Every completion choice is a non-empty subset of the frontier along with the completions of that subset's own predecessor frontier.
+ * Completions of the same frontier are shared by all the branches of the backward search that reach it.
+ * Requested outputs are held as bit signatures of the parameter dictionary of the search graph.
+ * @author agent
+ */
+public class FrontierCompletions
+{
+	private List<Set<SearchNode>> subsets;
+	private List<FrontierCompletions> subsetCompletions;
+	private List<long[]> subsetReqOutputs;
+	private long[] coverableReqOutputs;
+	
+	/**
+	 * Default constructor.
+	 */
+	public FrontierCompletions()
+	{
+		subsets = new ArrayList<Set<SearchNode>>();
+		subsetCompletions = new ArrayList<FrontierCompletions>();
+		subsetReqOutputs = new ArrayList<long[]>();
+		coverableReqOutputs = new long[0];
+	}
+	
+	/**
+	 * Method for adding a completion choice for this frontier.
+	 * @param 	subset				Subset of the frontier chosen in this completion
+	 * @param 	reqOutputs			Signature of the requested outputs produced by the services of the subset
+	 * @param 	completions			Completions of the predecessor frontier of the subset
+	 * 								Null, if the frontier belongs to the first layer of the search graph
+	 */
+	public void addChoice(Set<SearchNode> subset, long[] reqOutputs, FrontierCompletions completions)
+	{
+		subsets.add(subset);
+		subsetReqOutputs.add(reqOutputs);
+		subsetCompletions.add(completions);
+		
+		//Requested outputs that can be produced by at least one complete branch starting at this frontier
+		coverableReqOutputs = ParameterDictionary.union(coverableReqOutputs, reqOutputs);
+		if (completions != null)
+		{
+			coverableReqOutputs = ParameterDictionary.union(coverableReqOutputs, completions.getCoverableReqOutputs());
+		}
+	}
+	
+	/**
+	 * Method for fetching the number of completion choices for this frontier.
+	 * @return	Number of completion choices
+	 */
+	public int getChoiceCount()
+	{
+		return subsets.size();
+	}
+	
+	/**
+	 * Method for fetching the frontier subset chosen in a completion choice.
+	 * @param 	choiceIndex		Index of the completion choice
+	 * @return	Frontier subset of the completion choice
+	 */
+	public Set<SearchNode> getSubset(int choiceIndex)
+	{
+		return subsets.get(choiceIndex);
+	}
+	
+	/**
+	 * Method for fetching the requested outputs produced by the frontier subset chosen in a completion choice.
+	 * @param 	choiceIndex		Index of the completion choice
+	 * @return	Signature of the requested outputs produced by the frontier subset
+	 */
+	public long[] getSubsetReqOutputs(int choiceIndex)
+	{
+		return subsetReqOutputs.get(choiceIndex);
+	}
+	
+	/**
+	 * Method for fetching the completions of the predecessor frontier of the subset chosen in a completion choice.
+	 * @param 	choiceIndex		Index of the completion choice
+	 * @return	Completions of the predecessor frontier
+	 * 			Null, if the frontier belongs to the first layer of the search graph
+	 */
+	public FrontierCompletions getSubsetCompletions(int choiceIndex)
+	{
+		return subsetCompletions.get(choiceIndex);
+	}
+	
+	/**
+	 * Method for checking if a completion choice can still produce all the given requested outputs.
+	 * @param 	choiceIndex		Index of the completion choice
+	 * @param 	reqOutputs		Signature of the requested outputs that are not yet produced by a backward search branch
+	 * @return	true, if some complete branch through the completion choice can produce all the given outputs
+	 * 			false, otherwise
+	 */
+	public boolean canCover(int choiceIndex, long[] reqOutputs)
+	{
+		long[] subsetOutputs = subsetReqOutputs.get(choiceIndex);
+		long[] coverableOutputs = (subsetCompletions.get(choiceIndex) == null) ? new long[0] : subsetCompletions.get(choiceIndex).getCoverableReqOutputs();
+		
+		//Checking 64 requested outputs at a time
+		for (int i = 0; i < reqOutputs.length; i++)
+		{
+			long subsetWord = (i < subsetOutputs.length) ? subsetOutputs[i] : 0L;
+			long coverableWord = (i < coverableOutputs.length) ? coverableOutputs[i] : 0L;
+			if ((reqOutputs[i] & ~(subsetWord | coverableWord)) != 0)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method for fetching all the requested outputs that can be produced by at least one completion of this frontier.
+	 * @return	Signature of the coverable requested outputs
+	 */
+	public long[] getCoverableReqOutputs()
+	{
+		return coverableReqOutputs;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,444 @@
+package servicecomposition.entities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import service.ConstrainedService;
+import service.Service;
+import service.composite.layeredcompsvc.LayeredCompositeService;
+
+/**
+ * Class for interning service parameters (such as "int : input11") to dense integer IDs.
+ * Sets of parameters are represented as bit signatures (arrays of 64-bit words in which bit i is set if parameter i belongs to the set),
+ * so that subset, intersection and union checks work on 64 parameters at a time instead of hashing parameter strings.
+ * The signatures of every service are computed once and cached against the service object.
+ * Parameters are interned on demand, hence signatures created at different times can have different lengths.
+ * All the signature operations treat missing words as empty.
+ * Service effects (features such as the constraint types) are interned to a separate ID space,
+ * so an effect and a parameter with the same name do not share an ID.
+ * @author agent
+ */
+public class ParameterDictionary
+{
+	private Map<String, Integer> parameterIds;
+	private List<String> parameters;
+	private Map<String, Integer> effectIds;
+	private List<String> effects;
+	private Map<Service, ServiceSignature> serviceSignatures;
+	
+	/**
+	 * Default constructor.
+	 */
+	public ParameterDictionary()
+	{
+		parameterIds = new HashMap<String, Integer>();
+		parameters = new ArrayList<String>();
+		effectIds = new HashMap<String, Integer>();
+		effects = new ArrayList<String>();
+		serviceSignatures = new IdentityHashMap<Service, ServiceSignature>();
+	}
+	
+	/**
+	 * Parameterized constructor.
+	 * It interns all the parameters of the given services and computes their signatures upfront.
+	 * @param 	services	Services whose parameters need to be interned
+	 */
+	public ParameterDictionary(Collection<? extends Service> services)
+	{
+		this();
+		for (Service service : services)
+		{
+			internService(service);
+		}
+	}
+	
+	/**
+	 * Method for fetching the ID of a parameter, assigning a new ID if the parameter has not been interned yet.
+	 * @param 	parameter	Parameter
+	 * @return	ID of the parameter
+	 */
+	public int intern(String parameter)
+	{
+		return intern(parameter, parameterIds, parameters);
+	}
+	
+	/**
+	 * Method for fetching the ID of a parameter without interning it.
+	 * @param 	parameter	Parameter
+	 * @return	ID of the parameter
+	 * 			-1, if the parameter has not been interned
+	 */
+	public int getId(String parameter)
+	{
+		Integer parameterId = parameterIds.get(parameter);
+		return (parameterId == null) ? -1 : parameterId;
+	}
+	
+	/**
+	 * Method for fetching the ID of an effect without interning it.
+	 * Effect IDs are assigned separately from parameter IDs.
+	 * @param 	effect		Effect
+	 * @return	ID of the effect
+	 * 			-1, if the effect has not been interned
+	 */
+	public int getEffectId(String effect)
+	{
+		Integer effectId = effectIds.get(effect);
+		return (effectId == null) ? -1 : effectId;
+	}
+	
+	/**
+	 * Method for fetching the parameter with the given ID.
+	 * @param 	parameterId		Parameter ID
+	 * @return	Parameter
+	 */
+	public String getParameter(int parameterId)
+	{
+		return parameters.get(parameterId);
+	}
+	
+	/**
+	 * Method for fetching the number of parameters interned so far.
+	 * @return	Number of parameters
+	 */
+	public int size()
+	{
+		return parameters.size();
+	}
+	
+	/**
+	 * Method for fetching the number of words in a signature that can hold all the parameters interned so far.
+	 * @return	Signature length
+	 */
+	public int getSignatureLength()
+	{
+		return (parameters.size() + 63) / 64;
+	}
+	
+	/**
+	 * Method for creating an empty signature that can hold all the parameters interned so far.
+	 * @return	Empty signature
+	 */
+	public long[] createSignature()
+	{
+		return new long[getSignatureLength()];
+	}
+	
+	/**
+	 * Method for creating the signature of a collection of parameters, interning the parameters that have not been interned yet.
+	 * @param 	parameters	Collection of parameters
+	 * @return	Signature of the parameters
+	 */
+	public long[] encode(Collection<String> parameters)
+	{
+		List<Integer> ids = new ArrayList<Integer>();
+		for (String parameter : parameters)
+		{
+			ids.add(intern(parameter));
+		}
+		
+		long[] signature = createSignature();
+		for (int id : ids)
+		{
+			signature[id >>> 6] |= (1L << id);
+		}
+		
+		return signature;
+	}
+	
+	/**
+	 * Method for creating the signature of the interned parameters in a collection, without interning any parameter.
+	 * This does not modify the dictionary and can therefore be used while other threads read it.
+	 * @param 	parameters	Collection of parameters
+	 * @return	Signature of the parameters that have been interned
+	 */
+	public long[] encodeKnown(Collection<String> parameters)
+	{
+		long[] signature = createSignature();
+		for (String parameter : parameters)
+		{
+			int id = getId(parameter);
+			if (id >= 0)
+			{
+				signature[id >>> 6] |= (1L << id);
+			}
+		}
+		
+		return signature;
+	}
+	
+	/**
+	 * Method for checking if all the parameters in a collection have been interned.
+	 * @param 	parameters	Collection of parameters
+	 * @return	true, if every parameter has an ID
+	 * 			false, otherwise
+	 */
+	public boolean containsAll(Collection<String> parameters)
+	{
+		for (String parameter : parameters)
+		{
+			if (!parameterIds.containsKey(parameter))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method for fetching the signature of a service, interning its parameters and computing the signature if required.
+	 * @param 	service		Service
+	 * @return	Signature of the service
+	 */
+	public ServiceSignature getSignature(Service service)
+	{
+		ServiceSignature signature = serviceSignatures.get(service);
+		if (signature == null)
+		{
+			signature = internService(service);
+		}
+		
+		return signature;
+	}
+	
+	/**
+	 * Method for interning all the parameters of a service and computing and caching its signature.
+	 * @param 	service		Service
+	 * @return	Signature of the service
+	 */
+	private ServiceSignature internService(Service service)
+	{
+		//Composite services have the effects of their inner constrained service
+		List<String> serviceEffects = null;
+		if (service instanceof ConstrainedService)
+		{
+			serviceEffects = ((ConstrainedService) service).getEffects();
+		}
+		else if ((service instanceof LayeredCompositeService) && (service.getInnerService() instanceof ConstrainedService))
+		{
+			serviceEffects = ((ConstrainedService) service.getInnerService()).getEffects();
+		}
+		if (serviceEffects == null)
+		{
+			serviceEffects = new ArrayList<String>();
+		}
+		
+		int[] inputIds = internDistinct(service.getInput(), parameterIds, parameters);
+		int[] outputIds = internDistinct(service.getOutput(), parameterIds, parameters);
+		int[] serviceEffectIds = internDistinct(serviceEffects, effectIds, effects);
+		
+		ServiceSignature signature = new ServiceSignature(inputIds, outputIds, toSignature(inputIds, parameters.size()), 
+															toSignature(outputIds, parameters.size()), toSignature(serviceEffectIds, effects.size()));
+		serviceSignatures.put(service, signature);
+		return signature;
+	}
+	
+	/**
+	 * Method for fetching the ID of a name in an ID space, assigning a new ID if the name has not been interned yet.
+	 * @param 	name		Parameter or effect
+	 * @param 	nameIds		IDs of the names interned so far in the ID space
+	 * @param 	names		Names interned so far in the ID space, in the order of their IDs
+	 * @return	ID of the name
+	 */
+	private static int intern(String name, Map<String, Integer> nameIds, List<String> names)
+	{
+		Integer nameId = nameIds.get(name);
+		if (nameId == null)
+		{
+			nameId = names.size();
+			nameIds.put(name, nameId);
+			names.add(name);
+		}
+		
+		return nameId;
+	}
+	
+	/**
+	 * Method for interning a list of names and fetching their distinct IDs in the order of their first occurrence.
+	 * @param 	parameters	List of parameters or effects
+	 * @param 	nameIds		IDs of the names interned so far in the ID space of the list
+	 * @param 	names		Names interned so far in the ID space of the list, in the order of their IDs
+	 * @return	Distinct IDs of the names
+	 */
+	private static int[] internDistinct(List<String> parameters, Map<String, Integer> nameIds, List<String> names)
+	{
+		int[] ids = new int[parameters.size()];
+		int idCount = 0;
+		for (String parameter : parameters)
+		{
+			int id = intern(parameter, nameIds, names);
+			boolean isDuplicate = false;
+			for (int i = 0; i < idCount; i++)
+			{
+				if (ids[i] == id)
+				{
+					isDuplicate = true;
+					break;
+				}
+			}
+			if (!isDuplicate)
+			{
+				ids[idCount++] = id;
+			}
+		}
+		
+		int[] distinctIds = new int[idCount];
+		System.arraycopy(ids, 0, distinctIds, 0, idCount);
+		return distinctIds;
+	}
+	
+	/**
+	 * Method for creating a signature from a list of IDs.
+	 * @param 	ids			Parameter or effect IDs
+	 * @param 	idCount		Number of IDs assigned so far in the ID space of the list
+	 * @return	Signature of the IDs
+	 */
+	private static long[] toSignature(int[] ids, int idCount)
+	{
+		long[] signature = new long[(idCount + 63) / 64];
+		for (int id : ids)
+		{
+			signature[id >>> 6] |= (1L << id);
+		}
+		
+		return signature;
+	}
+	
+	/**
+	 * Method for checking if a signature contains the parameter with the given ID.
+	 * @param 	signature	Signature
+	 * @param 	id			Parameter ID
+	 * @return	true, if the parameter belongs to the signature
+	 * 			false, otherwise
+	 */
+	public static boolean contains(long[] signature, int id)
+	{
+		int wordIndex = id >>> 6;
+		return ((wordIndex < signature.length) && ((signature[wordIndex] & (1L << id)) != 0));
+	}
+	
+	/**
+	 * Method for adding the parameter with the given ID to a signature.
+	 * @param 	signature	Signature long enough to hold the ID
+	 * @param 	id			Parameter ID
+	 * @return	true, if the parameter did not already belong to the signature
+	 * 			false, otherwise
+	 */
+	public static boolean add(long[] signature, int id)
+	{
+		int wordIndex = id >>> 6;
+		long bit = (1L << id);
+		if ((signature[wordIndex] & bit) != 0)
+		{
+			return false;
+		}
+		signature[wordIndex] |= bit;
+		return true;
+	}
+	
+	/**
+	 * Method for checking if a signature contains all the parameters of another signature.
+	 * @param 	signature	Signature to be checked
+	 * @param 	subset		Signature whose parameters are required
+	 * @return	true, if every parameter of the subset belongs to the signature
+	 * 			false, otherwise
+	 */
+	public static boolean containsAll(long[] signature, long[] subset)
+	{
+		for (int i = 0; i < subset.length; i++)
+		{
+			long word = (i < signature.length) ? signature[i] : 0L;
+			if ((subset[i] & ~word) != 0)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method for checking if two signatures have at least 1 parameter in common.
+	 * @param 	signature1	First signature
+	 * @param 	signature2	Second signature
+	 * @return	true, if the signatures intersect
+	 * 			false, otherwise
+	 */
+	public static boolean intersects(long[] signature1, long[] signature2)
+	{
+		int length = Math.min(signature1.length, signature2.length);
+		for (int i = 0; i < length; i++)
+		{
+			if ((signature1[i] & signature2[i]) != 0)
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Method for adding all the parameters of a signature to another signature.
+	 * @param 	target	Signature to be updated, long enough to hold all the parameters of the source signature
+	 * @param 	source	Signature whose parameters need to be added
+	 */
+	public static void addAll(long[] target, long[] source)
+	{
+		for (int i = 0; i < source.length; i++)
+		{
+			target[i] |= source[i];
+		}
+	}
+	
+	/**
+	 * Method for removing all the parameters of a signature from another signature.
+	 * @param 	target	Signature to be updated
+	 * @param 	source	Signature whose parameters need to be removed
+	 */
+	public static void removeAll(long[] target, long[] source)
+	{
+		int length = Math.min(target.length, source.length);
+		for (int i = 0; i < length; i++)
+		{
+			target[i] &= ~source[i];
+		}
+	}
+	
+	/**
+	 * Method for creating a new signature containing the parameters of both the given signatures.
+	 * @param 	signature1	First signature
+	 * @param 	signature2	Second signature
+	 * @return	Union of the signatures
+	 */
+	public static long[] union(long[] signature1, long[] signature2)
+	{
+		long[] union = new long[Math.max(signature1.length, signature2.length)];
+		addAll(union, signature1);
+		addAll(union, signature2);
+		return union;
+	}
+	
+	/**
+	 * Method for checking if a signature does not contain any parameter.
+	 * @param 	signature	Signature
+	 * @return	true, if the signature is empty
+	 * 			false, otherwise
+	 */
+	public static boolean isEmpty(long[] signature)
+	{
+		for (long word : signature)
+		{
+			if (word != 0)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package servicecomposition.entities;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Class representing the canonical signature of a set of search nodes, used for detecting duplicate plans and plan sets in constant time.
+ * Search nodes are compared by identity, hence every node is assigned a sequential ID the first time it is seen by a node ID registry.
+ * The signature is the sorted array of the IDs of its search nodes, so two sets of search nodes have equal signatures
+ * if and only if they contain the same search nodes. Signatures are only comparable if they are created using the same registry.
+ * @author agent
+ */
+public class PlanSignature
+{
+	private int[] nodeIds;
+	private int hashCode;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	searchNodes		Search nodes constituting a plan or a plan set
+	 * @param 	nodeIdRegistry	IDs assigned to the search nodes seen so far, mapped by identity
+	 * 							Search nodes that are not yet registered are assigned the next ID
+	 */
+	public PlanSignature(Collection<SearchNode> searchNodes, Map<SearchNode, Integer> nodeIdRegistry)
+	{
+		nodeIds = new int[searchNodes.size()];
+		int i = 0;
+		for (SearchNode searchNode : searchNodes)
+		{
+			Integer nodeId = nodeIdRegistry.get(searchNode);
+			if (nodeId == null)
+			{
+				nodeId = nodeIdRegistry.size();
+				nodeIdRegistry.put(searchNode, nodeId);
+			}
+			nodeIds[i++] = nodeId;
+		}
+		
+		Arrays.sort(nodeIds);
+		hashCode = Arrays.hashCode(nodeIds);
+	}
+	
+	/**
+	 * Accessor method for the sorted IDs of the search nodes of this signature.
+	 * @return	Sorted search node IDs
+	 */
+	public int[] getNodeIds()
+	{
+		return nodeIds.clone();
+	}
+	
+	/**
+	 * Method for checking if this signature represents the same set of search nodes as another object.
+	 * @param 	other	Object to be compared with
+	 * @return	true, if the other object is a plan signature with the same search node IDs
+	 * 			false, otherwise
+	 */
+	@Override
+	public boolean equals(Object other)
+	{
+		if (this == other)
+		{
+			return true;
+		}
+		if (!(other instanceof PlanSignature))
+		{
+			return false;
+		}
+		
+		PlanSignature otherSignature = (PlanSignature) other;
+		return ((hashCode == otherSignature.hashCode) && (Arrays.equals(nodeIds, otherSignature.nodeIds)));
+	}
+	
+	/**
+	 * Method for fetching the hash code of this signature. It is computed once when the signature is created.
+	 * @return	Hash code of the search node IDs
+	 */
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+}
\ No newline at end of file
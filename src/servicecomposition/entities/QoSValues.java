@@ -0,0 +1,145 @@
+package servicecomposition.entities;
+
+import java.util.List;
+
+/**
+ * Class representing the values of the Quality of Service features of an individual service or of a composition plan.
+ * Cost and response time are non-negative and lower values are better.
+ * Reliability and availability are probabilities between 0 and 1, and higher values are better.
+ * These ranges ensure that adding services to a plan can never improve any of its aggregated QoS values.
+ * @author agent
+ */
+public class QoSValues
+{
+	private double cost;
+	private double responseTime;
+	private double reliability;
+	private double availability;
+	
+	/**
+	 * Default constructor.
+	 * It creates neutral QoS values, i.e., values that do not change the aggregated QoS values of a plan.
+	 */
+	public QoSValues()
+	{
+		this(0, 0, 1, 1);
+	}
+	
+	/**
+	 * Constructor with all data member values accepted as arguments.
+	 * @param 	cost			Cost (non-negative)
+	 * @param 	responseTime	Response time (non-negative)
+	 * @param 	reliability		Reliability (between 0 and 1)
+	 * @param 	availability	Availability (between 0 and 1)
+	 */
+	public QoSValues(double cost, double responseTime, double reliability, double availability)
+	{
+		if ((cost < 0) || (responseTime < 0))
+		{
+			throw new IllegalArgumentException("Cost and response time cannot be negative.");
+		}
+		if ((reliability < 0) || (reliability > 1) || (availability < 0) || (availability > 1))
+		{
+			throw new IllegalArgumentException("Reliability and availability must be between 0 and 1.");
+		}
+		
+		this.cost = cost;
+		this.responseTime = responseTime;
+		this.reliability = reliability;
+		this.availability = availability;
+	}
+	
+	/**
+	 * Accessor method for the cost.
+	 * @return	Cost
+	 */
+	public double getCost()
+	{
+		return cost;
+	}
+	
+	/**
+	 * Accessor method for the response time.
+	 * @return	Response time
+	 */
+	public double getResponseTime()
+	{
+		return responseTime;
+	}
+	
+	/**
+	 * Accessor method for the reliability.
+	 * @return	Reliability
+	 */
+	public double getReliability()
+	{
+		return reliability;
+	}
+	
+	/**
+	 * Accessor method for the availability.
+	 * @return	Availability
+	 */
+	public double getAvailability()
+	{
+		return availability;
+	}
+	
+	/**
+	 * Method for fetching the value of a QoS feature.
+	 * @param 	qos		QoS feature
+	 * @return	Value of the QoS feature
+	 */
+	public double getValue(QualityOfService qos)
+	{
+		switch (qos)
+		{
+			case COST:
+				return cost;
+			case RESPONSE_TIME:
+				return responseTime;
+			case RELIABILITY:
+				return reliability;
+			default:
+				return availability;
+		}
+	}
+	
+	/**
+	 * Method for comparing these QoS values with another set of QoS values.
+	 * The values are compared feature by feature in the given order of priority, and the first feature that differs decides the result.
+	 * @param 	other		QoS values to be compared with
+	 * @param 	features	QoS features in the order of their priority
+	 * @return	A negative integer, if these values are better than the other values
+	 * 			0, if both the sets of values are equally good
+	 * 			A positive integer, if these values are worse than the other values
+	 */
+	public int compareTo(QoSValues other, List<QualityOfService> features)
+	{
+		for (QualityOfService qos : features)
+		{
+			int result = Double.compare(getValue(qos), other.getValue(qos));
+			if (result != 0)
+			{
+				//Lower cost and response time are better while higher reliability and availability are better
+				if ((qos == QualityOfService.RELIABILITY) || (qos == QualityOfService.AVAILABILITY))
+				{
+					return -result;
+				}
+				return result;
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Method for creating a string representation of these QoS values.
+	 * @return	String representation of QoS values
+	 */
+	@Override
+	public String toString()
+	{
+		return "COST: " + cost + ", RESPONSE_TIME: " + responseTime + ", RELIABILITY: " + reliability + ", AVAILABILITY: " + availability;
+	}
+}
\ No newline at end of file
@@ -1,7 +1,16 @@
 package servicecomposition.entities;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import service.Service;
 
 /**
@@ -12,14 +21,40 @@ public class SearchGraph
 {
 	private List<List<SearchNode>> serviceLayers;
 	private List<SearchNode> headServiceLayer;
+	private ParameterDictionary parameterDictionary;
+	private List<List<SearchNode>> producerIndex;
+	private Map<SearchNode, Integer> nodePositions;
+	private List<List<SearchNode>> layerViews;
+	private List<List<SearchNode>> serviceLayersView;
+	private boolean frozen;
+	private long[] requestInputs;
+	private long[] availableParameters;
+	private Map<Service, Integer> serviceOrder;
+	private int trackedServiceCount;
+	private Map<Service, Integer> missingInputCounts;
+	private List<List<Service>> consumerIndex;
+	private Map<Service, SearchNode> serviceNodes;
 	
 	/**
 	 * Default constructor.
 	 */
 	public SearchGraph()
+	{
+		this(new ParameterDictionary());
+	}
+	
+	/**
+	 * Constructor for an empty search graph whose services are encoded using an existing parameter dictionary.
+	 * @param 	parameterDictionary		Dictionary of the parameters of the services that would be added to this graph
+	 */
+	public SearchGraph(ParameterDictionary parameterDictionary)
 	{
 		this.serviceLayers = new ArrayList<List<SearchNode>>();
 		this.headServiceLayer = new ArrayList<SearchNode>();
+		this.parameterDictionary = parameterDictionary;
+		this.producerIndex = new ArrayList<List<SearchNode>>();
+		this.nodePositions = new IdentityHashMap<SearchNode, Integer>();
+		createLayerViews();
 	}
 	
 	/**
@@ -49,6 +84,21 @@ public class SearchGraph
 			//Head service layer is not copied. It points to the actual search graph layer.
 			headServiceLayer = this.serviceLayers.get(0);
 		}
+		
+		this.parameterDictionary = new ParameterDictionary();
+		rebuildProducerIndex();
+		createLayerViews();
+	}
+	
+	/**
+	 * Accessor method for the dictionary used to encode the parameters of the services in this search graph.
+	 * The signatures of all the services in this graph are computed when the services are added.
+	 * Hence, once this graph is frozen, the signatures of its services can be read without modifying the dictionary.
+	 * @return	Parameter dictionary of this search graph
+	 */
+	public ParameterDictionary getParameterDictionary()
+	{
+		return parameterDictionary;
 	}
 	
 	/**
@@ -74,6 +124,36 @@ public class SearchGraph
 		return retServiceLayers;
 	}
 	
+	/**
+	 * Accessor method for a read-only view of the service layers constituting this search graph.
+	 * Nothing is copied, so the same search node objects are returned on every call and can be compared by identity.
+	 * @return	Unmodifiable view of all constituent service layers
+	 */
+	public List<List<SearchNode>> getServiceLayersView()
+	{
+		return serviceLayersView;
+	}
+	
+	/**
+	 * Accessor method for a read-only view of a specific service layer of this search graph.
+	 * Nothing is copied, so the same search node objects are returned on every call and can be compared by identity.
+	 * @param 	layerIndex	Index of the service layer to be fetched
+	 * @return	Unmodifiable view of the requested service layer
+	 */
+	public List<SearchNode> getServiceLayerView(int layerIndex)
+	{
+		return layerViews.get(layerIndex);
+	}
+	
+	/**
+	 * Method for fetching the number of service layers in this search graph without copying them.
+	 * @return	Number of service layers in this search graph
+	 */
+	public int getServiceLayerCount()
+	{
+		return serviceLayers.size();
+	}
+	
 	/**
 	 * Accessor method for the head (first) layer of this search graph.
 	 * Head service layer is not copied. It can be used to access and modify this search graph if required.
@@ -82,9 +162,44 @@ public class SearchGraph
 	public List<SearchNode> getHeadServiceLayer()
 	{
 		//Head service layer is not copied. It points to the actual search graph layer.
+		//It is returned as a read-only view once this search graph has been frozen.
+		if (frozen)
+		{
+			return Collections.unmodifiableList(headServiceLayer);
+		}
 		return headServiceLayer;
 	}
 	
+	/**
+	 * Method for checking if this search graph has been frozen and can no longer be modified.
+	 * @return	true, if this search graph is frozen
+	 * 			false, otherwise
+	 */
+	public boolean isFrozen()
+	{
+		return frozen;
+	}
+	
+	/**
+	 * Method for freezing this search graph once it has been fully constructed.
+	 * A frozen graph and its search nodes reject all modifications with an IllegalStateException,
+	 * which guarantees that the read-only views and node identities stay stable while the graph is being searched.
+	 * @return	This search graph
+	 */
+	public SearchGraph freeze()
+	{
+		frozen = true;
+		for (List<SearchNode> serviceLayer : serviceLayers)
+		{
+			for (SearchNode searchNode : serviceLayer)
+			{
+				searchNode.freeze();
+			}
+		}
+		
+		return this;
+	}
+	
 	/**
 	 * Accessor method for a specific service layer of this search graph.
 	 * Lists are deep-copied so as to avoid unintended alteration from outside the class.
@@ -112,6 +227,8 @@ public class SearchGraph
 	 */
 	public void setServiceLayers(List<List<SearchNode>> serviceLayers)
 	{
+		checkNotFrozen();
+		
 		//Lists are deep-copied so as to avoid unintended alteration from outside the class
 		this.serviceLayers = new ArrayList<List<SearchNode>>();		
 		for (List<SearchNode> serviceLayer : serviceLayers)
@@ -134,6 +251,9 @@ public class SearchGraph
 		{
 			this.headServiceLayer = new ArrayList<SearchNode>();		//Required in case this search graph is emptied
 		}
+		
+		rebuildProducerIndex();
+		createLayerViews();
 	}
 	
 	/**
@@ -142,49 +262,56 @@ public class SearchGraph
 	 */
 	public void addService(Service newService)
 	{
-		//Fetching all inputs of the service to be added
-		List<String> newIn = newService.getInput();
+		checkNotFrozen();
+		createSearchNode(newService);
+	}
+	
+	/**
+	 * Method for creating a search node for a service and adding it to its position in this search graph.
+	 * @param 	newService	Service to be added
+	 * @return	Search node created for the service
+	 */
+	private SearchNode createSearchNode(Service newService)
+	{
+		//Fetching the IDs of all the inputs of the service to be added
+		int[] newInIds = parameterDictionary.getSignature(newService).getInputIds();
 		
 		//Create a new search node for the service to be added
 		SearchNode newSearchNode = new SearchNode();
 		newSearchNode.setService(newService);
 		
-		//Loop through all the service layers of the search graph to find all the predecessors of the service to be added
-		for (List<SearchNode> serviceLayer : this.serviceLayers)
+		//Fetching the producers of every input of the new service from the producer index to find all its predecessors
+		//At least one output of an eligible predecessor node would be taken as an input by the new service node
+		Set<SearchNode> predecessorSet = Collections.newSetFromMap(new IdentityHashMap<SearchNode, Boolean>());
+		List<SearchNode> predecessors = new ArrayList<SearchNode>();
+		for (int inputId : newInIds)
 		{
-			//Check every search node in a service layer if it is a predecessor
-			for (SearchNode searchNode : serviceLayer)
+			List<SearchNode> producers = (inputId < producerIndex.size()) ? producerIndex.get(inputId) : null;
+			if (producers != null)
 			{
-				List<String> nodeOutputs = searchNode.getService().getOutput();
-				boolean isPredecessor = false;
-				
-				//At least one output of an eligible predecessor node would be taken as an input by the new service node
-				for (String input : newIn)
+				for (SearchNode producer : producers)
 				{
-					if (nodeOutputs.contains(input))
+					if (predecessorSet.add(producer))
 					{
-						isPredecessor = true;
-						break;
+						predecessors.add(producer);
 					}
 				}
-				
-				//If the current search node is a predecessor node
-				if(isPredecessor)
-				{
-					//Add the search node as a predecessor to the new service node
-					List<SearchNode> currPredecessors = newSearchNode.getPredecessors();
-					currPredecessors.add(searchNode);
-					newSearchNode.setPredecessors(currPredecessors);
-					
-					//Add the new service node as a successor to the search node
-					List<SearchNode> nodeSuccessors = searchNode.getSuccessors();
-					nodeSuccessors.add(newSearchNode);
-					searchNode.setSuccessors(nodeSuccessors);
-				}
 			}
 		}
 		
-		if (newSearchNode.getPredecessors().isEmpty())
+		//Predecessors are ordered by their position in this search graph (layer by layer)
+		Collections.sort(predecessors, getPositionComparator());
+		
+		for (SearchNode predecessor : predecessors)
+		{
+			//Add the search node as a predecessor to the new service node
+			newSearchNode.addPredecessor(predecessor);
+			
+			//Add the new service node as a successor to the search node
+			predecessor.addSuccessor(newSearchNode);
+		}
+		
+		if (predecessors.isEmpty())
 		{
 			//If there are no predecessors, the new service node belongs to service layer 0
 			newSearchNode.setLayerIndex(0);
@@ -193,7 +320,7 @@ public class SearchGraph
 		{
 			//If predecessors exist, find the last layer in which a predecessor exists
 			int maxPredLayerIndex = 0;
-			for (SearchNode predecessor : newSearchNode.getPredecessors())
+			for (SearchNode predecessor : predecessors)
 			{
 				int currPredLayerIndex = predecessor.getLayerIndex();
 				if (currPredLayerIndex > maxPredLayerIndex)
@@ -207,12 +334,13 @@ public class SearchGraph
 		}
 		
 		//If the new service node has predecessors in the last layer of the existing search graph
-		if (newSearchNode.getLayerIndex() > (this.getServiceLayers().size() - 1))
+		if (newSearchNode.getLayerIndex() > (this.serviceLayers.size() - 1))
 		{
 			//Create a new service layer with the new service node and add it at the end of the search graph 
 			List<SearchNode> newServiceLayer = new ArrayList<SearchNode>();
 			newServiceLayer.add(newSearchNode);
 			this.serviceLayers.add(newServiceLayer);
+			this.layerViews.add(Collections.unmodifiableList(newServiceLayer));
 			
 			//Set the head service layer if the first service layer of the search graph has just been created
 			if (newSearchNode.getLayerIndex() == 0)
@@ -225,5 +353,510 @@ public class SearchGraph
 			//If the new service node belongs to an existing service layer
 			this.serviceLayers.get(newSearchNode.getLayerIndex()).add(newSearchNode);
 		}
+		
+		indexSearchNode(newSearchNode, this.serviceLayers.get(newSearchNode.getLayerIndex()).size() - 1);
+		return newSearchNode;
+	}
+	
+	/**
+	 * Method for enabling the incremental maintenance of this search graph as services are inserted into or removed from its repository.
+	 * The parameters available to the graph (the request inputs and the outputs of its services) are recorded along with, for every service
+	 * outside the graph, the number of its inputs that are not available. Hence, an update visits only the services consuming the parameters
+	 * it makes available or unavailable, instead of expanding the whole repository again.
+	 * @param 	inputs		Inputs of the composition request this graph was expanded for
+	 * @param 	services	Services of the repository this graph was expanded from
+	 */
+	public void trackServices(List<String> inputs, Collection<? extends Service> services)
+	{
+		checkNotFrozen();
+		requestInputs = parameterDictionary.encode(inputs);
+		serviceOrder = new IdentityHashMap<Service, Integer>();
+		trackedServiceCount = 0;
+		missingInputCounts = new IdentityHashMap<Service, Integer>();
+		consumerIndex = new ArrayList<List<Service>>();
+		serviceNodes = new IdentityHashMap<Service, SearchNode>();
+		
+		//Recording the parameters available to the graph
+		availableParameters = parameterDictionary.createSignature();
+		ParameterDictionary.addAll(availableParameters, requestInputs);
+		for (List<SearchNode> serviceLayer : serviceLayers)
+		{
+			for (SearchNode searchNode : serviceLayer)
+			{
+				serviceNodes.put(searchNode.getService(), searchNode);
+				ParameterDictionary.addAll(availableParameters, parameterDictionary.getSignature(searchNode.getService()).getOutputs());
+			}
+		}
+		
+		//Indexing the services of the graph first so that they precede the other services when they are offered to the graph again
+		for (List<SearchNode> serviceLayer : serviceLayers)
+		{
+			for (SearchNode searchNode : serviceLayer)
+			{
+				trackService(searchNode.getService());
+			}
+		}
+		for (Service service : services)
+		{
+			trackService(service);
+		}
+	}
+	
+	/**
+	 * Method for checking if this search graph is being maintained incrementally.
+	 * @return	true, if services are being tracked for incremental updates
+	 * 			false, otherwise
+	 */
+	public boolean isTrackingServices()
+	{
+		return (serviceOrder != null);
+	}
+	
+	/**
+	 * Method for updating this search graph after a service has been added to its repository.
+	 * If all the inputs of the service are available and it produces at least one new parameter, it is added to the layer after
+	 * its last predecessor and is linked to the existing nodes of later layers consuming its outputs. The services outside the graph
+	 * whose last missing input is produced by the new node are then offered to the graph in turn, layer by layer as in forward expansion.
+	 * The graph then contains all the services of the updated repository that can be invoked and produce new parameters, although
+	 * the layers of some services and the redundant services included can differ from those of a fresh forward expansion.
+	 * @param 	newService	Service added to the repository
+	 * @return	Search nodes added to this graph, in the order of their addition
+	 */
+	public List<SearchNode> insertService(Service newService)
+	{
+		checkNotFrozen();
+		checkTrackingServices();
+		if (serviceOrder.containsKey(newService))
+		{
+			return new ArrayList<SearchNode>();
+		}
+		
+		trackService(newService);
+		if (missingInputCounts.get(newService) > 0)
+		{
+			return new ArrayList<SearchNode>();
+		}
+		
+		List<Service> candidates = new ArrayList<Service>();
+		candidates.add(newService);
+		return expandTrackedServices(candidates);
+	}
+	
+	/**
+	 * Method for updating this search graph after a service has been removed from its repository.
+	 * The node of the service is removed along with every node that can no longer be invoked without it. The remaining nodes
+	 * are moved to the layer after their last remaining predecessor. Services that can be invoked with the remaining parameters
+	 * and produce new parameters (e.g. services that were redundant before) are then offered to the graph again.
+	 * Finding such services scans the services outside the graph, but no service signatures are recomputed.
+	 * @param 	service		Service removed from the repository
+	 * @return	Services that are no longer in this graph, including the removed service if it was in the graph
+	 */
+	public List<Service> removeService(Service service)
+	{
+		checkNotFrozen();
+		checkTrackingServices();
+		SearchNode removedNode = serviceNodes.get(service);
+		untrackService(service);
+		if (removedNode == null)
+		{
+			return new ArrayList<Service>();
+		}
+		
+		//Finding the nodes that can no longer be invoked, layer by layer as the inputs of a node are produced by earlier layers only
+		Set<SearchNode> removedNodes = Collections.newSetFromMap(new IdentityHashMap<SearchNode, Boolean>());
+		List<Service> removedServices = new ArrayList<Service>();
+		removedNodes.add(removedNode);
+		long[] remainingParameters = parameterDictionary.createSignature();
+		ParameterDictionary.addAll(remainingParameters, requestInputs);
+		for (List<SearchNode> serviceLayer : serviceLayers)
+		{
+			List<SearchNode> remainingLayerNodes = new ArrayList<SearchNode>();
+			for (SearchNode searchNode : serviceLayer)
+			{
+				if ((searchNode == removedNode) 
+					|| (!(ParameterDictionary.containsAll(remainingParameters, parameterDictionary.getSignature(searchNode.getService()).getInputs()))))
+				{
+					removedNodes.add(searchNode);
+					removedServices.add(searchNode.getService());
+				}
+				else
+				{
+					remainingLayerNodes.add(searchNode);
+				}
+			}
+			for (SearchNode searchNode : remainingLayerNodes)
+			{
+				ParameterDictionary.addAll(remainingParameters, parameterDictionary.getSignature(searchNode.getService()).getOutputs());
+			}
+		}
+		
+		//Unlinking the removed nodes and moving every remaining node to the layer after its last remaining predecessor
+		List<List<SearchNode>> remainingLayers = new ArrayList<List<SearchNode>>();
+		for (List<SearchNode> serviceLayer : serviceLayers)
+		{
+			for (SearchNode searchNode : serviceLayer)
+			{
+				if (removedNodes.contains(searchNode))
+				{
+					continue;
+				}
+				
+				List<SearchNode> predecessors = new ArrayList<SearchNode>();
+				int layerIndex = 0;
+				for (SearchNode predecessor : searchNode.getPredecessorView())
+				{
+					if (!(removedNodes.contains(predecessor)))
+					{
+						predecessors.add(predecessor);
+						layerIndex = Math.max(layerIndex, predecessor.getLayerIndex() + 1);
+					}
+				}
+				List<SearchNode> successors = new ArrayList<SearchNode>();
+				for (SearchNode successor : searchNode.getSuccessorView())
+				{
+					if (!(removedNodes.contains(successor)))
+					{
+						successors.add(successor);
+					}
+				}
+				searchNode.setPredecessors(predecessors);
+				searchNode.setSuccessors(successors);
+				searchNode.setLayerIndex(layerIndex);
+				
+				if (layerIndex == remainingLayers.size())
+				{
+					remainingLayers.add(new ArrayList<SearchNode>());
+				}
+				remainingLayers.get(layerIndex).add(searchNode);
+			}
+		}
+		
+		this.serviceLayers = remainingLayers;
+		this.headServiceLayer = (remainingLayers.isEmpty()) ? new ArrayList<SearchNode>() : remainingLayers.get(0);
+		rebuildProducerIndex();
+		createLayerViews();
+		
+		//Counting the parameters that are no longer available as missing inputs of the services outside the graph
+		long[] lostParameters = availableParameters;
+		ParameterDictionary.removeAll(lostParameters, remainingParameters);
+		availableParameters = remainingParameters;
+		for (int parameterId = 0; parameterId < parameterDictionary.size(); parameterId++)
+		{
+			if (ParameterDictionary.contains(lostParameters, parameterId))
+			{
+				for (Service consumer : getConsumers(parameterId))
+				{
+					Integer missingInputCount = missingInputCounts.get(consumer);
+					if (missingInputCount != null)
+					{
+						missingInputCounts.put(consumer, missingInputCount + 1);
+					}
+				}
+			}
+		}
+		for (Service removedService : removedServices)
+		{
+			serviceNodes.remove(removedService);
+			if (serviceOrder.containsKey(removedService))
+			{
+				missingInputCounts.put(removedService, countMissingInputs(removedService));
+			}
+		}
+		
+		//Offering the services that can still be invoked to the graph again
+		List<Service> candidates = new ArrayList<Service>();
+		for (Map.Entry<Service, Integer> missingInputCount : missingInputCounts.entrySet())
+		{
+			if (missingInputCount.getValue() == 0)
+			{
+				candidates.add(missingInputCount.getKey());
+			}
+		}
+		expandTrackedServices(candidates);
+		
+		List<Service> lostServices = new ArrayList<Service>();
+		for (Service removedService : removedServices)
+		{
+			if (!(serviceNodes.containsKey(removedService)))
+			{
+				lostServices.add(removedService);
+			}
+		}
+		
+		return lostServices;
+	}
+	
+	/**
+	 * Method for adding the candidate services that produce new parameters to this graph, followed by the services whose last missing input
+	 * is produced by the added services, layer by layer until no more services can be added.
+	 * As in forward expansion, all the candidates of a layer are checked against the same available parameters.
+	 * @param 	candidates	Tracked services outside the graph whose inputs are all available
+	 * @return	Search nodes added to this graph, in the order of their addition
+	 */
+	private List<SearchNode> expandTrackedServices(List<Service> candidates)
+	{
+		List<SearchNode> addedNodes = new ArrayList<SearchNode>();
+		while (!candidates.isEmpty())
+		{
+			//Candidates are checked in the order in which they were tracked
+			Collections.sort(candidates, (service1, service2) -> Integer.compare(serviceOrder.get(service1), serviceOrder.get(service2)));
+			List<SearchNode> layerNodes = new ArrayList<SearchNode>();
+			for (Service candidate : candidates)
+			{
+				if (!(ParameterDictionary.containsAll(availableParameters, parameterDictionary.getSignature(candidate).getOutputs())))
+				{
+					layerNodes.add(insertSearchNode(candidate));
+				}
+			}
+			
+			//Making the outputs of the added nodes available and collecting the services whose last missing input has been produced
+			List<Service> nextCandidates = new ArrayList<Service>();
+			growAvailableParameters();
+			for (SearchNode layerNode : layerNodes)
+			{
+				for (int outputId : parameterDictionary.getSignature(layerNode.getService()).getOutputIds())
+				{
+					if (ParameterDictionary.add(availableParameters, outputId))
+					{
+						for (Service consumer : getConsumers(outputId))
+						{
+							Integer missingInputCount = missingInputCounts.get(consumer);
+							if (missingInputCount != null)
+							{
+								missingInputCounts.put(consumer, missingInputCount - 1);
+								if (missingInputCount == 1)
+								{
+									nextCandidates.add(consumer);
+								}
+							}
+						}
+					}
+				}
+			}
+			
+			addedNodes.addAll(layerNodes);
+			candidates = nextCandidates;
+		}
+		
+		return addedNodes;
+	}
+	
+	/**
+	 * Method for adding a tracked service to this graph and linking it to the existing nodes of later layers consuming its outputs.
+	 * @param 	service		Tracked service outside the graph whose inputs are all available
+	 * @return	Search node created for the service
+	 */
+	private SearchNode insertSearchNode(Service service)
+	{
+		SearchNode newSearchNode = createSearchNode(service);
+		missingInputCounts.remove(service);
+		serviceNodes.put(service, newSearchNode);
+		
+		long[] outputs = parameterDictionary.getSignature(service).getOutputs();
+		for (int i = newSearchNode.getLayerIndex() + 1; i < serviceLayers.size(); i++)
+		{
+			for (SearchNode searchNode : serviceLayers.get(i))
+			{
+				if (ParameterDictionary.intersects(parameterDictionary.getSignature(searchNode.getService()).getInputs(), outputs))
+				{
+					List<SearchNode> predecessors = searchNode.getPredecessors();
+					predecessors.add(newSearchNode);
+					Collections.sort(predecessors, getPositionComparator());
+					searchNode.setPredecessors(predecessors);
+					newSearchNode.addSuccessor(searchNode);
+				}
+			}
+		}
+		
+		return newSearchNode;
+	}
+	
+	/**
+	 * Method for tracking a service of the repository, indexing it against each of its inputs.
+	 * Services outside the graph are also assigned the number of their inputs that are not available.
+	 * @param 	service		Service to be tracked
+	 */
+	private void trackService(Service service)
+	{
+		if (serviceOrder.containsKey(service))
+		{
+			return;
+		}
+		
+		//Positions are never reused, so services tracked after an untracked one still come after all the services tracked before them
+		serviceOrder.put(service, trackedServiceCount++);
+		for (int inputId : parameterDictionary.getSignature(service).getInputIds())
+		{
+			while (consumerIndex.size() <= inputId)
+			{
+				consumerIndex.add(null);
+			}
+			List<Service> consumers = consumerIndex.get(inputId);
+			if (consumers == null)
+			{
+				consumers = new ArrayList<Service>();
+				consumerIndex.set(inputId, consumers);
+			}
+			consumers.add(service);
+		}
+		
+		if (!(serviceNodes.containsKey(service)))
+		{
+			missingInputCounts.put(service, countMissingInputs(service));
+		}
+	}
+	
+	/**
+	 * Method for no longer tracking a service that has been removed from the repository.
+	 * @param 	service		Service to be removed
+	 */
+	private void untrackService(Service service)
+	{
+		if (serviceOrder.remove(service) == null)
+		{
+			return;
+		}
+		
+		missingInputCounts.remove(service);
+		for (int inputId : parameterDictionary.getSignature(service).getInputIds())
+		{
+			getConsumers(inputId).removeIf(consumer -> (consumer == service));
+		}
+	}
+	
+	/**
+	 * Method for counting the inputs of a service that are not available to this graph.
+	 * @param 	service		Service
+	 * @return	Number of distinct inputs missing
+	 */
+	private int countMissingInputs(Service service)
+	{
+		int missingInputCount = 0;
+		for (int inputId : parameterDictionary.getSignature(service).getInputIds())
+		{
+			if (!(ParameterDictionary.contains(availableParameters, inputId)))
+			{
+				missingInputCount++;
+			}
+		}
+		
+		return missingInputCount;
+	}
+	
+	/**
+	 * Method for fetching the tracked services consuming a parameter.
+	 * @param 	parameterId		Parameter ID
+	 * @return	List of tracked services having the parameter as an input
+	 */
+	private List<Service> getConsumers(int parameterId)
+	{
+		List<Service> consumers = (parameterId < consumerIndex.size()) ? consumerIndex.get(parameterId) : null;
+		return (consumers == null) ? new ArrayList<Service>() : consumers;
+	}
+	
+	/**
+	 * Method for growing the signature of the available parameters to hold the parameters interned since it was created.
+	 */
+	private void growAvailableParameters()
+	{
+		if (availableParameters.length < parameterDictionary.getSignatureLength())
+		{
+			availableParameters = Arrays.copyOf(availableParameters, parameterDictionary.getSignatureLength());
+		}
+	}
+	
+	/**
+	 * Method for creating a comparator ordering search nodes of this graph by their position (layer by layer).
+	 * @return	Search node position comparator
+	 */
+	private Comparator<SearchNode> getPositionComparator()
+	{
+		return new Comparator<SearchNode>()
+		{
+			public int compare(SearchNode node1, SearchNode node2)
+			{
+				if (node1.getLayerIndex() != node2.getLayerIndex())
+				{
+					return Integer.compare(node1.getLayerIndex(), node2.getLayerIndex());
+				}
+				return Integer.compare(nodePositions.get(node1), nodePositions.get(node2));
+			}
+		};
+	}
+	
+	/**
+	 * Method for rejecting incremental updates to this search graph unless its services are being tracked.
+	 */
+	private void checkTrackingServices()
+	{
+		if (!(isTrackingServices()))
+		{
+			throw new IllegalStateException("Services must be tracked before the search graph can be updated incrementally.");
+		}
+	}
+	
+	/**
+	 * Method for recording a search node of this graph in the producer index against the ID of each of its outputs.
+	 * The position of the node within its service layer is recorded as well for ordering predecessors.
+	 * @param 	searchNode	Search node that has been added to its service layer
+	 * @param 	position	Position of the search node within its service layer
+	 */
+	private void indexSearchNode(SearchNode searchNode, int position)
+	{
+		nodePositions.put(searchNode, position);
+		for (int outputId : parameterDictionary.getSignature(searchNode.getService()).getOutputIds())
+		{
+			while (producerIndex.size() <= outputId)
+			{
+				producerIndex.add(null);
+			}
+			List<SearchNode> producers = producerIndex.get(outputId);
+			if (producers == null)
+			{
+				producers = new ArrayList<SearchNode>();
+				producerIndex.set(outputId, producers);
+			}
+			producers.add(searchNode);
+		}
+	}
+	
+	/**
+	 * Method for rebuilding the producer index after the service layers of this graph have been replaced.
+	 */
+	private void rebuildProducerIndex()
+	{
+		this.producerIndex = new ArrayList<List<SearchNode>>();
+		this.nodePositions = new IdentityHashMap<SearchNode, Integer>();
+		for (List<SearchNode> serviceLayer : this.serviceLayers)
+		{
+			for (int i = 0; i < serviceLayer.size(); i++)
+			{
+				indexSearchNode(serviceLayer.get(i), i);
+			}
+		}
+	}
+	
+	/**
+	 * Method for creating the read-only views of the service layers after they have been replaced.
+	 */
+	private void createLayerViews()
+	{
+		this.layerViews = new ArrayList<List<SearchNode>>();
+		for (List<SearchNode> serviceLayer : this.serviceLayers)
+		{
+			this.layerViews.add(Collections.unmodifiableList(serviceLayer));
+		}
+		this.serviceLayersView = Collections.unmodifiableList(this.layerViews);
+	}
+	
+	/**
+	 * Method for rejecting modifications to this search graph once it has been frozen.
+	 */
+	private void checkNotFrozen()
+	{
+		if (frozen)
+		{
+			throw new IllegalStateException("Frozen search graphs cannot be modified.");
+		}
 	}
 }
\ No newline at end of file
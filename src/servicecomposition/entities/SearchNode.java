@@ -1,6 +1,7 @@
 package servicecomposition.entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import service.Service;
 
@@ -14,6 +15,9 @@ public class SearchNode
 	private List<SearchNode> predecessors;
 	private List<SearchNode> successors;
 	private int layerIndex;
+	private List<SearchNode> predecessorView;
+	private List<SearchNode> successorView;
+	private boolean frozen;
 	
 	/**
 	 * Default constructor.
@@ -24,6 +28,7 @@ public class SearchNode
 		predecessors = new ArrayList<SearchNode>();
 		successors = new ArrayList<SearchNode>();
 		layerIndex = -1;								//Valid values are >= 0. -1 indicates node has not been added to a search graph.
+		createViews();
 	}
 	
 	/**
@@ -52,6 +57,7 @@ public class SearchNode
 		}
 		
 		this.layerIndex = layerIndex;
+		createViews();
 	}
 	
 	/**
@@ -77,6 +83,7 @@ public class SearchNode
 		}
 		
 		this.layerIndex = searchNode.getLayerIndex();
+		createViews();
 	}
 
 	/**
@@ -122,6 +129,36 @@ public class SearchNode
 		return retSuccessors;
 	}
 	
+	/**
+	 * Accessor method for a read-only view of the search nodes that are predecessors to this node.
+	 * The view is not copied, so the same predecessor node objects are returned on every call.
+	 * @return	Unmodifiable view of the predecessor nodes
+	 */
+	public List<SearchNode> getPredecessorView()
+	{
+		return predecessorView;
+	}
+	
+	/**
+	 * Accessor method for a read-only view of the search nodes that are successors to this node.
+	 * The view is not copied, so the same successor node objects are returned on every call.
+	 * @return	Unmodifiable view of the successor nodes
+	 */
+	public List<SearchNode> getSuccessorView()
+	{
+		return successorView;
+	}
+	
+	/**
+	 * Method for checking if this search node belongs to a frozen search graph and can no longer be modified.
+	 * @return	true, if this node is frozen
+	 * 			false, otherwise
+	 */
+	public boolean isFrozen()
+	{
+		return frozen;
+	}
+	
 	/**
 	 * Accessor method for the index of the service layer in the search graph that contains this node.
 	 * @return	Container service layer index
@@ -137,6 +174,7 @@ public class SearchNode
 	 */
 	public void setService(Service service) 
 	{
+		checkNotFrozen();
 		this.service = service;
 	}
 
@@ -147,12 +185,14 @@ public class SearchNode
 	 */
 	public void setPredecessors(List<SearchNode> predecessors) 
 	{
+		checkNotFrozen();
 		//Lists are deep-copied so as to avoid unintended alteration from outside the class
 		this.predecessors = new ArrayList<SearchNode>();
 		for (SearchNode predecessor : predecessors)
 		{
 			this.predecessors.add(predecessor);
 		}
+		predecessorView = Collections.unmodifiableList(this.predecessors);
 	}
 
 	/**
@@ -162,12 +202,14 @@ public class SearchNode
 	 */
 	public void setSuccessors(List<SearchNode> successors) 
 	{
+		checkNotFrozen();
 		//Lists are deep-copied so as to avoid unintended alteration from outside the class
 		this.successors = new ArrayList<SearchNode>();
 		for (SearchNode successor : successors)
 		{
 			this.successors.add(successor);
 		}
+		successorView = Collections.unmodifiableList(this.successors);
 	}
 	
 	/**
@@ -176,6 +218,56 @@ public class SearchNode
 	 */
 	public void setLayerIndex(int layerIndex) 
 	{
+		checkNotFrozen();
 		this.layerIndex = layerIndex;
 	}
+	
+	/**
+	 * Method for adding a predecessor to this node without copying the existing predecessor list.
+	 * @param 	predecessor		Search node to be added as a predecessor to this node
+	 */
+	public void addPredecessor(SearchNode predecessor)
+	{
+		checkNotFrozen();
+		predecessors.add(predecessor);
+	}
+	
+	/**
+	 * Method for adding a successor to this node without copying the existing successor list.
+	 * @param 	successor		Search node to be added as a successor to this node
+	 */
+	public void addSuccessor(SearchNode successor)
+	{
+		checkNotFrozen();
+		successors.add(successor);
+	}
+	
+	/**
+	 * Method for freezing this search node along with its search graph.
+	 * All the mutator methods of a frozen node fail with an IllegalStateException.
+	 */
+	void freeze()
+	{
+		frozen = true;
+	}
+	
+	/**
+	 * Method for creating the read-only views of the predecessor and successor lists of this node.
+	 */
+	private void createViews()
+	{
+		predecessorView = Collections.unmodifiableList(predecessors);
+		successorView = Collections.unmodifiableList(successors);
+	}
+	
+	/**
+	 * Method for rejecting modifications to this node once its search graph has been frozen.
+	 */
+	private void checkNotFrozen()
+	{
+		if (frozen)
+		{
+			throw new IllegalStateException("Search node " + service.getName() + " belongs to a frozen search graph.");
+		}
+	}
 }
\ No newline at end of file
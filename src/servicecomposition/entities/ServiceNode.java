@@ -1,8 +1,15 @@
 package servicecomposition.entities;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import constraint.Constraint;
 import service.ConstrainedService;
 import service.Service;
@@ -10,6 +17,10 @@ import service.composite.layeredcompsvc.LayeredCompositeService;
 
 /**
  * Class for representing a service node of constraint-aware plans created from composition plans.
+ * Constraints of the node are also indexed by their type so that they can be looked up without scanning the constraint list.
+ * The index is not serialized and is rebuilt from the constraint list whenever required.
+ * Removed constraints are dropped from the index immediately and from the constraint list in batches, 
+ * when the list is fetched or serialized or when half of it consists of removed constraints, so that every removal takes amortized constant time.
  * @author Jyotsana Gupta
  */
 public class ServiceNode implements Serializable
@@ -20,6 +31,9 @@ public class ServiceNode implements Serializable
 	private List<ServiceNode> predecessors;
 	private List<ServiceNode> successors;
 	private int layerIndex;
+	private transient Map<String, Set<Constraint>> constraintIndex;
+	private transient int indexedConstraintCount;
+	private transient Set<Constraint> removedConstraints;
 	
 	/**
 	 * Parameterized constructor.
@@ -87,6 +101,7 @@ public class ServiceNode implements Serializable
 	 */
 	public List<Constraint> getConstraints()
 	{
+		compactConstraints();
 		return constraints;
 	}
 	
@@ -132,10 +147,51 @@ public class ServiceNode implements Serializable
 	 */
 	public void addConstraint(Constraint constraint)
 	{
-		if (!constraints.contains(constraint))
+		Set<Constraint> typeConstraints = getConstraintIndex().get(constraint.getType());
+		if (typeConstraints == null)
 		{
+			typeConstraints = new HashSet<Constraint>();
+			constraintIndex.put(constraint.getType(), typeConstraints);
+		}
+		
+		if (typeConstraints.add(constraint))
+		{
+			//A constraint removed earlier is still in the list, so the list is compacted first to add the constraint at its end
+			if ((removedConstraints != null) && (removedConstraints.contains(constraint)))
+			{
+				compactConstraints();
+			}
 			constraints.add(constraint);
+			indexedConstraintCount++;
+		}
+	}
+	
+	/**
+	 * Method for checking if a constraint is attached to this node.
+	 * @param 	constraint		Constraint to be checked
+	 * @return	true, if the constraint is attached to this node
+	 * 			false, otherwise
+	 */
+	public boolean containsConstraint(Constraint constraint)
+	{
+		Set<Constraint> typeConstraints = getConstraintIndex().get(constraint.getType());
+		return ((typeConstraints != null) && (typeConstraints.contains(constraint)));
+	}
+	
+	/**
+	 * Method for fetching the constraints of a specific type attached to this node.
+	 * @param 	constraintType	Type of the constraints
+	 * @return	Set of the constraints of the given type
+	 */
+	public Set<Constraint> getConstraintsOfType(String constraintType)
+	{
+		Set<Constraint> typeConstraints = getConstraintIndex().get(constraintType);
+		if (typeConstraints == null)
+		{
+			return Collections.emptySet();
 		}
+		
+		return Collections.unmodifiableSet(typeConstraints);
 	}
 	
 	/**
@@ -162,6 +218,71 @@ public class ServiceNode implements Serializable
 	 */
 	public void removeConstraint(Constraint constraint)
 	{
-		constraints.remove(constraint);
+		Set<Constraint> typeConstraints = getConstraintIndex().get(constraint.getType());
+		if ((typeConstraints != null) && (typeConstraints.remove(constraint)))
+		{
+			if (removedConstraints == null)
+			{
+				removedConstraints = new HashSet<Constraint>();
+			}
+			removedConstraints.add(constraint);
+			if (removedConstraints.size() * 2 > constraints.size())
+			{
+				compactConstraints();
+			}
+		}
+	}
+	
+	/**
+	 * Method for dropping the removed constraints from the constraint list in a single pass.
+	 */
+	private void compactConstraints()
+	{
+		if ((removedConstraints == null) || (removedConstraints.isEmpty()))
+		{
+			return;
+		}
+		
+		constraints.removeIf(constraint -> removedConstraints.contains(constraint));
+		removedConstraints.clear();
+		indexedConstraintCount = constraints.size();
+	}
+	
+	/**
+	 * Method for serializing this service node without the constraints that have been removed from it.
+	 * @param 	nodeOutput	Stream to which this node is written
+	 */
+	private void writeObject(ObjectOutputStream nodeOutput) throws IOException
+	{
+		compactConstraints();
+		nodeOutput.defaultWriteObject();
+	}
+	
+	/**
+	 * Method for fetching the type-wise index of the constraints of this node.
+	 * The index is rebuilt if it does not exist (e.g. after deserialization) or if the constraint list has been modified directly.
+	 * @return	Constraints of this node mapped to their types
+	 */
+	private Map<String, Set<Constraint>> getConstraintIndex()
+	{
+		if ((constraintIndex == null) || (indexedConstraintCount != constraints.size()))
+		{
+			//Constraints removed before the list was modified directly are not restored
+			compactConstraints();
+			constraintIndex = new HashMap<String, Set<Constraint>>();
+			for (Constraint constraint : constraints)
+			{
+				Set<Constraint> typeConstraints = constraintIndex.get(constraint.getType());
+				if (typeConstraints == null)
+				{
+					typeConstraints = new HashSet<Constraint>();
+					constraintIndex.put(constraint.getType(), typeConstraints);
+				}
+				typeConstraints.add(constraint);
+			}
+			indexedConstraintCount = constraints.size();
+		}
+		
+		return constraintIndex;
 	}
 }
\ No newline at end of file
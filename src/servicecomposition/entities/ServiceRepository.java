@@ -0,0 +1,468 @@
+package servicecomposition.entities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import service.ConstrainedService;
+import service.Service;
+import service.composite.layeredcompsvc.LayeredCompositeService;
+import service.parser.BasicServiceParser;
+import service.parser.ServiceFileParserDecorator;
+import service.parser.ServiceSerializedParser;
+import servicecomposition.readers.BinaryServiceRepoReader;
+import servicecomposition.readers.XMLServiceRepoReader;
+import servicecomposition.utilities.CompSvcLogStore;
+
+/**
+ * Class representing a service repository that is read once and shared by all the composition requests made against it.
+ * When the repository is loaded, its services are indexed by name, by input and output parameters and by effects.
+ * The modification time and size of the repository file are checked whenever the repository is accessed,
+ * and the repository is reloaded if the file has changed since it was last read.
+ * A file read within the resolution of modification times after it was modified may change again without a change in its modification time
+ * or size, hence the content of such a file is also hashed when it is read, and compared once on the first access after its modification
+ * time is old enough for any further change to be visible in it. Such a change is therefore picked up at most MODIFIED_TIME_RESOLUTION
+ * milliseconds late, while accesses in the meantime do not read the file.
+ * Binary repositories are memory-mapped instead, and their services are created and indexed only when they are first needed.
+ * The lists returned by this class are shared by all the users of the repository and must not be modified.
+ * @author agent
+ */
+public class ServiceRepository
+{
+	private static final Map<String, ServiceRepository> sharedRepositories = new ConcurrentHashMap<String, ServiceRepository>();
+	public static final long MODIFIED_TIME_RESOLUTION = 2000;
+	private static final AtomicLong lastVersion = new AtomicLong();
+	private String repoFileName;
+	private boolean loaded;
+	private long loadedModifiedTime;
+	private long loadedFileLength;
+	private boolean contentHashed;
+	private long loadedContentHash;
+	private int loadCount;
+	private long version;
+	private ArrayList<Service> services;
+	private BinaryServiceRepoReader binaryReader;
+	private Map<String, Service> servicesByName;
+	private Map<String, List<Service>> servicesByInput;
+	private Map<String, List<Service>> servicesByOutput;
+	private Map<String, List<Service>> servicesByEffect;
+	
+	/**
+	 * Parameterized constructor.
+	 * The repository file is read only when the repository is accessed for the first time.
+	 * @param 	repoFileName	Name of the XML (.xml), serialized Java object (.txt), composite service log (.cslog) 
+	 * 							or binary (.bsr) repository file
+	 */
+	public ServiceRepository(String repoFileName)
+	{
+		this.repoFileName = repoFileName;
+		this.loaded = false;
+		this.loadCount = 0;
+		clearIndexes();
+	}
+	
+	/**
+	 * Method for fetching the repository shared by all the users of a repository file within this process.
+	 * @param 	repoFileName	Name of the repository file
+	 * @return	Shared repository for the file
+	 */
+	public static ServiceRepository getSharedRepository(String repoFileName)
+	{
+		String repoKey = new File(repoFileName).getAbsolutePath();
+		return sharedRepositories.computeIfAbsent(repoKey, key -> new ServiceRepository(repoFileName));
+	}
+	
+	/**
+	 * Method for checking if a repository file is in one of the formats that can be parsed.
+	 * @param 	repoFileName	Name of the repository file
+	 * @return	true, if the file is an XML, serialized Java object, composite service log or binary repository
+	 * 			false, otherwise
+	 */
+	public static boolean isSupportedFormat(String repoFileName)
+	{
+		return ((repoFileName.endsWith(".xml")) || (repoFileName.endsWith(".txt")) || (CompSvcLogStore.isLogFile(repoFileName))
+				|| (BinaryServiceRepoReader.isBinaryRepoFile(repoFileName)));
+	}
+	
+	/**
+	 * Accessor method for the repository file name.
+	 * @return	Repository file name
+	 */
+	public String getRepoFileName()
+	{
+		return repoFileName;
+	}
+	
+	/**
+	 * Method for fetching the number of times the repository file has been read.
+	 * @return	Number of repository loads
+	 */
+	public synchronized int getLoadCount()
+	{
+		return loadCount;
+	}
+	
+	/**
+	 * Method for fetching the version of the repository, reloading it first if its file has changed.
+	 * The version changes every time the repository is reloaded, hence it can be used to recognize results computed from older contents.
+	 * Versions are unique across all the repositories of this process, so the versions of 2 repositories loading the same file never collide.
+	 * @return	Version of the loaded repository
+	 */
+	public synchronized long getVersion()
+	{
+		refresh();
+		return version;
+	}
+	
+	/**
+	 * Method for reloading the repository if it has not been loaded yet or if the repository file has changed since it was last read.
+	 * @return	true, if the repository was reloaded
+	 * 			false, if the loaded repository is up to date
+	 */
+	public synchronized boolean refresh()
+	{
+		File repoFile = new File(repoFileName);
+		if ((loaded) && (repoFile.lastModified() == loadedModifiedTime) && (repoFile.length() == loadedFileLength)
+			&& (!(isContentChanged(repoFile))))
+		{
+			return false;
+		}
+		
+		load(repoFile);
+		return true;
+	}
+	
+	/**
+	 * Method for discarding the loaded repository so that the repository file is read again on the next access.
+	 */
+	public synchronized void invalidate()
+	{
+		loaded = false;
+	}
+	
+	/**
+	 * Method for fetching all the services in the repository in the order of the repository file.
+	 * @return	List of services in the repository
+	 * 			Null, if the repository file cannot be parsed
+	 */
+	public synchronized ArrayList<Service> getServices()
+	{
+		refresh();
+		indexBinaryServices();
+		return services;
+	}
+	
+	/**
+	 * Method for fetching the number of services in the repository without creating the services of a binary repository.
+	 * @return	Number of services in the repository
+	 * 			0, if the repository file cannot be parsed
+	 */
+	public synchronized int getServiceCount()
+	{
+		refresh();
+		if (binaryReader != null)
+		{
+			return binaryReader.getServiceCount();
+		}
+		
+		return (services == null) ? 0 : services.size();
+	}
+	
+	/**
+	 * Method for fetching the services that can be used for a composition request with the given inputs.
+	 * For binary repositories, only the services reachable from the inputs are created, in the order of the repository file.
+	 * For other repositories, all the services are returned, as they have already been created while reading the repository file.
+	 * @param 	inputs	Inputs of the composition request
+	 * @return	List of candidate services in the order of the repository file
+	 * 			Null, if the repository file cannot be parsed
+	 */
+	public synchronized ArrayList<Service> getCandidateServices(List<String> inputs)
+	{
+		refresh();
+		if ((binaryReader != null) && (services == null))
+		{
+			return binaryReader.getReachableServices(inputs);
+		}
+		
+		return services;
+	}
+	
+	/**
+	 * Method for fetching a service by its name.
+	 * @param 	serviceName		Service name
+	 * @return	First service in the repository with the given name
+	 * 			Null, if no such service exists
+	 */
+	public synchronized Service getService(String serviceName)
+	{
+		refresh();
+		indexBinaryServices();
+		return servicesByName.get(serviceName);
+	}
+	
+	/**
+	 * Method for fetching the services that require a parameter as an input.
+	 * @param 	parameter	Input parameter
+	 * @return	List of services consuming the parameter in the order of the repository file
+	 */
+	public synchronized List<Service> getServicesByInput(String parameter)
+	{
+		refresh();
+		indexBinaryServices();
+		return getIndexedServices(servicesByInput, parameter);
+	}
+	
+	/**
+	 * Method for fetching the services that produce a parameter as an output.
+	 * @param 	parameter	Output parameter
+	 * @return	List of services producing the parameter in the order of the repository file
+	 */
+	public synchronized List<Service> getServicesByOutput(String parameter)
+	{
+		refresh();
+		indexBinaryServices();
+		return getIndexedServices(servicesByOutput, parameter);
+	}
+	
+	/**
+	 * Method for fetching the services that affect a feature.
+	 * @param 	effect	Feature affected by the services
+	 * @return	List of services having the effect in the order of the repository file
+	 */
+	public synchronized List<Service> getServicesByEffect(String effect)
+	{
+		refresh();
+		indexBinaryServices();
+		return getIndexedServices(servicesByEffect, effect);
+	}
+	
+	/**
+	 * Method for reading the repository file and indexing its services.
+	 * @param 	repoFile	Repository file
+	 */
+	private void load(File repoFile)
+	{
+		//Recording the file state before parsing so that changes made while parsing trigger another reload
+		loadedModifiedTime = repoFile.lastModified();
+		loadedFileLength = repoFile.length();
+		contentHashed = (System.currentTimeMillis() <= loadedModifiedTime + MODIFIED_TIME_RESOLUTION);
+		if (contentHashed)
+		{
+			loadedContentHash = hashContent(repoFile);
+		}
+		loaded = true;
+		loadCount++;
+		version = lastVersion.incrementAndGet();
+		clearIndexes();
+		binaryReader = null;
+		
+		//Binary repositories are only mapped, their services are created when they are first needed
+		if (BinaryServiceRepoReader.isBinaryRepoFile(repoFileName))
+		{
+			binaryReader = BinaryServiceRepoReader.open(repoFileName);
+			return;
+		}
+		
+		//XML repositories are streamed so that their services are indexed as they are read, without building a DOM tree of the file
+		if (repoFileName.endsWith(".xml"))
+		{
+			ArrayList<Service> xmlServices = new ArrayList<Service>();
+			boolean repoRead = XMLServiceRepoReader.readServices(repoFileName, service -> 
+			{
+				xmlServices.add(service);
+				indexService(service);
+			});
+			if (repoRead)
+			{
+				services = xmlServices;
+			}
+			else
+			{
+				clearIndexes();
+			}
+			return;
+		}
+		
+		ServiceFileParserDecorator serviceParser = null;
+		if (CompSvcLogStore.isLogFile(repoFileName))
+		{
+			services = CompSvcLogStore.getStore(repoFileName).readAll();
+		}
+		else if (repoFileName.endsWith(".txt"))
+		{
+			serviceParser = new ServiceSerializedParser(new BasicServiceParser());
+		}
+		if (serviceParser != null)
+		{
+			serviceParser.setLocation(repoFileName);
+			services = serviceParser.parse();
+		}
+		if (services == null)
+		{
+			return;
+		}
+		
+		for (Service service : services)
+		{
+			indexService(service);
+		}
+	}
+	
+	/**
+	 * Method for checking if the content of a repository file with an unchanged modification time and size differs from the loaded content.
+	 * Only files read within the resolution of modification times after they were modified are compared, and only once,
+	 * on the first check after the resolution has passed, so that repeated accesses do not read the whole file.
+	 * @param 	repoFile	Repository file
+	 * @return	true, if the content of the file has changed since it was last read
+	 * 			false, otherwise
+	 */
+	private boolean isContentChanged(File repoFile)
+	{
+		if ((!contentHashed) || (System.currentTimeMillis() <= loadedModifiedTime + MODIFIED_TIME_RESOLUTION))
+		{
+			return false;
+		}
+		
+		//Once the modification time is old enough, any further change also changes the modification time, so the content is not hashed again
+		contentHashed = false;
+		return (hashContent(repoFile) != loadedContentHash);
+	}
+	
+	/**
+	 * Method for computing the CRC-32 checksum of the content of a repository file.
+	 * @param 	repoFile	Repository file
+	 * @return	Checksum of the file content
+	 * 			-1, if the file cannot be read
+	 */
+	private static long hashContent(File repoFile)
+	{
+		CRC32 contentHash = new CRC32();
+		byte[] buffer = new byte[1 << 16];
+		try (InputStream repoInput = new FileInputStream(repoFile))
+		{
+			int readCount;
+			while ((readCount = repoInput.read(buffer)) != -1)
+			{
+				contentHash.update(buffer, 0, readCount);
+			}
+			return contentHash.getValue();
+		}
+		catch(IOException ioe)
+		{
+			return -1;
+		}
+	}
+	
+	/**
+	 * Method for creating and indexing all the services of a binary repository, if this has not been done since it was loaded.
+	 */
+	private void indexBinaryServices()
+	{
+		if ((binaryReader == null) || (services != null))
+		{
+			return;
+		}
+		
+		services = binaryReader.getServices();
+		for (Service service : services)
+		{
+			indexService(service);
+		}
+	}
+	
+	/**
+	 * Method for adding a service to the indexes of the repository.
+	 * @param 	service		Service to be indexed
+	 */
+	private void indexService(Service service)
+	{
+		servicesByName.putIfAbsent(service.getName(), service);
+		addToIndex(servicesByInput, service.getInput(), service);
+		addToIndex(servicesByOutput, service.getOutput(), service);
+		addToIndex(servicesByEffect, getEffects(service), service);
+	}
+	
+	/**
+	 * Method for creating empty indexes.
+	 */
+	private void clearIndexes()
+	{
+		services = null;
+		servicesByName = new HashMap<String, Service>();
+		servicesByInput = new HashMap<String, List<Service>>();
+		servicesByOutput = new HashMap<String, List<Service>>();
+		servicesByEffect = new HashMap<String, List<Service>>();
+	}
+	
+	/**
+	 * Method for adding a service to an index against each of the given keys.
+	 * A service is added only once against a key even if the key is repeated.
+	 * @param 	index		Index to be updated
+	 * @param 	keys		Parameters or effects of the service
+	 * @param 	service		Service to be indexed
+	 */
+	private static void addToIndex(Map<String, List<Service>> index, List<String> keys, Service service)
+	{
+		if (keys == null)
+		{
+			return;
+		}
+		
+		for (String key : new HashSet<String>(keys))
+		{
+			List<Service> keyServices = index.get(key);
+			if (keyServices == null)
+			{
+				keyServices = new ArrayList<Service>();
+				index.put(key, keyServices);
+			}
+			keyServices.add(service);
+		}
+	}
+	
+	/**
+	 * Method for fetching the services indexed against a key.
+	 * @param 	index	Index to be looked up
+	 * @param 	key		Parameter or effect
+	 * @return	Read-only list of the services indexed against the key
+	 */
+	private static List<Service> getIndexedServices(Map<String, List<Service>> index, String key)
+	{
+		List<Service> keyServices = index.get(key);
+		if (keyServices == null)
+		{
+			return Collections.emptyList();
+		}
+		
+		return Collections.unmodifiableList(keyServices);
+	}
+	
+	/**
+	 * Method for fetching the effects of a service.
+	 * @param 	service		Individual or composite service
+	 * @return	List of effects of the service
+	 * 			Null, if the service does not have any effects
+	 */
+	private static List<String> getEffects(Service service)
+	{
+		if (service instanceof ConstrainedService)
+		{
+			return ((ConstrainedService) service).getEffects();
+		}
+		else if ((service instanceof LayeredCompositeService) && (service.getInnerService() instanceof ConstrainedService))
+		{
+			return ((ConstrainedService) service.getInnerService()).getEffects();
+		}
+		
+		return null;
+	}
+}
\ No newline at end of file
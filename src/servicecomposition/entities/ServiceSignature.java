@@ -0,0 +1,91 @@
+package servicecomposition.entities;
+
+/**
+ * Class representing the inputs, outputs and effects of a service as sets of IDs assigned by a parameter dictionary.
+ * Each set is stored as a bit signature (an array of 64-bit words in which bit i is set if the parameter with ID i belongs to the set).
+ * Effects are identified by the effect IDs of the dictionary, which are assigned separately from the parameter IDs.
+ * Signatures are shared and must not be modified.
+ * @author agent
+ */
+public class ServiceSignature
+{
+	private int[] inputIds;
+	private int[] outputIds;
+	private long[] inputs;
+	private long[] outputs;
+	private long[] effects;
+	
+	/**
+	 * Constructor with all data member values accepted as arguments.
+	 * @param 	inputIds	Distinct IDs of the service inputs in the order of their first occurrence
+	 * @param 	outputIds	Distinct IDs of the service outputs in the order of their first occurrence
+	 * @param 	inputs		Signature of the service inputs
+	 * @param 	outputs		Signature of the service outputs
+	 * @param 	effects		Signature of the effect IDs of the service
+	 */
+	public ServiceSignature(int[] inputIds, int[] outputIds, long[] inputs, long[] outputs, long[] effects)
+	{
+		this.inputIds = inputIds;
+		this.outputIds = outputIds;
+		this.inputs = inputs;
+		this.outputs = outputs;
+		this.effects = effects;
+	}
+	
+	/**
+	 * Accessor method for the distinct input IDs of the service.
+	 * @return	Input IDs
+	 */
+	public int[] getInputIds()
+	{
+		return inputIds;
+	}
+	
+	/**
+	 * Accessor method for the distinct output IDs of the service.
+	 * @return	Output IDs
+	 */
+	public int[] getOutputIds()
+	{
+		return outputIds;
+	}
+	
+	/**
+	 * Accessor method for the input signature of the service.
+	 * @return	Input signature
+	 */
+	public long[] getInputs()
+	{
+		return inputs;
+	}
+	
+	/**
+	 * Accessor method for the output signature of the service.
+	 * @return	Output signature
+	 */
+	public long[] getOutputs()
+	{
+		return outputs;
+	}
+	
+	/**
+	 * Accessor method for the effect signature of the service.
+	 * @return	Effect signature (empty for services without constraints and effects)
+	 */
+	public long[] getEffects()
+	{
+		return effects;
+	}
+	
+	/**
+	 * Method for checking if the service has the effect with the given ID.
+	 * @param 	effectId	Effect ID
+	 * 						-1, if the effect is unknown to the dictionary
+	 * @return	true, if the service has the effect
+	 * 			false, otherwise
+	 */
+	public boolean hasEffect(int effectId)
+	{
+		return ((effectId >= 0) && (ParameterDictionary.contains(effects, effectId)));
+	}
+}
\ No newline at end of file
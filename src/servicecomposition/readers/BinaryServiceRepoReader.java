@@ -0,0 +1,404 @@
+package servicecomposition.readers;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import constraint.Constraint;
+import constraint.Operator;
+import service.BasicService;
+import service.ConstrainedService;
+import service.Service;
+
+/**
+ * Reader for binary service repositories (.bsr), which are created from XML and serialized repositories by BinaryRepoConverter.
+ * The repository file is memory-mapped and consists of
+ * - a header containing the number of services and strings and the positions of the other parts,
+ * - fixed-width service records containing the string ID of the service name, the position of the service section
+ *   and the numbers of inputs, outputs, constraints and effects of the service,
+ * - variable-length service sections containing the string IDs of the inputs and outputs, the constraints
+ *   (string IDs of the service name, literal value and type, and the operator ordinal) and the string IDs of the effects, and
+ * - the string table, in which every distinct parameter, name or literal is stored once.
+ * All the values are 4-byte integers (strings are padded to 4 bytes), and positions are stored as integer slot numbers.
+ * Opening a repository only reads its header. Services are created from their records when they are first fetched,
+ * and the same service object is returned for a service every time afterwards.
+ * Constraint literal values are read as strings.
+ * @author agent
+ */
+public class BinaryServiceRepoReader
+{
+	public static final int MAGIC = 0x42535250;
+	public static final int VERSION = 1;
+	public static final int HEADER_SLOTS = 8;
+	public static final int RECORD_SLOTS = 6;
+	private static final int CHUNK_SHIFT = 30;
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+	private MappedByteBuffer[] chunks;
+	private int serviceCount;
+	private int stringCount;
+	private long recordsSlot;
+	private long stringOffsetsSlot;
+	private String[] strings;
+	private AtomicReferenceArray<Service> services;
+	private Map<String, Integer> stringIds;
+	private int[] consumerStarts;
+	private int[] consumers;
+	private int[] distinctInputCounts;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	chunks		Memory-mapped chunks of the repository file
+	 */
+	private BinaryServiceRepoReader(MappedByteBuffer[] chunks)
+	{
+		this.chunks = chunks;
+		this.serviceCount = getSlot(2);
+		this.stringCount = getSlot(3);
+		this.recordsSlot = getSlot(4) & 0xFFFFFFFFL;
+		this.stringOffsetsSlot = getSlot(6) & 0xFFFFFFFFL;
+		this.strings = new String[stringCount];
+		this.services = new AtomicReferenceArray<Service>(serviceCount);
+	}
+	
+	/**
+	 * Method for checking if a repository file is a binary service repository.
+	 * @param 	repoFileName	Name of the repository file
+	 * @return	true, if the file is a binary service repository
+	 * 			false, otherwise
+	 */
+	public static boolean isBinaryRepoFile(String repoFileName)
+	{
+		return repoFileName.endsWith(".bsr");
+	}
+	
+	/**
+	 * Method for opening a binary service repository.
+	 * @param 	repoFileName	Complete name and path of the binary repository file
+	 * @return	Reader for the repository
+	 * 			Null, if the file cannot be mapped or is not a binary service repository
+	 */
+	public static BinaryServiceRepoReader open(String repoFileName)
+	{
+		try (RandomAccessFile repoAccess = new RandomAccessFile(repoFileName, "r"))
+		{
+			//Mapping the file in chunks, as a single buffer cannot map more than 2 GB
+			FileChannel repoChannel = repoAccess.getChannel();
+			long fileLength = repoChannel.size();
+			MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((fileLength + CHUNK_MASK) >>> CHUNK_SHIFT)];
+			for (int i = 0; i < chunks.length; i++)
+			{
+				long chunkStart = (long) i << CHUNK_SHIFT;
+				chunks[i] = repoChannel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(CHUNK_MASK + 1, fileLength - chunkStart));
+			}
+			
+			if ((fileLength < HEADER_SLOTS * 4) || (chunks[0].getInt(0) != MAGIC) || (chunks[0].getInt(4) != VERSION))
+			{
+				System.out.println("Exception while opening the binary service repository: " + repoFileName + " is not a binary service repository");
+				return null;
+			}
+			
+			return new BinaryServiceRepoReader(chunks);
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while opening the binary service repository: " + ioe.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Accessor method for the number of services in the repository.
+	 * @return	Number of services
+	 */
+	public int getServiceCount()
+	{
+		return serviceCount;
+	}
+	
+	/**
+	 * Method for fetching the name of a service without creating the service.
+	 * @param 	serviceIndex	Position of the service in the repository
+	 * @return	Service name
+	 */
+	public String getServiceName(int serviceIndex)
+	{
+		return getString(getSlot(recordsSlot + ((long) serviceIndex * RECORD_SLOTS)));
+	}
+	
+	/**
+	 * Method for fetching a service, creating it from its record the first time it is fetched.
+	 * @param 	serviceIndex	Position of the service in the repository
+	 * @return	Constrained service
+	 */
+	public Service getService(int serviceIndex)
+	{
+		Service service = services.get(serviceIndex);
+		if (service == null)
+		{
+			//Only the first service created for a record is kept, so that a service is always represented by the same object
+			services.compareAndSet(serviceIndex, null, createService(serviceIndex));
+			service = services.get(serviceIndex);
+		}
+		
+		return service;
+	}
+	
+	/**
+	 * Method for fetching all the services in the repository.
+	 * @return	List of all the services, in the order of the repository
+	 */
+	public ArrayList<Service> getServices()
+	{
+		ArrayList<Service> allServices = new ArrayList<Service>(serviceCount);
+		for (int i = 0; i < serviceCount; i++)
+		{
+			allServices.add(getService(i));
+		}
+		
+		return allServices;
+	}
+	
+	/**
+	 * Method for fetching the services that can be invoked, directly or after other such services, when the given inputs are available.
+	 * Only these services can be added to a search graph by forward expansion for the inputs, hence forward expansion over them
+	 * creates the same search graph as forward expansion over the whole repository.
+	 * The services are found using the records alone, and only the services found are created.
+	 * @param 	inputs		Available inputs
+	 * @return	List of the services that can be invoked, in the order of the repository
+	 */
+	public synchronized ArrayList<Service> getReachableServices(Collection<String> inputs)
+	{
+		buildConsumerIndex();
+		
+		//Counting down the missing inputs of every service as parameters become available
+		int[] missingInputCounts = distinctInputCounts.clone();
+		boolean[] availableParams = new boolean[stringCount];
+		boolean[] reachable = new boolean[serviceCount];
+		int[] paramQueue = new int[stringCount];
+		int queueEnd = 0;
+		for (String input : inputs)
+		{
+			Integer paramId = stringIds.get(input);
+			if ((paramId != null) && (!(availableParams[paramId])))
+			{
+				availableParams[paramId] = true;
+				paramQueue[queueEnd++] = paramId;
+			}
+		}
+		for (int i = 0; i < serviceCount; i++)
+		{
+			if (missingInputCounts[i] == 0)
+			{
+				queueEnd = reachService(i, reachable, availableParams, paramQueue, queueEnd);
+			}
+		}
+		
+		for (int queueStart = 0; queueStart < queueEnd; queueStart++)
+		{
+			int paramId = paramQueue[queueStart];
+			for (int j = consumerStarts[paramId]; j < consumerStarts[paramId + 1]; j++)
+			{
+				int consumer = consumers[j];
+				if (--missingInputCounts[consumer] == 0)
+				{
+					queueEnd = reachService(consumer, reachable, availableParams, paramQueue, queueEnd);
+				}
+			}
+		}
+		
+		ArrayList<Service> reachableServices = new ArrayList<Service>();
+		for (int i = 0; i < serviceCount; i++)
+		{
+			if (reachable[i])
+			{
+				reachableServices.add(getService(i));
+			}
+		}
+		
+		return reachableServices;
+	}
+	
+	/**
+	 * Method for marking a service as reachable and queueing its outputs that were not available yet.
+	 * @param 	serviceIndex		Position of the service in the repository
+	 * @param 	reachable			Reachability of every service
+	 * @param 	availableParams		Availability of every string ID as a parameter
+	 * @param 	paramQueue			Queue of the parameters made available
+	 * @param 	queueEnd			End of the parameter queue
+	 * @return	New end of the parameter queue
+	 */
+	private int reachService(int serviceIndex, boolean[] reachable, boolean[] availableParams, int[] paramQueue, int queueEnd)
+	{
+		reachable[serviceIndex] = true;
+		long recordSlot = recordsSlot + ((long) serviceIndex * RECORD_SLOTS);
+		long outputsSlot = (getSlot(recordSlot + 1) & 0xFFFFFFFFL) + getSlot(recordSlot + 2);
+		int outputCount = getSlot(recordSlot + 3);
+		for (int i = 0; i < outputCount; i++)
+		{
+			int paramId = getSlot(outputsSlot + i);
+			if (!(availableParams[paramId]))
+			{
+				availableParams[paramId] = true;
+				paramQueue[queueEnd++] = paramId;
+			}
+		}
+		
+		return queueEnd;
+	}
+	
+	/**
+	 * Method for indexing the services by their distinct inputs and the strings by their values, the first time they are required.
+	 */
+	private void buildConsumerIndex()
+	{
+		if (consumerStarts != null)
+		{
+			return;
+		}
+		
+		stringIds = new HashMap<String, Integer>();
+		for (int i = 0; i < stringCount; i++)
+		{
+			stringIds.put(getString(i), i);
+		}
+		
+		//Counting the consumers of every parameter and then filling them in (compressed sparse rows)
+		distinctInputCounts = new int[serviceCount];
+		consumerStarts = new int[stringCount + 1];
+		int[] lastConsumers = new int[stringCount];
+		Arrays.fill(lastConsumers, -1);
+		for (int i = 0; i < serviceCount; i++)
+		{
+			long recordSlot = recordsSlot + ((long) i * RECORD_SLOTS);
+			long inputsSlot = getSlot(recordSlot + 1) & 0xFFFFFFFFL;
+			int inputCount = getSlot(recordSlot + 2);
+			for (int j = 0; j < inputCount; j++)
+			{
+				int paramId = getSlot(inputsSlot + j);
+				if (lastConsumers[paramId] != i)
+				{
+					lastConsumers[paramId] = i;
+					distinctInputCounts[i]++;
+					consumerStarts[paramId + 1]++;
+				}
+			}
+		}
+		for (int i = 0; i < stringCount; i++)
+		{
+			consumerStarts[i + 1] += consumerStarts[i];
+		}
+		
+		consumers = new int[consumerStarts[stringCount]];
+		int[] nextConsumers = Arrays.copyOf(consumerStarts, stringCount);
+		Arrays.fill(lastConsumers, -1);
+		for (int i = 0; i < serviceCount; i++)
+		{
+			long recordSlot = recordsSlot + ((long) i * RECORD_SLOTS);
+			long inputsSlot = getSlot(recordSlot + 1) & 0xFFFFFFFFL;
+			int inputCount = getSlot(recordSlot + 2);
+			for (int j = 0; j < inputCount; j++)
+			{
+				int paramId = getSlot(inputsSlot + j);
+				if (lastConsumers[paramId] != i)
+				{
+					lastConsumers[paramId] = i;
+					consumers[nextConsumers[paramId]++] = i;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Method for creating a service from its record and section.
+	 * @param 	serviceIndex	Position of the service in the repository
+	 * @return	Constrained service created
+	 */
+	private Service createService(int serviceIndex)
+	{
+		long recordSlot = recordsSlot + ((long) serviceIndex * RECORD_SLOTS);
+		String name = getString(getSlot(recordSlot));
+		long slot = getSlot(recordSlot + 1) & 0xFFFFFFFFL;
+		int inputCount = getSlot(recordSlot + 2);
+		int outputCount = getSlot(recordSlot + 3);
+		int constraintCount = getSlot(recordSlot + 4);
+		int effectCount = getSlot(recordSlot + 5);
+		
+		ArrayList<String> inputs = readStrings(slot, inputCount);
+		slot += inputCount;
+		ArrayList<String> outputs = readStrings(slot, outputCount);
+		slot += outputCount;
+		
+		ArrayList<Constraint> constraints = new ArrayList<Constraint>();
+		Operator[] operators = Operator.values();
+		for (int i = 0; i < constraintCount; i++)
+		{
+			constraints.add(new Constraint(getString(getSlot(slot)), getString(getSlot(slot + 1)), getString(getSlot(slot + 2)),
+											operators[getSlot(slot + 3)]));
+			slot += 4;
+		}
+		ArrayList<String> effects = readStrings(slot, effectCount);
+		
+		return new ConstrainedService(new BasicService(name, inputs, outputs), constraints, effects);
+	}
+	
+	/**
+	 * Method for reading a list of strings from their IDs.
+	 * @param 	slot			Slot of the first string ID
+	 * @param 	stringCount		Number of string IDs
+	 * @return	List of strings
+	 */
+	private ArrayList<String> readStrings(long slot, int stringCount)
+	{
+		ArrayList<String> stringList = new ArrayList<String>(stringCount);
+		for (int i = 0; i < stringCount; i++)
+		{
+			stringList.add(getString(getSlot(slot + i)));
+		}
+		
+		return stringList;
+	}
+	
+	/**
+	 * Method for fetching a string from the string table. Every string is decoded only once.
+	 * @param 	stringId	String ID
+	 * @return	String
+	 */
+	private String getString(int stringId)
+	{
+		String string = strings[stringId];
+		if (string == null)
+		{
+			long stringSlot = getSlot(stringOffsetsSlot + stringId) & 0xFFFFFFFFL;
+			int byteLength = getSlot(stringSlot);
+			byte[] stringBytes = new byte[byteLength];
+			long bytePosition = (stringSlot + 1) << 2;
+			for (int i = 0; i < byteLength; i++)
+			{
+				stringBytes[i] = chunks[(int) ((bytePosition + i) >>> CHUNK_SHIFT)].get((int) ((bytePosition + i) & CHUNK_MASK));
+			}
+			string = new String(stringBytes, StandardCharsets.UTF_8);
+			strings[stringId] = string;
+		}
+		
+		return string;
+	}
+	
+	/**
+	 * Method for reading the integer at a slot of the repository file.
+	 * Slots never cross chunk boundaries, as chunks are a multiple of 4 bytes long.
+	 * @param 	slot	Slot number (byte position divided by 4)
+	 * @return	Integer value
+	 */
+	private int getSlot(long slot)
+	{
+		long bytePosition = slot << 2;
+		return chunks[(int) (bytePosition >>> CHUNK_SHIFT)].getInt((int) (bytePosition & CHUNK_MASK));
+	}
+}
\ No newline at end of file
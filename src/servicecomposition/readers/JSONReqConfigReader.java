@@ -0,0 +1,375 @@
+package servicecomposition.readers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Concrete reader for reading composition request configuration from a JSON object, such as the body of a composition server request.
+ * The object uses the same keys as the XML configuration file (inputs, outputs, qos, constraints, repofilename and storecsflag).
+ * Each value can be either a comma-separated string or an array of strings, e.g.
+ * {"inputs": ["string : DeliveryAddress", "string : ProductName"], "outputs": "string : ShipmentConfirm", "constraints": ["COST | < | 100"]}
+ * The text must be a single well-formed JSON object whose values are scalars or arrays of scalars, and missing components are treated
+ * as empty. The repository file name and the composite service storage flag are taken from the server configuration.
+ * A request may repeat them, but a request with any other values is rejected, so that requests cannot read other files
+ * or write to the repository.
+ * @author agent
+ */
+public class JSONReqConfigReader implements RequestConfigReader
+{
+	private static final Pattern NUMBER_PATTERN = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+	private String requestText;
+	private String serverRepoFileName;
+	private String serverStoreCSFlag = "N";
+	private String errorMessage;
+	private int position;
+	
+	/**
+	 * Method for assigning the JSON text of the request configuration.
+	 * @param 	requestText		JSON object containing the request configuration
+	 */
+	public void setRequestText(String requestText)
+	{
+		this.requestText = requestText;
+	}
+	
+	/**
+	 * Method for assigning the repository file name and the composite service storage flag configured for the server.
+	 * @param 	serverRepoFileName	Complete name and path of the service repository
+	 * @param 	serverStoreCSFlag	Y, if the composite services generated are stored in the repository
+	 * 								N, otherwise
+	 */
+	public void setServerConfiguration(String serverRepoFileName, String serverStoreCSFlag)
+	{
+		this.serverRepoFileName = serverRepoFileName;
+		this.serverStoreCSFlag = serverStoreCSFlag;
+	}
+	
+	/**
+	 * Method for fetching the reason why the last request configuration could not be read.
+	 * @return	Error message
+	 * 			Null, if the last request configuration was read
+	 */
+	public String getErrorMessage()
+	{
+		return errorMessage;
+	}
+	
+	/**
+	 * Method for reading composition request details from the JSON request text, along with the server's repository details.
+	 * @return	Request configuration object containing the input request and repository details
+	 * 			Null, if the request text is not a valid JSON object or if it specifies a different repository or storage flag
+	 */
+	public RequestConfiguration readReqConfig()
+	{
+		errorMessage = "Request body must be a JSON object";
+		if (requestText == null)
+		{
+			return null;
+		}
+		
+		//Parsing the request text into a map of configuration components
+		Map<String, String> configValues = null;
+		position = 0;
+		try
+		{
+			skipWhitespace();
+			configValues = readObject();
+			skipWhitespace();
+			if (position != requestText.length())
+			{
+				throw new IllegalArgumentException("Unexpected text after the object at position " + position);
+			}
+		}
+		catch(IllegalArgumentException iae)
+		{
+			errorMessage += ": " + iae.getMessage();
+			return null;
+		}
+		
+		//Fetching composition request components and service repository file location from the parsed object
+		String inputString = getConfigValue(configValues, "inputs", "");
+		String outputString = getConfigValue(configValues, "outputs", "");
+		String qosString = getConfigValue(configValues, "qos", "");
+		String constraintString = getConfigValue(configValues, "constraints", "");
+		
+		//Requests can only repeat the repository details configured for the server
+		String repoFileName = configValues.get("repofilename");
+		if ((repoFileName != null) && ((serverRepoFileName == null) || (!isSameFile(repoFileName, serverRepoFileName))))
+		{
+			errorMessage = "The service repository is configured by the server and cannot be changed by a request";
+			return null;
+		}
+		String storeCSFlag = configValues.get("storecsflag");
+		if ((storeCSFlag != null) && (!storeCSFlag.equalsIgnoreCase(serverStoreCSFlag)))
+		{
+			errorMessage = "Storage of composite services is configured by the server and cannot be changed by a request";
+			return null;
+		}
+		
+		//Creating a Request Configuration object with the details fetched
+		RequestConfiguration reqConfig = new RequestConfiguration(inputString, outputString, qosString, constraintString, 
+																	serverRepoFileName, serverStoreCSFlag);
+		errorMessage = null;
+		
+		return reqConfig;
+	}
+	
+	/**
+	 * Method for fetching a configuration component, or its default value if it is not present.
+	 * @param 	configValues	Configuration components mapped by their lower-case keys
+	 * @param 	key				Key of the component
+	 * @param 	defaultValue	Value to be returned if the component is not present
+	 * @return	Value of the component
+	 */
+	private static String getConfigValue(Map<String, String> configValues, String key, String defaultValue)
+	{
+		String value = configValues.get(key);
+		return (value == null) ? defaultValue : value;
+	}
+	
+	/**
+	 * Method for checking if 2 file names refer to the same file.
+	 * @param 	fileName1	First file name
+	 * @param 	fileName2	Second file name
+	 * @return	true, if both the names resolve to the same absolute path
+	 * 			false, otherwise
+	 */
+	private static boolean isSameFile(String fileName1, String fileName2)
+	{
+		return new File(fileName1).getAbsoluteFile().toPath().normalize().equals(new File(fileName2).getAbsoluteFile().toPath().normalize());
+	}
+	
+	/**
+	 * Method for parsing a JSON object whose values are strings, numbers, booleans, nulls or arrays of these.
+	 * Arrays are converted to comma-separated strings and null values are ignored.
+	 * @return	Values of the object mapped by their lower-case keys
+	 */
+	private Map<String, String> readObject()
+	{
+		Map<String, String> values = new HashMap<String, String>();
+		expect('{');
+		skipWhitespace();
+		if (peek() == '}')
+		{
+			position++;
+			return values;
+		}
+		
+		while (true)
+		{
+			skipWhitespace();
+			String key = readString();
+			skipWhitespace();
+			expect(':');
+			skipWhitespace();
+			
+			String value = null;
+			if (peek() == '[')
+			{
+				value = String.join(", ", readArray());
+			}
+			else
+			{
+				value = readScalar();
+			}
+			if (value != null)
+			{
+				values.put(key.toLowerCase(), value);
+			}
+			
+			skipWhitespace();
+			char next = next();
+			if (next == '}')
+			{
+				return values;
+			}
+			else if (next != ',')
+			{
+				throw new IllegalArgumentException("Expected ',' or '}' at position " + (position - 1));
+			}
+		}
+	}
+	
+	/**
+	 * Method for parsing a JSON array of scalar values.
+	 * @return	List of the non-null values of the array
+	 */
+	private List<String> readArray()
+	{
+		List<String> values = new ArrayList<String>();
+		expect('[');
+		skipWhitespace();
+		if (peek() == ']')
+		{
+			position++;
+			return values;
+		}
+		
+		while (true)
+		{
+			skipWhitespace();
+			String value = readScalar();
+			if (value != null)
+			{
+				values.add(value);
+			}
+			
+			skipWhitespace();
+			char next = next();
+			if (next == ']')
+			{
+				return values;
+			}
+			else if (next != ',')
+			{
+				throw new IllegalArgumentException("Expected ',' or ']' at position " + (position - 1));
+			}
+		}
+	}
+	
+	/**
+	 * Method for parsing a JSON string, number, boolean or null.
+	 * Unquoted text other than a number, true, false or null is rejected.
+	 * @return	Text of the value
+	 * 			Null, if the value is null
+	 */
+	private String readScalar()
+	{
+		if (peek() == '"')
+		{
+			return readString();
+		}
+		
+		int start = position;
+		while ((position < requestText.length()) && (",}] \t\r\n".indexOf(requestText.charAt(position)) < 0))
+		{
+			position++;
+		}
+		
+		String literal = requestText.substring(start, position);
+		if ((!(literal.equals("true"))) && (!(literal.equals("false"))) && (!(literal.equals("null")))
+			&& (!(NUMBER_PATTERN.matcher(literal).matches())))
+		{
+			throw new IllegalArgumentException("Expected a value at position " + start);
+		}
+		
+		return (literal.equals("null")) ? null : literal;
+	}
+	
+	/**
+	 * Method for parsing a JSON string, including its escape sequences.
+	 * Unescaped control characters and unknown escape sequences are rejected.
+	 * @return	Unescaped string
+	 */
+	private String readString()
+	{
+		expect('"');
+		StringBuilder value = new StringBuilder();
+		while (true)
+		{
+			char character = next();
+			if (character == '"')
+			{
+				return value.toString();
+			}
+			else if (character < 0x20)
+			{
+				throw new IllegalArgumentException("Unescaped control character at position " + (position - 1));
+			}
+			else if (character != '\\')
+			{
+				value.append(character);
+				continue;
+			}
+			
+			char escaped = next();
+			switch(escaped)
+			{
+				case 'b'	:	value.append('\b');
+								break;
+				case 'f'	:	value.append('\f');
+								break;
+				case 'n'	:	value.append('\n');
+								break;
+				case 'r'	:	value.append('\r');
+								break;
+				case 't'	:	value.append('\t');
+								break;
+				case 'u'	:	if (position + 4 > requestText.length())
+								{
+									throw new IllegalArgumentException("Incomplete unicode escape at position " + position);
+								}
+								int codeUnit = 0;
+								for (int i = 0; i < 4; i++)
+								{
+									int digit = Character.digit(requestText.charAt(position + i), 16);
+									if (digit < 0)
+									{
+										throw new IllegalArgumentException("Invalid unicode escape at position " + position);
+									}
+									codeUnit = (codeUnit * 16) + digit;
+								}
+								value.append((char) codeUnit);
+								position += 4;
+								break;
+				case '"'	:
+				case '\\'	:
+				case '/'	:	value.append(escaped);
+								break;
+				default		:	throw new IllegalArgumentException("Invalid escape sequence at position " + (position - 2));
+			}
+		}
+	}
+	
+	/**
+	 * Method for skipping the whitespace at the current position.
+	 */
+	private void skipWhitespace()
+	{
+		while ((position < requestText.length()) && (Character.isWhitespace(requestText.charAt(position))))
+		{
+			position++;
+		}
+	}
+	
+	/**
+	 * Method for fetching the character at the current position without consuming it.
+	 * @return	Current character
+	 */
+	private char peek()
+	{
+		if (position >= requestText.length())
+		{
+			throw new IllegalArgumentException("Unexpected end of request");
+		}
+		
+		return requestText.charAt(position);
+	}
+	
+	/**
+	 * Method for consuming the character at the current position.
+	 * @return	Current character
+	 */
+	private char next()
+	{
+		char character = peek();
+		position++;
+		return character;
+	}
+	
+	/**
+	 * Method for consuming an expected character at the current position.
+	 * @param 	expected	Expected character
+	 */
+	private void expect(char expected)
+	{
+		if (next() != expected)
+		{
+			throw new IllegalArgumentException("Expected '" + expected + "' at position " + (position - 1));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package servicecomposition.readers;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import constraint.Constraint;
+import constraint.ConstraintParser;
+import constraint.Operator;
+import service.BasicService;
+import service.ConstrainedService;
+import service.Service;
+
+/**
+ * Reader for streaming the services of an XML service repository (<services>/<service> schema) one at a time.
+ * Unlike ConstrainedServiceXMLParser, the repository is not loaded into a DOM tree. Each service is built from the XML events
+ * of its own element and handed over to the caller before the next one is read, hence the memory used for reading a repository
+ * is proportional to a single service irrespective of the size of the repository.
+ * The services read are the same as those created by ConstrainedServiceXMLParser.
+ * @author agent
+ */
+public class XMLServiceRepoReader
+{
+	private static final List<String> CONSTRAINT_DETAILS = Arrays.asList("servicename", "literalvalue", "type", "operator");
+	
+	/**
+	 * Method for reading all the services of an XML service repository into a list.
+	 * @param 	repoFileName	Complete name and path of the XML repository file
+	 * @return	List of the services read
+	 * 			Null, if the repository cannot be read
+	 */
+	public static ArrayList<Service> readServices(String repoFileName)
+	{
+		ArrayList<Service> services = new ArrayList<Service>();
+		if (!(readServices(repoFileName, services::add)))
+		{
+			return null;
+		}
+		
+		return services;
+	}
+	
+	/**
+	 * Method for streaming the services of an XML service repository to a consumer, in the order in which they appear in the file.
+	 * @param 	repoFileName		Complete name and path of the XML repository file
+	 * @param 	serviceConsumer		Consumer accepting every service as soon as it is read
+	 * @return	true, if the whole repository was read
+	 * 			false, otherwise
+	 */
+	public static boolean readServices(String repoFileName, Consumer<? super ConstrainedService> serviceConsumer)
+	{
+		XMLStreamReader xmlReader = null;
+		try (InputStream repoStream = new BufferedInputStream(new FileInputStream(repoFileName)))
+		{
+			xmlReader = createInputFactory().createXMLStreamReader(repoStream);
+			while (xmlReader.hasNext())
+			{
+				if ((xmlReader.next() == XMLStreamConstants.START_ELEMENT) && (xmlReader.getLocalName().equals("service")))
+				{
+					serviceConsumer.accept(readService(xmlReader));
+				}
+			}
+			
+			return true;
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while opening the service repository: " + ioe.getMessage());
+			return false;
+		}
+		catch(XMLStreamException xse)
+		{
+			System.out.println("Exception while reading the service repository: " + xse.getMessage());
+			return false;
+		}
+		finally
+		{
+			if (xmlReader != null)
+			{
+				try
+				{
+					xmlReader.close();
+				}
+				catch(XMLStreamException xse)
+				{
+					System.out.println("Exception while closing the service repository: " + xse.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Method for reading a service element, from its start tag up to its end tag.
+	 * @param 	xmlReader	XML stream positioned at the start tag of the service element
+	 * @return	Constrained service read
+	 */
+	private static ConstrainedService readService(XMLStreamReader xmlReader) throws XMLStreamException
+	{
+		String name = getNameAttribute(xmlReader);
+		ArrayList<String> inputs = new ArrayList<String>();
+		ArrayList<String> outputs = new ArrayList<String>();
+		ArrayList<Constraint> constraints = new ArrayList<Constraint>();
+		ArrayList<String> effects = new ArrayList<String>();
+		
+		//Instances are collected into the list of the section (inputs, outputs, constraints or effects) enclosing them
+		String section = null;
+		String[] constraintDetails = null;
+		int depth = 1;
+		while (depth > 0)
+		{
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				depth++;
+				String elementName = xmlReader.getLocalName();
+				if ((elementName.equals("inputs")) || (elementName.equals("outputs")) || (elementName.equals("constraints")) || (elementName.equals("effects")))
+				{
+					section = elementName;
+				}
+				else if ((elementName.equals("instance")) && (section != null))
+				{
+					switch(section)
+					{
+						case "inputs"		:	inputs.add(getNameAttribute(xmlReader));
+												break;
+						case "outputs"		:	outputs.add(getNameAttribute(xmlReader));
+												break;
+						case "effects"		:	effects.add(getNameAttribute(xmlReader));
+												break;
+						default				:	constraintDetails = new String[4];
+					}
+				}
+				else if (constraintDetails != null)
+				{
+					//Constraint details are the service name, literal value, type and operator, in that order
+					int detailIndex = CONSTRAINT_DETAILS.indexOf(elementName);
+					if ((detailIndex >= 0) && (constraintDetails[detailIndex] == null))
+					{
+						constraintDetails[detailIndex] = getNameAttribute(xmlReader);
+					}
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				depth--;
+				String elementName = xmlReader.getLocalName();
+				if ((elementName.equals("instance")) && (constraintDetails != null))
+				{
+					Constraint constraint = createConstraint(constraintDetails);
+					if (constraint != null)
+					{
+						constraints.add(constraint);
+					}
+					constraintDetails = null;
+				}
+				else if (elementName.equals(section))
+				{
+					section = null;
+				}
+			}
+		}
+		
+		return new ConstrainedService(new BasicService(name, inputs, outputs), constraints, effects);
+	}
+	
+	/**
+	 * Method for creating a constraint from its details.
+	 * @param 	constraintDetails	Service name, literal value, type and operator of the constraint
+	 * @return	Constraint created
+	 * 			Null, if any of the details is missing or the operator is invalid
+	 */
+	private static Constraint createConstraint(String[] constraintDetails)
+	{
+		for (String constraintDetail : constraintDetails)
+		{
+			if (constraintDetail == null)
+			{
+				return null;
+			}
+		}
+		
+		Operator operator = ConstraintParser.parseOperator(constraintDetails[3]);
+		if (operator == null)
+		{
+			return null;
+		}
+		
+		return new Constraint(constraintDetails[0], constraintDetails[1], constraintDetails[2], operator);
+	}
+	
+	/**
+	 * Method for fetching the name attribute of the current element.
+	 * @param 	xmlReader	XML stream positioned at a start tag
+	 * @return	Value of the name attribute, or an empty string if the element has none
+	 */
+	private static String getNameAttribute(XMLStreamReader xmlReader)
+	{
+		String name = xmlReader.getAttributeValue(null, "name");
+		return (name == null) ? "" : name;
+	}
+	
+	/**
+	 * Method for creating the factory of the XML streams.
+	 * External entities are not resolved, as service repositories do not use them.
+	 * @return	XML input factory
+	 */
+	private static XMLInputFactory createInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		
+		return factory;
+	}
+}
\ No newline at end of file
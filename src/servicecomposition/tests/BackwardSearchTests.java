@@ -1,10 +1,14 @@
 package servicecomposition.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import org.junit.Test;
@@ -13,6 +17,7 @@ import servicecomposition.compositionprocesses.ForwardExpansion;
 import servicecomposition.entities.CompositionRequest;
 import servicecomposition.entities.SearchGraph;
 import servicecomposition.entities.SearchNode;
+import servicecomposition.utilities.SubsetIterator;
 import service.Service;
 import service.parser.BasicServiceParser;
 import service.parser.ConstrainedServiceXMLParser;
@@ -154,6 +159,159 @@ public class BackwardSearchTests
 		assertEquals(expectedServiceLists, planSetServiceLists);
 	}
 	
+	/**
+	 * Tests that the subset iterator used by backward search generates every non-empty subset exactly once
+	 * and that it generates the subsets of sets with more elements than the bits of a single counter word in Gray code order.
+	 */
+	@Test
+	public void subsetIteration()
+	{
+		List<Integer> elements = new ArrayList<Integer>();
+		for (int i = 0; i < 10; i++)
+		{
+			elements.add(i);
+		}
+		
+		Set<Set<Integer>> subsets = new HashSet<Set<Integer>>();
+		Iterator<Set<Integer>> subsetIterator = new SubsetIterator<Integer>(elements);
+		while (subsetIterator.hasNext())
+		{
+			Set<Integer> subset = subsetIterator.next();
+			assertFalse(subset.isEmpty());
+			subsets.add(new HashSet<Integer>(subset));
+		}
+		assertEquals(1023, subsets.size());
+		
+		for (int i = 10; i < 70; i++)
+		{
+			elements.add(i);
+		}
+		
+		//The k-th subset of more than 63 elements holds the elements at the set bits of the Gray code of k
+		subsets.clear();
+		subsetIterator = new SubsetIterator<Integer>(elements);
+		int prefixLength = 1 << 13;
+		for (int k = 1; k <= prefixLength; k++)
+		{
+			assertTrue(subsetIterator.hasNext());
+			Set<Integer> expectedSubset = new HashSet<Integer>();
+			int grayCode = k ^ (k >> 1);
+			for (int i = 0; i < 32; i++)
+			{
+				if ((grayCode & (1 << i)) != 0)
+				{
+					expectedSubset.add(i);
+				}
+			}
+			Set<Integer> subset = subsetIterator.next();
+			assertEquals(expectedSubset, subset);
+			subsets.add(new HashSet<Integer>(subset));
+		}
+		assertEquals(prefixLength, subsets.size());
+		assertTrue(subsetIterator.hasNext());
+		assertEquals(new HashSet<Integer>(Arrays.asList(0, 12, 13)), subsetIterator.next());
+	}
+	
+	/**
+	 * Tests that the memoized backward search generates the same plan sets as the original backward search 
+	 * for search graphs with shared predecessor frontiers, single-layer plan sets and discarded single-service plan sets.
+	 */
+	@Test
+	public void memoizedSearchEquivalence()
+	{
+		List<List<String>> compReqInputLists = new ArrayList<List<String>>();
+		compReqInputLists.add(new ArrayList<String>(Arrays.asList("int : input11", "char : input12", "boolean : input21", "int : input22", "string : input31", "string : input42", "char : input61", "float : output22")));
+		compReqInputLists.add(new ArrayList<String>(Arrays.asList("char : input12", "string : input31", "boolean : input32")));
+		compReqInputLists.add(new ArrayList<String>(Arrays.asList("char : input12", "int : output31")));
+		List<List<String>> compReqOutputLists = new ArrayList<List<String>>();
+		compReqOutputLists.add(new ArrayList<String>(Arrays.asList("float : output11", "boolean : input32")));
+		compReqOutputLists.add(new ArrayList<String>(Arrays.asList("float : output11")));
+		compReqOutputLists.add(new ArrayList<String>(Arrays.asList("float : output11")));
+		
+		//Reading the service repository
+		ServiceFileParserDecorator serviceParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
+		serviceParser.setLocation("testinput/servicerepos/Test_Services_Set_1.xml");
+		ArrayList<Service> serviceRepo = serviceParser.parse();
+		
+		for (int i = 0; i < compReqInputLists.size(); i++)
+		{
+			CompositionRequest compositionReq = new CompositionRequest();
+			compositionReq.setInputs(compReqInputLists.get(i));
+			compositionReq.setOutputs(compReqOutputLists.get(i));
+			SearchGraph resultingGraph = ForwardExpansion.forwardExpansion(compositionReq, serviceRepo);
+			
+			List<String> expectedPlanSets = getSortedPlanSets(BackwardSearch.backwardSearch(compositionReq, resultingGraph));
+			List<String> actualPlanSets = getSortedPlanSets(BackwardSearch.memoizedBackwardSearch(compositionReq, resultingGraph));
+			
+			assertFalse(expectedPlanSets.isEmpty());
+			assertEquals(expectedPlanSets, actualPlanSets);
+		}
+	}
+	
+	/**
+	 * Tests that the parallel backward search generates the same plan sets as the original backward search,
+	 * in the same order as the memoized backward search, for various parallelism levels, and that invalid levels are rejected.
+	 */
+	@Test
+	public void parallelSearchEquivalence()
+	{
+		List<String> compReqInputs = new ArrayList<String>(Arrays.asList("int : input11", "char : input12", "boolean : input21", "int : input22", "string : input31", "string : input42", "char : input61", "float : output22"));
+		List<String> compReqOutputs = new ArrayList<String>(Arrays.asList("float : output11", "boolean : input32"));
+		CompositionRequest compositionReq = new CompositionRequest();
+		compositionReq.setInputs(compReqInputs);
+		compositionReq.setOutputs(compReqOutputs);
+		
+		//Reading the service repository
+		ServiceFileParserDecorator serviceParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
+		serviceParser.setLocation("testinput/servicerepos/Test_Services_Set_1.xml");
+		ArrayList<Service> serviceRepo = serviceParser.parse();
+		SearchGraph resultingGraph = ForwardExpansion.forwardExpansion(compositionReq, serviceRepo);
+		
+		List<String> expectedPlanSets = getSortedPlanSets(BackwardSearch.backwardSearch(compositionReq, resultingGraph));
+		List<Set<SearchNode>> memoizedPlanSets = BackwardSearch.memoizedBackwardSearch(compositionReq, resultingGraph);
+		assertEquals(12, expectedPlanSets.size());
+		for (int parallelism = 1; parallelism <= 4; parallelism++)
+		{
+			List<Set<SearchNode>> actualPlanSets = BackwardSearch.parallelBackwardSearch(compositionReq, resultingGraph, parallelism);
+			assertEquals(expectedPlanSets, getSortedPlanSets(actualPlanSets));
+			assertEquals(memoizedPlanSets, actualPlanSets);
+		}
+		
+		boolean parallelismRejected = false;
+		try
+		{
+			BackwardSearch.parallelBackwardSearch(compositionReq, resultingGraph, 0);
+		}
+		catch (IllegalArgumentException iae)
+		{
+			parallelismRejected = true;
+		}
+		assertTrue(parallelismRejected);
+	}
+	
+	/**
+	 * Method for converting plan sets into a sorted list of strings of their sorted service names.
+	 * @param 	planSets	Plan sets generated by backward search
+	 * @return	Sorted list of plan set strings
+	 */
+	private List<String> getSortedPlanSets(List<Set<SearchNode>> planSets)
+	{
+		List<String> planSetStrings = new ArrayList<String>();
+		for (Set<SearchNode> planSet : planSets)
+		{
+			List<String> planSetServiceList = new ArrayList<String>();
+			for (SearchNode searchNode : planSet)
+			{
+				planSetServiceList.add(searchNode.getService().getName());
+			}
+			Collections.sort(planSetServiceList);
+			planSetStrings.add(planSetServiceList.toString());
+		}
+		Collections.sort(planSetStrings);
+		
+		return planSetStrings;
+	}
+	
 	/**
 	 * Method for constructing plan sets from the search graph generated for a given composition request.
 	 * @param 	compReqInputs			Composition request inputs
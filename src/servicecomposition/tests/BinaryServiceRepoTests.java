@@ -0,0 +1,166 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import constraint.Constraint;
+import service.ConstrainedService;
+import service.Service;
+import servicecomposition.compositionprocesses.ServiceComposition;
+import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.CompositionResultCache;
+import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.entities.ServiceRepository;
+import servicecomposition.readers.BinaryServiceRepoReader;
+import servicecomposition.readers.FileReqConfigReader;
+import servicecomposition.readers.RequestConfiguration;
+import servicecomposition.readers.XMLFileReqConfigReader;
+import servicecomposition.readers.XMLServiceRepoReader;
+import servicecomposition.utilities.BinaryRepoConverter;
+import utilities.LogUtil;
+
+/**
+ * Class for testing the conversion and reading of binary service repositories.
+ * @author agent
+ */
+public class BinaryServiceRepoTests
+{
+	/**
+	 * Tests that the services read from converted binary repositories are the same as those of the XML repositories.
+	 */
+	@Test
+	public void sameServicesAsXMLRepository() throws IOException
+	{
+		File[] repoFiles = new File("testinput/servicerepos").listFiles((folder, fileName) -> fileName.endsWith(".xml"));
+		for (File repoFile : repoFiles)
+		{
+			String binaryRepoFileName = convertRepository(repoFile.getPath());
+			BinaryServiceRepoReader binaryReader = BinaryServiceRepoReader.open(binaryRepoFileName);
+			List<String> expectedDetails = getServiceDetails(XMLServiceRepoReader.readServices(repoFile.getPath()));
+			
+			assertEquals(expectedDetails.size(), binaryReader.getServiceCount());
+			assertEquals(expectedDetails, getServiceDetails(binaryReader.getServices()));
+		}
+		
+		assertNull(BinaryServiceRepoReader.open("testinput/servicerepos/Test_Services_Set_3.xml"));
+	}
+	
+	/**
+	 * Tests that services are created only when they are fetched and that the same service object is returned every time.
+	 */
+	@Test
+	public void lazyServiceCreation() throws IOException
+	{
+		String binaryRepoFileName = convertRepository("testinput/servicerepos/Test_Services_Set_3.xml");
+		BinaryServiceRepoReader binaryReader = BinaryServiceRepoReader.open(binaryRepoFileName);
+		assertEquals("W1", binaryReader.getServiceName(0));
+		assertTrue(binaryReader.getService(0) == binaryReader.getService(0));
+		
+		//Only the services reachable from the request inputs are fetched for composition
+		CompositionRequest compRequest = readCompositionRequest();
+		ServiceRepository repository = new ServiceRepository(binaryRepoFileName);
+		int serviceCount = repository.getServiceCount();
+		List<Service> candidateServices = repository.getCandidateServices(compRequest.getInputs());
+		assertTrue(candidateServices.size() > 0);
+		assertTrue(candidateServices.size() < serviceCount);
+		
+		List<Service> services = repository.getServices();
+		assertEquals(serviceCount, services.size());
+		assertTrue(services.contains(candidateServices.get(0)));
+		assertTrue(repository.getService(candidateServices.get(0).getName()) == candidateServices.get(0));
+	}
+	
+	/**
+	 * Tests that composing a request against a binary repository produces the same plans as against the XML repository.
+	 */
+	@Test
+	public void sameCompositionsAsXMLRepository() throws IOException
+	{
+		String xmlRepoFileName = "testinput/servicerepos/Test_Services_Set_3.xml";
+		CompositionRequest compRequest = readCompositionRequest();
+		CompositionResultCache.getSharedCache().clear();
+		List<ConstraintAwarePlan> expectedPlans = ServiceComposition.buildServiceCompositions(compRequest, new ServiceRepository(xmlRepoFileName), new LogUtil());
+		CompositionResultCache.getSharedCache().clear();
+		List<ConstraintAwarePlan> actualPlans = ServiceComposition.buildServiceCompositions(compRequest,
+																		new ServiceRepository(convertRepository(xmlRepoFileName)), new LogUtil());
+		
+		//Plans are compared by their canonical forms, as the services of the two repositories are different objects
+		assertTrue(expectedPlans.size() > 0);
+		assertEquals(expectedPlans.size(), actualPlans.size());
+		assertEquals(getCanonicalForms(expectedPlans), getCanonicalForms(actualPlans));
+	}
+	
+	/**
+	 * Method for converting a repository into a binary repository that is deleted on exit.
+	 * @param 	repoFileName	Complete name and path of the repository
+	 * @return	Complete name and path of the binary repository
+	 */
+	private static String convertRepository(String repoFileName) throws IOException
+	{
+		File binaryRepoFile = File.createTempFile("Test_Binary_Repo", ".bsr");
+		binaryRepoFile.deleteOnExit();
+		assertTrue(BinaryRepoConverter.convert(repoFileName, binaryRepoFile.getPath()));
+		
+		return binaryRepoFile.getPath();
+	}
+	
+	/**
+	 * Method for reading the composition request used by the tests.
+	 * @return	Service composition request
+	 */
+	private static CompositionRequest readCompositionRequest()
+	{
+		FileReqConfigReader configReader = new XMLFileReqConfigReader();
+		configReader.setConfigFileName("testinput/servicecompositiontests/serviceComposition/Request_Configuration.xml");
+		RequestConfiguration reqConfig = configReader.readReqConfig();
+		
+		return ServiceComposition.constructCompositionRequest(reqConfig, new LogUtil());
+	}
+	
+	/**
+	 * Fetches the canonical forms of a list of plans.
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans
+	 * @return	Set of the canonical forms of the plans
+	 */
+	private Set<String> getCanonicalForms(List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		Set<String> canonicalForms = new HashSet<String>();
+		for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
+		{
+			canonicalForms.add(cnstrAwrPlan.getCanonicalForm());
+		}
+		
+		return canonicalForms;
+	}
+	
+	/**
+	 * Fetches the details of every service in a list of constrained services.
+	 * @param 	services	List of constrained services
+	 * @return	List of strings containing the name, inputs, outputs, constraints and effects of each service
+	 */
+	private List<String> getServiceDetails(List<Service> services)
+	{
+		List<String> serviceDetails = new ArrayList<String>();
+		for (Service service : services)
+		{
+			ConstrainedService cnstrdService = (ConstrainedService) service;
+			String details = cnstrdService.getName() + " " + cnstrdService.getInput() + " " + cnstrdService.getOutput() + " [";
+			for (Constraint constraint : cnstrdService.getConstraints())
+			{
+				details += constraint.getServiceName() + " " + constraint.getType() + " " + constraint.getOperator()
+							+ " " + constraint.getLiteralValue() + ", ";
+			}
+			details += "] " + cnstrdService.getEffects();
+			serviceDetails.add(details);
+		}
+		
+		return serviceDetails;
+	}
+}
\ No newline at end of file
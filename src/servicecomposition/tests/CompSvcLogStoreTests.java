@@ -0,0 +1,173 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import constraint.Constraint;
+import service.BasicService;
+import service.ConstrainedService;
+import service.Service;
+import servicecomposition.entities.ServiceRepository;
+import servicecomposition.utilities.CompSvcLogStore;
+import servicecomposition.utilities.CompSvcStorageUtil;
+import translation.readers.csreaders.SerializedCSReader;
+import utilities.LogUtil;
+
+/**
+ * Class for testing the append-only composite service store.
+ * @author agent
+ */
+public class CompSvcLogStoreTests
+{
+	/**
+	 * Tests that services appended to a log file can be read individually as well as through the shared repository.
+	 */
+	@Test
+	public void appendAndReadServices() throws IOException
+	{
+		String logFileName = createLogFileName();
+		CompSvcStorageUtil.writeCSToSerialSvcRepo(createServices("CompSvc_A", 2), logFileName);
+		CompSvcStorageUtil.writeCSToSerialSvcRepo(createServices("CompSvc_B", 1), logFileName);
+		
+		CompSvcLogStore logStore = CompSvcLogStore.getStore(logFileName);
+		assertEquals(3, logStore.getServiceNames().size());
+		assertEquals("CompSvc_A1", logStore.read("CompSvc_A1").getName());
+		assertEquals(Arrays.asList("string : CompSvc_B0Output"), logStore.read("CompSvc_B0").getOutput());
+		assertNull(logStore.read("CompSvc_C0"));
+		
+		ServiceRepository repository = new ServiceRepository(logFileName);
+		assertEquals(3, repository.getServices().size());
+		assertEquals("CompSvc_A0", repository.getServices().get(0).getName());
+		
+		Service compService = new SerializedCSReader().readCompositeService(logFileName, "CompSvc_B0", new LogUtil());
+		assertEquals("CompSvc_B0", compService.getName());
+	}
+	
+	/**
+	 * Tests that replaced and removed services are no longer returned and that compaction reclaims the space they occupy.
+	 */
+	@Test
+	public void removeAndCompact() throws IOException
+	{
+		String logFileName = createLogFileName();
+		CompSvcLogStore logStore = CompSvcLogStore.getStore(logFileName);
+		logStore.append(createServices("CompSvc_A", 3));
+		logStore.append(createServices("CompSvc_A", 1));
+		assertTrue(logStore.remove("CompSvc_A2"));
+		assertTrue(!(logStore.remove("CompSvc_A2")));
+		
+		List<Service> services = logStore.readAll();
+		assertEquals(2, services.size());
+		assertEquals("CompSvc_A1", services.get(0).getName());
+		assertEquals("CompSvc_A0", services.get(1).getName());
+		assertNull(logStore.read("CompSvc_A2"));
+		assertTrue(logStore.getDeadBytes() > 0);
+		
+		long logLength = new File(logFileName).length();
+		assertTrue(logStore.compact());
+		assertEquals(0, logStore.getDeadBytes());
+		assertTrue(new File(logFileName).length() < logLength);
+		assertEquals(2, logStore.readAll().size());
+		assertEquals("CompSvc_A1", logStore.read("CompSvc_A1").getName());
+	}
+	
+	/**
+	 * Tests that a missing index is rebuilt from the log file and that an incomplete record at the end of the log file is discarded.
+	 */
+	@Test
+	public void indexRecovery() throws IOException
+	{
+		String logFileName = createLogFileName();
+		CompSvcLogStore logStore = CompSvcLogStore.getStore(logFileName);
+		logStore.append(createServices("CompSvc_A", 2));
+		long logLength = new File(logFileName).length();
+		
+		new File(logFileName + ".idx").delete();
+		try (FileOutputStream logOutput = new FileOutputStream(logFileName, true))
+		{
+			logOutput.write(new byte[] {0, 0, 1, 0, 0, 7});
+		}
+		
+		assertEquals("CompSvc_A1", logStore.read("CompSvc_A1").getName());
+		assertEquals(2, logStore.readAll().size());
+		assertEquals(logLength, new File(logFileName).length());
+		
+		logStore.append(createServices("CompSvc_B", 1));
+		assertEquals(3, logStore.getServiceNames().size());
+	}
+	
+	/**
+	 * Tests that concurrent appends to the same log file do not lose each other's services.
+	 */
+	@Test
+	public void concurrentAppends() throws Exception
+	{
+		String logFileName = createLogFileName();
+		ExecutorService writers = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<?>> appends = new ArrayList<Future<?>>();
+			for (int i = 0; i < 8; i++)
+			{
+				String namePrefix = "CompSvc_" + i + "_";
+				appends.add(writers.submit(() -> CompSvcStorageUtil.writeCSToSerialSvcRepo(createServices(namePrefix, 5), logFileName)));
+			}
+			for (Future<?> append : appends)
+			{
+				append.get();
+			}
+		}
+		finally
+		{
+			writers.shutdown();
+		}
+		
+		assertEquals(40, CompSvcLogStore.getStore(logFileName).readAll().size());
+	}
+	
+	/**
+	 * Method for creating the name of a new log file, along with deleting the log file and its sidecar files on exit.
+	 * @return	Complete name and path of the log file
+	 */
+	private static String createLogFileName() throws IOException
+	{
+		File logFile = File.createTempFile("Test_CS_Store", ".cslog");
+		logFile.delete();
+		for (String suffix : Arrays.asList("", ".idx", ".lock"))
+		{
+			new File(logFile.getPath() + suffix).deleteOnExit();
+		}
+		
+		return logFile.getPath();
+	}
+	
+	/**
+	 * Method for creating services to be stored.
+	 * @param 	namePrefix		Prefix of the service names
+	 * @param 	serviceCount	Number of services to be created
+	 * @return	List of services
+	 */
+	private static ArrayList<Service> createServices(String namePrefix, int serviceCount)
+	{
+		ArrayList<Service> services = new ArrayList<Service>();
+		for (int i = 0; i < serviceCount; i++)
+		{
+			String name = namePrefix + i;
+			ArrayList<String> inputs = new ArrayList<String>(Arrays.asList("string : " + name + "Input"));
+			ArrayList<String> outputs = new ArrayList<String>(Arrays.asList("string : " + name + "Output"));
+			services.add(new ConstrainedService(new BasicService(name, inputs, outputs), new ArrayList<Constraint>(), outputs));
+		}
+		
+		return services;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,235 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import constraint.Constraint;
+import service.Service;
+import service.writer.BasicServiceWriter;
+import service.writer.ServiceFileWriterDecorator;
+import service.writer.ServiceSerializedWriter;
+import servicecomposition.compositionprocesses.ServiceComposition;
+import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.CompositionResultCache;
+import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.entities.ServiceNode;
+import servicecomposition.entities.ServiceRepository;
+import servicecomposition.readers.FileReqConfigReader;
+import servicecomposition.readers.RequestConfiguration;
+import servicecomposition.readers.XMLFileReqConfigReader;
+import servicecomposition.utilities.CompSvcStorageUtil;
+import utilities.LogUtil;
+
+/**
+ * Class for testing the caching of composition results.
+ * @author agent
+ */
+public class CompositionResultCacheTests
+{
+	/**
+	 * Tests that requests listing the same components in different orders share a cached result.
+	 */
+	@Test
+	public void canonicalRequestLookup()
+	{
+		CompositionRequest compRequest = readCompositionRequest();
+		List<String> reorderedInputs = compRequest.getInputs();
+		Collections.reverse(reorderedInputs);
+		List<Constraint> reorderedConstraints = compRequest.getConstraints();
+		Collections.reverse(reorderedConstraints);
+		CompositionRequest reorderedRequest = new CompositionRequest(reorderedInputs, compRequest.getOutputs(), compRequest.getQos(), reorderedConstraints);
+		assertEquals(compRequest.getCanonicalForm(), reorderedRequest.getCanonicalForm());
+		
+		ServiceRepository repository = new ServiceRepository("testinput/servicerepos/Test_Services_Set_3.xml");
+		CompositionResultCache resultCache = new CompositionResultCache(10, Long.MAX_VALUE);
+		List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.buildServiceCompositions(compRequest, repository, new LogUtil());
+		assertNull(resultCache.get(compRequest, repository, repository.getVersion()));
+		resultCache.put(compRequest, repository, repository.getVersion(), cnstrAwrPlans);
+		
+		List<ConstraintAwarePlan> cachedPlans = resultCache.get(reorderedRequest, repository, repository.getVersion());
+		assertEquals(getPlanDetails(cnstrAwrPlans), getPlanDetails(cachedPlans));
+		assertNull(resultCache.get(compRequest, repository, repository.getVersion() + 1));
+		assertEquals(1, resultCache.getHitCount());
+		assertEquals(2, resultCache.getMissCount());
+		assertTrue(resultCache.getEstimatedBytes() > 0);
+	}
+	
+	/**
+	 * Tests that the least recently used entries are evicted once the entry or memory bound of the cache is exceeded.
+	 */
+	@Test
+	public void lruEviction()
+	{
+		CompositionRequest compRequest = readCompositionRequest();
+		ServiceRepository repository = new ServiceRepository("testinput/servicerepos/Test_Services_Set_3.xml");
+		List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.buildServiceCompositions(compRequest, repository, new LogUtil());
+		List<CompositionRequest> compRequests = new ArrayList<CompositionRequest>();
+		for (int i = 0; i < 3; i++)
+		{
+			compRequests.add(new CompositionRequest(compRequest.getInputs(), Collections.singletonList("string : Output" + i),
+													compRequest.getQos(), compRequest.getConstraints()));
+		}
+		
+		//Bounding the cache by the number of entries
+		CompositionResultCache resultCache = new CompositionResultCache(2, Long.MAX_VALUE);
+		resultCache.put(compRequests.get(0), repository, 1, cnstrAwrPlans);
+		resultCache.put(compRequests.get(1), repository, 1, cnstrAwrPlans);
+		resultCache.get(compRequests.get(0), repository, 1);
+		resultCache.put(compRequests.get(2), repository, 1, cnstrAwrPlans);
+		assertEquals(2, resultCache.getEntryCount());
+		assertEquals(1, resultCache.getEvictionCount());
+		assertTrue(resultCache.get(compRequests.get(0), repository, 1) != null);
+		assertNull(resultCache.get(compRequests.get(1), repository, 1));
+		
+		//Bounding the cache by the memory occupied by a single result
+		resultCache.clear();
+		resultCache.put(compRequests.get(0), repository, 1, cnstrAwrPlans);
+		CompositionResultCache smallCache = new CompositionResultCache(10, resultCache.getEstimatedBytes());
+		smallCache.put(compRequests.get(0), repository, 1, cnstrAwrPlans);
+		smallCache.put(compRequests.get(1), repository, 1, cnstrAwrPlans);
+		assertEquals(1, smallCache.getEntryCount());
+		assertNull(smallCache.get(compRequests.get(0), repository, 1));
+	}
+	
+	/**
+	 * Tests that storing composite services in a repository invalidates the results cached for it.
+	 */
+	@Test
+	public void storageInvalidation() throws IOException
+	{
+		File repoFile = File.createTempFile("Test_Services_Cache", ".txt");
+		repoFile.deleteOnExit();
+		ServiceRepository xmlRepository = new ServiceRepository("testinput/servicerepos/Test_Services_Set_3.xml");
+		ServiceFileWriterDecorator svcWriter = new ServiceSerializedWriter(new BasicServiceWriter());
+		svcWriter.setLocation(repoFile.getPath());
+		svcWriter.write(xmlRepository.getServices());
+		
+		CompositionRequest compRequest = readCompositionRequest();
+		ServiceRepository repository = ServiceRepository.getSharedRepository(repoFile.getPath());
+		CompositionResultCache resultCache = CompositionResultCache.getSharedCache();
+		List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.buildServiceCompositions(compRequest, repoFile.getPath(), new LogUtil());
+		long repoVersion = repository.getVersion();
+		assertEquals(getPlanDetails(cnstrAwrPlans), getPlanDetails(resultCache.get(compRequest, repository, repoVersion)));
+		
+		ArrayList<Service> compSvcs = new ArrayList<Service>();
+		compSvcs.add(CompSvcStorageUtil.createCompositeService(compRequest, cnstrAwrPlans.get(0)));
+		CompSvcStorageUtil.writeCSToSerialSvcRepo(compSvcs, repoFile.getPath());
+		assertNull(resultCache.get(compRequest, repository, repoVersion));
+		assertTrue(repository.getVersion() > repoVersion);
+	}
+	
+	/**
+	 * Tests that the cached plans are not affected by modifications of the plans that were cached or returned.
+	 */
+	@Test
+	public void cachedPlanCopies()
+	{
+		CompositionRequest compRequest = readCompositionRequest();
+		ServiceRepository repository = new ServiceRepository("testinput/servicerepos/Test_Services_Set_3.xml");
+		CompositionResultCache.getSharedCache().clear();
+		List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.buildServiceCompositions(compRequest, repository, new LogUtil());
+		List<String> expectedPlanDetails = getPlanDetails(cnstrAwrPlans);
+		CompositionResultCache resultCache = new CompositionResultCache(10, Long.MAX_VALUE);
+		resultCache.put(compRequest, repository, repository.getVersion(), cnstrAwrPlans);
+		
+		//Removing all the constraints of the plans that were cached and of the plans returned by the cache
+		List<ConstraintAwarePlan> cachedPlans = resultCache.get(compRequest, repository, repository.getVersion());
+		assertTrue(cachedPlans.get(0) != cnstrAwrPlans.get(0));
+		assertEquals(expectedPlanDetails, getPlanDetails(cachedPlans));
+		removeAllConstraints(cnstrAwrPlans);
+		removeAllConstraints(cachedPlans);
+		assertTrue(!(expectedPlanDetails.equals(getPlanDetails(cachedPlans))));
+		
+		//Links between the service nodes are recreated between the copies
+		List<ConstraintAwarePlan> newCachedPlans = resultCache.get(compRequest, repository, repository.getVersion());
+		assertEquals(expectedPlanDetails, getPlanDetails(newCachedPlans));
+		ServiceNode firstNode = newCachedPlans.get(0).getServiceLayers().get(0).get(0);
+		assertTrue(firstNode.getSuccessors().get(0).getPredecessors().contains(firstNode));
+	}
+	
+	/**
+	 * Tests that the results of different repository objects for the same repository file are kept apart,
+	 * even if both the objects have read the file the same number of times.
+	 */
+	@Test
+	public void repositoryObjectVersions() throws IOException
+	{
+		File repoFile = File.createTempFile("Test_Services_Versions", ".xml");
+		repoFile.deleteOnExit();
+		Files.copy(Paths.get("testinput/servicerepos/Test_Services_Set_3.xml"), repoFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		ServiceRepository oldRepository = new ServiceRepository(repoFile.getPath());
+		long oldVersion = oldRepository.getVersion();
+		
+		//Replacing the repository file before another repository object reads it
+		Files.copy(Paths.get("testinput/servicerepos/Test_Services_Set_1.xml"), repoFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		ServiceRepository newRepository = new ServiceRepository(repoFile.getPath());
+		long newVersion = newRepository.getVersion();
+		assertEquals(oldRepository.getLoadCount(), newRepository.getLoadCount());
+		assertTrue(oldVersion != newVersion);
+		
+		CompositionRequest compRequest = readCompositionRequest();
+		CompositionResultCache resultCache = new CompositionResultCache(10, Long.MAX_VALUE);
+		resultCache.put(compRequest, oldRepository, oldVersion, new ArrayList<ConstraintAwarePlan>());
+		assertNull(resultCache.get(compRequest, newRepository, newVersion));
+		assertTrue(resultCache.get(compRequest, oldRepository, oldVersion) != null);
+	}
+	
+	/**
+	 * Method for removing all the constraints of the service nodes of a list of plans.
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans
+	 */
+	private static void removeAllConstraints(List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
+		{
+			for (List<ServiceNode> serviceLayer : cnstrAwrPlan.getServiceLayers())
+			{
+				for (ServiceNode serviceNode : serviceLayer)
+				{
+					for (Constraint constraint : new ArrayList<Constraint>(serviceNode.getConstraints()))
+					{
+						serviceNode.removeConstraint(constraint);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Fetches the details of every plan in a list of plans.
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans
+	 * @return	List of the string forms of the plans, in the same order
+	 */
+	private static List<String> getPlanDetails(List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		List<String> planDetails = new ArrayList<String>();
+		for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
+		{
+			planDetails.add(cnstrAwrPlan.toString());
+		}
+		
+		return planDetails;
+	}
+	
+	/**
+	 * Method for reading the composition request used by these tests.
+	 * @return	Composition request
+	 */
+	private static CompositionRequest readCompositionRequest()
+	{
+		FileReqConfigReader configReader = new XMLFileReqConfigReader();
+		configReader.setConfigFileName("testinput/servicecompositiontests/serviceComposition/Request_Configuration.xml");
+		RequestConfiguration reqConfig = configReader.readReqConfig();
+		
+		return ServiceComposition.constructCompositionRequest(reqConfig, new LogUtil());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import servicecomposition.compositionprocesses.ServiceComposition;
+import servicecomposition.drivers.CompositionServer;
+import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.readers.JSONReqConfigReader;
+import servicecomposition.readers.RequestConfiguration;
+import utilities.LogUtil;
+
+/**
+ * Class for testing the JSON request configuration reader and the local composition server.
+ * @author agent
+ */
+public class CompositionServerTests
+{
+	private static final String REQUEST_TEXT = "{\"inputs\": [\"string : DeliveryAddress\", \"string : ProductName\"], "
+												+ "\"outputs\": \"string : ShipmentConfirm\", \"qos\": [\"COST\", \"AVAILABILITY\"], "
+												+ "\"constraints\": [\"COST | < | 100\", \"string : ShipmentConfirm | = | true\", \"string : DeliveryAddress | = | Canada\"]}";
+	
+	/**
+	 * Tests that a JSON request is read into the same configuration as the equivalent XML configuration file,
+	 * with the repository details configured for the server.
+	 */
+	@Test
+	public void jsonRequestReading()
+	{
+		JSONReqConfigReader configReader = new JSONReqConfigReader();
+		configReader.setRequestText(REQUEST_TEXT);
+		configReader.setServerConfiguration("testinput/servicerepos/Test_Services_Set_3.xml", "N");
+		RequestConfiguration reqConfig = configReader.readReqConfig();
+		
+		assertEquals("string : DeliveryAddress, string : ProductName", reqConfig.getInputs());
+		assertEquals("string : ShipmentConfirm", reqConfig.getOutputs());
+		assertEquals("COST, AVAILABILITY", reqConfig.getQos());
+		assertEquals("COST | < | 100, string : ShipmentConfirm | = | true, string : DeliveryAddress | = | Canada", reqConfig.getConstraints());
+		assertEquals("testinput/servicerepos/Test_Services_Set_3.xml", reqConfig.getRepoFileName());
+		assertEquals("N", reqConfig.getStoreCSFlag());
+		
+		configReader.setRequestText("{\"inputs\": [\"string : DeliveryAddress\"");
+		assertEquals(null, configReader.readReqConfig());
+		assertTrue(configReader.getErrorMessage().startsWith("Request body must be a JSON object"));
+		
+		//Only a single well-formed JSON object is accepted
+		String[] malformedRequests = {"{\"inputs\": \"string : DeliveryAddress\"} trailing", "{\"inputs\": \"string : DeliveryAddress\"}{}",
+										"{\"inputs\": string}", "{\"inputs\": [\"string : DeliveryAddress\", tru]}", "{\"qos\": 12abc}",
+										"{\"inputs\": {\"string\": \"DeliveryAddress\"}}", "{\"inputs\": \"\\x\"}", "{\"inputs\": \"\\u+0041\"}",
+										"{\"inputs\": \"line\nbreak\"}", "[\"inputs\"]", "", " "};
+		for (String malformedRequest : malformedRequests)
+		{
+			configReader.setRequestText(malformedRequest);
+			assertEquals(null, configReader.readReqConfig());
+			assertTrue(configReader.getErrorMessage().startsWith("Request body must be a JSON object"));
+		}
+		configReader.setRequestText(" {\"inputs\": \"string : \\u0044eliveryAddress\", \"qos\": null, \"limit\": -1.5e3, \"exact\": true} ");
+		assertEquals("string : DeliveryAddress", configReader.readReqConfig().getInputs());
+		
+		//Requests may repeat the server's repository details but cannot change them
+		configReader.setRequestText("{\"repofilename\": \"./testinput/servicerepos/../servicerepos/Test_Services_Set_3.xml\", \"storecsflag\": \"n\"}");
+		assertEquals("testinput/servicerepos/Test_Services_Set_3.xml", configReader.readReqConfig().getRepoFileName());
+		assertEquals(null, configReader.getErrorMessage());
+		configReader.setRequestText("{\"repofilename\": \"testinput/servicerepos/Test_Services_Set_1.xml\"}");
+		assertEquals(null, configReader.readReqConfig());
+		assertTrue(configReader.getErrorMessage().startsWith("The service repository is configured by the server"));
+		configReader.setRequestText("{\"storecsflag\": \"Y\"}");
+		assertEquals(null, configReader.readReqConfig());
+		assertTrue(configReader.getErrorMessage().startsWith("Storage of composite services is configured by the server"));
+	}
+	
+	/**
+	 * Tests that concurrent requests to the composition server return the same plans as the composition process.
+	 */
+	@Test
+	public void concurrentServerRequests() throws Exception
+	{
+		JSONReqConfigReader configReader = new JSONReqConfigReader();
+		configReader.setRequestText(REQUEST_TEXT);
+		configReader.setServerConfiguration("testinput/servicerepos/Test_Services_Set_3.xml", "N");
+		LogUtil logger = new LogUtil();
+		logger.setLogFileName("testinput/servicecompositiontests/serviceComposition/log.txt");
+		List<ConstraintAwarePlan> expectedPlans = ServiceComposition.driveServiceComposition(configReader.readReqConfig(), logger);
+		
+		CompositionServer server = new CompositionServer(0, 2, 10, "testinput/servicerepos/Test_Services_Set_3.xml", false);
+		server.start();
+		ExecutorService clients = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<String>> responses = new ArrayList<Future<String>>();
+			for (int i = 0; i < 4; i++)
+			{
+				responses.add(clients.submit(() -> postRequest(server.getPort(), REQUEST_TEXT, "application/json; charset=utf-8")));
+			}
+			
+			for (Future<String> response : responses)
+			{
+				String responseText = response.get();
+				assertTrue(responseText.startsWith("200 "));
+				assertEquals(expectedPlans.size(), responseText.split("Layer 0: ").length - 1);
+			}
+			
+			assertTrue(postRequest(server.getPort(), "not json", "application/json").startsWith("400 "));
+		}
+		finally
+		{
+			clients.shutdown();
+			server.stop();
+		}
+	}
+	
+	/**
+	 * Tests that the composition server rejects requests without the JSON content type, such as the form posts of web pages,
+	 * requests changing the repository details configured for it, malformed requests and requests over the length limit.
+	 */
+	@Test
+	public void serverRequestRejection() throws Exception
+	{
+		CompositionServer server = new CompositionServer(0, 1, 10, "testinput/servicerepos/Test_Services_Set_3.xml", false);
+		server.start();
+		try
+		{
+			assertTrue(postRequest(server.getPort(), REQUEST_TEXT, "text/plain").startsWith("415 "));
+			assertTrue(postRequest(server.getPort(), REQUEST_TEXT, "application/x-www-form-urlencoded").startsWith("415 "));
+			assertTrue(postRequest(server.getPort(), REQUEST_TEXT, null).startsWith("415 "));
+			
+			String otherRepoRequest = REQUEST_TEXT.replace("{", "{\"repofilename\": \"testinput/servicerepos/Test_Services_Set_1.xml\", ");
+			String response = postRequest(server.getPort(), otherRepoRequest, "application/json");
+			assertTrue(response.startsWith("400 "));
+			assertTrue(response.contains("The service repository is configured by the server"));
+			assertTrue(postRequest(server.getPort(), REQUEST_TEXT.replace("{", "{\"storecsflag\": \"Y\", "), "application/json").startsWith("400 "));
+			
+			response = postRequest(server.getPort(), REQUEST_TEXT + " {}", "application/json");
+			assertTrue(response.startsWith("400 "));
+			assertTrue(response.contains("Unexpected text after the object"));
+			
+			//Bodies over the limit are rejected whether their length is declared or only found while reading them
+			String declaredHeaders = "Content-Length: " + (CompositionServer.MAX_REQUEST_LENGTH + 1) + "\r\n";
+			assertTrue(sendRawRequest(server.getPort(), declaredHeaders, new byte[0]).startsWith("HTTP/1.1 413 "));
+			byte[] longBody = new byte[CompositionServer.MAX_REQUEST_LENGTH + 8192];
+			byte[] chunkHeader = (Integer.toHexString(longBody.length) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+			ByteArrayOutputStream chunkedBody = new ByteArrayOutputStream();
+			chunkedBody.write(chunkHeader);
+			chunkedBody.write(longBody);
+			chunkedBody.write("\r\n0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			assertTrue(sendRawRequest(server.getPort(), "Transfer-Encoding: chunked\r\n", chunkedBody.toByteArray()).startsWith("HTTP/1.1 413 "));
+			assertTrue(postRequest(server.getPort(), REQUEST_TEXT, "application/json").startsWith("200 "));
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+	
+	/**
+	 * Method for posting a JSON request to a composition server over a plain socket, so that its headers can be chosen freely.
+	 * @param 	port			Server port
+	 * @param 	extraHeaders	Headers describing the length of the body, each terminated by CRLF
+	 * @param 	body			Request body, as sent
+	 * @return	Status line of the response
+	 */
+	private static String sendRawRequest(int port, String extraHeaders, byte[] body) throws IOException
+	{
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+		{
+			OutputStream requestStream = socket.getOutputStream();
+			String headers = "POST /compose HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n" + extraHeaders + "\r\n";
+			requestStream.write(headers.getBytes(StandardCharsets.US_ASCII));
+			requestStream.write(body);
+			requestStream.flush();
+			
+			BufferedReader responseReader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			return responseReader.readLine();
+		}
+	}
+	
+	/**
+	 * Method for posting a request to a composition server.
+	 * @param 	port			Server port
+	 * @param 	requestText		Request body
+	 * @param 	contentType		Content type of the request body (can be null)
+	 * @return	Response status code followed by a space and the response body
+	 */
+	private static String postRequest(int port, String requestText, String contentType) throws IOException
+	{
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/compose").openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		if (contentType != null)
+		{
+			connection.setRequestProperty("Content-Type", contentType);
+		}
+		try (OutputStream requestStream = connection.getOutputStream())
+		{
+			requestStream.write(requestText.getBytes(StandardCharsets.UTF_8));
+		}
+		
+		int statusCode = connection.getResponseCode();
+		InputStream responseStream = (statusCode < 400) ? connection.getInputStream() : connection.getErrorStream();
+		ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int readCount;
+		while ((readCount = responseStream.read(buffer)) != -1)
+		{
+			responseBody.write(buffer, 0, readCount);
+		}
+		responseStream.close();
+		
+		return statusCode + " " + new String(responseBody.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
\ No newline at end of file
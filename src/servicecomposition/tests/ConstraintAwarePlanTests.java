@@ -1,12 +1,17 @@
 package servicecomposition.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import org.junit.Test;
+import constraint.Constraint;
+import constraint.Operator;
 import servicecomposition.compositionprocesses.BackwardSearch;
 import servicecomposition.compositionprocesses.ConstraintAwarePlanConstruction;
 import servicecomposition.compositionprocesses.ForwardExpansion;
@@ -140,6 +145,56 @@ public class ConstraintAwarePlanTests
 		assertEquals(actualPlanDetails, expectedPlanDetails);
 	}
 	
+	/**
+	 * Tests that service nodes are found by layer index and service name after they are added and after empty layers are removed,
+	 * and that service layers cannot be modified without using the plan.
+	 */
+	@Test
+	public void serviceNodeLookup()
+	{
+		ServiceNode serviceNode1 = new ServiceNode(new ConstrainedService(new BasicService("sname1", null, null), null, null), 1);
+		ServiceNode serviceNode2 = new ServiceNode(new ConstrainedService(new BasicService("sname2", null, null), null, null), 3);
+		ServiceNode serviceNode3 = new ServiceNode(new ConstrainedService(new BasicService("sname3", null, null), null, null), 3);
+		ServiceNode serviceNode4 = new ServiceNode(new ConstrainedService(new BasicService("sname4", null, null), null, null), 0);
+		
+		ConstraintAwarePlan cnstrAwrPlan = new ConstraintAwarePlan(4);
+		cnstrAwrPlan.addServiceNode(serviceNode1);
+		cnstrAwrPlan.addServiceNode(serviceNode2);
+		cnstrAwrPlan.addServiceNode(serviceNode3);
+		
+		assertTrue(cnstrAwrPlan.getServiceNode(1, "sname1") == serviceNode1);
+		assertTrue(cnstrAwrPlan.getServiceNode(3, "sname3") == serviceNode3);
+		assertEquals(null, cnstrAwrPlan.getServiceNode(1, "sname3"));
+		assertEquals(null, cnstrAwrPlan.getServiceNode(4, "sname1"));
+		
+		//Layers 0 and 2 are empty and get removed
+		cnstrAwrPlan.removeEmptyLayers();
+		assertTrue(cnstrAwrPlan.getServiceNode(0, "sname1") == serviceNode1);
+		assertTrue(cnstrAwrPlan.getServiceNode(1, "sname2") == serviceNode2);
+		assertEquals(null, cnstrAwrPlan.getServiceNode(3, "sname3"));
+		
+		//Layers cannot be modified without using the plan, not even by replacing a node with another
+		boolean layerModified = true;
+		try
+		{
+			cnstrAwrPlan.getServiceLayers().get(0).set(0, serviceNode4);
+		}
+		catch(UnsupportedOperationException uoe)
+		{
+			layerModified = false;
+		}
+		assertTrue(!layerModified);
+		assertTrue(cnstrAwrPlan.getServiceNode(0, "sname1") == serviceNode1);
+		assertEquals(null, cnstrAwrPlan.getServiceNode(0, "sname4"));
+		
+		//The layers fetched earlier reflect the nodes added afterwards
+		List<ServiceNode> firstLayer = cnstrAwrPlan.getServiceLayers().get(0);
+		serviceNode4.setLayerIndex(0);
+		cnstrAwrPlan.addServiceNode(serviceNode4);
+		assertTrue(cnstrAwrPlan.getServiceNode(0, "sname4") == serviceNode4);
+		assertEquals(Arrays.asList(serviceNode1, serviceNode4), firstLayer);
+	}
+	
 	/**
 	 * Tests correct generation of constraint-aware composition plans even when no services have any constraints.
 	 */
@@ -363,6 +418,256 @@ public class ConstraintAwarePlanTests
 		assertEquals(actualPlanDetails, expectedPlanDetails);
 	}
 	
+	/**
+	 * Tests that constraints are adjusted to the same service nodes as by the layer-by-layer walk through the predecessors 
+	 * that was used before the nearest affecting predecessors were computed once for every service node and constraint type.
+	 * The plans contain services with repeated constraints of the same type and predecessors at different layers affecting the same type,
+	 * both in a fixed plan and in randomly generated plans.
+	 */
+	@Test
+	public void effectFrontierMatchesLayerWalk()
+	{
+		ConstraintAwarePlan actualPlan = createConflictingEffectsPlan();
+		ConstraintAwarePlan expectedPlan = createConflictingEffectsPlan();
+		actualPlan.adjustConstraints();
+		adjustConstraintsByLayerWalk(expectedPlan);
+		assertEquals(expectedPlan.toString(), actualPlan.toString());
+		
+		//sname5 in layer 2 is nearer to sname7 than the other predecessors affecting f1, which are in layer 0
+		//sname3 in layer 1 is the nearest predecessor affecting f2 for both sname7 and sname8
+		assertEquals(2, actualPlan.getServiceNode(3, "sname7").getConstraintsOfType("f1").size());
+		assertEquals(2, actualPlan.getServiceNode(3, "sname7").getConstraints().size());
+		assertTrue(actualPlan.getServiceNode(3, "sname8").getConstraints().isEmpty());
+		assertEquals(2, actualPlan.getServiceNode(2, "sname5").getConstraintsOfType("f2").size());
+		assertEquals(2, actualPlan.getServiceNode(2, "sname6").getConstraintsOfType("f2").size());
+		assertEquals(1, actualPlan.getServiceNode(1, "sname4").getConstraintsOfType("f2").size());
+		assertEquals(1, actualPlan.getServiceNode(1, "sname3").getConstraintsOfType("f1").size());
+		assertEquals(1, actualPlan.getServiceNode(0, "sname1").getConstraintsOfType("f3").size());
+		
+		for (long seed = 0; seed < 300; seed++)
+		{
+			actualPlan = createRandomPlan(seed);
+			expectedPlan = createRandomPlan(seed);
+			actualPlan.adjustConstraints();
+			adjustConstraintsByLayerWalk(expectedPlan);
+			assertEquals(expectedPlan.toString(), actualPlan.toString());
+		}
+	}
+	
+	/**
+	 * Tests that constraints removed from a service node are no longer found and that the remaining ones keep their order,
+	 * including a removed constraint that is added again.
+	 */
+	@Test
+	public void constraintRemoval()
+	{
+		List<Constraint> constraints = new ArrayList<Constraint>();
+		for (int i = 0; i < 10; i++)
+		{
+			constraints.add(new Constraint("sname1", String.valueOf(i), "f" + (i % 3), Operator.EQUALS));
+		}
+		ServiceNode serviceNode = new ServiceNode(new ConstrainedService(new BasicService("sname1", null, null), null, null), 
+													new ArrayList<Constraint>(constraints), 0);
+		
+		serviceNode.removeConstraint(constraints.get(1));
+		serviceNode.removeConstraint(constraints.get(4));
+		serviceNode.removeConstraint(constraints.get(4));
+		assertTrue(!serviceNode.containsConstraint(constraints.get(4)));
+		assertEquals(1, serviceNode.getConstraintsOfType("f1").size());
+		
+		//Removing a constraint and adding it again moves it to the end
+		serviceNode.removeConstraint(constraints.get(0));
+		serviceNode.addConstraint(constraints.get(0));
+		assertTrue(serviceNode.containsConstraint(constraints.get(0)));
+		assertEquals(Arrays.asList(constraints.get(2), constraints.get(3), constraints.get(5), constraints.get(6), constraints.get(7), 
+									constraints.get(8), constraints.get(9), constraints.get(0)), serviceNode.getConstraints());
+		
+		//Removing most of the constraints
+		for (int i = 2; i < 10; i++)
+		{
+			serviceNode.removeConstraint(constraints.get(i));
+		}
+		assertEquals(Arrays.asList(constraints.get(0)), serviceNode.getConstraints());
+		assertEquals(1, serviceNode.getConstraintsOfType("f0").size());
+		assertTrue(serviceNode.getConstraintsOfType("f2").isEmpty());
+	}
+	
+	/**
+	 * Creates a plan in which constraint types are affected by predecessors in different layers and services have repeated constraint types.
+	 * Layer 0: sname1 (affects f1), sname2 (affects f1, f2)
+	 * Layer 1: sname3 (affects f2) after sname1, sname4 after sname1 and sname2, with an f2 constraint
+	 * Layer 2: sname5 (affects f1) after sname3, sname6 after sname3 and sname4
+	 * Layer 3: sname7 after sname5 and sname6, with 2 f1 constraints, an f2 constraint and an f3 constraint, sname8 after sname6, 
+	 * 			with f1 and f2 constraints
+	 * @return	Constraint-aware plan
+	 */
+	private static ConstraintAwarePlan createConflictingEffectsPlan()
+	{
+		ConstraintAwarePlan cnstrAwrPlan = new ConstraintAwarePlan(4);
+		ServiceNode serviceNode1 = createServiceNode(cnstrAwrPlan, "sname1", 0, Arrays.asList("f1"), Arrays.asList());
+		ServiceNode serviceNode2 = createServiceNode(cnstrAwrPlan, "sname2", 0, Arrays.asList("f1", "f2"), Arrays.asList());
+		ServiceNode serviceNode3 = createServiceNode(cnstrAwrPlan, "sname3", 1, Arrays.asList("f2"), new ArrayList<String>(), serviceNode1);
+		ServiceNode serviceNode4 = createServiceNode(cnstrAwrPlan, "sname4", 1, new ArrayList<String>(), Arrays.asList("f2"), serviceNode1, serviceNode2);
+		ServiceNode serviceNode5 = createServiceNode(cnstrAwrPlan, "sname5", 2, Arrays.asList("f1"), new ArrayList<String>(), serviceNode3);
+		ServiceNode serviceNode6 = createServiceNode(cnstrAwrPlan, "sname6", 2, new ArrayList<String>(), new ArrayList<String>(), serviceNode3, serviceNode4);
+		createServiceNode(cnstrAwrPlan, "sname7", 3, new ArrayList<String>(), Arrays.asList("f1", "f1", "f2", "f3"), serviceNode5, serviceNode6);
+		createServiceNode(cnstrAwrPlan, "sname8", 3, new ArrayList<String>(), Arrays.asList("f1", "f2"), serviceNode6);
+		
+		return cnstrAwrPlan;
+	}
+	
+	/**
+	 * Creates a random constraint-aware plan of 2 to 5 layers with 1 to 3 service nodes per layer.
+	 * Every node affects each of the types f1, f2 and f3 with a probability of 1/3 and has up to 3 constraints of types f1 to f4.
+	 * The same seed always creates the same plan.
+	 * @param 	seed	Seed of the random number generator
+	 * @return	Constraint-aware plan
+	 */
+	private static ConstraintAwarePlan createRandomPlan(long seed)
+	{
+		Random random = new Random(seed);
+		int layerCount = 2 + random.nextInt(4);
+		ConstraintAwarePlan cnstrAwrPlan = new ConstraintAwarePlan(layerCount);
+		List<ServiceNode> earlierNodes = new ArrayList<ServiceNode>();
+		for (int i = 0; i < layerCount; i++)
+		{
+			List<ServiceNode> layerNodes = new ArrayList<ServiceNode>();
+			int layerServiceCount = 1 + random.nextInt(3);
+			for (int j = 0; j < layerServiceCount; j++)
+			{
+				List<String> effects = new ArrayList<String>();
+				for (int k = 1; k <= 3; k++)
+				{
+					if (random.nextInt(3) == 0)
+					{
+						effects.add("f" + k);
+					}
+				}
+				List<String> constraintTypes = new ArrayList<String>();
+				int constraintCount = random.nextInt(4);
+				for (int k = 0; k < constraintCount; k++)
+				{
+					constraintTypes.add("f" + (1 + random.nextInt(4)));
+				}
+				
+				//Every node after the first layer has a predecessor in the previous layer and may have others in any earlier layer
+				List<ServiceNode> predecessors = new ArrayList<ServiceNode>();
+				if (i > 0)
+				{
+					List<ServiceNode> prevLayer = cnstrAwrPlan.getServiceLayers().get(i - 1);
+					predecessors.add(prevLayer.get(random.nextInt(prevLayer.size())));
+					for (ServiceNode earlierNode : earlierNodes)
+					{
+						if ((!predecessors.contains(earlierNode)) && (random.nextInt(3) == 0))
+						{
+							predecessors.add(earlierNode);
+						}
+					}
+				}
+				
+				layerNodes.add(createServiceNode(cnstrAwrPlan, "sname" + i + j, i, effects, constraintTypes, predecessors.toArray(new ServiceNode[0])));
+			}
+			earlierNodes.addAll(layerNodes);
+		}
+		
+		return cnstrAwrPlan;
+	}
+	
+	/**
+	 * Creates a service node with the given effects and constraints, adds it to a plan and links it to its predecessors in both the directions.
+	 * Constraints of a service differ in their literal values, so that a service can have more than 1 constraint of the same type.
+	 * @param 	cnstrAwrPlan		Constraint-aware plan to which the node is added
+	 * @param 	serviceName			Name of the service forming the node
+	 * @param 	layerIndex			Index of the service layer containing the node
+	 * @param 	effects				Constraint types affected by the service
+	 * @param 	constraintTypes		Types of the constraints of the service
+	 * @param 	predecessors		Service nodes that are predecessors to the new node
+	 * @return	New service node
+	 */
+	private static ServiceNode createServiceNode(ConstraintAwarePlan cnstrAwrPlan, String serviceName, int layerIndex, List<String> effects,
+													List<String> constraintTypes, ServiceNode... predecessors)
+	{
+		ArrayList<Constraint> constraints = new ArrayList<Constraint>();
+		for (int i = 0; i < constraintTypes.size(); i++)
+		{
+			constraints.add(new Constraint(serviceName, serviceName + "_" + i, constraintTypes.get(i), Operator.EQUALS));
+		}
+		Service service = new ConstrainedService(new BasicService(serviceName, new ArrayList<String>(), new ArrayList<String>()), 
+													constraints, new ArrayList<String>(effects));
+		ServiceNode serviceNode = new ServiceNode(service, layerIndex);
+		for (ServiceNode predecessor : predecessors)
+		{
+			serviceNode.addPredecessor(predecessor);
+			predecessor.addSuccessor(serviceNode);
+		}
+		cnstrAwrPlan.addServiceNode(serviceNode);
+		
+		return serviceNode;
+	}
+	
+	/**
+	 * Reference implementation of constraint adjustment that walks back through the predecessors of every constraint's service node 
+	 * one layer at a time, until it reaches the layer with predecessors affecting the constraint's type.
+	 * @param 	cnstrAwrPlan	Constraint-aware plan whose constraints need to be adjusted
+	 */
+	private static void adjustConstraintsByLayerWalk(ConstraintAwarePlan cnstrAwrPlan)
+	{
+		List<List<ServiceNode>> serviceLayers = cnstrAwrPlan.getServiceLayers();
+		for (int i = 1; i < serviceLayers.size(); i++)
+		{
+			for (ServiceNode currServiceNode : serviceLayers.get(i))
+			{
+				for (Constraint currConstraint : ((ConstrainedService) currServiceNode.getService()).getConstraints())
+				{
+					boolean constraintAdjusted = false;
+					boolean currNodeGetsConstraint = false;
+					Set<ServiceNode> predSet = new HashSet<ServiceNode>(currServiceNode.getPredecessors());
+					for (int l = i - 1; (l >= 0) && (!constraintAdjusted); l--)
+					{
+						Set<ServiceNode> closestPredSet = new HashSet<ServiceNode>();
+						for (ServiceNode predecessor : predSet)
+						{
+							if (predecessor.getLayerIndex() == l)
+							{
+								closestPredSet.add(predecessor);
+							}
+						}
+						
+						for (ServiceNode closestPred : closestPredSet)
+						{
+							if (((ConstrainedService) closestPred.getService()).getEffects().contains(currConstraint.getType()))
+							{
+								constraintAdjusted = true;
+								for (ServiceNode successor : closestPred.getSuccessors())
+								{
+									successor.addConstraint(currConstraint);
+									currNodeGetsConstraint |= (successor == currServiceNode);
+								}
+							}
+							else
+							{
+								predSet.addAll(closestPred.getPredecessors());
+								predSet.remove(closestPred);
+							}
+						}
+					}
+					
+					if (!constraintAdjusted)
+					{
+						for (ServiceNode firstLayerNode : serviceLayers.get(0))
+						{
+							firstLayerNode.addConstraint(currConstraint);
+						}
+					}
+					if (!currNodeGetsConstraint)
+					{
+						currServiceNode.removeConstraint(currConstraint);
+					}
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Method for constructing constraint-aware plans from composition plans generated for a given composition request.
 	 * @param 	compReqInputs		Composition request inputs
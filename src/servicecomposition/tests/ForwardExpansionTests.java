@@ -282,4 +282,64 @@ public class ForwardExpansionTests
 								+ "Layer 2: {sname2, sname4, sname7} Node 0 (sname6) {}, {sname2, sname4, sname7} Node 1 (sname10) {}";
 		assertEquals(actualOutput, expectedOutput);
 	}
+	
+	/**
+	 * Tests that the indexed forward expansion engine creates exactly the same search graph as the original forward expansion,
+	 * including the order of nodes within layers and the predecessor-successor details of every node.
+	 */
+	@Test
+	public void indexedExpansionEquivalence()
+	{
+		CompositionRequest compositionReq = new CompositionRequest();
+		compositionReq.setInputs(Arrays.asList("int : input11", "char : input12", 
+												"boolean : input21", "int : input22", 
+												"string : input31", "boolean : input32", 
+												"string : input42", 
+												"char : input51", "float : input52",
+												"char : input61"));
+		compositionReq.setOutputs(Arrays.asList("int : output42", "char : output61"));
+		
+		ServiceFileParserDecorator serviceParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
+		serviceParser.setLocation("testinput/servicerepos/Test_Services_Set_1.xml");
+		ArrayList<Service> serviceRepo = serviceParser.parse();
+		
+		SearchGraph expectedGraph = ForwardExpansion.forwardExpansion(compositionReq, serviceRepo);
+		SearchGraph resultingGraph = ForwardExpansion.indexedForwardExpansion(compositionReq, serviceRepo);
+		
+		assertEquals(getGraphDetails(expectedGraph), getGraphDetails(resultingGraph));
+		
+		//Unsolvable requests must be rejected by both engines
+		compositionReq.setOutputs(Arrays.asList("string : outputXX", "boolean : outputYY"));
+		assertNull(ForwardExpansion.indexedForwardExpansion(compositionReq, serviceRepo));
+	}
+	
+	/**
+	 * Method for creating a String with all the nodes of a search graph and their predecessor-successor details.
+	 * @param 	searchGraph		Search graph whose details are required
+	 * @return	String containing the search graph details
+	 */
+	private String getGraphDetails(SearchGraph searchGraph)
+	{
+		String graphDetails = "";
+		for (List<SearchNode> serviceLayer : searchGraph.getServiceLayers())
+		{
+			graphDetails += "\nLayer: ";
+			for (SearchNode searchNode : serviceLayer)
+			{
+				graphDetails += "{";
+				for (SearchNode predecessor : searchNode.getPredecessors())
+				{
+					graphDetails += predecessor.getService().getName() + " ";
+				}
+				graphDetails += "} " + searchNode.getLayerIndex() + " (" + searchNode.getService().getName() + ") {";
+				for (SearchNode successor : searchNode.getSuccessors())
+				{
+					graphDetails += successor.getService().getName() + " ";
+				}
+				graphDetails += "} ";
+			}
+		}
+		
+		return graphDetails.trim();
+	}
 }
\ No newline at end of file
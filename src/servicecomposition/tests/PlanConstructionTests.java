@@ -1,19 +1,25 @@
 package servicecomposition.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import org.junit.Test;
+import constraint.Constraint;
 import servicecomposition.compositionprocesses.BackwardSearch;
 import servicecomposition.compositionprocesses.ForwardExpansion;
 import servicecomposition.compositionprocesses.PlanConstruction;
 import servicecomposition.entities.CompositionPlan;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.ParameterDictionary;
 import servicecomposition.entities.SearchGraph;
 import servicecomposition.entities.SearchNode;
+import service.BasicService;
+import service.ConstrainedService;
 import service.Service;
 import service.parser.BasicServiceParser;
 import service.parser.ConstrainedServiceXMLParser;
@@ -151,6 +157,125 @@ public class PlanConstructionTests
 		assertEquals(actualPlanDetails, expectedPlanDetails);
 	}
 	
+	/**
+	 * Tests that duplicate plan sets are removed before plan construction and that they do not produce duplicate plans.
+	 */
+	@Test
+	public void duplicatePlanSetRemoval()
+	{
+		CompositionRequest compositionReq = new CompositionRequest();
+		compositionReq.setInputs(new ArrayList<String>(Arrays.asList("int : input11", "float : input12", "string : input21", "boolean : input22")));
+		compositionReq.setOutputs(new ArrayList<String>(Arrays.asList("string : output51", "boolean : output52")));
+		
+		ServiceFileParserDecorator serviceParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
+		serviceParser.setLocation("testinput/servicerepos/Test_Services_Set_2.xml");
+		ArrayList<Service> serviceRepo = serviceParser.parse();
+		SearchGraph resultingGraph = ForwardExpansion.forwardExpansion(compositionReq, serviceRepo);
+		List<Set<SearchNode>> planSets = BackwardSearch.backwardSearch(compositionReq, resultingGraph);
+		
+		//Repeating every plan set as a separate copy
+		List<Set<SearchNode>> repeatedPlanSets = new ArrayList<Set<SearchNode>>(planSets);
+		for (Set<SearchNode> planSet : planSets)
+		{
+			repeatedPlanSets.add(new HashSet<SearchNode>(planSet));
+		}
+		
+		List<Set<SearchNode>> distinctPlanSets = PlanConstruction.removeDuplicatePlanSets(repeatedPlanSets);
+		assertEquals(planSets.size(), distinctPlanSets.size());
+		for (int i = 0; i < planSets.size(); i++)
+		{
+			assertTrue(planSets.get(i) == distinctPlanSets.get(i));
+		}
+		
+		List<String> expectedPlanDetails = new ArrayList<String>();
+		for (CompositionPlan plan : PlanConstruction.constructPlans(compositionReq, planSets))
+		{
+			expectedPlanDetails.add(plan.toString());
+		}
+		List<String> actualPlanDetails = new ArrayList<String>();
+		for (CompositionPlan plan : PlanConstruction.constructPlans(compositionReq, repeatedPlanSets))
+		{
+			actualPlanDetails.add(plan.toString());
+		}
+		assertEquals(expectedPlanDetails, actualPlanDetails);
+	}
+	
+	/**
+	 * Tests that removals cascade through chains of search nodes in both the directions:
+	 * 1. A node with an unavailable input invalidates every node downstream that depends on it alone for one of its inputs,
+	 * 	  and the nodes upstream that are left without successors and do not produce a requested output.
+	 * 2. A node without successors that does not produce a requested output invalidates its predecessors one after the other.
+	 * 3. A node losing one of 2 predecessors supplying the same input, or its only successor while producing a requested output, is kept.
+	 * The pruned plans are the same as those left by repeating the input and output validations over the whole plan.
+	 */
+	@Test
+	public void chainRemoval()
+	{
+		CompositionRequest compositionReq = new CompositionRequest();
+		compositionReq.setInputs(new ArrayList<String>(Arrays.asList("int : a")));
+		compositionReq.setOutputs(new ArrayList<String>(Arrays.asList("int : z")));
+		
+		//Valid branch producing the requested output
+		SearchNode v1 = createSearchNode("v1", Arrays.asList("int : a"), Arrays.asList("int : y"), 0);
+		SearchNode v2 = createSearchNode("v2", Arrays.asList("int : y"), Arrays.asList("int : w"), 1, v1);
+		SearchNode h1 = createSearchNode("h1", Arrays.asList("int : a", "int : k"), Arrays.asList("int : w"), 1);
+		SearchNode v3 = createSearchNode("v3", Arrays.asList("int : w"), Arrays.asList("int : x"), 2, v2, h1);
+		SearchNode v4 = createSearchNode("v4", Arrays.asList("int : x"), Arrays.asList("int : z"), 3, v3);
+		
+		//Node producing a requested output whose only successor has an unavailable input
+		SearchNode m1 = createSearchNode("m1", Arrays.asList("int : y"), Arrays.asList("int : z"), 2, v1);
+		SearchNode m2 = createSearchNode("m2", Arrays.asList("int : z", "int : c"), Arrays.asList("int : n"), 3, m1);
+		
+		//Chain invalidated by an unavailable input in its second node
+		SearchNode f1 = createSearchNode("f1", Arrays.asList("int : a"), Arrays.asList("int : b"), 0);
+		SearchNode f2 = createSearchNode("f2", Arrays.asList("int : b", "int : c"), Arrays.asList("int : d"), 1, f1);
+		SearchNode f3 = createSearchNode("f3", Arrays.asList("int : d"), Arrays.asList("int : e"), 2, f2);
+		SearchNode f4 = createSearchNode("f4", Arrays.asList("int : e"), Arrays.asList("int : z"), 3, f3);
+		
+		//Chain invalidated by its last node, which does not produce a requested output
+		SearchNode g1 = createSearchNode("g1", Arrays.asList("int : a"), Arrays.asList("int : p"), 0);
+		SearchNode g2 = createSearchNode("g2", Arrays.asList("int : p"), Arrays.asList("int : q"), 1, g1);
+		SearchNode g3 = createSearchNode("g3", Arrays.asList("int : q"), Arrays.asList("int : r"), 2, g2);
+		
+		Set<SearchNode> planSet = new HashSet<SearchNode>(Arrays.asList(v1, v2, h1, v3, v4, m1, m2, f1, f2, f3, f4, g1, g2, g3));
+		List<CompositionPlan> plans = PlanConstruction.constructPlans(compositionReq, new ArrayList<Set<SearchNode>>(Arrays.asList(planSet)));
+		assertEquals(1, plans.size());
+		assertEquals("Layer 0: v1\nLayer 1: v2\nLayer 2: m1, v3\nLayer 3: v4", plans.get(0).toString());
+		
+		//Both the invalid chains are removed completely, hence no plan is left without the valid branch
+		Set<SearchNode> invalidPlanSet = new HashSet<SearchNode>(Arrays.asList(f1, f2, f3, f4, g1, g2, g3));
+		CompositionPlan prunedPlan = PlanConstruction.constructPrunedPlan(compositionReq, invalidPlanSet, new ParameterDictionary());
+		assertEquals(4, prunedPlan.getServiceLayers().size());
+		for (List<SearchNode> serviceLayer : prunedPlan.getServiceLayers())
+		{
+			assertTrue(serviceLayer.isEmpty());
+		}
+		assertTrue(PlanConstruction.constructPlans(compositionReq, new ArrayList<Set<SearchNode>>(Arrays.asList(invalidPlanSet))).isEmpty());
+	}
+	
+	/**
+	 * Method for creating a search node and linking it to its predecessors in both the directions.
+	 * @param 	serviceName		Name of the service forming the search node
+	 * @param 	inputs			Service inputs
+	 * @param 	outputs			Service outputs
+	 * @param 	layerIndex		Index of the service layer containing the search node
+	 * @param 	predecessors	Search nodes that are predecessors to the new search node
+	 * @return	New search node
+	 */
+	private static SearchNode createSearchNode(String serviceName, List<String> inputs, List<String> outputs, int layerIndex, SearchNode... predecessors)
+	{
+		Service service = new ConstrainedService(new BasicService(serviceName, new ArrayList<String>(inputs), new ArrayList<String>(outputs)), 
+													new ArrayList<Constraint>(), new ArrayList<String>());
+		SearchNode searchNode = new SearchNode(service, new ArrayList<SearchNode>(), new ArrayList<SearchNode>(), layerIndex);
+		for (SearchNode predecessor : predecessors)
+		{
+			searchNode.addPredecessor(predecessor);
+			predecessor.addSuccessor(searchNode);
+		}
+		
+		return searchNode;
+	}
+	
 	/**
 	 * Method for constructing plans from the plan sets generated by the backward search algorithm for a given composition request.
 	 * @param 	compReqInputs		Composition request inputs
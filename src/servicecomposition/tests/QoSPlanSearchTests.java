@@ -0,0 +1,156 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import service.BasicService;
+import service.Service;
+import service.parser.BasicServiceParser;
+import service.parser.ConstrainedServiceXMLParser;
+import service.parser.ServiceFileParserDecorator;
+import servicecomposition.compositionprocesses.BackwardSearch;
+import servicecomposition.compositionprocesses.ConstraintAwarePlanConstruction;
+import servicecomposition.compositionprocesses.ForwardExpansion;
+import servicecomposition.compositionprocesses.PlanConstruction;
+import servicecomposition.compositionprocesses.QoSPlanSearch;
+import servicecomposition.entities.CompositionPlan;
+import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.ConstraintAwarePlan;
+import servicecomposition.entities.QoSValues;
+import servicecomposition.entities.QualityOfService;
+import servicecomposition.entities.SearchGraph;
+import servicecomposition.entities.SearchNode;
+
+/**
+ * Class for testing the QoS-driven search for the best composition plans.
+ * @author agent
+ */
+public class QoSPlanSearchTests
+{
+	/**
+	 * Tests that QoS values of plan services are aggregated as follows:
+	 * 1. Cost is summed over all the services.
+	 * 2. Response time is the length of the slowest path through the plan layers.
+	 * 3. Reliability and availability are multiplied.
+	 * 4. Services without QoS values do not change the aggregated values.
+	 */
+	@Test
+	public void planQoSAggregation()
+	{
+		SearchNode node1 = createSearchNode("svc1", 0);
+		SearchNode node2 = createSearchNode("svc2", 0);
+		SearchNode node3 = createSearchNode("svc3", 1);
+		SearchNode node4 = createSearchNode("svc4", 2);
+		node3.addPredecessor(node1);
+		node4.addPredecessor(node2);
+		node4.addPredecessor(node3);
+		
+		CompositionPlan plan = new CompositionPlan(3);
+		plan.getServiceLayers().get(0).addAll(Arrays.asList(node1, node2));
+		plan.getServiceLayers().get(1).add(node3);
+		plan.getServiceLayers().get(2).add(node4);
+		
+		Map<String, QoSValues> serviceQoS = new HashMap<String, QoSValues>();
+		serviceQoS.put("svc1", new QoSValues(2, 3, 0.5, 0.9));
+		serviceQoS.put("svc2", new QoSValues(4, 10, 1, 0.5));
+		serviceQoS.put("svc3", new QoSValues(1, 4, 0.5, 1));
+		
+		QoSValues planQoS = QoSPlanSearch.computePlanQoS(plan, serviceQoS);
+		
+		assertEquals(7, planQoS.getCost(), 0);
+		assertEquals(10, planQoS.getResponseTime(), 0);
+		assertEquals(0.25, planQoS.getReliability(), 0);
+		assertEquals(0.45, planQoS.getAvailability(), 1e-9);
+	}
+	
+	/**
+	 * Tests that the best plans found by the branch and bound search are the same, and in the same order,
+	 * as the best plans of a complete ranking of all the constructed plans, for various plan limits and requested QoS features.
+	 */
+	@Test
+	public void topPlanSearch()
+	{
+		List<String> compReqInputs = new ArrayList<String>(Arrays.asList("string : DeliveryAddress", "string : ProductName"));
+		List<String> compReqOutputs = new ArrayList<String>(Arrays.asList("string : ShipmentConfirm"));
+		
+		//Reading the service repository
+		ServiceFileParserDecorator serviceParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
+		serviceParser.setLocation("testinput/servicerepos/Test_Services_Set_3.xml");
+		ArrayList<Service> serviceRepo = serviceParser.parse();
+		
+		Map<String, QoSValues> serviceQoS = new HashMap<String, QoSValues>();
+		serviceQoS.put("W1", new QoSValues(9, 1, 0.9, 1));
+		serviceQoS.put("W2", new QoSValues(1, 6, 0.8, 1));
+		serviceQoS.put("W3", new QoSValues(2, 2, 0.99, 1));
+		serviceQoS.put("W4", new QoSValues(3, 1, 0.7, 1));
+		serviceQoS.put("W5", new QoSValues(1, 3, 0.95, 1));
+		serviceQoS.put("W6", new QoSValues(2, 2, 0.9, 1));
+		serviceQoS.put("W7", new QoSValues(4, 5, 0.98, 1));
+		
+		List<List<String>> qosLists = new ArrayList<List<String>>();
+		qosLists.add(new ArrayList<String>());
+		qosLists.add(new ArrayList<String>(Arrays.asList("RESPONSE_TIME", "COST")));
+		qosLists.add(new ArrayList<String>(Arrays.asList("RELIABILITY")));
+		
+		for (List<String> qosList : qosLists)
+		{
+			CompositionRequest compositionReq = new CompositionRequest(compReqInputs, compReqOutputs, qosList, new ArrayList<>());
+			SearchGraph resultingGraph = ForwardExpansion.forwardExpansion(compositionReq, serviceRepo);
+			
+			//Ranking all the plans constructed for the request
+			List<QualityOfService> features = new ArrayList<QualityOfService>();
+			for (String qos : qosList)
+			{
+				features.add(QualityOfService.valueOf(qos));
+			}
+			if (features.isEmpty())
+			{
+				features.add(QualityOfService.COST);
+				features.add(QualityOfService.RESPONSE_TIME);
+			}
+			List<CompositionPlan> allPlans = PlanConstruction.constructPlans(compositionReq, BackwardSearch.memoizedBackwardSearch(compositionReq, resultingGraph));
+			allPlans.sort((plan1, plan2) -> QoSPlanSearch.computePlanQoS(plan1, serviceQoS).compareTo(QoSPlanSearch.computePlanQoS(plan2, serviceQoS), features));
+			List<String> rankedPlans = getPlanDetails(ConstraintAwarePlanConstruction.constructCAPlans(allPlans));
+			assertTrue(rankedPlans.size() > 3);
+			
+			for (int planLimit = 1; planLimit <= 3; planLimit++)
+			{
+				List<String> topPlans = getPlanDetails(QoSPlanSearch.searchTopPlans(compositionReq, resultingGraph, serviceQoS, planLimit));
+				assertEquals(rankedPlans.subList(0, planLimit), topPlans);
+			}
+		}
+	}
+	
+	/**
+	 * Method for creating a search node for a service without any inputs or outputs.
+	 * @param 	serviceName		Service name
+	 * @param 	layerIndex		Index of the service layer containing the search node
+	 * @return	Search node created
+	 */
+	private SearchNode createSearchNode(String serviceName, int layerIndex)
+	{
+		Service service = new BasicService(serviceName, new ArrayList<String>(), new ArrayList<String>());
+		return new SearchNode(service, new ArrayList<SearchNode>(), new ArrayList<SearchNode>(), layerIndex);
+	}
+	
+	/**
+	 * Method for fetching the string representations of constraint-aware plans.
+	 * @param 	cnstrAwrPlans	List of constraint-aware plans
+	 * @return	List of plan strings in the same order as the plans
+	 */
+	private List<String> getPlanDetails(List<ConstraintAwarePlan> cnstrAwrPlans)
+	{
+		List<String> planDetails = new ArrayList<String>();
+		for (ConstraintAwarePlan cnstrAwrPlan : cnstrAwrPlans)
+		{
+			planDetails.add(cnstrAwrPlan.toString());
+		}
+		
+		return planDetails;
+	}
+}
\ No newline at end of file
@@ -1,14 +1,18 @@
 package servicecomposition.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.Test;
 import constraint.Constraint;
 import constraint.Operator;
+import servicecomposition.entities.ParameterDictionary;
 import servicecomposition.entities.SearchGraph;
 import servicecomposition.entities.SearchNode;
+import servicecomposition.entities.ServiceSignature;
 import service.BasicService;
 import service.ConstrainedService;
 import service.Service;
@@ -45,6 +49,30 @@ public class SearchGraphTests
 		assertEquals(actualOutput, expectedOutput);
 	}
 	
+	/**
+	 * Tests that the parameter dictionary of a search graph assigns IDs to service effects separately from the parameters.
+	 */
+	@Test
+	public void separateEffectIds()
+	{
+		SearchGraph searchGraph = new SearchGraph();
+		ArrayList<String> inputs = new ArrayList<String>(Arrays.asList("int : input11"));
+		ArrayList<String> outputs = new ArrayList<String>(Arrays.asList("float : output11"));
+		ArrayList<String> effects = new ArrayList<String>(Arrays.asList("string : effect11", "float : output11"));
+		Service service = new ConstrainedService(new BasicService("sname1", inputs, outputs), new ArrayList<Constraint>(), effects);
+		searchGraph.addService(service);
+		
+		ParameterDictionary dictionary = searchGraph.getParameterDictionary();
+		ServiceSignature signature = dictionary.getSignature(service);
+		assertEquals(2, dictionary.size());
+		assertEquals(-1, dictionary.getId("string : effect11"));
+		assertEquals(0, dictionary.getEffectId("string : effect11"));
+		assertEquals(1, dictionary.getEffectId("float : output11"));
+		assertEquals(-1, dictionary.getEffectId("int : input11"));
+		assertTrue(signature.hasEffect(dictionary.getEffectId("float : output11")));
+		assertFalse(signature.hasEffect(dictionary.getEffectId("int : input11")));
+	}
+	
 	/**
 	 * Tests addition of multiple services (search nodes) to an empty search graph.
 	 */
@@ -206,6 +234,181 @@ public class SearchGraphTests
 		assertEquals(actualOutput, expectedOutput);
 	}
 	
+	/**
+	 * Tests that predecessors are found through the producer index after the service layers of a search graph have been replaced,
+	 * and that they are assigned in the order of their layers.
+	 */
+	@Test
+	public void addSvcAfterReplacingLayers()
+	{
+		SearchGraph searchGraph = new SearchGraph(getMultiLayerGraph().getServiceLayers());
+		
+		//Service has predecessors in layers 0, 1 and 2. It should be added to a new layer 3.
+		ArrayList<String> inputs8 = new ArrayList<String>();
+		inputs8.addAll(Arrays.asList("char : output61", "float : output11"));
+		ArrayList<String> outputs8 = new ArrayList<String>();
+		outputs8.addAll(Arrays.asList("int : output81"));
+		Service service8 = new ConstrainedService(new BasicService("sname8", inputs8, outputs8), new ArrayList<Constraint>(), new ArrayList<String>());
+		searchGraph.addService(service8);
+		
+		String actualOutput = "";
+		for (SearchNode predecessor : searchGraph.getServiceLayer(3).get(0).getPredecessors())
+		{
+			actualOutput = actualOutput + predecessor.getService().getName() + " ";
+		}
+		
+		assertEquals(4, searchGraph.getServiceLayerCount());
+		assertEquals("sname1 sname7 sname6", actualOutput.trim());
+	}
+	
+	/**
+	 * Tests that the read-only views of a frozen search graph return the same search node objects on every call
+	 * and that a frozen search graph cannot be modified.
+	 */
+	@Test
+	public void frozenGraphViews()
+	{
+		SearchGraph searchGraph = getMultiLayerGraph().freeze();
+		
+		SearchNode searchNode = searchGraph.getServiceLayerView(2).get(0);
+		SearchNode predecessor = searchNode.getPredecessorView().get(1);
+		
+		assertTrue(searchGraph.getServiceLayersView().get(2).get(0) == searchNode);
+		assertTrue(searchGraph.getServiceLayerView(1).get(0) == predecessor);
+		assertTrue(predecessor.getSuccessorView().contains(searchNode));
+		
+		boolean additionRejected = false;
+		try
+		{
+			searchGraph.addService(searchNode.getService());
+		}
+		catch (IllegalStateException ise)
+		{
+			additionRejected = true;
+		}
+		assertTrue(additionRejected);
+		
+		boolean viewModificationRejected = false;
+		try
+		{
+			searchNode.getPredecessorView().clear();
+		}
+		catch (UnsupportedOperationException uoe)
+		{
+			viewModificationRejected = true;
+		}
+		assertTrue(viewModificationRejected);
+	}
+	
+	/**
+	 * Tests incremental insertion of services into a search graph, including the services enabled by the inserted ones.
+	 */
+	@Test
+	public void insertSvcsIncrementally()
+	{
+		Service service1 = createService("sname1", Arrays.asList("int : input11"), Arrays.asList("float : output11"));
+		Service service2 = createService("sname2", Arrays.asList("float : output11", "char : output41"), Arrays.asList("string : output21"));
+		Service service3 = createService("sname3", Arrays.asList("string : output21"), Arrays.asList("boolean : output31"));
+		Service service4 = createService("sname4", Arrays.asList("int : input11"), Arrays.asList("char : output41"));
+		Service service5 = createService("sname5", Arrays.asList("int : input11"), Arrays.asList("float : output11"));
+		Service service6 = createService("sname6", Arrays.asList("int : input11"), Arrays.asList("char : output41", "int : output61"));
+		
+		SearchGraph searchGraph = new SearchGraph();
+		searchGraph.addService(service1);
+		searchGraph.trackServices(Arrays.asList("int : input11"), Arrays.asList(service1, service2, service3));
+		
+		//Service 4 enables service 2, which in turn enables service 3
+		List<SearchNode> addedNodes = searchGraph.insertService(service4);
+		assertEquals(3, addedNodes.size());
+		assertTrue(addedNodes.get(1).getService() == service2);
+		
+		//Service 5 does not produce any new parameter
+		assertTrue(searchGraph.insertService(service5).isEmpty());
+		
+		//Service 6 produces a new parameter along with an input of the existing service 2
+		searchGraph.insertService(service6);
+		
+		String actualOutput = getSearchGraphDetails(searchGraph);
+		String expectedOutput = "Layer 0: Node 0 (sname1), Node 1 (sname4), Node 2 (sname6)" + "\n"
+								+ "Layer 1: Node 0 (sname2)" + "\n"
+								+ "Layer 2: Node 0 (sname3)";
+		assertEquals(actualOutput, expectedOutput);
+		
+		List<SearchNode> predecessors = searchGraph.getServiceLayers().get(1).get(0).getPredecessors();
+		assertEquals(3, predecessors.size());
+		assertTrue(predecessors.get(2).getService() == service6);
+	}
+	
+	/**
+	 * Tests incremental removal of services from a search graph, including the services that can no longer be invoked
+	 * and the services that replace them.
+	 */
+	@Test
+	public void removeSvcsIncrementally()
+	{
+		Service service1 = createService("sname1", Arrays.asList("int : input11"), Arrays.asList("float : output11"));
+		Service service2 = createService("sname2", Arrays.asList("float : output11", "char : output41"), Arrays.asList("string : output21"));
+		Service service3 = createService("sname3", Arrays.asList("string : output21"), Arrays.asList("boolean : output31"));
+		Service service4 = createService("sname4", Arrays.asList("int : input11"), Arrays.asList("char : output41"));
+		Service service5 = createService("sname5", Arrays.asList("int : input11"), Arrays.asList("float : output11"));
+		
+		SearchGraph searchGraph = new SearchGraph();
+		searchGraph.trackServices(Arrays.asList("int : input11"), new ArrayList<Service>());
+		for (Service service : Arrays.asList(service1, service2, service3, service4, service5))
+		{
+			searchGraph.insertService(service);
+		}
+		
+		//Service 5 replaces service 1, hence services 2 and 3 stay in the graph
+		List<Service> removedServices = searchGraph.removeService(service1);
+		assertEquals(1, removedServices.size());
+		assertTrue(removedServices.get(0) == service1);
+		
+		String actualOutput = getSearchGraphDetails(searchGraph);
+		String expectedOutput = "Layer 0: Node 0 (sname4), Node 1 (sname5)" + "\n"
+								+ "Layer 1: Node 0 (sname2)" + "\n"
+								+ "Layer 2: Node 0 (sname3)";
+		assertEquals(actualOutput, expectedOutput);
+		
+		//Services 2 and 3 can no longer be invoked without service 4
+		removedServices = searchGraph.removeService(service4);
+		assertEquals(3, removedServices.size());
+		assertEquals("Layer 0: Node 0 (sname5)", getSearchGraphDetails(searchGraph));
+		assertTrue(searchGraph.getServiceLayers().get(0).get(0).getSuccessors().isEmpty());
+		
+		//Services 2 and 3 are added back once service 4 is inserted again
+		assertEquals(3, searchGraph.insertService(service4).size());
+	}
+	
+	/**
+	 * Tests that services enabled together are offered to a search graph in the order in which they were tracked,
+	 * even if services tracked before them have been removed in the meantime.
+	 */
+	@Test
+	public void trackingOrderAfterRemoval()
+	{
+		Service service1 = createService("sname1", Arrays.asList("int : input11"), Arrays.asList("float : output11"));
+		Service service2 = createService("sname2", Arrays.asList("int : input11"), Arrays.asList("char : output21"));
+		Service service3 = createService("sname3", Arrays.asList("string : output51"), Arrays.asList("boolean : output31"));
+		Service service4 = createService("sname4", Arrays.asList("string : output51"), Arrays.asList("boolean : output31"));
+		Service service5 = createService("sname5", Arrays.asList("int : input11"), Arrays.asList("string : output51"));
+		
+		SearchGraph searchGraph = new SearchGraph();
+		searchGraph.trackServices(Arrays.asList("int : input11"), new ArrayList<Service>());
+		searchGraph.insertService(service1);
+		searchGraph.insertService(service2);
+		assertTrue(searchGraph.insertService(service3).isEmpty());
+		searchGraph.removeService(service1);
+		searchGraph.removeService(service2);
+		assertTrue(searchGraph.insertService(service4).isEmpty());
+		
+		//Service 5 enables services 3 and 4, which are added in the order in which they were tracked
+		List<SearchNode> addedNodes = searchGraph.insertService(service5);
+		assertEquals(3, addedNodes.size());
+		assertTrue(addedNodes.get(1).getService() == service3);
+		assertTrue(addedNodes.get(2).getService() == service4);
+	}
+	
 	/**
 	 * Fetches the service names for each layer in the search graph accepted as input.
 	 * @param	searchGraph	The search graph whose details need to be fetched
@@ -343,4 +546,17 @@ public class SearchGraphTests
 		
 		return searchGraph;
 	}
+	
+	/**
+	 * Creates a constrained service without any constraints.
+	 * @param 	name		Service name
+	 * @param 	inputs		Service inputs
+	 * @param 	outputs		Service outputs
+	 * @return	Service created
+	 */
+	private Service createService(String name, List<String> inputs, List<String> outputs)
+	{
+		return new ConstrainedService(new BasicService(name, new ArrayList<String>(inputs), new ArrayList<String>(outputs)), 
+										new ArrayList<Constraint>(), new ArrayList<String>(outputs));
+	}
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -24,6 +25,7 @@ import service.writer.ServiceFileWriterDecorator;
 import service.writer.ServiceSerializedWriter;
 import servicecomposition.compositionprocesses.ServiceComposition;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.CompositionResultCache;
 import servicecomposition.entities.ConstraintAwarePlan;
 import servicecomposition.entities.ServiceNode;
 import servicecomposition.readers.FileReqConfigReader;
@@ -115,6 +117,109 @@ public class ServiceCompositionTests
 		assertEquals(actualPlanDetails, expectedPlanDetails);
 	}
 	
+	/**
+	 * Tests that the streaming composition pipeline generates the same plans as the complete composition process
+	 * and that it can be stopped after the first few plans.
+	 */
+	@Test
+	public void firstServiceCompositions()
+	{
+		String actualLogFileName = "testinput/servicecompositiontests/serviceComposition/log.txt";
+		LogUtil logger = new LogUtil();
+		logger.setLogFileName(actualLogFileName);
+				
+		FileReqConfigReader configReader = new XMLFileReqConfigReader();
+		configReader.setConfigFileName("testinput/servicecompositiontests/serviceComposition/Request_Configuration.xml");
+		RequestConfiguration reqConfig = configReader.readReqConfig();
+		CompositionRequest compRequest = ServiceComposition.constructCompositionRequest(reqConfig, logger);
+		
+		List<String> expectedPlanDetails = new ArrayList<String>();
+		for (ConstraintAwarePlan cnstrAwrPlan : ServiceComposition.buildServiceCompositions(compRequest, reqConfig.getRepoFileName(), logger))
+		{
+			expectedPlanDetails.add(cnstrAwrPlan.toString());
+		}
+		
+		List<String> streamedPlanDetails = new ArrayList<String>();
+		ServiceComposition.streamServiceCompositions(compRequest, reqConfig.getRepoFileName(), logger)
+							.forEach(cnstrAwrPlan -> streamedPlanDetails.add(cnstrAwrPlan.toString()));
+		
+		List<String> firstPlanDetails = new ArrayList<String>();
+		for (ConstraintAwarePlan cnstrAwrPlan : ServiceComposition.buildFirstServiceCompositions(compRequest, reqConfig.getRepoFileName(), logger, 3))
+		{
+			firstPlanDetails.add(cnstrAwrPlan.toString());
+		}
+		
+		File actualLogFile = new File(actualLogFileName);
+		boolean logGenerated = (!(actualLogFile.length() == 0));
+		
+		//Plan order depends on the hash order of the search nodes created for every run, hence the plans are compared after sorting
+		Collections.sort(expectedPlanDetails);
+		Collections.sort(streamedPlanDetails);
+		
+		assertFalse(logGenerated);
+		assertEquals(15, expectedPlanDetails.size());
+		assertEquals(expectedPlanDetails, streamedPlanDetails);
+		assertEquals(3, firstPlanDetails.size());
+		assertTrue(expectedPlanDetails.containsAll(firstPlanDetails));
+	}
+	
+	/**
+	 * Tests that a batch of composition requests sharing input sets generates the same plans as the requests processed one at a time.
+	 */
+	@Test
+	public void batchServiceCompositions()
+	{
+		String actualLogFileName = "testinput/servicecompositiontests/serviceComposition/log.txt";
+		LogUtil logger = new LogUtil();
+		logger.setLogFileName(actualLogFileName);
+		
+		FileReqConfigReader configReader = new XMLFileReqConfigReader();
+		configReader.setConfigFileName("testinput/servicecompositiontests/serviceComposition/Request_Configuration.xml");
+		RequestConfiguration reqConfig = configReader.readReqConfig();
+		CompositionRequest compRequest = ServiceComposition.constructCompositionRequest(reqConfig, logger);
+		
+		//Same request with reordered inputs, another set of inputs and an output that cannot be produced
+		List<String> reorderedInputs = new ArrayList<String>(compRequest.getInputs());
+		Collections.reverse(reorderedInputs);
+		List<CompositionRequest> compRequests = new ArrayList<CompositionRequest>();
+		compRequests.add(compRequest);
+		compRequests.add(new CompositionRequest(reorderedInputs, compRequest.getOutputs(), compRequest.getQos(), compRequest.getConstraints()));
+		compRequests.add(new CompositionRequest(compRequest.getInputs().subList(0, 1), compRequest.getOutputs(), compRequest.getQos(), compRequest.getConstraints()));
+		compRequests.add(new CompositionRequest(compRequest.getInputs(), Collections.singletonList("string : UnknownOutput"), compRequest.getQos(), 
+												compRequest.getConstraints()));
+		
+		List<List<ConstraintAwarePlan>> batchPlans = ServiceComposition.buildServiceCompositions(compRequests, reqConfig.getRepoFileName(), logger, 4);
+		assertEquals(compRequests.size(), batchPlans.size());
+		for (int i = 0; i < compRequests.size(); i++)
+		{
+			List<ConstraintAwarePlan> expectedPlans = ServiceComposition.buildServiceCompositions(compRequests.get(i), reqConfig.getRepoFileName(), logger);
+			if (expectedPlans == null)
+			{
+				assertNull(batchPlans.get(i));
+				continue;
+			}
+			
+			List<String> expectedPlanDetails = new ArrayList<String>();
+			for (ConstraintAwarePlan cnstrAwrPlan : expectedPlans)
+			{
+				expectedPlanDetails.add(cnstrAwrPlan.toString());
+			}
+			Collections.sort(expectedPlanDetails);
+			
+			List<String> batchPlanDetails = new ArrayList<String>();
+			for (ConstraintAwarePlan cnstrAwrPlan : batchPlans.get(i))
+			{
+				batchPlanDetails.add(cnstrAwrPlan.toString());
+			}
+			Collections.sort(batchPlanDetails);
+			
+			assertEquals(expectedPlanDetails, batchPlanDetails);
+		}
+		
+		assertEquals(15, batchPlans.get(1).size());
+		assertNull(batchPlans.get(3));
+	}
+	
 	/**
 	 * Tests failure of service composition process if a valid composition request cannot be created.
 	 */
@@ -440,6 +545,52 @@ public class ServiceCompositionTests
 		assertFalse(logGenerated);
 	}
 	
+	/**
+	 * Tests that composite services are named after their content, so that identical composite services are stored only once.
+	 */
+	@Test
+	public void compositeServiceIdentity() throws IOException
+	{
+		FileReqConfigReader configReader = new XMLFileReqConfigReader();
+		configReader.setConfigFileName("testinput/servicecompositiontests/compositeServiceCreation/Request_Configuration.xml");
+		RequestConfiguration reqConfig = configReader.readReqConfig();
+		CompositionRequest compRequest = ServiceComposition.constructCompositionRequest(reqConfig, new LogUtil());
+		
+		//Composing the same request twice without reusing cached plans
+		CompositionResultCache.getSharedCache().clear();
+		List<ConstraintAwarePlan> cnstrAwrPlans = ServiceComposition.buildServiceCompositions(compRequest, reqConfig.getRepoFileName(), new LogUtil());
+		CompositionResultCache.getSharedCache().clear();
+		List<ConstraintAwarePlan> recomposedPlans = ServiceComposition.buildServiceCompositions(compRequest, reqConfig.getRepoFileName(), new LogUtil());
+		
+		Service layeredCS = CompSvcStorageUtil.createCompositeService(compRequest, cnstrAwrPlans.get(0));
+		Service recomposedCS = CompSvcStorageUtil.createCompositeService(compRequest, recomposedPlans.get(0));
+		assertTrue(cnstrAwrPlans.get(0) != recomposedPlans.get(0));
+		assertEquals(layeredCS.getName(), recomposedCS.getName());
+		
+		//A different request served by the same plan creates a different composite service
+		List<String> outputs = new ArrayList<String>(compRequest.getOutputs());
+		outputs.add("string : ExtraOutput");
+		CompositionRequest otherRequest = new CompositionRequest(compRequest.getInputs(), outputs, compRequest.getQos(), compRequest.getConstraints());
+		assertFalse(layeredCS.getName().equals(CompSvcStorageUtil.createCompositeService(otherRequest, cnstrAwrPlans.get(0)).getName()));
+		
+		//Storing the recomposed service does not add another copy to the repository
+		File repoFile = File.createTempFile("Test_CS_Identity", ".txt");
+		repoFile.deleteOnExit();
+		ServiceFileWriterDecorator serialSvcWriter = new ServiceSerializedWriter(new BasicServiceWriter());
+		serialSvcWriter.setLocation(repoFile.getPath());
+		serialSvcWriter.write(new ArrayList<Service>());
+		
+		ArrayList<Service> compSvcs = new ArrayList<Service>();
+		compSvcs.add(layeredCS);
+		CompSvcStorageUtil.writeCSToSerialSvcRepo(compSvcs, repoFile.getPath());
+		compSvcs.set(0, recomposedCS);
+		CompSvcStorageUtil.writeCSToSerialSvcRepo(compSvcs, repoFile.getPath());
+		
+		ServiceFileParserDecorator serialSvcParser = new ServiceSerializedParser(new BasicServiceParser());
+		serialSvcParser.setLocation(repoFile.getPath());
+		assertEquals(1, serialSvcParser.parse().size());
+	}
+	
 	/**
 	 * Tests that a composite service created for a composition request can be stored in an existing
 	 * repository and used as an atomic service for future configurations.
@@ -0,0 +1,136 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import service.ConstrainedService;
+import service.Service;
+import servicecomposition.entities.ServiceRepository;
+
+/**
+ * Class for testing the loading, indexing and reloading of shared service repositories.
+ * @author agent
+ */
+public class ServiceRepositoryTests
+{
+	/**
+	 * Tests that the services of a repository are indexed by name, input, output and effect in the order of the repository file.
+	 */
+	@Test
+	public void serviceIndexing()
+	{
+		ServiceRepository repository = new ServiceRepository("testinput/servicerepos/Test_Services_Set_3.xml");
+		List<Service> services = repository.getServices();
+		assertEquals(31, services.size());
+		assertTrue(repository.getService("W3") == services.get(2));
+		assertEquals(null, repository.getService("W100"));
+		
+		//Comparing the indexes with a scan of the repository
+		List<Service> consumers = new ArrayList<Service>();
+		List<Service> producers = new ArrayList<Service>();
+		List<Service> affecters = new ArrayList<Service>();
+		for (Service service : services)
+		{
+			if (service.getInput().contains("int : ProductNumber"))
+			{
+				consumers.add(service);
+			}
+			if (service.getOutput().contains("int : ProductNumber"))
+			{
+				producers.add(service);
+			}
+			if (((ConstrainedService) service).getEffects().contains("string : ShipmentConfirm"))
+			{
+				affecters.add(service);
+			}
+		}
+		
+		assertTrue(consumers.size() > 1);
+		assertEquals(consumers, repository.getServicesByInput("int : ProductNumber"));
+		assertEquals(producers, repository.getServicesByOutput("int : ProductNumber"));
+		assertEquals(affecters, repository.getServicesByEffect("string : ShipmentConfirm"));
+		assertTrue(repository.getServicesByInput("int : UnknownParameter").isEmpty());
+		assertEquals(1, repository.getLoadCount());
+	}
+	
+	/**
+	 * Tests that a repository is read only once while its file is unchanged and is reloaded when the file changes.
+	 */
+	@Test
+	public void repositoryReload() throws IOException
+	{
+		File repoFile = File.createTempFile("Test_Services_Reload", ".xml");
+		repoFile.deleteOnExit();
+		Files.copy(Paths.get("testinput/servicerepos/Test_Services_Set_1.xml"), repoFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		ServiceRepository repository = ServiceRepository.getSharedRepository(repoFile.getPath());
+		assertTrue(repository == ServiceRepository.getSharedRepository(repoFile.getAbsolutePath()));
+		assertEquals(11, repository.getServices().size());
+		assertEquals(11, repository.getServices().size());
+		assertEquals(1, repository.getLoadCount());
+		
+		//Replacing the repository file with a different repository
+		Files.copy(Paths.get("testinput/servicerepos/Test_Services_Set_2.xml"), repoFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		assertEquals(13, repository.getServices().size());
+		assertEquals(2, repository.getLoadCount());
+		
+		//Forcing a reload without changing the file
+		repository.invalidate();
+		assertEquals(13, repository.getServices().size());
+		assertEquals(3, repository.getLoadCount());
+		
+		//Renaming a service without changing the modification time or the size of the file, which was read right after it was modified
+		long modifiedTime = repoFile.lastModified();
+		String repoContent = new String(Files.readAllBytes(repoFile.toPath()), StandardCharsets.UTF_8);
+		assertTrue(repository.getService("sname1") != null);
+		Files.write(repoFile.toPath(), repoContent.replace("\"sname1\"", "\"snameX\"").getBytes(StandardCharsets.UTF_8));
+		assertTrue(repoFile.setLastModified(modifiedTime));
+		
+		//The content is compared only once the resolution of modification times has passed
+		if (System.currentTimeMillis() <= modifiedTime + ServiceRepository.MODIFIED_TIME_RESOLUTION)
+		{
+			assertTrue(repository.getService("sname1") != null);
+			assertEquals(3, repository.getLoadCount());
+		}
+		waitUntil(modifiedTime + ServiceRepository.MODIFIED_TIME_RESOLUTION + 1);
+		assertEquals(null, repository.getService("sname1"));
+		assertTrue(repository.getService("snameX") != null);
+		assertEquals(4, repository.getLoadCount());
+		
+		//The content of a file whose modification time is old enough is not compared again
+		Files.write(repoFile.toPath(), repoContent.getBytes(StandardCharsets.UTF_8));
+		assertTrue(repoFile.setLastModified(modifiedTime));
+		assertTrue(repository.getService("snameX") != null);
+		assertEquals(4, repository.getLoadCount());
+	}
+	
+	/**
+	 * Method for pausing the test until the given time has passed.
+	 * @param 	time	Time in milliseconds since the epoch
+	 */
+	private static void waitUntil(long time)
+	{
+		long waitTime = time - System.currentTimeMillis();
+		while (waitTime >= 0)
+		{
+			try
+			{
+				Thread.sleep(waitTime + 1);
+			}
+			catch(InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			waitTime = time - System.currentTimeMillis();
+		}
+	}
+}
\ No newline at end of file
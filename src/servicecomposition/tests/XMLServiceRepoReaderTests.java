@@ -0,0 +1,78 @@
+package servicecomposition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import constraint.Constraint;
+import service.ConstrainedService;
+import service.Service;
+import service.parser.BasicServiceParser;
+import service.parser.ConstrainedServiceXMLParser;
+import service.parser.ServiceFileParserDecorator;
+import servicecomposition.readers.XMLServiceRepoReader;
+
+/**
+ * Class for testing the streaming reader of XML service repositories.
+ * @author agent
+ */
+public class XMLServiceRepoReaderTests
+{
+	/**
+	 * Tests that the streaming reader reads the same services as the DOM-based service parser for all the test repositories.
+	 */
+	@Test
+	public void sameServicesAsDOMParser()
+	{
+		File[] repoFiles = new File("testinput/servicerepos").listFiles((folder, fileName) -> fileName.endsWith(".xml"));
+		for (File repoFile : repoFiles)
+		{
+			ServiceFileParserDecorator xmlSvcParser = new ConstrainedServiceXMLParser(new BasicServiceParser());
+			xmlSvcParser.setLocation(repoFile.getPath());
+			List<String> expectedDetails = getServiceDetails(xmlSvcParser.parse());
+			List<String> actualDetails = getServiceDetails(XMLServiceRepoReader.readServices(repoFile.getPath()));
+			
+			assertEquals(expectedDetails, actualDetails);
+		}
+	}
+	
+	/**
+	 * Tests that services are streamed to the consumer one at a time and that unreadable repositories are reported.
+	 */
+	@Test
+	public void streamServices()
+	{
+		List<String> serviceNames = new ArrayList<String>();
+		XMLServiceRepoReader.readServices("testinput/servicerepos/Test_Services_Set_3.xml", service -> serviceNames.add(service.getName()));
+		assertEquals("W1", serviceNames.get(0));
+		assertEquals(XMLServiceRepoReader.readServices("testinput/servicerepos/Test_Services_Set_3.xml").size(), serviceNames.size());
+		
+		assertNull(XMLServiceRepoReader.readServices("testinput/servicerepos/Missing_Repository.xml"));
+	}
+	
+	/**
+	 * Fetches the details of every service in a list of constrained services.
+	 * @param 	services	List of constrained services
+	 * @return	List of strings containing the name, inputs, outputs, constraints and effects of each service
+	 */
+	private List<String> getServiceDetails(List<Service> services)
+	{
+		List<String> serviceDetails = new ArrayList<String>();
+		for (Service service : services)
+		{
+			ConstrainedService cnstrdService = (ConstrainedService) service;
+			String details = cnstrdService.getName() + " " + cnstrdService.getInput() + " " + cnstrdService.getOutput() + " [";
+			for (Constraint constraint : cnstrdService.getConstraints())
+			{
+				details += constraint.getServiceName() + " " + constraint.getType() + " " + constraint.getOperator()
+							+ " " + constraint.getLiteralValue() + ", ";
+			}
+			details += "] " + cnstrdService.getEffects();
+			serviceDetails.add(details);
+		}
+		
+		return serviceDetails;
+	}
+}
\ No newline at end of file
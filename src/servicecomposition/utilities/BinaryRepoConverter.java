@@ -0,0 +1,272 @@
+package servicecomposition.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import constraint.Constraint;
+import service.ConstrainedService;
+import service.Service;
+import service.parser.BasicServiceParser;
+import service.parser.ServiceFileParserDecorator;
+import service.parser.ServiceSerializedParser;
+import servicecomposition.readers.BinaryServiceRepoReader;
+import servicecomposition.readers.XMLServiceRepoReader;
+
+/**
+ * Utility class for converting XML (.xml), serialized Java object (.txt) and composite service log (.cslog) repositories
+ * into binary service repositories (.bsr, see BinaryServiceRepoReader for the format).
+ * XML repositories are streamed, and only the string table and the integer records of the services are kept in memory while converting.
+ * Composite services are converted into the constrained services they expose, without their composition plans,
+ * hence binary repositories are meant for service composition and not for the translation of composite services.
+ * @author agent
+ */
+public class BinaryRepoConverter
+{
+	private Map<String, Integer> stringIds;
+	private int[] records;
+	private int recordLength;
+	private int[] sections;
+	private int sectionLength;
+	private int serviceCount;
+	
+	/**
+	 * Default constructor.
+	 */
+	private BinaryRepoConverter()
+	{
+		stringIds = new LinkedHashMap<String, Integer>();
+		records = new int[1024];
+		sections = new int[4096];
+	}
+	
+	/**
+	 * Method for converting a service repository into a binary service repository.
+	 * @param 	srcRepoFileName		Complete name and path of the XML, serialized Java object or composite service log repository
+	 * @param 	destRepoFileName	Complete name and path of the binary repository to be created
+	 * @return	true, if the repository was converted
+	 * 			false, otherwise
+	 */
+	public static boolean convert(String srcRepoFileName, String destRepoFileName)
+	{
+		BinaryRepoConverter converter = new BinaryRepoConverter();
+		if (srcRepoFileName.endsWith(".xml"))
+		{
+			if (!(XMLServiceRepoReader.readServices(srcRepoFileName, converter::addService)))
+			{
+				return false;
+			}
+		}
+		else
+		{
+			ArrayList<Service> services = null;
+			if (CompSvcLogStore.isLogFile(srcRepoFileName))
+			{
+				services = CompSvcLogStore.getStore(srcRepoFileName).readAll();
+			}
+			else if (srcRepoFileName.endsWith(".txt"))
+			{
+				ServiceFileParserDecorator svcParser = new ServiceSerializedParser(new BasicServiceParser());
+				svcParser.setLocation(srcRepoFileName);
+				services = svcParser.parse();
+			}
+			if (services == null)
+			{
+				System.out.println("Exception while converting the service repository: " + srcRepoFileName + " cannot be read");
+				return false;
+			}
+			for (Service service : services)
+			{
+				converter.addService(service);
+			}
+		}
+		
+		try
+		{
+			converter.write(destRepoFileName);
+			return true;
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while writing the binary service repository: " + ioe.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Method for adding the record and section of a service.
+	 * @param 	service		Individual or composite service
+	 */
+	private void addService(Service service)
+	{
+		List<Constraint> constraints = new ArrayList<Constraint>();
+		List<String> effects = new ArrayList<String>();
+		//Composite services expose the constraints and effects of their inner constrained service
+		Service innerService = (service instanceof ConstrainedService) ? service : service.getInnerService();
+		if (innerService instanceof ConstrainedService)
+		{
+			constraints = ((ConstrainedService) innerService).getConstraints();
+			effects = ((ConstrainedService) innerService).getEffects();
+		}
+		
+		List<String> inputs = service.getInput();
+		List<String> outputs = service.getOutput();
+		appendRecord(getStringId(service.getName()), sectionLength, inputs.size(), outputs.size(), constraints.size(), effects.size());
+		for (String input : inputs)
+		{
+			appendSection(getStringId(input));
+		}
+		for (String output : outputs)
+		{
+			appendSection(getStringId(output));
+		}
+		for (Constraint constraint : constraints)
+		{
+			appendSection(getStringId(constraint.getServiceName()));
+			appendSection(getStringId(String.valueOf(constraint.getLiteralValue())));
+			appendSection(getStringId(constraint.getType()));
+			appendSection(constraint.getOperator().ordinal());
+		}
+		for (String effect : effects)
+		{
+			appendSection(getStringId(effect));
+		}
+		serviceCount++;
+	}
+	
+	/**
+	 * Method for writing the binary repository file.
+	 * The header is followed by the service records, the service sections, the string offsets and the strings.
+	 * @param 	destRepoFileName	Complete name and path of the binary repository to be created
+	 */
+	private void write(String destRepoFileName) throws IOException
+	{
+		long recordsSlot = BinaryServiceRepoReader.HEADER_SLOTS;
+		long sectionsSlot = recordsSlot + recordLength;
+		long stringOffsetsSlot = sectionsSlot + sectionLength;
+		long stringsSlot = stringOffsetsSlot + stringIds.size();
+		
+		//Encoding the strings to find their positions
+		List<byte[]> stringBytes = new ArrayList<byte[]>(stringIds.size());
+		int[] stringSlots = new int[stringIds.size()];
+		long stringSlot = stringsSlot;
+		for (String string : stringIds.keySet())
+		{
+			byte[] encodedString = string.getBytes(StandardCharsets.UTF_8);
+			stringSlots[stringBytes.size()] = (int) stringSlot;
+			stringBytes.add(encodedString);
+			stringSlot += 1 + ((encodedString.length + 3) / 4);
+		}
+		if (stringSlot > 0xFFFFFFFFL)
+		{
+			throw new IOException("The repository is too large for the binary repository format");
+		}
+		
+		try (DataOutputStream repoOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(destRepoFileName), 1 << 16)))
+		{
+			int[] header = {BinaryServiceRepoReader.MAGIC, BinaryServiceRepoReader.VERSION, serviceCount, stringIds.size(),
+							(int) recordsSlot, (int) sectionsSlot, (int) stringOffsetsSlot, 0};
+			writeInts(repoOutput, header, header.length);
+			
+			//Section positions are recorded relative to the start of the sections while adding services
+			for (int i = 0; i < recordLength; i += BinaryServiceRepoReader.RECORD_SLOTS)
+			{
+				records[i + 1] += (int) sectionsSlot;
+			}
+			writeInts(repoOutput, records, recordLength);
+			writeInts(repoOutput, sections, sectionLength);
+			writeInts(repoOutput, stringSlots, stringSlots.length);
+			
+			byte[] padding = new byte[3];
+			for (byte[] encodedString : stringBytes)
+			{
+				repoOutput.writeInt(encodedString.length);
+				repoOutput.write(encodedString);
+				repoOutput.write(padding, 0, (4 - (encodedString.length % 4)) % 4);
+			}
+		}
+	}
+	
+	/**
+	 * Method for fetching the ID of a string, adding it to the string table if it is new.
+	 * @param 	string	String
+	 * @return	String ID
+	 */
+	private int getStringId(String string)
+	{
+		Integer stringId = stringIds.get(string);
+		if (stringId == null)
+		{
+			stringId = stringIds.size();
+			stringIds.put(string, stringId);
+		}
+		
+		return stringId;
+	}
+	
+	/**
+	 * Method for appending a fixed-width service record.
+	 * @param 	values	Name ID, section position, and input, output, constraint and effect counts
+	 */
+	private void appendRecord(int... values)
+	{
+		if (recordLength + values.length > records.length)
+		{
+			records = Arrays.copyOf(records, Math.max(records.length * 2, recordLength + values.length));
+		}
+		System.arraycopy(values, 0, records, recordLength, values.length);
+		recordLength += values.length;
+	}
+	
+	/**
+	 * Method for appending a value to the service sections.
+	 * @param 	value	String ID or operator ordinal
+	 */
+	private void appendSection(int value)
+	{
+		if (sectionLength == sections.length)
+		{
+			sections = Arrays.copyOf(sections, sections.length * 2);
+		}
+		sections[sectionLength++] = value;
+	}
+	
+	/**
+	 * Method for writing integers to the repository file.
+	 * @param 	repoOutput	Repository file
+	 * @param 	values		Integers to be written
+	 * @param 	count		Number of integers to be written
+	 */
+	private static void writeInts(DataOutputStream repoOutput, int[] values, int count) throws IOException
+	{
+		for (int i = 0; i < count; i++)
+		{
+			repoOutput.writeInt(values[i]);
+		}
+	}
+	
+	/**
+	 * Method for converting a service repository from the command line.
+	 * @param 	args	Source repository file name and binary repository file name
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 2)
+		{
+			System.out.println("Usage: BinaryRepoConverter <source .xml/.txt/.cslog repository> <destination .bsr repository>");
+			return;
+		}
+		
+		long startTime = System.currentTimeMillis();
+		if (convert(args[0], args[1]))
+		{
+			System.out.println("Converted " + args[0] + " to " + args[1] + " in " + (System.currentTimeMillis() - startTime) + " ms.");
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,858 @@
+package servicecomposition.utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import service.Service;
+
+/**
+ * Class representing an append-only store of composite services (.cslog repository file).
+ * Every service is written as its own length-prefixed record at the end of the log file, and a sidecar index file (.cslog.idx)
+ * maps service names to the positions of their latest records. Hence, storing or reading a service only accesses the records
+ * involved instead of parsing and rewriting the whole repository as the serialized repository format (.txt) requires.
+ * Storing a service with the name of an existing one replaces it, and removing a service appends a tombstone record.
+ * The space occupied by replaced and removed services is reclaimed by compaction, which rewrites the live records to a new log file.
+ * Compaction is started in the background once the replaced records occupy more space than the live ones.
+ * All the operations on a store are serialized by an exclusive lock on a sidecar lock file (.cslog.lock), released when the lock file
+ * is closed, so that stores opened by different processes do not lose each other's updates. As compaction holds the lock while
+ * it copies the live records, reads and appends wait for a running compaction to finish.
+ * Records left incomplete by an interrupted append are discarded,
+ * and the index is rebuilt from the log file if it is missing or does not belong to the current log file.
+ * @author agent
+ */
+public class CompSvcLogStore
+{
+	private static final int LOG_MAGIC = 0x43534C47;
+	private static final int INDEX_MAGIC = 0x43534958;
+	private static final int HEADER_LENGTH = 12;
+	private static final byte SERVICE_RECORD = 0;
+	private static final byte TOMBSTONE_RECORD = 1;
+	private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+	private static final Map<String, CompSvcLogStore> sharedStores = new ConcurrentHashMap<String, CompSvcLogStore>();
+	private static final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable ->
+	{
+		Thread compactionThread = new Thread(runnable, "CompSvcLogStore-compaction");
+		compactionThread.setDaemon(true);
+		return compactionThread;
+	});
+	private File logFile;
+	private File indexFile;
+	private File lockFile;
+	private boolean indexLoaded;
+	private long generation;
+	private long indexLength;
+	private long indexedLogLength;
+	private long liveBytes;
+	private long deadBytes;
+	private Map<String, long[]> recordPositions;
+	private Future<Boolean> pendingCompaction;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	logFileName		Complete name and path of the log file
+	 */
+	private CompSvcLogStore(String logFileName)
+	{
+		this.logFile = new File(logFileName);
+		this.indexFile = new File(logFileName + ".idx");
+		this.lockFile = new File(logFileName + ".lock");
+		this.indexLoaded = false;
+		this.recordPositions = new HashMap<String, long[]>();
+	}
+	
+	/**
+	 * Method for fetching the store shared by all the users of a log file within this process.
+	 * @param 	logFileName		Complete name and path of the log file
+	 * @return	Shared store for the file
+	 */
+	public static CompSvcLogStore getStore(String logFileName)
+	{
+		String storeKey = new File(logFileName).getAbsolutePath();
+		return sharedStores.computeIfAbsent(storeKey, key -> new CompSvcLogStore(logFileName));
+	}
+	
+	/**
+	 * Method for checking if a repository file is a composite service log file.
+	 * @param 	repoFileName	Name of the repository file
+	 * @return	true, if the file is a composite service log file
+	 * 			false, otherwise
+	 */
+	public static boolean isLogFile(String repoFileName)
+	{
+		return repoFileName.endsWith(".cslog");
+	}
+	
+	/**
+	 * Method for appending services to the store. Services replace the stored services having the same names.
+	 * @param 	services	List of services to be appended
+	 * @return	true, if all the services were appended
+	 * 			false, otherwise
+	 */
+	public synchronized boolean append(List<? extends Service> services)
+	{
+		return (appendServices(services, false) != null);
+	}
+	
+	/**
+	 * Method for appending the services whose names are not stored yet. Services having the names of stored services
+	 * (or of services appearing earlier in the list) are skipped, hence content-addressed services are stored only once.
+	 * @param 	services	List of services to be appended
+	 * @return	List of the services appended
+	 * 			Null, if the services could not be appended
+	 */
+	public synchronized List<Service> appendAbsent(List<? extends Service> services)
+	{
+		return appendServices(services, true);
+	}
+	
+	/**
+	 * Method for appending services to the store while holding the store lock.
+	 * @param 	services		List of services to be appended
+	 * @param 	skipStored		Whether services having the names of stored services are to be skipped
+	 * @return	List of the services appended
+	 * 			Null, if the services could not be appended
+	 */
+	private List<Service> appendServices(List<? extends Service> services, boolean skipStored)
+	{
+		List<Service> appendedServices = new ArrayList<Service>();
+		try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"))
+		{
+			lockAccess.getChannel().lock();
+			refresh();
+			Set<String> appendedNames = new HashSet<String>();
+			List<byte[]> records = new ArrayList<byte[]>();
+			for (Service service : services)
+			{
+				if ((skipStored) && ((recordPositions.containsKey(service.getName())) || (!(appendedNames.add(service.getName())))))
+				{
+					continue;
+				}
+				records.add(createRecord(SERVICE_RECORD, service.getName(), serialize(service)));
+				appendedServices.add(service);
+			}
+			if (!(records.isEmpty()))
+			{
+				appendRecords(records);
+			}
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while appending to the composite service log: " + ioe.getMessage());
+			return null;
+		}
+		
+		scheduleCompaction();
+		return appendedServices;
+	}
+	
+	/**
+	 * Method for removing a service from the store.
+	 * @param 	serviceName		Name of the service to be removed
+	 * @return	true, if the service was stored and has been removed
+	 * 			false, otherwise
+	 */
+	public synchronized boolean remove(String serviceName)
+	{
+		try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"))
+		{
+			lockAccess.getChannel().lock();
+			refresh();
+			if (!(recordPositions.containsKey(serviceName)))
+			{
+				return false;
+			}
+			
+			List<byte[]> records = new ArrayList<byte[]>();
+			records.add(createRecord(TOMBSTONE_RECORD, serviceName, new byte[0]));
+			appendRecords(records);
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while removing from the composite service log: " + ioe.getMessage());
+			return false;
+		}
+		
+		scheduleCompaction();
+		return true;
+	}
+	
+	/**
+	 * Method for reading a single service from the store. Only the record of the service is read from the log file.
+	 * @param 	serviceName		Name of the target service
+	 * @return	Target service object, if it is stored
+	 * 			Null, otherwise
+	 */
+	public synchronized Service read(String serviceName)
+	{
+		try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"))
+		{
+			lockAccess.getChannel().lock();
+			refresh();
+			long[] recordPosition = recordPositions.get(serviceName);
+			if (recordPosition == null)
+			{
+				return null;
+			}
+			
+			try (RandomAccessFile logAccess = new RandomAccessFile(logFile, "r"))
+			{
+				return deserialize(readValidRecord(logAccess, recordPosition).payload);
+			}
+		}
+		catch(IOException | ClassNotFoundException e)
+		{
+			System.out.println("Exception while reading from the composite service log: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Method for reading all the services in the store, in the order in which their latest records were appended.
+	 * @return	List of all the stored services
+	 * 			Null, if the store cannot be read
+	 */
+	public synchronized ArrayList<Service> readAll()
+	{
+		try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"))
+		{
+			lockAccess.getChannel().lock();
+			refresh();
+			ArrayList<Service> services = new ArrayList<Service>();
+			if (recordPositions.isEmpty())
+			{
+				return services;
+			}
+			
+			try (RandomAccessFile logAccess = new RandomAccessFile(logFile, "r"))
+			{
+				for (long[] recordPosition : getOrderedPositions().values())
+				{
+					services.add(deserialize(readValidRecord(logAccess, recordPosition).payload));
+				}
+			}
+			
+			return services;
+		}
+		catch(IOException | ClassNotFoundException e)
+		{
+			System.out.println("Exception while reading from the composite service log: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Method for fetching the names of all the services in the store.
+	 * @return	List of the names of the stored services
+	 */
+	public synchronized List<String> getServiceNames()
+	{
+		try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"))
+		{
+			lockAccess.getChannel().lock();
+			refresh();
+			return new ArrayList<String>(recordPositions.keySet());
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while reading the composite service log index: " + ioe.getMessage());
+			return new ArrayList<String>();
+		}
+	}
+	
+	/**
+	 * Method for reclaiming the space occupied by replaced and removed services.
+	 * The live records are copied to a new log file along with a new index, which then replace the current ones.
+	 * The whole log file is copied while holding the store lock, hence all the reads and appends of the store, including those
+	 * of other processes, wait until the compaction has finished. Compaction is therefore started only once the dead records
+	 * outweigh the live ones, and should otherwise be run when the store is idle.
+	 * @return	true, if the store was compacted
+	 * 			false, otherwise
+	 */
+	public synchronized boolean compact()
+	{
+		try (RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw"))
+		{
+			lockAccess.getChannel().lock();
+			refresh();
+			if (!(logFile.exists()))
+			{
+				return false;
+			}
+			
+			//Copying the live records to the new log file, in the order in which they were appended
+			long newGeneration = generation + 1;
+			File newLogFile = new File(logFile.getPath() + ".compact");
+			File newIndexFile = new File(indexFile.getPath() + ".compact");
+			Map<String, long[]> newPositions = new HashMap<String, long[]>();
+			try (RandomAccessFile logAccess = new RandomAccessFile(logFile, "r");
+					DataOutputStream logOutput = new DataOutputStream(Files.newOutputStream(newLogFile.toPath()));
+					DataOutputStream indexOutput = new DataOutputStream(Files.newOutputStream(newIndexFile.toPath())))
+			{
+				writeHeader(logOutput, LOG_MAGIC, newGeneration);
+				writeHeader(indexOutput, INDEX_MAGIC, newGeneration);
+				long offset = HEADER_LENGTH;
+				for (Map.Entry<String, long[]> recordPosition : getOrderedPositions().entrySet())
+				{
+					byte[] record = new byte[(int) recordPosition.getValue()[1]];
+					logAccess.seek(recordPosition.getValue()[0]);
+					logAccess.readFully(record);
+					logOutput.write(record);
+					writeIndexEntry(indexOutput, SERVICE_RECORD, recordPosition.getKey(), offset, record.length);
+					newPositions.put(recordPosition.getKey(), new long[] {offset, record.length});
+					offset += record.length;
+				}
+			}
+			
+			//The log file is replaced first, so that an interruption leaves an index of an older generation, which is then rebuilt
+			Files.move(newLogFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.move(newIndexFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			
+			generation = newGeneration;
+			recordPositions = newPositions;
+			indexLength = indexFile.length();
+			indexedLogLength = logFile.length();
+			liveBytes = indexedLogLength - HEADER_LENGTH;
+			deadBytes = 0;
+			return true;
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while compacting the composite service log: " + ioe.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Method for compacting the store on a background thread.
+	 * @return	Future result of the compaction
+	 */
+	public synchronized Future<Boolean> compactInBackground()
+	{
+		if ((pendingCompaction == null) || (pendingCompaction.isDone()))
+		{
+			pendingCompaction = compactionExecutor.submit(this::compact);
+		}
+		
+		return pendingCompaction;
+	}
+	
+	/**
+	 * Method for fetching the space occupied by the records of the stored services.
+	 * @return	Size of the live records in bytes
+	 */
+	public synchronized long getLiveBytes()
+	{
+		return liveBytes;
+	}
+	
+	/**
+	 * Method for fetching the space occupied by the records of replaced and removed services, which can be reclaimed by compaction.
+	 * @return	Size of the dead records in bytes
+	 */
+	public synchronized long getDeadBytes()
+	{
+		return deadBytes;
+	}
+	
+	/**
+	 * Method for starting a background compaction if the dead records occupy more space than the live ones.
+	 */
+	private void scheduleCompaction()
+	{
+		if ((deadBytes >= MIN_COMPACTION_BYTES) && (deadBytes > liveBytes))
+		{
+			compactInBackground();
+		}
+	}
+	
+	/**
+	 * Method for bringing the in-memory index up to date with the log and index files, which can have been updated by other processes.
+	 * Must be called while holding the store lock.
+	 */
+	private void refresh() throws IOException
+	{
+		if (!(logFile.exists()))
+		{
+			resetIndex(0);
+			return;
+		}
+		
+		long logGeneration;
+		try (DataInputStream logInput = new DataInputStream(Files.newInputStream(logFile.toPath())))
+		{
+			logGeneration = readHeader(logInput, LOG_MAGIC);
+		}
+		
+		if ((!(indexLoaded)) || (logGeneration != generation) || (indexFile.length() < indexLength))
+		{
+			loadIndex(logGeneration);
+		}
+		else
+		{
+			readIndexEntries();
+		}
+		
+		//Indexing the records appended after the last index entry, e.g. when an append was interrupted before its index entries were written
+		if (indexedLogLength < logFile.length())
+		{
+			recoverRecords();
+		}
+	}
+	
+	/**
+	 * Method for loading the index of the current log file, rebuilding it from the log file if it does not match.
+	 * @param 	logGeneration	Generation of the current log file
+	 */
+	private void loadIndex(long logGeneration) throws IOException
+	{
+		resetIndex(logGeneration);
+		long indexGeneration = -1;
+		if (indexFile.exists())
+		{
+			try (DataInputStream indexInput = new DataInputStream(Files.newInputStream(indexFile.toPath())))
+			{
+				indexGeneration = readHeader(indexInput, INDEX_MAGIC);
+			}
+			catch(IOException ioe)
+			{
+				indexGeneration = -1;
+			}
+		}
+		
+		if (indexGeneration == logGeneration)
+		{
+			indexLength = HEADER_LENGTH;
+			readIndexEntries();
+		}
+		else
+		{
+			try (DataOutputStream indexOutput = new DataOutputStream(Files.newOutputStream(indexFile.toPath())))
+			{
+				writeHeader(indexOutput, INDEX_MAGIC, logGeneration);
+			}
+			indexLength = HEADER_LENGTH;
+		}
+	}
+	
+	/**
+	 * Method for reading the index entries written since the index was last read.
+	 * An incomplete entry at the end of the index is ignored and overwritten by the next append.
+	 */
+	private void readIndexEntries() throws IOException
+	{
+		try (RandomAccessFile indexAccess = new RandomAccessFile(indexFile, "r"))
+		{
+			long indexFileLength = indexAccess.length();
+			if (indexFileLength <= indexLength)
+			{
+				return;
+			}
+			
+			byte[] entries = new byte[(int) (indexFileLength - indexLength)];
+			indexAccess.seek(indexLength);
+			indexAccess.readFully(entries);
+			DataInputStream entryInput = new DataInputStream(new ByteArrayInputStream(entries));
+			int entryStart = 0;
+			try
+			{
+				while (entryStart < entries.length)
+				{
+					byte recordType = entryInput.readByte();
+					String serviceName = entryInput.readUTF();
+					long offset = entryInput.readLong();
+					long recordLength = entryInput.readInt();
+					applyRecord(recordType, serviceName, offset, recordLength);
+					entryStart = entries.length - entryInput.available();
+				}
+			}
+			catch(EOFException eofe)
+			{
+				//Ignoring the incomplete entry
+			}
+			indexLength += entryStart;
+		}
+	}
+	
+	/**
+	 * Method for indexing the records found after the last indexed record of the log file.
+	 * An incomplete or corrupt record (left by an interrupted append) is truncated along with everything after it.
+	 */
+	private void recoverRecords() throws IOException
+	{
+		List<byte[]> indexEntries = new ArrayList<byte[]>();
+		try (RandomAccessFile logAccess = new RandomAccessFile(logFile, "rw"))
+		{
+			long logLength = logAccess.length();
+			long offset = indexedLogLength;
+			while (offset < logLength)
+			{
+				LogRecord record = null;
+				if (offset + 4 <= logLength)
+				{
+					logAccess.seek(offset);
+					int recordLength = logAccess.readInt();
+					if ((recordLength > 0) && (offset + recordLength <= logLength))
+					{
+						record = readRecord(logAccess, offset, recordLength);
+					}
+				}
+				if (record == null)
+				{
+					logAccess.setLength(offset);
+					break;
+				}
+				
+				indexEntries.add(createIndexEntry(record.recordType, record.serviceName, offset, record.recordLength));
+				applyRecord(record.recordType, record.serviceName, offset, record.recordLength);
+				offset += record.recordLength;
+			}
+		}
+		writeIndexEntries(indexEntries);
+	}
+	
+	/**
+	 * Method for appending records to the log file and their entries to the index.
+	 * The log file is forced to the storage device before the index is updated.
+	 * @param 	records		List of complete records
+	 */
+	private void appendRecords(List<byte[]> records) throws IOException
+	{
+		if (!(logFile.exists()))
+		{
+			long newGeneration = new Random().nextLong() & Long.MAX_VALUE;
+			try (DataOutputStream logOutput = new DataOutputStream(Files.newOutputStream(logFile.toPath())))
+			{
+				writeHeader(logOutput, LOG_MAGIC, newGeneration);
+			}
+			loadIndex(newGeneration);
+			indexedLogLength = HEADER_LENGTH;
+		}
+		
+		List<byte[]> indexEntries = new ArrayList<byte[]>();
+		try (RandomAccessFile logAccess = new RandomAccessFile(logFile, "rw"))
+		{
+			long offset = indexedLogLength;
+			logAccess.seek(offset);
+			for (byte[] record : records)
+			{
+				logAccess.write(record);
+				LogRecord logRecord = parseRecord(record);
+				indexEntries.add(createIndexEntry(logRecord.recordType, logRecord.serviceName, offset, record.length));
+				applyRecord(logRecord.recordType, logRecord.serviceName, offset, record.length);
+				offset += record.length;
+			}
+			logAccess.getChannel().force(false);
+		}
+		writeIndexEntries(indexEntries);
+	}
+	
+	/**
+	 * Method for writing entries at the end of the index, overwriting any incomplete entry.
+	 * @param 	indexEntries	List of complete index entries
+	 */
+	private void writeIndexEntries(List<byte[]> indexEntries) throws IOException
+	{
+		try (RandomAccessFile indexAccess = new RandomAccessFile(indexFile, "rw"))
+		{
+			indexAccess.seek(indexLength);
+			for (byte[] indexEntry : indexEntries)
+			{
+				indexAccess.write(indexEntry);
+				indexLength += indexEntry.length;
+			}
+			indexAccess.setLength(indexLength);
+		}
+	}
+	
+	/**
+	 * Method for applying a record to the in-memory index.
+	 * @param 	recordType		Type of the record (service or tombstone)
+	 * @param 	serviceName		Name of the service
+	 * @param 	offset			Position of the record in the log file
+	 * @param 	recordLength	Length of the record in bytes
+	 */
+	private void applyRecord(byte recordType, String serviceName, long offset, long recordLength)
+	{
+		long[] replacedPosition = null;
+		if (recordType == SERVICE_RECORD)
+		{
+			replacedPosition = recordPositions.put(serviceName, new long[] {offset, recordLength});
+			liveBytes += recordLength;
+		}
+		else
+		{
+			replacedPosition = recordPositions.remove(serviceName);
+			deadBytes += recordLength;
+		}
+		
+		if (replacedPosition != null)
+		{
+			liveBytes -= replacedPosition[1];
+			deadBytes += replacedPosition[1];
+		}
+		indexedLogLength = Math.max(indexedLogLength, offset + recordLength);
+	}
+	
+	/**
+	 * Method for clearing the in-memory index.
+	 * @param 	logGeneration	Generation of the current log file
+	 */
+	private void resetIndex(long logGeneration)
+	{
+		indexLoaded = true;
+		generation = logGeneration;
+		indexLength = HEADER_LENGTH;
+		indexedLogLength = HEADER_LENGTH;
+		liveBytes = 0;
+		deadBytes = 0;
+		recordPositions = new HashMap<String, long[]>();
+	}
+	
+	/**
+	 * Method for ordering the positions of the live records by their offsets in the log file.
+	 * @return	Positions of the live records mapped by service name, in the order of their offsets
+	 */
+	private Map<String, long[]> getOrderedPositions()
+	{
+		TreeMap<Long, String> namesByOffset = new TreeMap<Long, String>();
+		for (Map.Entry<String, long[]> recordPosition : recordPositions.entrySet())
+		{
+			namesByOffset.put(recordPosition.getValue()[0], recordPosition.getKey());
+		}
+		
+		Map<String, long[]> orderedPositions = new LinkedHashMap<String, long[]>();
+		for (String serviceName : namesByOffset.values())
+		{
+			orderedPositions.put(serviceName, recordPositions.get(serviceName));
+		}
+		
+		return orderedPositions;
+	}
+	
+	/**
+	 * Class representing a record read from the log file.
+	 */
+	private static class LogRecord
+	{
+		private byte recordType;
+		private String serviceName;
+		private byte[] payload;
+		private long recordLength;
+	}
+	
+	/**
+	 * Method for creating a log record.
+	 * A record consists of its length, its type, the service name, the checksum of the payload and the payload (the serialized service).
+	 * @param 	recordType		Type of the record (service or tombstone)
+	 * @param 	serviceName		Name of the service
+	 * @param 	payload			Serialized service
+	 * @return	Complete record
+	 */
+	private static byte[] createRecord(byte recordType, String serviceName, byte[] payload) throws IOException
+	{
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		DataOutputStream recordOutput = new DataOutputStream(recordBytes);
+		CRC32 checksum = new CRC32();
+		checksum.update(payload);
+		
+		recordOutput.writeInt(0);
+		recordOutput.writeByte(recordType);
+		recordOutput.writeUTF(serviceName);
+		recordOutput.writeLong(checksum.getValue());
+		recordOutput.write(payload);
+		recordOutput.flush();
+		
+		byte[] record = recordBytes.toByteArray();
+		int recordLength = record.length;
+		record[0] = (byte) (recordLength >>> 24);
+		record[1] = (byte) (recordLength >>> 16);
+		record[2] = (byte) (recordLength >>> 8);
+		record[3] = (byte) recordLength;
+		
+		return record;
+	}
+	
+	/**
+	 * Method for reading a record from the log file.
+	 * @param 	logAccess		Log file
+	 * @param 	offset			Position of the record in the log file
+	 * @param 	recordLength	Length of the record in bytes
+	 * @return	Record read
+	 * 			Null, if the record is corrupt
+	 */
+	private static LogRecord readRecord(RandomAccessFile logAccess, long offset, long recordLength) throws IOException
+	{
+		byte[] record = new byte[(int) recordLength];
+		logAccess.seek(offset);
+		logAccess.readFully(record);
+		
+		return parseRecord(record);
+	}
+	
+	/**
+	 * Method for reading an indexed record from the log file.
+	 * @param 	logAccess		Log file
+	 * @param 	recordPosition	Offset and length of the record
+	 * @return	Record read
+	 */
+	private static LogRecord readValidRecord(RandomAccessFile logAccess, long[] recordPosition) throws IOException
+	{
+		LogRecord record = readRecord(logAccess, recordPosition[0], recordPosition[1]);
+		if ((record == null) || (record.recordType != SERVICE_RECORD))
+		{
+			throw new IOException("Corrupt record at offset " + recordPosition[0]);
+		}
+		
+		return record;
+	}
+	
+	/**
+	 * Method for parsing a complete record and verifying its checksum.
+	 * @param 	record	Complete record
+	 * @return	Record parsed
+	 * 			Null, if the record is corrupt
+	 */
+	private static LogRecord parseRecord(byte[] record)
+	{
+		try
+		{
+			DataInputStream recordInput = new DataInputStream(new ByteArrayInputStream(record));
+			LogRecord logRecord = new LogRecord();
+			logRecord.recordLength = recordInput.readInt();
+			logRecord.recordType = recordInput.readByte();
+			logRecord.serviceName = recordInput.readUTF();
+			long expectedChecksum = recordInput.readLong();
+			logRecord.payload = new byte[recordInput.available()];
+			recordInput.readFully(logRecord.payload);
+			
+			CRC32 checksum = new CRC32();
+			checksum.update(logRecord.payload);
+			if ((logRecord.recordLength != record.length) || (checksum.getValue() != expectedChecksum)
+				|| ((logRecord.recordType != SERVICE_RECORD) && (logRecord.recordType != TOMBSTONE_RECORD)))
+			{
+				return null;
+			}
+			
+			return logRecord;
+		}
+		catch(IOException ioe)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Method for creating an index entry.
+	 * @param 	recordType		Type of the record (service or tombstone)
+	 * @param 	serviceName		Name of the service
+	 * @param 	offset			Position of the record in the log file
+	 * @param 	recordLength	Length of the record in bytes
+	 * @return	Complete index entry
+	 */
+	private static byte[] createIndexEntry(byte recordType, String serviceName, long offset, long recordLength) throws IOException
+	{
+		ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+		DataOutputStream entryOutput = new DataOutputStream(entryBytes);
+		writeIndexEntry(entryOutput, recordType, serviceName, offset, recordLength);
+		entryOutput.flush();
+		
+		return entryBytes.toByteArray();
+	}
+	
+	/**
+	 * Method for writing an index entry.
+	 * @param 	entryOutput		Destination of the entry
+	 * @param 	recordType		Type of the record (service or tombstone)
+	 * @param 	serviceName		Name of the service
+	 * @param 	offset			Position of the record in the log file
+	 * @param 	recordLength	Length of the record in bytes
+	 */
+	private static void writeIndexEntry(DataOutputStream entryOutput, byte recordType, String serviceName, long offset, long recordLength)
+			throws IOException
+	{
+		entryOutput.writeByte(recordType);
+		entryOutput.writeUTF(serviceName);
+		entryOutput.writeLong(offset);
+		entryOutput.writeInt((int) recordLength);
+	}
+	
+	/**
+	 * Method for writing the header of a log or index file.
+	 * @param 	output			Destination file
+	 * @param 	magic			Magic number identifying the file type
+	 * @param 	fileGeneration	Generation of the log file
+	 */
+	private static void writeHeader(DataOutputStream output, int magic, long fileGeneration) throws IOException
+	{
+		output.writeInt(magic);
+		output.writeLong(fileGeneration);
+	}
+	
+	/**
+	 * Method for reading the header of a log or index file.
+	 * @param 	input	Source file
+	 * @param 	magic	Magic number identifying the expected file type
+	 * @return	Generation of the log file
+	 */
+	private static long readHeader(DataInputStream input, int magic) throws IOException
+	{
+		if (input.readInt() != magic)
+		{
+			throw new IOException("Not a composite service log file");
+		}
+		
+		return input.readLong();
+	}
+	
+	/**
+	 * Method for serializing a service.
+	 * @param 	service		Service to be serialized
+	 * @return	Serialized service
+	 */
+	private static byte[] serialize(Service service) throws IOException
+	{
+		ByteArrayOutputStream serviceBytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream serviceOutput = new ObjectOutputStream(serviceBytes))
+		{
+			serviceOutput.writeObject(service);
+		}
+		
+		return serviceBytes.toByteArray();
+	}
+	
+	/**
+	 * Method for deserializing a service.
+	 * @param 	payload		Serialized service
+	 * @return	Service deserialized
+	 */
+	private static Service deserialize(byte[] payload) throws IOException, ClassNotFoundException
+	{
+		try (ObjectInputStream serviceInput = new ObjectInputStream(new ByteArrayInputStream(payload)))
+		{
+			return (Service) serviceInput.readObject();
+		}
+	}
+}
\ No newline at end of file
@@ -1,6 +1,10 @@
 package servicecomposition.utilities;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -17,8 +21,10 @@ import service.writer.BasicServiceWriter;
 import service.writer.ServiceFileWriterDecorator;
 import service.writer.ServiceSerializedWriter;
 import servicecomposition.entities.CompositionRequest;
+import servicecomposition.entities.CompositionResultCache;
 import servicecomposition.entities.ConstraintAwarePlan;
 import servicecomposition.entities.ServiceNode;
+import servicecomposition.entities.ServiceRepository;
 
 /**
  * Utility class for creating composite services and storing them in service repository.
@@ -28,6 +34,8 @@ public class CompSvcStorageUtil
 {
 	/**
 	 * Method for creating a composite service.
+	 * The service is named after the content hash of the request inputs and outputs and the plan structure (see createCompositeServiceName()),
+	 * so composing the same request again creates a service with the same name.
 	 * @param 	compRequest		Service composition request for which composition plan was created
 	 * @param 	cnstrAwrPlan	Constraint-aware plan created for the composition request
 	 * @return	Layered composite service created
@@ -35,7 +43,7 @@ public class CompSvcStorageUtil
 	public static Service createCompositeService(CompositionRequest compRequest, ConstraintAwarePlan cnstrAwrPlan)
 	{
 		//Gathering composite service elements from the composition request
-		String svcName = "CompSvc_" + System.nanoTime();
+		String svcName = createCompositeServiceName(compRequest, cnstrAwrPlan);
 		ArrayList<String> svcInputs = (ArrayList<String>) compRequest.getInputs();
 		ArrayList<String> svcOutputs = (ArrayList<String>) compRequest.getOutputs();
 		
@@ -61,25 +69,102 @@ public class CompSvcStorageUtil
 		return layeredCS;
 	}
 	
+	/**
+	 * Method for creating the content-addressed name of a composite service.
+	 * The name is derived from the SHA-256 hash of the sorted inputs and outputs of the request and the canonical form of the plan
+	 * (see ConstraintAwarePlan.getCanonicalForm()), hence structurally identical composite services have the same name.
+	 * @param 	compRequest		Service composition request for which composition plan was created
+	 * @param 	cnstrAwrPlan	Constraint-aware plan created for the composition request
+	 * @return	Composite service name
+	 */
+	public static String createCompositeServiceName(CompositionRequest compRequest, ConstraintAwarePlan cnstrAwrPlan)
+	{
+		List<String> inputs = new ArrayList<String>(compRequest.getInputs());
+		List<String> outputs = new ArrayList<String>(compRequest.getOutputs());
+		Collections.sort(inputs);
+		Collections.sort(outputs);
+		String canonicalForm = String.join("\u001f", inputs) + "\u001e" + String.join("\u001f", outputs) + "\u001e" + cnstrAwrPlan.getCanonicalForm();
+		
+		MessageDigest digest = null;
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException nsae)
+		{
+			//Every Java platform is required to support SHA-256
+			throw new IllegalStateException(nsae);
+		}
+		byte[] hash = digest.digest(canonicalForm.getBytes(StandardCharsets.UTF_8));
+		
+		//The first 128 bits of the hash are enough to make collisions between distinct composite services negligible
+		StringBuilder svcName = new StringBuilder("CompSvc_");
+		for (int i = 0; i < 16; i++)
+		{
+			svcName.append(String.format("%02x", hash[i]));
+		}
+		
+		return svcName.toString();
+	}
+	
 	/**
 	 * Method for appending a list of layered composite services to a repository of serialized service objects.
+	 * Services stored in a composite service log file (.cslog) are appended as individual records (see CompSvcLogStore).
+	 * Otherwise, the whole serialized repository is parsed and rewritten with the new services.
+	 * Composite services having the names of services already stored in the repository are not stored again, as their content-addressed
+	 * names show that the stored services are identical. If none of the services is new, the repository is left unchanged.
+	 * Appends are serialized so that concurrent requests storing composite services do not overwrite each other's services.
+	 * The shared repository and the cached composition results of the destination repository are invalidated once the services are appended.
 	 * @param 	compSvcs		List of layered composite services to be appended 
 	 * @param 	repoFileName	Complete name and path of the destination repository
 	 */
-	public static void writeCSToSerialSvcRepo(ArrayList<Service> compSvcs, String repoFileName)
+	public static synchronized void writeCSToSerialSvcRepo(ArrayList<Service> compSvcs, String repoFileName)
 	{
-		ServiceFileParserDecorator svcParser = new ServiceSerializedParser(new BasicServiceParser());
-		svcParser.setLocation(repoFileName);
-		ArrayList<Service> existingSvcs = svcParser.parse();
-		
-		if (existingSvcs == null)
+		if (CompSvcLogStore.isLogFile(repoFileName))
 		{
-			existingSvcs = new ArrayList<Service>();
+			List<Service> appendedSvcs = CompSvcLogStore.getStore(repoFileName).appendAbsent(compSvcs);
+			if ((appendedSvcs != null) && (appendedSvcs.isEmpty()))
+			{
+				return;
+			}
+		}
+		else
+		{
+			ServiceFileParserDecorator svcParser = new ServiceSerializedParser(new BasicServiceParser());
+			svcParser.setLocation(repoFileName);
+			ArrayList<Service> existingSvcs = svcParser.parse();
+			
+			if (existingSvcs == null)
+			{
+				existingSvcs = new ArrayList<Service>();
+			}
+			
+			//Skipping the composite services that are already stored
+			Set<String> existingSvcNames = new HashSet<String>();
+			for (Service existingSvc : existingSvcs)
+			{
+				existingSvcNames.add(existingSvc.getName());
+			}
+			int existingSvcCount = existingSvcs.size();
+			for (Service compSvc : compSvcs)
+			{
+				if (existingSvcNames.add(compSvc.getName()))
+				{
+					existingSvcs.add(compSvc);
+				}
+			}
+			if (existingSvcs.size() == existingSvcCount)
+			{
+				return;
+			}
+			
+			ServiceFileWriterDecorator svcWriter = new ServiceSerializedWriter(new BasicServiceWriter());
+			svcWriter.setLocation(repoFileName);
+			svcWriter.write(existingSvcs);
 		}
-		existingSvcs.addAll(compSvcs);
 		
-		ServiceFileWriterDecorator svcWriter = new ServiceSerializedWriter(new BasicServiceWriter());
-		svcWriter.setLocation(repoFileName);
-		svcWriter.write(existingSvcs);
+		//Discarding the loaded repository and the plans cached for it, as they no longer reflect the repository contents
+		ServiceRepository.getSharedRepository(repoFileName).invalidate();
+		CompositionResultCache.getSharedCache().invalidate(repoFileName);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package servicecomposition.utilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterator for lazily generating all the non-empty subsets of a collection one at a time.
+ * Subsets are generated in binary reflected Gray code order, so every subset differs from the previous one by exactly one element.
+ * The counter is kept as an array of 64-bit words and therefore supports collections with more than 63 elements.
+ * The same read-only set object is updated in place and returned for every subset. It must be copied if it needs to be kept.
+ * @author agent
+ * @param	<T>	Type of the collection elements
+ */
+public class SubsetIterator<T> implements Iterator<Set<T>>
+{
+	private List<T> elements;
+	private long[] counter;
+	private boolean subsetsRemaining;
+	private Set<T> subset;
+	private Set<T> subsetView;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	elements	Collection whose subsets need to be generated
+	 */
+	public SubsetIterator(Collection<T> elements)
+	{
+		this.elements = new ArrayList<T>(elements);
+		int elemCount = this.elements.size();
+		this.counter = new long[(elemCount + 63) / 64];
+		this.subsetsRemaining = (elemCount > 0);
+		this.subset = new HashSet<T>();
+		this.subsetView = Collections.unmodifiableSet(subset);
+	}
+	
+	/**
+	 * Method for checking if more subsets can be generated.
+	 * All the subsets have been generated once every bit of the counter is set.
+	 * @return	true, if more subsets exist
+	 * 			false, otherwise
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return subsetsRemaining;
+	}
+	
+	/**
+	 * Method for fetching the next subset.
+	 * The counter is incremented and the element at the position of its lowest set bit is added to or removed from the subset.
+	 * @return	Read-only view of the next subset
+	 */
+	@Override
+	public Set<T> next()
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+		
+		//Incrementing the counter and finding the position of its lowest set bit
+		int wordIndex = 0;
+		while (counter[wordIndex] == -1L)
+		{
+			counter[wordIndex] = 0L;
+			wordIndex++;
+		}
+		counter[wordIndex]++;
+		int flipIndex = (wordIndex * 64) + Long.numberOfTrailingZeros(counter[wordIndex]);
+		
+		//Flipping the membership of the element at that position
+		T element = elements.get(flipIndex);
+		if (!subset.remove(element))
+		{
+			subset.add(element);
+		}
+		
+		//The last subset has been generated once all the counter bits are set
+		if (isCounterFull())
+		{
+			subsetsRemaining = false;
+		}
+		
+		return subsetView;
+	}
+	
+	/**
+	 * Method for checking if all the bits of the counter corresponding to the collection elements are set.
+	 * @return	true, if the last subset has been generated
+	 * 			false, otherwise
+	 */
+	private boolean isCounterFull()
+	{
+		int elemCount = elements.size();
+		for (int i = 0; i < counter.length; i++)
+		{
+			int wordBits = Math.min(64, elemCount - (i * 64));
+			long fullWord = (wordBits == 64) ? -1L : ((1L << wordBits) - 1);
+			if (counter[i] != fullWord)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import service.Service;
+import servicecomposition.utilities.CompSvcLogStore;
 import translation.readers.csreaders.CompositeServiceReader;
 import translation.readers.csreaders.SerializedCSReader;
 import translation.readers.csreaders.XMLCSReader;
@@ -34,7 +35,7 @@ public class ConsoleCSConfigReader implements CSConfigReader
 		
 		//Parsing the source file to get the composite service object
 		Service compService = null;
-		if (csRepoFileName.endsWith(".txt"))
+		if ((csRepoFileName.endsWith(".txt")) || (CompSvcLogStore.isLogFile(csRepoFileName)))
 		{
 			CompositeServiceReader csReader = new SerializedCSReader();
 			compService = csReader.readCompositeService(csRepoFileName, csName, logger);
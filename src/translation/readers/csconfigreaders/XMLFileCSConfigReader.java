@@ -7,6 +7,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import service.Service;
+import servicecomposition.utilities.CompSvcLogStore;
 import translation.readers.csreaders.CompositeServiceReader;
 import translation.readers.csreaders.SerializedCSReader;
 import translation.readers.csreaders.XMLCSReader;
@@ -37,7 +38,7 @@ public class XMLFileCSConfigReader extends FileCSConfigReader
 		
 		//Parsing the source file to get the composite service object
 		Service compService = null;
-		if (csRepoFileName.endsWith(".txt"))
+		if ((csRepoFileName.endsWith(".txt")) || (CompSvcLogStore.isLogFile(csRepoFileName)))
 		{
 			CompositeServiceReader csReader = new SerializedCSReader();
 			compService = csReader.readCompositeService(csRepoFileName, csName, logger);
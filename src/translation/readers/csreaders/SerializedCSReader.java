@@ -5,10 +5,11 @@ import service.Service;
 import service.parser.BasicServiceParser;
 import service.parser.ServiceFileParserDecorator;
 import service.parser.ServiceSerializedParser;
+import servicecomposition.utilities.CompSvcLogStore;
 import utilities.LogUtil;
 
 /**
- * Concrete reader for reading a composite service from a serialized Java object file.
+ * Concrete reader for reading a composite service from a serialized Java object file or a composite service log file.
  * @author Jyotsana Gupta
  */
 public class SerializedCSReader implements CompositeServiceReader
@@ -23,6 +24,18 @@ public class SerializedCSReader implements CompositeServiceReader
 	 */
 	public Service readCompositeService(String csRepoFileName, String csName, LogUtil logger)
 	{
+		//Reading only the record of the target service from a composite service log file
+		if (CompSvcLogStore.isLogFile(csRepoFileName))
+		{
+			Service compService = CompSvcLogStore.getStore(csRepoFileName).read(csName);
+			if (compService == null)
+			{
+				logger.log("The given serialized composite service repository does not contain the target service.\n"
+							+ "Aborting translation process.\n");
+			}
+			return compService;
+		}
+		
 		//Parsing the serialized composite service repository file to read all its services
 		ServiceFileParserDecorator svcParser = new ServiceSerializedParser(new BasicServiceParser());
 		svcParser.setLocation(csRepoFileName);
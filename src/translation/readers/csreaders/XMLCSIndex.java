@@ -0,0 +1,533 @@
+package translation.readers.csreaders;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Class representing the index of an XML composite service repository, mapping composite service names to the byte range
+ * of their <compositeservice> elements in the repository file, so that a composite service can be read without parsing the rest of the file.
+ * An index is built by a single pass over the repository file and is saved to a sidecar file (repository file name followed by .idx)
+ * along with the length and modification time of the repository file. It is reused, from memory or from the sidecar file,
+ * as long as the repository file is unchanged, and is rebuilt otherwise.
+ * Only repositories in ASCII-compatible encodings (such as UTF-8) are indexed, as element boundaries are located by scanning the file bytes.
+ * @author agent
+ */
+class XMLCSIndex
+{
+	private static final int INDEX_MAGIC = 0x58435358;
+	private static final List<String> INDEXED_ENCODINGS = Arrays.asList("UTF-8", "US-ASCII", "ISO-8859-1", "WINDOWS-1252");
+	private static final byte[] START_TAG = "<compositeservice".getBytes(Charset.forName("US-ASCII"));
+	private static final byte[] END_TAG = "</compositeservice".getBytes(Charset.forName("US-ASCII"));
+	private static final Map<String, XMLCSIndex> loadedIndexes = new ConcurrentHashMap<String, XMLCSIndex>();
+	private File repoFile;
+	private long repoLength;
+	private long repoModifiedTime;
+	private String encoding;
+	private Map<String, long[]> elementRanges;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	repoFile			Repository file
+	 * @param 	repoLength			Length of the repository file when it was indexed
+	 * @param 	repoModifiedTime	Modification time of the repository file when it was indexed
+	 * @param 	encoding			Character encoding of the repository file
+	 * @param 	elementRanges		Byte offset and length of the element of every composite service, mapped to the service name
+	 */
+	private XMLCSIndex(File repoFile, long repoLength, long repoModifiedTime, String encoding, Map<String, long[]> elementRanges)
+	{
+		this.repoFile = repoFile;
+		this.repoLength = repoLength;
+		this.repoModifiedTime = repoModifiedTime;
+		this.encoding = encoding;
+		this.elementRanges = elementRanges;
+	}
+	
+	/**
+	 * Method for fetching the up-to-date index of a repository, loading it from its sidecar file or building it if required.
+	 * @param 	repoFileName	Complete name and path of the XML composite service repository file
+	 * @return	Index of the repository
+	 * 			Null, if the repository cannot be indexed
+	 */
+	static XMLCSIndex getIndex(String repoFileName)
+	{
+		File repoFile = new File(repoFileName).getAbsoluteFile();
+		if (!repoFile.isFile())
+		{
+			return null;
+		}
+		
+		XMLCSIndex index = loadedIndexes.get(repoFile.getPath());
+		if ((index != null) && (index.isCurrent()))
+		{
+			return index;
+		}
+		
+		index = loadIndex(repoFile);
+		if (index == null)
+		{
+			index = buildIndex(repoFile);
+		}
+		if (index != null)
+		{
+			loadedIndexes.put(repoFile.getPath(), index);
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Method for reading the element of a composite service from the repository file.
+	 * @param 	csName	Composite service name
+	 * @return	Bytes of the <compositeservice> element
+	 * 			Null, if the repository does not contain the service or the file cannot be read
+	 */
+	byte[] readElement(String csName)
+	{
+		long[] elementRange = elementRanges.get(csName);
+		if (elementRange == null)
+		{
+			return null;
+		}
+		
+		try (RandomAccessFile repoAccess = new RandomAccessFile(repoFile, "r"))
+		{
+			byte[] elementBytes = new byte[(int) elementRange[1]];
+			repoAccess.seek(elementRange[0]);
+			repoAccess.readFully(elementBytes);
+			return elementBytes;
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while reading the composite service repository: " + ioe.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Accessor method for the character encoding of the repository file.
+	 * @return	Character encoding
+	 */
+	String getEncoding()
+	{
+		return encoding;
+	}
+	
+	/**
+	 * Method for checking if the repository file is unchanged since it was indexed.
+	 * @return	true, if the index is up to date
+	 * 			false, otherwise
+	 */
+	private boolean isCurrent()
+	{
+		return ((repoFile.length() == repoLength) && (repoFile.lastModified() == repoModifiedTime));
+	}
+	
+	/**
+	 * Method for loading the index of a repository from its sidecar file.
+	 * @param 	repoFile	Repository file
+	 * @return	Index of the repository
+	 * 			Null, if the sidecar file does not exist, cannot be read or belongs to an older version of the repository file
+	 */
+	private static XMLCSIndex loadIndex(File repoFile)
+	{
+		File indexFile = new File(repoFile.getPath() + ".idx");
+		if (!indexFile.isFile())
+		{
+			return null;
+		}
+		
+		try (DataInputStream indexInput = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+		{
+			if (indexInput.readInt() != INDEX_MAGIC)
+			{
+				return null;
+			}
+			
+			XMLCSIndex index = new XMLCSIndex(repoFile, indexInput.readLong(), indexInput.readLong(), indexInput.readUTF(), new HashMap<String, long[]>());
+			if (!index.isCurrent())
+			{
+				return null;
+			}
+			
+			int csCount = indexInput.readInt();
+			for (int i = 0; i < csCount; i++)
+			{
+				String csName = indexInput.readUTF();
+				long[] elementRange = {indexInput.readLong(), indexInput.readInt()};
+				index.elementRanges.put(csName, elementRange);
+			}
+			
+			return index;
+		}
+		catch(IOException ioe)
+		{
+			//Rebuilding an index that cannot be read
+			return null;
+		}
+	}
+	
+	/**
+	 * Method for building the index of a repository and saving it to its sidecar file.
+	 * The index is used from memory even if the sidecar file cannot be written.
+	 * @param 	repoFile	Repository file
+	 * @return	Index of the repository
+	 * 			Null, if the repository cannot be indexed
+	 */
+	private static XMLCSIndex buildIndex(File repoFile)
+	{
+		//Recording the file state before reading so that changes made while indexing trigger another build
+		long repoLength = repoFile.length();
+		long repoModifiedTime = repoFile.lastModified();
+		if (repoLength > Integer.MAX_VALUE)
+		{
+			return null;
+		}
+		
+		Map<String, long[]> elementRanges = new HashMap<String, long[]>();
+		String encoding = null;
+		try (RandomAccessFile repoAccess = new RandomAccessFile(repoFile, "r"))
+		{
+			MappedByteBuffer repoBuffer = repoAccess.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, repoAccess.length());
+			encoding = readEncoding(repoBuffer);
+			if (!INDEXED_ENCODINGS.contains(encoding))
+			{
+				return null;
+			}
+			
+			//Locating every composite service element and recording the first element found for every name
+			int position = 0;
+			while ((position = findElementStart(repoBuffer, position)) >= 0)
+			{
+				int elementEnd = findElementEnd(repoBuffer, position);
+				if (elementEnd < 0)
+				{
+					break;
+				}
+				
+				byte[] elementBytes = new byte[elementEnd - position];
+				repoBuffer.position(position);
+				repoBuffer.get(elementBytes);
+				String csName = readCSName(elementBytes, encoding);
+				if (csName != null)
+				{
+					elementRanges.putIfAbsent(csName, new long[] {position, elementBytes.length});
+				}
+				position = elementEnd;
+			}
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while indexing the composite service repository: " + ioe.getMessage());
+			return null;
+		}
+		
+		XMLCSIndex index = new XMLCSIndex(repoFile, repoLength, repoModifiedTime, encoding, elementRanges);
+		index.save();
+		return index;
+	}
+	
+	/**
+	 * Method for saving the index to its sidecar file.
+	 * The index is written to a temporary file first so that a partially written index is never read.
+	 */
+	private void save()
+	{
+		File indexFile = new File(repoFile.getPath() + ".idx");
+		File tempIndexFile = new File(repoFile.getPath() + ".idx.tmp");
+		try (DataOutputStream indexOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempIndexFile))))
+		{
+			indexOutput.writeInt(INDEX_MAGIC);
+			indexOutput.writeLong(repoLength);
+			indexOutput.writeLong(repoModifiedTime);
+			indexOutput.writeUTF(encoding);
+			indexOutput.writeInt(elementRanges.size());
+			for (Map.Entry<String, long[]> elementRange : elementRanges.entrySet())
+			{
+				indexOutput.writeUTF(elementRange.getKey());
+				indexOutput.writeLong(elementRange.getValue()[0]);
+				indexOutput.writeInt((int) elementRange.getValue()[1]);
+			}
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while writing the composite service index: " + ioe.getMessage());
+			tempIndexFile.delete();
+			return;
+		}
+		
+		indexFile.delete();
+		if (!tempIndexFile.renameTo(indexFile))
+		{
+			tempIndexFile.delete();
+		}
+	}
+	
+	/**
+	 * Method for reading the character encoding declared by the repository file.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @return	Upper-case name of the declared encoding, or UTF-8 if the file has no declaration
+	 */
+	private static String readEncoding(MappedByteBuffer repoBuffer) throws IOException
+	{
+		byte[] prologBytes = new byte[Math.min(repoBuffer.limit(), 256)];
+		repoBuffer.position(0);
+		repoBuffer.get(prologBytes);
+		try
+		{
+			XMLStreamReader xmlReader = createInputFactory().createXMLStreamReader(new ByteArrayInputStream(prologBytes));
+			String encoding = xmlReader.getCharacterEncodingScheme();
+			if (encoding == null)
+			{
+				encoding = xmlReader.getEncoding();
+			}
+			xmlReader.close();
+			return (encoding == null) ? "UTF-8" : encoding.toUpperCase();
+		}
+		catch(XMLStreamException xse)
+		{
+			throw new IOException(xse.getMessage());
+		}
+	}
+	
+	/**
+	 * Method for reading the name of a composite service from its element, stopping at the first csname element.
+	 * @param 	elementBytes	Bytes of the <compositeservice> element
+	 * @param 	encoding		Character encoding of the repository file
+	 * @return	Composite service name
+	 * 			Null, if the element has no name
+	 */
+	private static String readCSName(byte[] elementBytes, String encoding) throws IOException
+	{
+		try
+		{
+			XMLStreamReader xmlReader = createInputFactory().createXMLStreamReader(new ByteArrayInputStream(elementBytes), encoding);
+			try
+			{
+				while (xmlReader.hasNext())
+				{
+					if ((xmlReader.next() == XMLStreamConstants.START_ELEMENT) && (xmlReader.getLocalName().equals("csname")))
+					{
+						return xmlReader.getAttributeValue(null, "value");
+					}
+				}
+				return null;
+			}
+			finally
+			{
+				xmlReader.close();
+			}
+		}
+		catch(XMLStreamException xse)
+		{
+			throw new IOException(xse.getMessage());
+		}
+	}
+	
+	/**
+	 * Method for finding the start of the next <compositeservice> element, skipping comments and CDATA sections.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @param 	position	Byte offset from which the search starts
+	 * @return	Byte offset of the start tag
+	 * 			-1, if there are no more composite service elements
+	 */
+	private static int findElementStart(MappedByteBuffer repoBuffer, int position)
+	{
+		int limit = repoBuffer.limit();
+		while (position < limit)
+		{
+			if (repoBuffer.get(position) != '<')
+			{
+				position++;
+			}
+			else if (startsWith(repoBuffer, position, "<!--"))
+			{
+				position = skipPast(repoBuffer, position, "-->");
+			}
+			else if (startsWith(repoBuffer, position, "<![CDATA["))
+			{
+				position = skipPast(repoBuffer, position, "]]>");
+			}
+			else if (startsWith(repoBuffer, position, START_TAG) && (isNameEnd(repoBuffer, position + START_TAG.length)))
+			{
+				return position;
+			}
+			else
+			{
+				position++;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Method for finding the end of a <compositeservice> element, skipping comments and CDATA sections.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @param 	position	Byte offset of the start tag of the element
+	 * @return	Byte offset following the end tag of the element
+	 * 			-1, if the element is not closed
+	 */
+	private static int findElementEnd(MappedByteBuffer repoBuffer, int position)
+	{
+		//Checking for an empty element first
+		int limit = repoBuffer.limit();
+		int tagEnd = position;
+		while ((tagEnd < limit) && (repoBuffer.get(tagEnd) != '>'))
+		{
+			tagEnd++;
+		}
+		if (tagEnd == limit)
+		{
+			return -1;
+		}
+		if (repoBuffer.get(tagEnd - 1) == '/')
+		{
+			return tagEnd + 1;
+		}
+		
+		position = tagEnd + 1;
+		while (position < limit)
+		{
+			if (repoBuffer.get(position) != '<')
+			{
+				position++;
+			}
+			else if (startsWith(repoBuffer, position, "<!--"))
+			{
+				position = skipPast(repoBuffer, position, "-->");
+			}
+			else if (startsWith(repoBuffer, position, "<![CDATA["))
+			{
+				position = skipPast(repoBuffer, position, "]]>");
+			}
+			else if (startsWith(repoBuffer, position, END_TAG) && (isNameEnd(repoBuffer, position + END_TAG.length)))
+			{
+				tagEnd = position + END_TAG.length;
+				while ((tagEnd < limit) && (repoBuffer.get(tagEnd) != '>'))
+				{
+					tagEnd++;
+				}
+				return (tagEnd == limit) ? -1 : tagEnd + 1;
+			}
+			else
+			{
+				position++;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Method for checking if the repository file contains the given ASCII text at a byte offset.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @param 	position	Byte offset
+	 * @param 	text		ASCII text
+	 * @return	true, if the text is found at the offset
+	 * 			false, otherwise
+	 */
+	private static boolean startsWith(MappedByteBuffer repoBuffer, int position, String text)
+	{
+		return startsWith(repoBuffer, position, text.getBytes(Charset.forName("US-ASCII")));
+	}
+	
+	/**
+	 * Method for checking if the repository file contains the given bytes at a byte offset.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @param 	position	Byte offset
+	 * @param 	textBytes	Bytes to be matched
+	 * @return	true, if the bytes are found at the offset
+	 * 			false, otherwise
+	 */
+	private static boolean startsWith(MappedByteBuffer repoBuffer, int position, byte[] textBytes)
+	{
+		if (position + textBytes.length > repoBuffer.limit())
+		{
+			return false;
+		}
+		
+		for (int i = 0; i < textBytes.length; i++)
+		{
+			if (repoBuffer.get(position + i) != textBytes[i])
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method for finding the byte offset following the first occurrence of a terminator.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @param 	position	Byte offset from which the search starts
+	 * @param 	terminator	ASCII text ending a comment or CDATA section
+	 * @return	Byte offset following the terminator, or the file length if the terminator is not found
+	 */
+	private static int skipPast(MappedByteBuffer repoBuffer, int position, String terminator)
+	{
+		byte[] terminatorBytes = terminator.getBytes(Charset.forName("US-ASCII"));
+		while (position < repoBuffer.limit())
+		{
+			if (startsWith(repoBuffer, position, terminatorBytes))
+			{
+				return position + terminatorBytes.length;
+			}
+			position++;
+		}
+		
+		return position;
+	}
+	
+	/**
+	 * Method for checking if a tag name ends at a byte offset, so that longer names such as compositeservices are not matched.
+	 * @param 	repoBuffer	Contents of the repository file
+	 * @param 	position	Byte offset following the matched name
+	 * @return	true, if the name ends at the offset
+	 * 			false, otherwise
+	 */
+	private static boolean isNameEnd(MappedByteBuffer repoBuffer, int position)
+	{
+		if (position >= repoBuffer.limit())
+		{
+			return false;
+		}
+		
+		byte nextByte = repoBuffer.get(position);
+		return ((nextByte == '>') || (nextByte == '/') || (Character.isWhitespace(nextByte)));
+	}
+	
+	/**
+	 * Method for creating the factory of the XML streams.
+	 * External entities are not resolved, as composite service repositories do not use them.
+	 * @return	XML input factory
+	 */
+	static XMLInputFactory createInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		
+		return factory;
+	}
+}
\ No newline at end of file
@@ -1,11 +1,29 @@
 package translation.readers.csreaders;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.stax.StAXSource;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import constraint.Constraint;
 import constraint.ConstraintXMLParser;
 import service.BasicService;
@@ -19,10 +37,14 @@ import utilities.ReadWriteUtil;
 
 /**
  * Concrete reader for reading a composite service from an XML file.
+ * Composite services are read through an index of the repository file built on the first read, so that reading a service
+ * from a large repository does not require parsing the whole file.
  * @author Jyotsana Gupta
  */
 public class XMLCSReader implements CompositeServiceReader
 {
+	private static volatile boolean indexingEnabled = true;
+	
 	/**
 	 * Method for initiating parsing of an XML composite service repository file to extract a specific composite service.
 	 * @param 	csRepoFileName	Complete name and path of the repository file
@@ -46,8 +68,20 @@ public class XMLCSReader implements CompositeServiceReader
 		return service;
 	}
 	
+	/**
+	 * Method for enabling or disabling the use of sidecar indexes for reading composite services.
+	 * @param 	indexingEnabled		true, to read services through the repository index (default)
+	 * 								false, to stream the repository file for every read
+	 */
+	public static void setIndexingEnabled(boolean indexingEnabled)
+	{
+		XMLCSReader.indexingEnabled = indexingEnabled;
+	}
+	
 	/**
 	 * Method for parsing an XML composite service repository file to extract a specific service.
+	 * If indexing is enabled, only the element of the target service is read, using the repository index (see XMLCSIndex).
+	 * Otherwise, or if the repository cannot be indexed, the file is streamed until the target service is found.
 	 * @param 	compSvcFileName		Complete name and path of the repository file
 	 * @param 	targetCSName		Name of the target composite service
 	 * @return	Target composite service object, if successfully extracted
@@ -55,48 +89,183 @@ public class XMLCSReader implements CompositeServiceReader
 	 */
 	public Service readCSFromXMLFile(String compSvcFileName, String targetCSName)
 	{
-		//Creating an XML document for the composite service repository file
-		Document doc = ReadWriteUtil.getXmlDocument(compSvcFileName);
+		XMLCSIndex csIndex = (indexingEnabled) ? XMLCSIndex.getIndex(compSvcFileName) : null;
+		if (csIndex == null)
+		{
+			return streamCSFromXMLFile(compSvcFileName, targetCSName);
+		}
+		
+		//Parsing only the element of the target service
+		byte[] csElemBytes = csIndex.readElement(targetCSName);
+		if (csElemBytes == null)
+		{
+			return null;
+		}
 		
-		//Fetching all the composite service XML nodes from the repository file
-		NodeList csNodes = doc.getElementsByTagName("compositeservice");
-		for (int i = 0; i < csNodes.getLength(); i++)
+		try
+		{
+			InputSource csElemSource = new InputSource(new ByteArrayInputStream(csElemBytes));
+			csElemSource.setEncoding(csIndex.getEncoding());
+			Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(csElemSource);
+			return parseCompositeService(doc.getDocumentElement());
+		}
+		catch(ParserConfigurationException | SAXException | IOException e)
+		{
+			System.out.println("Exception while parsing XML file: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Method for streaming an XML composite service repository file until a specific service is found.
+	 * Composite service elements are skipped as soon as their names are read, and only the element of the target service
+	 * is converted into a DOM element, hence the memory used does not depend on the size of the repository.
+	 * @param 	compSvcFileName		Complete name and path of the repository file
+	 * @param 	targetCSName		Name of the target composite service
+	 * @return	Target composite service object, if successfully extracted
+	 * 			Null, otherwise
+	 */
+	private Service streamCSFromXMLFile(String compSvcFileName, String targetCSName)
+	{
+		XMLStreamReader xmlReader = null;
+		try (InputStream repoStream = new BufferedInputStream(new FileInputStream(compSvcFileName)))
 		{
-			Node csNode = csNodes.item(i);
-			if (csNode.getNodeType() == Node.ELEMENT_NODE)
+			xmlReader = XMLCSIndex.createInputFactory().createXMLStreamReader(repoStream);
+			DocumentBuilder docBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			Transformer elementCopier = TransformerFactory.newInstance().newTransformer();
+			while (xmlReader.hasNext())
 			{
-				Element csElem = (Element)csNode;			
-				
-				//Parsing the current composite service node completely if its name matches the target service name
-				String currCSName = ReadWriteUtil.getXMLTagValue("csname", "value", null, csElem);
-				if (currCSName.equals(targetCSName))
+				if ((xmlReader.next() == XMLStreamConstants.START_ELEMENT) && (xmlReader.getLocalName().equals("compositeservice")))
 				{
-					//Fetching inner constrained service details from the composite service node
-					ArrayList<String> csInputs = (ArrayList<String>)parseSimpleInstanceElements(null, csElem, "csinputs");
-					ArrayList<String> csOutputs = (ArrayList<String>)parseSimpleInstanceElements(null, csElem, "csoutputs");
-					ArrayList<String> csEffects = (ArrayList<String>)parseSimpleInstanceElements(null, csElem, "cseffects");
-					ArrayList<Constraint> csConstraints = (ArrayList<Constraint>)parseSvcConstraints(null, csElem, "csconstraints");
-					
-					//Parsing the component atomic services for the composite service node
-					List<Service> atomicSvcs = parseCSAtomicServices(csElem);
-					
-					//Fetching the composition plan from the composite service node
-					ConstraintAwarePlan cnstrAwrPlan = parseCSPlan(csElem, atomicSvcs);
-					
-					//Creating constrained service without the composition plan
-					ConstrainedService cnstrdService = new ConstrainedService(new BasicService(currCSName, csInputs, csOutputs), csConstraints, csEffects);
-					
-					//Creating composite service from the constrained service and composition plan
-					Service layeredCS = new LayeredCompositeService(cnstrdService, cnstrAwrPlan);
-					
-					return layeredCS;
-				}				
+					Element csElem = readTargetCSElement(xmlReader, targetCSName, docBuilder.newDocument(), elementCopier);
+					if (csElem != null)
+					{
+						return parseCompositeService(csElem);
+					}
+				}
+			}
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while opening the composite service repository: " + ioe.getMessage());
+		}
+		catch(XMLStreamException | ParserConfigurationException | TransformerException e)
+		{
+			System.out.println("Exception while parsing XML file: " + e.getMessage());
+		}
+		finally
+		{
+			if (xmlReader != null)
+			{
+				try
+				{
+					xmlReader.close();
+				}
+				catch(XMLStreamException xse)
+				{
+					System.out.println("Exception while closing the composite service repository: " + xse.getMessage());
+				}
 			}
 		}
 		
 		return null;
 	}
 	
+	/**
+	 * Method for reading a composite service element into a DOM element if it belongs to the target service.
+	 * Child elements are copied one at a time, and the rest of the element is skipped once its name turns out to be different.
+	 * @param 	xmlReader		XML stream positioned at the start tag of the composite service element
+	 * @param 	targetCSName	Name of the target composite service
+	 * @param 	doc				Empty document for the DOM element
+	 * @param 	elementCopier	Transformer for copying child elements from the stream
+	 * @return	Composite service element, with the stream positioned at its end tag
+	 * 			Null, if the element belongs to another service
+	 */
+	private static Element readTargetCSElement(XMLStreamReader xmlReader, String targetCSName, Document doc, Transformer elementCopier) 
+			throws XMLStreamException, TransformerException
+	{
+		Element csElem = doc.createElement("compositeservice");
+		doc.appendChild(csElem);
+		
+		boolean nameMatched = false;
+		int event = xmlReader.next();
+		while (event != XMLStreamConstants.END_ELEMENT)
+		{
+			if (event != XMLStreamConstants.START_ELEMENT)
+			{
+				event = xmlReader.next();
+				continue;
+			}
+			
+			if ((!nameMatched) && (xmlReader.getLocalName().equals("csname")))
+			{
+				if (!targetCSName.equals(xmlReader.getAttributeValue(null, "value")))
+				{
+					skipCSElement(xmlReader);
+					return null;
+				}
+				nameMatched = true;
+			}
+			
+			//Copying the child element, which leaves the stream at the event following its end tag
+			elementCopier.transform(new StAXSource(xmlReader), new DOMResult(csElem));
+			event = xmlReader.getEventType();
+		}
+		
+		return (nameMatched) ? csElem : null;
+	}
+	
+	/**
+	 * Method for skipping the rest of a composite service element.
+	 * @param 	xmlReader	XML stream positioned at the start tag of a child of the composite service element
+	 */
+	private static void skipCSElement(XMLStreamReader xmlReader) throws XMLStreamException
+	{
+		int depth = 2;
+		while (depth > 0)
+		{
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				depth++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				depth--;
+			}
+		}
+	}
+	
+	/**
+	 * Method for creating a composite service object from its XML element.
+	 * @param 	csElem	Composite service element
+	 * @return	Composite service object
+	 */
+	private static Service parseCompositeService(Element csElem)
+	{
+		String currCSName = ReadWriteUtil.getXMLTagValue("csname", "value", null, csElem);
+		
+		//Fetching inner constrained service details from the composite service node
+		ArrayList<String> csInputs = (ArrayList<String>)parseSimpleInstanceElements(null, csElem, "csinputs");
+		ArrayList<String> csOutputs = (ArrayList<String>)parseSimpleInstanceElements(null, csElem, "csoutputs");
+		ArrayList<String> csEffects = (ArrayList<String>)parseSimpleInstanceElements(null, csElem, "cseffects");
+		ArrayList<Constraint> csConstraints = (ArrayList<Constraint>)parseSvcConstraints(null, csElem, "csconstraints");
+		
+		//Parsing the component atomic services for the composite service node
+		List<Service> atomicSvcs = parseCSAtomicServices(csElem);
+		
+		//Fetching the composition plan from the composite service node
+		ConstraintAwarePlan cnstrAwrPlan = parseCSPlan(csElem, atomicSvcs);
+		
+		//Creating constrained service without the composition plan
+		ConstrainedService cnstrdService = new ConstrainedService(new BasicService(currCSName, csInputs, csOutputs), csConstraints, csEffects);
+		
+		//Creating composite service from the constrained service and composition plan
+		Service layeredCS = new LayeredCompositeService(cnstrdService, cnstrAwrPlan);
+		
+		return layeredCS;
+	}
+	
 	/**
 	 * Method for fetching the value of "name" attribute of all "instance" elements under a document's or another element's sub-element.
 	 * @param 	doc			Document under which the container sub-element exists. This should be passed as null if the sub-element exists under another element.
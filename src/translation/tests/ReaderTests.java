@@ -6,6 +6,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -295,4 +298,46 @@ public class ReaderTests
 		assertNull(csConfig);
 		assertEquals(expectedLog, actualLog);
 	}
+	
+	/**
+	 * Tests that composite services read through the repository index are the same as those read by streaming the repository
+	 * and that the index is rebuilt when the repository changes.
+	 */
+	@Test
+	public void indexedXMLCSLookup() throws IOException
+	{
+		File csRepoFile = File.createTempFile("XML_Repository", ".xml");
+		File csIndexFile = new File(csRepoFile.getPath() + ".idx");
+		csRepoFile.deleteOnExit();
+		csIndexFile.deleteOnExit();
+		String csRepo = ReadWriteUtil.readTextFile("testinput/translationtests/readertests/readXMLCS/XML_Repository.xml");
+		Files.write(csRepoFile.toPath(), csRepo.getBytes(StandardCharsets.UTF_8));
+		
+		XMLCSReader csReader = new XMLCSReader();
+		XMLCSReader.setIndexingEnabled(false);
+		Service streamedCS = csReader.readCSFromXMLFile(csRepoFile.getPath(), "CompSvc_123");
+		assertFalse(csIndexFile.exists());
+		XMLCSReader.setIndexingEnabled(true);
+		Service indexedCS = csReader.readCSFromXMLFile(csRepoFile.getPath(), "CompSvc_123");
+		assertTrue(csIndexFile.exists());
+		
+		assertEquals(streamedCS.getName(), indexedCS.getName());
+		assertEquals(streamedCS.getInput(), indexedCS.getInput());
+		assertEquals(streamedCS.getOutput(), indexedCS.getOutput());
+		assertEquals(((LayeredCompositeService)streamedCS).getCompositionPlan().toString(), 
+						((LayeredCompositeService)indexedCS).getCompositionPlan().toString());
+		assertNull(csReader.readCSFromXMLFile(csRepoFile.getPath(), "CompSvc_456"));
+		
+		//Adding a copy of the composite service under another name
+		int csStart = csRepo.lastIndexOf("<compositeservice>", csRepo.indexOf("CompSvc_123"));
+		int csEnd = csRepo.indexOf("</compositeservice>", csStart) + "</compositeservice>".length();
+		String copiedCS = csRepo.substring(csStart, csEnd).replace("CompSvc_123", "CompSvc_456");
+		csRepo = csRepo.replace("</compositeservices>", "\t" + copiedCS + "\n</compositeservices>");
+		Files.write(csRepoFile.toPath(), csRepo.getBytes(StandardCharsets.UTF_8));
+		
+		Service copiedService = csReader.readCSFromXMLFile(csRepoFile.getPath(), "CompSvc_456");
+		assertEquals("CompSvc_456", copiedService.getName());
+		assertEquals(streamedCS.getInput(), copiedService.getInput());
+		assertEquals("CompSvc_123", csReader.readCSFromXMLFile(csRepoFile.getPath(), "CompSvc_123").getName());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package utilities;
+
+/**
+ * Enumeration listing the ways of handling a log message when the buffer of pending log messages is full.
+ * BLOCK makes the logging thread write the pending messages itself, so that no message is lost,
+ * while DROP_OLDEST and DROP_NEWEST keep logging from waiting on the log files at the cost of losing messages.
+ * @author agent
+ */
+public enum LogDropPolicy 
+{
+	BLOCK,
+	DROP_OLDEST,
+	DROP_NEWEST;
+}
\ No newline at end of file
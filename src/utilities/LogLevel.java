@@ -0,0 +1,14 @@
+package utilities;
+
+/**
+ * Enumeration listing the severity levels of log messages, from the least to the most severe.
+ * A logger records only the messages at or above its minimum level.
+ * @author agent
+ */
+public enum LogLevel 
+{
+	DEBUG,
+	INFO,
+	WARNING,
+	ERROR;
+}
\ No newline at end of file
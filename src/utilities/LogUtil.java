@@ -1,14 +1,40 @@
 package utilities;
 
 import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utility class for recording error and status messages in a log file.
+ * Logging a message does not write to the log file. The message is added to a bounded ring buffer shared by all the loggers,
+ * which a background thread flushes every flush interval, or as soon as the buffer is half full. A flush appends all the pending
+ * messages of a log file in a single write, and only one flush runs at a time, hence messages logged concurrently to the same file
+ * are never interleaved. If the buffer is full, the logging thread flushes it itself by default, or a message is dropped
+ * if a drop policy has been assigned, in which case the number of dropped messages is reported on the console by the next flush.
+ * Pending messages are also flushed when flush() is called, when the log file is assigned again, before the log file is read through
+ * ReadWriteUtil and when the JVM exits, hence callers read a log file with all the messages logged before without flushing it themselves.
  * @author Jyotsana Gupta
  */
 public class LogUtil 
 {
+	private static final Object bufferLock = new Object();
+	private static final Object writeLock = new Object();
+	private static String[] bufferedFileNames = new String[8192];
+	private static String[] bufferedMessages = new String[8192];
+	private static int bufferStart = 0;
+	private static int bufferSize = 0;
+	private static Map<String, Integer> pendingCounts = new HashMap<String, Integer>();
+	private static long droppedCount = 0;
+	private static long reportedDroppedCount = 0;
+	private static long flushInterval = 100;
+	private static LogDropPolicy dropPolicy = LogDropPolicy.BLOCK;
+	private static Thread flushThread = null;
 	private String logFileName;
+	private String logFilePath;
+	private LogLevel minLevel = LogLevel.INFO;
 	
 	/**
 	 * Method for assigning complete name and path of the log file.
@@ -18,7 +44,10 @@ public class LogUtil
 	public void setLogFileName(String logFileName)
 	{
 		this.logFileName = logFileName;
+		this.logFilePath = getLogFilePath(logFileName);
 		
+		//Writing the pending messages first so that messages logged earlier are not appended to the new log file
+		flushAll();
 		File logFile = new File(logFileName);
 		if ((logFile.exists()) && (!logFile.isDirectory()))
 		{
@@ -31,11 +60,304 @@ public class LogUtil
 	}
 	
 	/**
-	 * Method for writing a text message to the log file associated with this logger.
+	 * Method for assigning the minimum level of the messages recorded by this logger.
+	 * @param 	minLevel	Minimum log level, INFO by default
+	 */
+	public void setMinLevel(LogLevel minLevel)
+	{
+		this.minLevel = minLevel;
+	}
+	
+	/**
+	 * Accessor method for the minimum level of the messages recorded by this logger.
+	 * @return	Minimum log level
+	 */
+	public LogLevel getMinLevel()
+	{
+		return minLevel;
+	}
+	
+	/**
+	 * Method for writing a text message to the log file associated with this logger, at INFO level.
 	 * @param 	message		Text message to be written
 	 */
 	public void log(String message)
 	{
-		ReadWriteUtil.writeToTextFile(logFileName, message);
+		log(LogLevel.INFO, message);
+	}
+	
+	/**
+	 * Method for writing a text message of the given level to the log file associated with this logger.
+	 * The message is ignored if its level is below the minimum level of this logger or if no log file has been assigned.
+	 * @param 	level		Log level of the message
+	 * @param 	message		Text message to be written
+	 */
+	public void log(LogLevel level, String message)
+	{
+		if ((logFileName == null) || (level.compareTo(minLevel) < 0))
+		{
+			return;
+		}
+		
+		while (true)
+		{
+			synchronized (bufferLock)
+			{
+				startFlushThread();
+				int capacity = bufferedMessages.length;
+				if ((bufferSize < capacity) || (dropPolicy != LogDropPolicy.BLOCK))
+				{
+					if (bufferSize == capacity)
+					{
+						droppedCount++;
+						if (dropPolicy == LogDropPolicy.DROP_NEWEST)
+						{
+							return;
+						}
+						removePending(bufferedFileNames[bufferStart]);
+						bufferStart = (bufferStart + 1) % capacity;
+						bufferSize--;
+					}
+					
+					int bufferEnd = (bufferStart + bufferSize) % capacity;
+					bufferedFileNames[bufferEnd] = logFilePath;
+					bufferedMessages[bufferEnd] = message;
+					bufferSize++;
+					pendingCounts.merge(logFilePath, 1, Integer::sum);
+					if ((bufferSize == 1) || (bufferSize == capacity / 2))
+					{
+						bufferLock.notifyAll();
+					}
+					return;
+				}
+			}
+			
+			//The buffer is full and no message may be dropped, hence the logging thread writes the pending messages itself
+			flushAll();
+		}
+	}
+	
+	/**
+	 * Method for writing all the pending log messages, including those of other loggers, to their log files.
+	 */
+	public void flush()
+	{
+		flushAll();
+	}
+	
+	/**
+	 * Method for writing all the pending log messages to their log files.
+	 * The method returns only after every message logged before it was called has been written.
+	 * The number of messages dropped since the previous flush, if any, is reported on the console.
+	 */
+	public static void flushAll()
+	{
+		synchronized (writeLock)
+		{
+			for (Map.Entry<String, StringBuilder> fileMessages : drainBuffer().entrySet())
+			{
+				ReadWriteUtil.writeToTextFile(fileMessages.getKey(), fileMessages.getValue().toString());
+			}
+			
+			long newDroppedCount = getDroppedCount() - reportedDroppedCount;
+			if (newDroppedCount > 0)
+			{
+				System.out.println(newDroppedCount + " log messages were dropped because the log buffer was full.");
+				reportedDroppedCount += newDroppedCount;
+			}
+		}
+	}
+	
+	/**
+	 * Method for writing all the pending log messages if some of them belong to the given file, so that the file can be read.
+	 * The method returns at once if no messages of the file are pending, and only after they have been written otherwise.
+	 * @param 	fileName	Complete name and path of the file
+	 */
+	public static void flushFile(String fileName)
+	{
+		String filePath = getLogFilePath(fileName);
+		synchronized (writeLock)
+		{
+			//Messages being written by another flush are not pending but are written before the lock is released
+			boolean messagesPending;
+			synchronized (bufferLock)
+			{
+				messagesPending = pendingCounts.containsKey(filePath);
+			}
+			if (messagesPending)
+			{
+				flushAll();
+			}
+		}
+	}
+	
+	/**
+	 * Method for assigning the maximum time for which log messages are kept in the buffer.
+	 * @param 	flushInterval	Flush interval in milliseconds, 100 by default
+	 */
+	public static void setFlushInterval(long flushInterval)
+	{
+		synchronized (bufferLock)
+		{
+			LogUtil.flushInterval = Math.max(flushInterval, 1);
+			bufferLock.notifyAll();
+		}
+	}
+	
+	/**
+	 * Method for assigning the maximum number of pending log messages.
+	 * If more messages than the new capacity are pending, the oldest ones are dropped.
+	 * @param 	capacity	Buffer capacity, 8192 messages by default
+	 */
+	public static void setBufferCapacity(int capacity)
+	{
+		synchronized (bufferLock)
+		{
+			int newCapacity = Math.max(capacity, 2);
+			String[] newFileNames = new String[newCapacity];
+			String[] newMessages = new String[newCapacity];
+			int keptCount = Math.min(bufferSize, newCapacity);
+			for (int i = 0; i < keptCount; i++)
+			{
+				int bufferIndex = (bufferStart + bufferSize - keptCount + i) % bufferedMessages.length;
+				newFileNames[i] = bufferedFileNames[bufferIndex];
+				newMessages[i] = bufferedMessages[bufferIndex];
+			}
+			for (int i = 0; i < bufferSize - keptCount; i++)
+			{
+				removePending(bufferedFileNames[(bufferStart + i) % bufferedMessages.length]);
+			}
+			
+			droppedCount += bufferSize - keptCount;
+			bufferedFileNames = newFileNames;
+			bufferedMessages = newMessages;
+			bufferStart = 0;
+			bufferSize = keptCount;
+		}
+	}
+	
+	/**
+	 * Method for assigning the policy for handling new log messages when the buffer is full.
+	 * @param 	dropPolicy	Drop policy, BLOCK by default
+	 */
+	public static void setDropPolicy(LogDropPolicy dropPolicy)
+	{
+		synchronized (bufferLock)
+		{
+			LogUtil.dropPolicy = dropPolicy;
+		}
+	}
+	
+	/**
+	 * Method for fetching the number of log messages dropped because the buffer was full.
+	 * @return	Number of dropped messages
+	 */
+	public static long getDroppedCount()
+	{
+		synchronized (bufferLock)
+		{
+			return droppedCount;
+		}
+	}
+	
+	/**
+	 * Method for removing all the pending messages from the buffer.
+	 * @return	Pending messages concatenated in the order in which they were logged, mapped to their log file names
+	 */
+	private static Map<String, StringBuilder> drainBuffer()
+	{
+		Map<String, StringBuilder> pendingMessages = new LinkedHashMap<String, StringBuilder>();
+		synchronized (bufferLock)
+		{
+			for (int i = 0; i < bufferSize; i++)
+			{
+				int bufferIndex = (bufferStart + i) % bufferedMessages.length;
+				pendingMessages.computeIfAbsent(bufferedFileNames[bufferIndex], fileName -> new StringBuilder()).append(bufferedMessages[bufferIndex]);
+				bufferedFileNames[bufferIndex] = null;
+				bufferedMessages[bufferIndex] = null;
+			}
+			bufferStart = 0;
+			bufferSize = 0;
+			pendingCounts.clear();
+		}
+		
+		return pendingMessages;
+	}
+	
+	/**
+	 * Method for recording that a pending message of a log file has been dropped.
+	 * @param 	filePath	Normalized absolute path of the log file
+	 */
+	private static void removePending(String filePath)
+	{
+		pendingCounts.computeIfPresent(filePath, (path, count) -> (count == 1) ? null : count - 1);
+	}
+	
+	/**
+	 * Method for fetching the path by which the pending messages of a log file are recorded,
+	 * so that the same file named by different relative paths is recognized.
+	 * @param 	fileName	Complete name and path of the file
+	 * @return	Normalized absolute path of the file
+	 */
+	private static String getLogFilePath(String fileName)
+	{
+		try
+		{
+			return Paths.get(fileName).toAbsolutePath().normalize().toString();
+		}
+		catch(InvalidPathException ipe)
+		{
+			return fileName;
+		}
+	}
+	
+	/**
+	 * Method for starting the background flush thread when the first message is logged.
+	 * Pending messages are also flushed when the JVM exits, as the flush thread does not keep it running.
+	 */
+	private static void startFlushThread()
+	{
+		if (flushThread != null)
+		{
+			return;
+		}
+		
+		flushThread = new Thread(LogUtil::flushPeriodically, "LogUtil-flush");
+		flushThread.setDaemon(true);
+		flushThread.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(LogUtil::flushAll));
+	}
+	
+	/**
+	 * Method run by the flush thread for flushing the buffer once a flush interval has passed since a message became pending,
+	 * or earlier if the buffer is half full.
+	 */
+	private static void flushPeriodically()
+	{
+		try
+		{
+			while (true)
+			{
+				synchronized (bufferLock)
+				{
+					while (bufferSize == 0)
+					{
+						bufferLock.wait();
+					}
+					long flushTime = System.currentTimeMillis() + flushInterval;
+					long waitTime = flushInterval;
+					while ((bufferSize > 0) && (bufferSize < bufferedMessages.length / 2) && (waitTime > 0))
+					{
+						bufferLock.wait(waitTime);
+						waitTime = flushTime - System.currentTimeMillis();
+					}
+				}
+				flushAll();
+			}
+		}
+		catch(InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+		}
 	}
 }
\ No newline at end of file
@@ -1,11 +1,18 @@
 package utilities;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -20,52 +27,46 @@ import org.xml.sax.SAXException;
  */
 public class ReadWriteUtil 
 {
+	public static final long MAPPED_READ_THRESHOLD = 16 * 1024 * 1024;
+	
 	/**
 	 * Method for reading all the contents of a text file.
+	 * Pending log messages are written first if some of them belong to the file, so that a log file is read with all the messages logged before.
+	 * Files smaller than MAPPED_READ_THRESHOLD bytes are read in a single read, and larger files are memory-mapped
+	 * and decoded directly from the mapping. The platform default character set is used, as for the files written by this class.
 	 * @param	fileName	Complete file path, name and extension of the source file
 	 * @return	The entire contents of the input file as a String object
+	 * 			Empty string, if the file cannot be read
 	 */
 	public static String readTextFile(String fileName)
 	{
-		FileReader inputStream = null;
-		String input = "";
-		int nextChar;
+		LogUtil.flushFile(fileName);
 		
+		Path inputPath = Paths.get(fileName);
 		try
 		{
-			inputStream = new FileReader(fileName);
+			if (Files.size(inputPath) < MAPPED_READ_THRESHOLD)
+			{
+				return new String(Files.readAllBytes(inputPath), Charset.defaultCharset());
+			}
 			
-			//Reading until the end of the file is reached
-			while ((nextChar = inputStream.read()) != -1)
+			//Mapping large files so that their contents are not copied into an intermediate buffer before decoding
+			try (FileChannel inputChannel = FileChannel.open(inputPath, StandardOpenOption.READ))
 			{
-				char character = (char)nextChar;
-				input = input + Character.toString(character);
+				MappedByteBuffer inputBuffer = inputChannel.map(FileChannel.MapMode.READ_ONLY, 0, inputChannel.size());
+				return Charset.defaultCharset().decode(inputBuffer).toString();
 			}
 		}
-		catch(FileNotFoundException fnfe)
+		catch(NoSuchFileException nsfe)
 		{
-			System.out.println("Exception while opening the file: " + fnfe.getMessage());
+			System.out.println("Exception while opening the file: " + nsfe.getMessage());
 		}
 		catch(IOException ioe)
 		{
 			System.out.println("Exception while reading the file: " + ioe.getMessage());
 		}
-		finally
-		{
-			if (inputStream != null)
-			{
-				try
-				{
-					inputStream.close();
-				}
-				catch(IOException ioe)
-				{
-					System.out.println("Exception while closing the file: " + ioe.getMessage());
-				}
-			}
-		}
 		
-		return input;		
+		return "";
 	}
 	
 	/**
@@ -76,23 +77,34 @@ public class ReadWriteUtil
 	 */
 	public static void writeToTextFile(String fileName, String text)
 	{
-		PrintWriter outputStream = null;
-		
-		try
+		try (TextFileWriter outputWriter = openTextFileWriter(fileName))
 		{
-			outputStream = new PrintWriter(new FileOutputStream(fileName, true));
-			outputStream.print(text);
+			if (outputWriter != null)
+			{
+				outputWriter.append(text);
+			}
 		}
-		catch(FileNotFoundException fnfe)
+	}
+	
+	/**
+	 * Method for opening a text file for appending text to it repeatedly without reopening it for every write.
+	 * If the file does not already exist, a new file is created. Otherwise, the text is appended to the existing file.
+	 * The returned writer must be closed once all the text has been written.
+	 * @param	fileName	Complete file path, name and extension of the destination file
+	 * @return	Open writer for the file
+	 * 			Null, if the file cannot be opened
+	 */
+	public static TextFileWriter openTextFileWriter(String fileName)
+	{
+		try
 		{
-			System.out.println("Exception while opening the file: " + fnfe.getMessage());
+			OutputStream outputStream = Files.newOutputStream(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			return new TextFileWriter(new BufferedWriter(new OutputStreamWriter(outputStream, Charset.defaultCharset())));
 		}
-		finally
+		catch(IOException ioe)
 		{
-			if (outputStream != null)
-			{
-				outputStream.close();
-			}
+			System.out.println("Exception while opening the file: " + ioe.getMessage());
+			return null;
 		}
 	}
 	
@@ -0,0 +1,75 @@
+package utilities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+/**
+ * Class representing a text file opened for appending text to it, created by ReadWriteUtil.openTextFileWriter().
+ * The text appended is buffered and the file stays open until the writer is closed,
+ * hence repeated appends to the same file do not reopen the file every time.
+ * @author agent
+ */
+public class TextFileWriter implements AutoCloseable
+{
+	private BufferedWriter outputWriter;
+	
+	/**
+	 * Parameterized constructor.
+	 * @param 	outputWriter	Buffered writer of the open file
+	 */
+	TextFileWriter(BufferedWriter outputWriter)
+	{
+		this.outputWriter = outputWriter;
+	}
+	
+	/**
+	 * Method for appending text to the file.
+	 * @param 	text	The text to be written to the file
+	 * @return	true, if the text was written
+	 * 			false, otherwise
+	 */
+	public boolean append(String text)
+	{
+		try
+		{
+			outputWriter.write(text);
+			return true;
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while writing to the file: " + ioe.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Method for writing the buffered text to the file without closing it.
+	 */
+	public void flush()
+	{
+		try
+		{
+			outputWriter.flush();
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while writing to the file: " + ioe.getMessage());
+		}
+	}
+	
+	/**
+	 * Method for writing the buffered text to the file and closing it.
+	 */
+	@Override
+	public void close()
+	{
+		try
+		{
+			outputWriter.close();
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Exception while closing the file: " + ioe.getMessage());
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package utilities.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import utilities.ReadWriteUtil;
+import utilities.TextFileWriter;
+
+/**
+ * Class for testing the reading and writing of text files.
+ * @author agent
+ */
+public class ReadWriteUtilTests
+{
+	/**
+	 * Tests that text appended through an open writer is written to the file on flush and on close,
+	 * and that reopening an existing file appends to its contents.
+	 */
+	@Test
+	public void textFileWriter() throws IOException
+	{
+		String fileName = createTextFileName();
+		try (TextFileWriter textWriter = ReadWriteUtil.openTextFileWriter(fileName))
+		{
+			assertTrue(textWriter.append("Plan 1:\n"));
+			assertTrue(textWriter.append("S1"));
+			textWriter.flush();
+			assertEquals("Plan 1:\nS1", ReadWriteUtil.readTextFile(fileName));
+			assertTrue(textWriter.append("\n\n"));
+		}
+		assertEquals("Plan 1:\nS1\n\n", ReadWriteUtil.readTextFile(fileName));
+		
+		try (TextFileWriter textWriter = ReadWriteUtil.openTextFileWriter(fileName))
+		{
+			assertTrue(textWriter.append("Plan 2:\nS2"));
+		}
+		ReadWriteUtil.writeToTextFile(fileName, "\n");
+		assertEquals("Plan 1:\nS1\n\nPlan 2:\nS2\n", ReadWriteUtil.readTextFile(fileName));
+		
+		//A file in a missing folder cannot be opened
+		assertNull(ReadWriteUtil.openTextFileWriter(new File(fileName + "_missing", "plans.txt").getPath()));
+	}
+	
+	/**
+	 * Tests that files at least MAPPED_READ_THRESHOLD bytes long, which are read through a memory mapping,
+	 * are read completely and in order.
+	 */
+	@Test
+	public void largeTextFileRead() throws IOException
+	{
+		String fileName = createTextFileName();
+		String line = "Plan details line of the service composition\n";
+		StringBuilder expectedText = new StringBuilder();
+		int lineCount = 0;
+		try (TextFileWriter textWriter = ReadWriteUtil.openTextFileWriter(fileName))
+		{
+			while (expectedText.length() <= ReadWriteUtil.MAPPED_READ_THRESHOLD)
+			{
+				String numberedLine = (lineCount++) + " " + line;
+				expectedText.append(numberedLine);
+				textWriter.append(numberedLine);
+			}
+		}
+		
+		assertTrue(new File(fileName).length() > ReadWriteUtil.MAPPED_READ_THRESHOLD);
+		String actualText = ReadWriteUtil.readTextFile(fileName);
+		assertEquals(expectedText.length(), actualText.length());
+		assertTrue(expectedText.toString().equals(actualText));
+		assertTrue(actualText.endsWith((lineCount - 1) + " " + line));
+		
+		//Missing files are read as empty text
+		assertEquals("", ReadWriteUtil.readTextFile(fileName + "_missing"));
+	}
+	
+	/**
+	 * Method for creating the name of an empty temporary text file that is deleted on exit.
+	 * @return	Complete name and path of the text file
+	 */
+	private static String createTextFileName() throws IOException
+	{
+		File textFile = File.createTempFile("Test_Text_File", ".txt");
+		textFile.deleteOnExit();
+		
+		return textFile.getPath();
+	}
+}
\ No newline at end of file